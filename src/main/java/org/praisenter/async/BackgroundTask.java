@@ -25,6 +25,8 @@ public final class BackgroundTask implements ReadOnlyBackgroundTask, Comparable<
 	private final DoubleProperty progress;
 	private final ObjectProperty<Throwable> exception;
 	private final BooleanProperty complete;
+	private final BooleanProperty cancellable;
+	private volatile boolean cancelRequested;
 	private final ObjectProperty<LocalDateTime> startTime;
 	private final ObjectProperty<LocalDateTime> endTime;
 	
@@ -36,6 +38,8 @@ public final class BackgroundTask implements ReadOnlyBackgroundTask, Comparable<
 		this.progress = new SimpleDoubleProperty();
 		this.exception = new SimpleObjectProperty<>();
 		this.complete = new SimpleBooleanProperty();
+		this.cancellable = new SimpleBooleanProperty(false);
+		this.cancelRequested = false;
 		this.startTime = new SimpleObjectProperty<>(LocalDateTime.now());
 		this.endTime = new SimpleObjectProperty<>();
 		
@@ -161,6 +165,34 @@ public final class BackgroundTask implements ReadOnlyBackgroundTask, Comparable<
 		return this.exception;
 	}
 	
+	@Override
+	public boolean isCancellable() {
+		return this.cancellable.get();
+	}
+	
+	public void setCancellable(boolean cancellable) {
+		this.executeOnJavaFXThread(() -> {
+			this.cancellable.set(cancellable);
+		});
+	}
+	
+	@Override
+	public ReadOnlyBooleanProperty cancellableProperty() {
+		return this.cancellable;
+	}
+	
+	@Override
+	public void cancel() {
+		if (this.cancellable.get() && !this.complete.get()) {
+			this.cancelRequested = true;
+		}
+	}
+	
+	@Override
+	public boolean isCancelRequested() {
+		return this.cancelRequested;
+	}
+	
 	@Override
 	public boolean isComplete() {
 		return this.complete.get();
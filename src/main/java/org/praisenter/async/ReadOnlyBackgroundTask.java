@@ -51,6 +51,26 @@ public interface ReadOnlyBackgroundTask extends Comparable<ReadOnlyBackgroundTas
 	public Throwable getException();
 	public ReadOnlyObjectProperty<Throwable> exceptionProperty();
 	
+	/**
+	 * Returns true if the task supports cancellation
+	 * @return boolean
+	 */
+	public boolean isCancellable();
+	public ReadOnlyBooleanProperty cancellableProperty();
+	
+	/**
+	 * Requests that the task be cancelled.
+	 * <p>
+	 * This does nothing if the task isn't cancellable or is already complete.
+	 */
+	public void cancel();
+	
+	/**
+	 * Returns true if cancellation of the task has been requested
+	 * @return boolean
+	 */
+	public boolean isCancelRequested();
+	
 	/**
 	 * Returns true if the task is complete
 	 * @return boolean
@@ -0,0 +1,225 @@
+package org.praisenter.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A persist adapter that keeps a compact catalog of its folder so that it can start
+ * without reading every item.
+ * <p>
+ * The catalog holds the file name, size and last modified time of every file along
+ * with the id, name, type, dates and tags of the item in the file.  At load, a file
+ * whose size and last modified time match its catalog entry is represented by a
+ * placeholder built from the entry (see {@link #createPlaceholder(CatalogEntry)}) and
+ * isn't read at all.  New or changed files are loaded normally.  The full items are
+ * loaded later, either in the background or on demand (see {@link #hydrate(Persistable)}).
+ * <p>
+ * Every item must be stored in a single file in the base path.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ * @param <T> the item type
+ * @param <E> the path resolver type
+ */
+public abstract class AbstractCatalogPersistAdapter<T extends Persistable, E extends PathResolver<T>> extends AbstractPersistAdapter<T, E> {
+	/** The class-level logger */
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	/** The file name of the catalog */
+	private static final String CATALOG_FILE_NAME = "_catalog.bin";
+
+	/** The file name of the snapshot used by earlier versions (which held the full contents) */
+	private static final String LEGACY_SNAPSHOT_FILE_NAME = "_snapshot.bin";
+
+	/** The files of the placeholders that haven't been hydrated by item id */
+	private final ConcurrentMap<UUID, Path> placeholders;
+
+	public AbstractCatalogPersistAdapter(E pathResolver) {
+		super(pathResolver);
+		this.placeholders = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Creates an item from the given catalog entry.
+	 * <p>
+	 * The item should have enough set to be listed in the library (id, name, dates,
+	 * tags and anything derived from the type).
+	 * @param entry the entry
+	 * @return T
+	 */
+	protected abstract T createPlaceholder(CatalogEntry entry);
+
+	/**
+	 * Returns any store specific type information needed by {@link #createPlaceholder(CatalogEntry)}.
+	 * @param item the item
+	 * @return String
+	 */
+	protected String getCatalogType(T item) {
+		return null;
+	}
+
+	/**
+	 * Loads every item in the base path, using placeholders for the files that
+	 * haven't changed since the catalog was written.  The catalog is rewritten
+	 * when anything changed.
+	 */
+	@Override
+	public List<T> load() throws IOException {
+		final Path basePath = this.pathResolver.getBasePath();
+		final Path catalogPath = basePath.resolve(CATALOG_FILE_NAME);
+
+		// the snapshot of earlier versions duplicated every item
+		Files.deleteIfExists(basePath.resolve(LEGACY_SNAPSHOT_FILE_NAME));
+
+		final List<Path> paths = new ArrayList<>();
+		for (Path path : this.list()) {
+			// skip the catalog and any partially written catalogs
+			String name = path.getFileName().toString();
+			if (!name.startsWith(CATALOG_FILE_NAME) && !name.startsWith(LEGACY_SNAPSHOT_FILE_NAME)) {
+				paths.add(path);
+			}
+		}
+
+		final Map<String, CatalogEntry> entries = this.readCatalog(catalogPath);
+		final Map<String, CatalogEntry> current = new ConcurrentHashMap<>();
+
+		this.placeholders.clear();
+		List<T> items = this.load(paths, (path) -> this.tryLoad(path, entries, current));
+		LOGGER.debug("Loaded {} item(s) from '{}' of which {} are placeholders", items.size(), basePath.toAbsolutePath(), this.placeholders.size());
+
+		this.writeCatalog(catalogPath, entries, current);
+		return items;
+	}
+
+	private T tryLoad(Path path, Map<String, CatalogEntry> entries, Map<String, CatalogEntry> current) {
+		try {
+			final String name = path.getFileName().toString();
+			final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			final long size = attributes.size();
+			final long modified = attributes.lastModifiedTime().toMillis();
+
+			CatalogEntry entry = entries.get(name);
+			if (entry != null && entry.matches(size, modified)) {
+				current.put(name, entry);
+				if (!entry.isItem()) {
+					return null;
+				}
+
+				T item = this.createPlaceholder(entry);
+				this.placeholders.put(item.getId(), path);
+				return item;
+			}
+
+			// NOTE: files that fail to load aren't added so that they are tried again
+			LOGGER.trace("Loading '{}'", path.toAbsolutePath());
+			T item = this.load(path);
+			if (item != null) {
+				LOGGER.debug("Item '{}' loaded successfully", item.getName());
+				current.put(name, this.createEntry(name, size, modified, item));
+			} else if (attributes.isRegularFile()) {
+				// remember files that aren't items so they aren't sniffed again
+				current.put(name, new CatalogEntry(name, size, modified));
+			}
+			return item;
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to load '" + path.toAbsolutePath() + "'", ex);
+		}
+		return null;
+	}
+
+	private CatalogEntry createEntry(String fileName, long size, long modified, T item) {
+		Set<String> tags = new HashSet<>();
+		for (Tag tag : item.getTagsUnmodifiable()) {
+			tags.add(tag.getName());
+		}
+		return new CatalogEntry(fileName, size, modified,
+				item.getId(),
+				item.getName(),
+				this.getCatalogType(item),
+				item.getCreatedDate(),
+				item.getModifiedDate(),
+				tags);
+	}
+
+	private Map<String, CatalogEntry> readCatalog(Path path) {
+		try {
+			Map<String, CatalogEntry> entries = StoreCatalog.read(path);
+			LOGGER.debug("Read {} entries from catalog '{}'", entries.size(), path.toAbsolutePath());
+			return entries;
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to read catalog '" + path.toAbsolutePath() + "', all files will be read", ex);
+		}
+		return Collections.emptyMap();
+	}
+
+	private void writeCatalog(Path path, Map<String, CatalogEntry> entries, Map<String, CatalogEntry> current) {
+		boolean changed = current.size() != entries.size();
+		if (!changed) {
+			for (CatalogEntry entry : current.values()) {
+				if (entries.get(entry.getFileName()) != entry) {
+					changed = true;
+					break;
+				}
+			}
+		}
+
+		if (!changed) {
+			return;
+		}
+
+		try {
+			StoreCatalog.write(path, current.values());
+			LOGGER.debug("Wrote {} entries to catalog '{}'", current.size(), path.toAbsolutePath());
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to write catalog '" + path.toAbsolutePath() + "'", ex);
+		}
+	}
+
+	@Override
+	public boolean isHydrated(T item) {
+		return !this.placeholders.containsKey(item.getId());
+	}
+
+	@Override
+	public T hydrate(T item) throws IOException {
+		Path path = this.placeholders.get(item.getId());
+		if (path == null) {
+			return item;
+		}
+
+		LOGGER.trace("Hydrating '{}' from '{}'", item.getName(), path.toAbsolutePath());
+		T full;
+		synchronized (this.getLock(item.getId())) {
+			full = this.load(path);
+		}
+		if (full == null) {
+			throw new IOException("The file '" + path.toAbsolutePath() + "' no longer contains '" + item.getName() + "'");
+		}
+		return full;
+	}
+
+	@Override
+	public void setHydrated(T item) {
+		this.placeholders.remove(item.getId());
+	}
+
+	@Override
+	public void delete(T item) throws IOException {
+		super.delete(item);
+		this.placeholders.remove(item.getId());
+	}
+}
@@ -1,35 +1,47 @@
 package org.praisenter.data;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.InterruptedIOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Enumeration;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Stream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
-import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.praisenter.LockMap;
 //import org.praisenter.data.json.JsonIO;
+import org.praisenter.utility.Archives;
 import org.praisenter.utility.MimeType;
 
 public abstract class AbstractPersistAdapter<T extends Persistable, E extends PathResolver<T>> implements PersistAdapter<T> {
 	/** The class-level logger */
 	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The buffer size used when computing fingerprints */
+	private static final int FINGERPRINT_BUFFER_SIZE = 64 * 1024;
 
 	protected final E pathResolver;
 	protected final Map<ImportExportFormat, ImportExportProvider<T>> importExportProviders;
@@ -54,28 +66,128 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 		this.pathResolver.initialize();
 	}
 	
+	/**
+	 * Loads every item in the base path.
+	 * <p>
+	 * Files are loaded in parallel (see {@link #getLoadParallelism()}) but the items
+	 * are always returned in file name order.
+	 */
 	@Override
 	public List<T> load() throws IOException {
-		final List<T> items = new ArrayList<T>();
+		return this.load(this.list(), this::tryLoad);
+	}
+	
+	/**
+	 * Returns the files in the base path sorted by name so that the order of the
+	 * loaded items doesn't depend on the file system.
+	 * @return List&lt;Path&gt;
+	 * @throws IOException if the base path can't be listed
+	 */
+	protected List<Path> list() throws IOException {
 		final Path basePath = this.pathResolver.getBasePath();
 		LOGGER.trace("Loading data from '{}'", basePath.toAbsolutePath());
+		
+		final List<Path> paths = new ArrayList<>();
 		try (DirectoryStream<Path> stream = Files.newDirectoryStream(basePath)) {
 			for (Path path : stream) {
-				try {
-					LOGGER.trace("Loading '{}'", path.toAbsolutePath());
-					T item = this.load(path);
-					if (item != null) {
-						LOGGER.debug("Item '{}' loaded successfully", item.getName());
-						items.add(item);
-					}
-				} catch (Exception ex) {
-					LOGGER.warn("Failed to load '" + path.toAbsolutePath() + "'", ex);
+				paths.add(path);
+			}
+		}
+		
+		Collections.sort(paths);
+		return paths;
+	}
+	
+	/**
+	 * Loads the given files in parallel using the given loader, returning the
+	 * non-null results in the same order as the files.
+	 * <p>
+	 * The loader is called from multiple threads and is expected to handle its own errors.
+	 * @param paths the files
+	 * @param loader the loader for a single file
+	 * @return List&lt;T&gt;
+	 * @throws IOException if loading is interrupted
+	 */
+	protected final List<T> load(List<Path> paths, Function<Path, T> loader) throws IOException {
+		final Path basePath = this.pathResolver.getBasePath();
+		final int n = paths.size();
+		final Object[] loaded = new Object[n];
+		
+		final int threads = Math.min(this.getLoadParallelism(), n);
+		if (threads <= 1) {
+			for (int i = 0; i < n; i++) {
+				loaded[i] = loader.apply(paths.get(i));
+			}
+		} else {
+			LOGGER.debug("Loading {} files from '{}' using {} thread(s)", n, basePath.toAbsolutePath(), threads);
+			final ExecutorService workers = Executors.newFixedThreadPool(threads, (r) -> {
+				Thread thread = new Thread(r, "persist-load");
+				thread.setDaemon(true);
+				return thread;
+			});
+			
+			try {
+				final List<Future<?>> futures = new ArrayList<>(n);
+				for (int i = 0; i < n; i++) {
+					final int index = i;
+					futures.add(workers.submit(() -> {
+						loaded[index] = loader.apply(paths.get(index));
+					}));
+				}
+				
+				for (Future<?> future : futures) {
+					future.get();
 				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Loading data from '" + basePath.toAbsolutePath() + "' was interrupted");
+			} catch (ExecutionException ex) {
+				throw new IOException("Failed to load data from '" + basePath.toAbsolutePath() + "'", ex.getCause());
+			} finally {
+				workers.shutdownNow();
+			}
+		}
+		
+		final List<T> items = new ArrayList<T>(n);
+		for (Object item : loaded) {
+			if (item != null) {
+				@SuppressWarnings("unchecked")
+				T t = (T)item;
+				items.add(t);
 			}
 		}
 		return items;
 	}
 	
+	/**
+	 * Returns the maximum number of files to load at the same time.
+	 * <p>
+	 * Subclasses whose {@link #load(Path)} isn't thread safe should return 1.
+	 * @return int
+	 */
+	protected int getLoadParallelism() {
+		return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+	}
+	
+	/**
+	 * Loads the given file, logging and returning null on failure.
+	 * @param path the file
+	 * @return T
+	 */
+	private T tryLoad(Path path) {
+		try {
+			LOGGER.trace("Loading '{}'", path.toAbsolutePath());
+			T item = this.load(path);
+			if (item != null) {
+				LOGGER.debug("Item '{}' loaded successfully", item.getName());
+			}
+			return item;
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to load '" + path.toAbsolutePath() + "'", ex);
+		}
+		return null;
+	}
+	
 	@Override
 	public void create(T item) throws IOException {
 		LOGGER.trace("Getting lock for '{}'", item.getId());
@@ -151,14 +263,14 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 				try (FileOutputStream fos = new FileOutputStream(path.toFile());
 					BufferedOutputStream bos = new BufferedOutputStream(fos)) {
 					LOGGER.debug("Exporting item '{}'", item.getName());
-					provider.exp(this, bos, item);
+					provider.exp(this, bos, this.hydrate(item));
 				}	
 			}
 		}
 	}
 	
 	@Override
-	public void exportData(ImportExportFormat format, ZipArchiveOutputStream destination, List<T> items) throws IOException {
+	public void exportData(ImportExportFormat format, ZipExport destination, List<T> items) throws IOException {
 		LOGGER.trace("Getting export provider for format '{}'", format);
 		ImportExportProvider<T> provider = this.importExportProviders.get(format);
 		if (provider == null) {
@@ -173,7 +285,7 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 				synchronized (this.locks.get(item.getId())) {
 					LOGGER.trace("Lock for '{}' obtained", item.getId());
 					LOGGER.debug("Exporting item '{}'", item.getName());
-					provider.exp(this, destination, item);
+					provider.exp(this, destination, this.hydrate(item));
 				}
 			}
 		}
@@ -184,22 +296,46 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 		Collection<ImportExportProvider<T>> providers = this.importExportProviders.values();
 		return this.importFile(path, providers);
 	}
-
-	private DataImportResult<T> importFile(Path path, Collection<ImportExportProvider<T>> providers) throws IOException {
-		DataImportResult<T> results = new DataImportResult<>();
-		
-		LOGGER.debug("Importing data from '{}'", path.toAbsolutePath());
+	
+	/**
+	 * Imports the given file, of the given (already detected) mime type, using the
+	 * providers that support the mime type.
+	 * <p>
+	 * Unlike {@link #importData(Path)}, this method does not extract zip files that
+	 * no provider could read.  That's left to the caller.
+	 */
+	@Override
+	public DataImportResult<T> importData(Path path, String mimeType) throws IOException {
+		LOGGER.debug("Importing data from '{}' as '{}'", path.toAbsolutePath(), mimeType);
 		if (!Files.isRegularFile(path)) {
 			throw new UnsupportedOperationException("Cannot import data from '" + path.toAbsolutePath() + "' because it's not a regular file");
 		}
+		return this.importFile(path, mimeType, this.importExportProviders.values());
+	}
+	
+	@Override
+	public boolean isImportSupported(String mimeType) {
+		if (mimeType == null) return false;
+		for (ImportExportProvider<T> provider : this.importExportProviders.values()) {
+			if (provider.isSupported(mimeType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private DataImportResult<T> importFile(Path path, String mimeType, Collection<ImportExportProvider<T>> providers) {
+		DataImportResult<T> results = new DataImportResult<>();
+		if (mimeType == null) {
+			return results;
+		}
 		
-		// STEP 1: Attempt to import the file as-is
 		for (ImportExportProvider<T> provider : providers) {
 			LOGGER.trace("Testing provider '{}'", provider.getClass().getName());
-			if (provider.isSupported(path)) {
+			if (provider.isSupported(mimeType)) {
 				try {
 					LOGGER.info("Attempting import of '{}' using provider '{}'", path.toAbsolutePath(), provider.getClass());
-					DataImportResult<T> res = provider.imp(this, path);
+					DataImportResult<T> res = provider.imp(this, path, mimeType);
 					results.add(res);
 					if (!res.isEmpty()) {
 						break;
@@ -210,92 +346,119 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 			}
 		}
 		
+		return results;
+	}
+
+	private DataImportResult<T> importFile(Path path, Collection<ImportExportProvider<T>> providers) throws IOException {
+		DataImportResult<T> results = new DataImportResult<>();
+		
+		LOGGER.debug("Importing data from '{}'", path.toAbsolutePath());
+		if (!Files.isRegularFile(path)) {
+			throw new UnsupportedOperationException("Cannot import data from '" + path.toAbsolutePath() + "' because it's not a regular file");
+		}
+		
+		// STEP 1: Attempt to import the file as-is
+		String mimeType = MimeType.get(path);
+		results.add(this.importFile(path, mimeType, providers));
+		
 		// did we get anything?
 		if (results.isEmpty()) {
 			LOGGER.info("No import provider was found to read '{}'", path.toAbsolutePath());
 			// we failed to read the raw file with a format provider
 			// check if the file is a zip and we'll try to import each
 			// file as an item
-			if (MimeType.ZIP.check(path)) {
-				LOGGER.debug("The file '{}' is a zip file, attempting to extract to import contents individually", path.toAbsolutePath());
-				// create a temp location to store the unzipped files
-				Path importPath = this.pathResolver.getBasePath().resolve("temp");
-				Files.createDirectories(importPath);
-				Path tempPath = Files.createTempDirectory(importPath, "IMPORT");
-				
-				try {
-					// extract the zip and lets try to read each file individually
-					this.unzip(path, tempPath);
-					LOGGER.debug("Unzip to '{}' completed successfully", tempPath.toAbsolutePath());
-					
-					// process the directory
-					try (Stream<Path> fileStream = Files.walk(tempPath)) {
-						fileStream.forEach(p -> {
-							if (Files.isRegularFile(p)) {
-								try {
-									DataImportResult<T> res = this.importFile(p, providers);
-									results.add(res);
-								} catch (IOException e) {
-									LOGGER.debug("Failed to import file '" + p.toAbsolutePath() + "'", e);
-								}
-							}
-					    });
-					}
-				} finally {
-					// when done, clean up the temp directory
-					if (tempPath != null && Files.exists(tempPath)) {
-						try(Stream<Path> fileStream = Files.walk(tempPath)) {
-							fileStream
-								.sorted((a, b) -> b.compareTo(a)) // reverse; files before dirs
-								.forEach(p -> {
-							        try { 
-							        	Files.delete(p); 
-							        } catch(IOException e) {
-							        	LOGGER.warn("Failed to delete the temp file '" + p.toAbsolutePath().toString() + "'.", e);
-							        }
-							     });
-						} catch (Exception ex) {
-							LOGGER.warn("Failed to clean up temp directory '" + tempPath.toAbsolutePath() + "'.", ex);
-						}
-					}
-				}
+			if (MimeType.ZIP.is(mimeType)) {
+				LOGGER.debug("The file '{}' is a zip file, attempting to import contents individually", path.toAbsolutePath());
+				results.add(this.importArchive(path));
 			}
 		}
 		
 		return results;
 	}
 	
-	private void unzip(Path zip, Path folder) throws IOException {
+	/**
+	 * Imports each entry of the given zip file using the providers that support it.
+	 * <p>
+	 * The mime type of each entry is detected here since the entries weren't planned.
+	 * @param path the zip file
+	 * @return {@link DataImportResult}
+	 * @throws IOException if an IO error occurs
+	 */
+	private DataImportResult<T> importArchive(Path path) throws IOException {
+		LOGGER.debug("Importing the contents of '{}'", path.toAbsolutePath());
+		DataImportResult<T> results = new DataImportResult<>();
+		
+		try (ImportArchive archive = new ImportArchive(path)) {
+			Archives.forEachEntry(path, (zipFile, entry) -> {
+				String mimeType;
+				try (InputStream stream = new BufferedInputStream(zipFile.getInputStream(entry))) {
+					mimeType = MimeType.get(stream, FilenameUtils.getName(entry.getName()));
+				}
+				this.importEntry(results, archive, zipFile, entry, mimeType);
+			});
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Imports the given entries (entry name to mime type) of the given archive using the 
+	 * providers that support them.
+	 * <p>
+	 * Entries are handed to the providers as streams.  Only providers that can't read
+	 * a stream get the entry as a file, which is shared with any other store importing
+	 * the same entry (see {@link ImportArchive#getFile(ZipFile, ZipArchiveEntry)}).
+	 */
+	@Override
+	public DataImportResult<T> importArchive(ImportArchive archive, Map<String, String> entries) throws IOException {
+		final Path path = archive.getPath();
+		LOGGER.debug("Importing {} entries of '{}'", entries.size(), path.toAbsolutePath());
+		DataImportResult<T> results = new DataImportResult<>();
+		
 		// JAVABUG (L) 11/01/23 [workaround] Native java.util.zip package can't support zips 4GB or bigger or elements 2GB or bigger
-        try (ZipFile zipFile = ZipFile.builder().setPath(zip).get()) {
-        	Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
-        	while (entries.hasMoreElements()) {
-        		ZipArchiveEntry entry = entries.nextElement();
-        		
-        		if (entry.isDirectory()) 
-        			continue;
-        			
-        		if (zipFile.canReadEntryData(entry)) {
-        			Path file = folder.resolve(entry.getName());
-        			Files.createDirectories(file.getParent());
-        			// NOTE: I tried using Files.copy here but it was super slow
-        			// with large (> 1GB) files.  I'm guessing due to an internal 
-        			// buffer size that's pretty small
-        			this.copy(zipFile.getInputStream(entry), file);
-        		}
-        	}
-        }
+		try (ZipFile zipFile = ZipFile.builder().setPath(path).get()) {
+			for (Map.Entry<String, String> e : entries.entrySet()) {
+				ZipArchiveEntry entry = zipFile.getEntry(e.getKey());
+				if (entry == null) {
+					LOGGER.warn("The entry '{}' was not found in '{}'", e.getKey(), path.toAbsolutePath());
+					continue;
+				}
+				this.importEntry(results, archive, zipFile, entry, e.getValue());
+			}
+		}
+		
+		return results;
 	}
 	
-	private void copy(InputStream stream, Path path) throws IOException {
-		final int size = 1024 * 1024; // ~1MB
-	    try (OutputStream outStream = new FileOutputStream(path.toFile(), false)) {
-		    byte[] buffer = new byte[size];
-		    int bytesRead;
-		    while ((bytesRead = stream.read(buffer)) != -1) {
-		        outStream.write(buffer, 0, bytesRead);
-		    }
-	    }
+	private void importEntry(DataImportResult<T> results, ImportArchive archive, ZipFile zipFile, ZipArchiveEntry entry, String mimeType) {
+		if (mimeType == null) {
+			return;
+		}
+		
+		final String name = FilenameUtils.getName(entry.getName());
+		final Path path = archive.getPath();
+		for (ImportExportProvider<T> provider : this.importExportProviders.values()) {
+			LOGGER.trace("Testing provider '{}'", provider.getClass().getName());
+			if (provider.isSupported(mimeType)) {
+				try {
+					LOGGER.info("Attempting import of '{}' in '{}' using provider '{}'", entry.getName(), path.toAbsolutePath(), provider.getClass());
+					DataImportResult<T> res;
+					try (InputStream stream = zipFile.getInputStream(entry)) {
+						res = provider.imp(this, name, stream);
+					}
+					if (res == null) {
+						// the provider can only read files
+						res = provider.imp(this, archive.getFile(zipFile, entry));
+					}
+					results.add(res);
+					if (!res.isEmpty()) {
+						break;
+					}
+				} catch (Exception ex) {
+					LOGGER.warn("Failed to import '" + entry.getName() + "' in '" + path.toAbsolutePath() + "' using provider '" + provider.getClass().getName() + "'", ex);
+				}
+			}
+		}
 	}
 	
 	@Override
@@ -303,6 +466,41 @@ public abstract class AbstractPersistAdapter<T extends Persistable, E extends Pa
 		return this.pathResolver.getPath(item);
 	}
 	
+	/**
+	 * Returns a fingerprint of the given item's stored state made up of
+	 * the modified date, the file's size and last modified time and a 
+	 * checksum of the file's contents.
+	 * <p>
+	 * This is used to detect items that have changed outside of the
+	 * application (or since they were last indexed).
+	 * <p>
+	 * The file's contents are only read when the modified date, size or last 
+	 * modified time are different from the given previous fingerprint.
+	 */
+	@Override
+	public String getFingerprint(T item, String previous) throws IOException {
+		Path path = this.pathResolver.getPath(item);
+		Instant modified = item.getModifiedDate();
+		
+		synchronized (this.locks.get(item.getId())) {
+			BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			String prefix = (modified != null ? modified.toEpochMilli() : 0) + "-" + attributes.size() + "-" + attributes.lastModifiedTime().toMillis() + "-";
+			if (previous != null && previous.startsWith(prefix)) {
+				return previous;
+			}
+			
+			CRC32C checksum = new CRC32C();
+			try (InputStream stream = Files.newInputStream(path)) {
+				byte[] buffer = new byte[FINGERPRINT_BUFFER_SIZE];
+				int bytesRead;
+				while ((bytesRead = stream.read(buffer)) != -1) {
+					checksum.update(buffer, 0, bytesRead);
+				}
+			}
+			return prefix + Long.toHexString(checksum.getValue());
+		}
+	}
+	
 	@Override
 	public Object getLock(UUID id) {
 		return this.locks.get(id);
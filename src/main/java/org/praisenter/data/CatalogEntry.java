@@ -0,0 +1,117 @@
+package org.praisenter.data;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The compact metadata of a single file in a store's catalog.
+ * <p>
+ * An entry with no id is a file that isn't an item.  Entries are only valid while the
+ * file's size and last modified time still match.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ * @see AbstractCatalogPersistAdapter
+ */
+public final class CatalogEntry {
+	private final String fileName;
+	private final long size;
+	private final long lastModified;
+
+	private final UUID id;
+	private final String name;
+	private final String type;
+	private final Instant createdDate;
+	private final Instant modifiedDate;
+	private final Set<String> tags;
+
+	/**
+	 * Creates an entry for a file that isn't an item.
+	 * @param fileName the file name
+	 * @param size the file size
+	 * @param lastModified the file's last modified time in milliseconds
+	 */
+	public CatalogEntry(String fileName, long size, long lastModified) {
+		this(fileName, size, lastModified, null, null, null, null, null, null);
+	}
+
+	/**
+	 * Full constructor.
+	 * @param fileName the file name
+	 * @param size the file size
+	 * @param lastModified the file's last modified time in milliseconds
+	 * @param id the item id
+	 * @param name the item name
+	 * @param type the store specific type of the item; can be null
+	 * @param createdDate the item's created date
+	 * @param modifiedDate the item's modified date
+	 * @param tags the item's tags
+	 */
+	public CatalogEntry(String fileName, long size, long lastModified, UUID id, String name, String type, Instant createdDate, Instant modifiedDate, Set<String> tags) {
+		this.fileName = fileName;
+		this.size = size;
+		this.lastModified = lastModified;
+		this.id = id;
+		this.name = name;
+		this.type = type;
+		this.createdDate = createdDate;
+		this.modifiedDate = modifiedDate;
+		this.tags = tags != null ? Collections.unmodifiableSet(tags) : Collections.emptySet();
+	}
+
+	/**
+	 * Returns true if this entry is still valid for a file with the given size and last modified time.
+	 * @param size the file size
+	 * @param lastModified the file's last modified time in milliseconds
+	 * @return boolean
+	 */
+	public boolean matches(long size, long lastModified) {
+		return this.size == size && this.lastModified == lastModified;
+	}
+
+	/**
+	 * Returns true if the file is an item.
+	 * @return boolean
+	 */
+	public boolean isItem() {
+		return this.id != null;
+	}
+
+	public String getFileName() {
+		return this.fileName;
+	}
+
+	public long getSize() {
+		return this.size;
+	}
+
+	public long getLastModified() {
+		return this.lastModified;
+	}
+
+	public UUID getId() {
+		return this.id;
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	public String getType() {
+		return this.type;
+	}
+
+	public Instant getCreatedDate() {
+		return this.createdDate;
+	}
+
+	public Instant getModifiedDate() {
+		return this.modifiedDate;
+	}
+
+	public Set<String> getTags() {
+		return this.tags;
+	}
+}
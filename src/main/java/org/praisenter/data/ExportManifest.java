@@ -0,0 +1,221 @@
+package org.praisenter.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.praisenter.data.json.InstantJsonDeserializer;
+import org.praisenter.data.json.InstantJsonSerializer;
+import org.praisenter.data.json.JsonIO;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * A record of the items in an export used to create and restore incremental exports.
+ * <p>
+ * Every export in the Praisenter format includes a manifest with an entry for each
+ * item in the export's scope.  An incremental export is created from a base export's
+ * manifest and only contains the items whose hash changed (the changed set) along with
+ * the ids of items that are no longer present (the removed set).  Its manifest still
+ * lists every item so that it can be the base of the next incremental export.
+ * <p>
+ * Restoring is done by importing the full export and then each incremental export in
+ * order, deleting the removed items along the way.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ */
+public final class ExportManifest {
+	/** The name of the manifest entry in the export */
+	public static final String FILE_NAME = "_export-manifest.json";
+	
+	private UUID id;
+	private UUID baseId;
+	private Instant createdDate;
+	private final Map<UUID, ExportManifestEntry> items;
+	private final Set<UUID> changed;
+	private final Set<UUID> removed;
+	
+	public ExportManifest() {
+		this.items = new LinkedHashMap<>();
+		this.changed = new HashSet<>();
+		this.removed = new HashSet<>();
+	}
+	
+	/**
+	 * Creates a new manifest for an export based on the given manifest.
+	 * @param base the base export's manifest; null for a full export
+	 */
+	public ExportManifest(ExportManifest base) {
+		this();
+		this.id = UUID.randomUUID();
+		this.baseId = base != null ? base.id : null;
+		this.createdDate = Instant.now();
+	}
+	
+	/**
+	 * Reads the manifest from the given export.
+	 * @param path the export (zip) file
+	 * @return {@link ExportManifest} or null if the export doesn't have one
+	 * @throws IOException if an IO error occurs
+	 */
+	public static ExportManifest read(Path path) throws IOException {
+		try (ZipFile zipFile = ZipFile.builder().setPath(path).get()) {
+			ZipArchiveEntry entry = zipFile.getEntry(FILE_NAME);
+			if (entry == null) {
+				return null;
+			}
+			try (InputStream stream = zipFile.getInputStream(entry)) {
+				return JsonIO.read(stream, ExportManifest.class);
+			}
+		}
+	}
+	
+	/**
+	 * Adds an item to this manifest.
+	 * <p>
+	 * The item is marked as changed if the given base doesn't have the item
+	 * or its hash is different.
+	 * @param base the base export's manifest; can be null
+	 * @param id the item id
+	 * @param modifiedDate the item's modified date
+	 * @param hash a hash of the item's stored content; can be null
+	 * @return boolean true if the item changed
+	 */
+	public boolean add(ExportManifest base, UUID id, Instant modifiedDate, String hash) {
+		this.items.put(id, new ExportManifestEntry(id, modifiedDate, hash));
+		
+		ExportManifestEntry previous = base != null ? base.items.get(id) : null;
+		if (previous == null || hash == null || !hash.equals(previous.getHash())) {
+			this.changed.add(id);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns the hash of the given item in this manifest or null if it's not present.
+	 * @param id the item id
+	 * @return String
+	 */
+	public String getHash(UUID id) {
+		ExportManifestEntry entry = this.items.get(id);
+		return entry != null ? entry.getHash() : null;
+	}
+	
+	/**
+	 * Marks the items of the given base that no longer exist as removed.
+	 * <p>
+	 * An export is often only a selection of the workspace, so an item in the base that
+	 * wasn't added to this manifest is only removed if it's no longer in the workspace.
+	 * Otherwise its entry is carried forward so that the next incremental export based
+	 * on this one still sees it as unchanged.
+	 * @param base the base export's manifest; can be null
+	 * @param existing the ids of all the items in the workspace
+	 */
+	public void computeRemoved(ExportManifest base, Set<UUID> existing) {
+		this.removed.clear();
+		if (base == null) return;
+		for (ExportManifestEntry entry : base.items.values()) {
+			UUID id = entry.getId();
+			if (this.items.containsKey(id)) {
+				continue;
+			}
+			if (existing.contains(id)) {
+				this.items.put(id, entry);
+			} else {
+				this.removed.add(id);
+			}
+		}
+	}
+	
+	/**
+	 * Returns true if this is the manifest of a full export.
+	 * @return boolean
+	 */
+	public boolean isFull() {
+		return this.baseId == null;
+	}
+	
+	@JsonProperty
+	public UUID getId() {
+		return this.id;
+	}
+	
+	@JsonProperty
+	public void setId(UUID id) {
+		this.id = id;
+	}
+	
+	@JsonProperty
+	public UUID getBaseId() {
+		return this.baseId;
+	}
+	
+	@JsonProperty
+	public void setBaseId(UUID baseId) {
+		this.baseId = baseId;
+	}
+	
+	@JsonProperty
+	@JsonSerialize(using = InstantJsonSerializer.class)
+	public Instant getCreatedDate() {
+		return this.createdDate;
+	}
+	
+	@JsonProperty
+	@JsonDeserialize(using = InstantJsonDeserializer.class)
+	public void setCreatedDate(Instant createdDate) {
+		this.createdDate = createdDate;
+	}
+	
+	@JsonProperty
+	public List<ExportManifestEntry> getItems() {
+		return new ArrayList<>(this.items.values());
+	}
+	
+	@JsonProperty
+	public void setItems(List<ExportManifestEntry> items) {
+		this.items.clear();
+		if (items == null) return;
+		for (ExportManifestEntry entry : items) {
+			this.items.put(entry.getId(), entry);
+		}
+	}
+	
+	@JsonProperty
+	public Set<UUID> getChanged() {
+		return this.changed;
+	}
+	
+	@JsonProperty
+	public void setChanged(Set<UUID> changed) {
+		this.changed.clear();
+		if (changed == null) return;
+		this.changed.addAll(changed);
+	}
+	
+	@JsonProperty
+	public Set<UUID> getRemoved() {
+		return this.removed;
+	}
+	
+	@JsonProperty
+	public void setRemoved(Set<UUID> removed) {
+		this.removed.clear();
+		if (removed == null) return;
+		this.removed.addAll(removed);
+	}
+}
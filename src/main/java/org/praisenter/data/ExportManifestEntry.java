@@ -0,0 +1,72 @@
+package org.praisenter.data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.praisenter.data.json.InstantJsonDeserializer;
+import org.praisenter.data.json.InstantJsonSerializer;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * The state of a single item at the time of an export.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ * @see ExportManifest
+ */
+public final class ExportManifestEntry {
+	private UUID id;
+	private Instant modifiedDate;
+	private String hash;
+	
+	public ExportManifestEntry() {
+		
+	}
+	
+	/**
+	 * Full constructor.
+	 * @param id the item id
+	 * @param modifiedDate the item's modified date
+	 * @param hash a hash of the item's stored content
+	 */
+	public ExportManifestEntry(UUID id, Instant modifiedDate, String hash) {
+		this.id = id;
+		this.modifiedDate = modifiedDate;
+		this.hash = hash;
+	}
+	
+	@JsonProperty
+	public UUID getId() {
+		return this.id;
+	}
+	
+	@JsonProperty
+	public void setId(UUID id) {
+		this.id = id;
+	}
+	
+	@JsonProperty
+	@JsonSerialize(using = InstantJsonSerializer.class)
+	public Instant getModifiedDate() {
+		return this.modifiedDate;
+	}
+	
+	@JsonProperty
+	@JsonDeserialize(using = InstantJsonDeserializer.class)
+	public void setModifiedDate(Instant modifiedDate) {
+		this.modifiedDate = modifiedDate;
+	}
+	
+	@JsonProperty
+	public String getHash() {
+		return this.hash;
+	}
+	
+	@JsonProperty
+	public void setHash(String hash) {
+		this.hash = hash;
+	}
+}
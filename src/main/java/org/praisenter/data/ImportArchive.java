@@ -0,0 +1,115 @@
+package org.praisenter.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.praisenter.utility.Archives;
+
+/**
+ * A zip file whose entries are being imported individually, possibly by more than one store.
+ * <p>
+ * Entries are normally streamed straight from the zip.  When a provider can only read files,
+ * the entry is written to a temporary file the first time it's requested and that file is
+ * shared by every store that needs it.  The temporary files are deleted when this archive is
+ * closed.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ */
+public final class ImportArchive implements AutoCloseable {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The zip file */
+	private final Path path;
+	
+	/** The temporary files by entry name */
+	private final Map<String, Path> files;
+	
+	/** The folder of the temporary files; created on first use */
+	private Path folder;
+	
+	/**
+	 * Minimal constructor.
+	 * @param path the zip file
+	 */
+	public ImportArchive(Path path) {
+		this.path = path;
+		this.files = new ConcurrentHashMap<>();
+	}
+	
+	/**
+	 * Returns the zip file.
+	 * @return Path
+	 */
+	public Path getPath() {
+		return this.path;
+	}
+	
+	/**
+	 * Returns a file with the contents of the given entry (keeping its name), writing it 
+	 * only the first time the entry is requested.
+	 * @param zipFile the zip file
+	 * @param entry the entry
+	 * @return Path
+	 * @throws IOException if an IO error occurs
+	 */
+	public Path getFile(ZipFile zipFile, ZipArchiveEntry entry) throws IOException {
+		try {
+			return this.files.computeIfAbsent(entry.getName(), (name) -> {
+				try {
+					// each entry gets a folder of its own so that it can keep its name
+					Path file = Files.createTempDirectory(this.getFolder(), "ENTRY").resolve(FilenameUtils.getName(name));
+					Archives.transfer(zipFile.getInputStream(entry), file);
+					return file;
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			});
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+	
+	private synchronized Path getFolder() throws IOException {
+		if (this.folder == null) {
+			this.folder = Files.createTempDirectory("IMPORT");
+		}
+		return this.folder;
+	}
+	
+	/**
+	 * Deletes any temporary files.
+	 */
+	@Override
+	public void close() {
+		for (Path file : this.files.values()) {
+			try {
+				Files.deleteIfExists(file);
+				Files.deleteIfExists(file.getParent());
+			} catch (Exception ex) {
+				LOGGER.warn("Failed to delete the temporary file '" + file.toAbsolutePath() + "': " + ex.getMessage());
+			}
+		}
+		this.files.clear();
+		
+		synchronized (this) {
+			if (this.folder != null) {
+				try {
+					Files.deleteIfExists(this.folder);
+				} catch (Exception ex) {
+					LOGGER.warn("Failed to delete the temporary folder '" + this.folder.toAbsolutePath() + "': " + ex.getMessage());
+				}
+				this.folder = null;
+			}
+		}
+	}
+}
@@ -64,6 +64,21 @@ public interface ImportExportProvider<T extends Persistable> {
 	 */
 	public void exp(PersistAdapter<T> adapter, ZipArchiveOutputStream stream, T data) throws IOException;
 	
+	/**
+	 * Exports the given item to the given zip export.
+	 * <p>
+	 * The default implementation writes the item directly to the export's zip stream
+	 * on the calling thread.  Providers should override this method to add their entries
+	 * to the export so that they are compressed (or stored) in parallel.
+	 * @param adapter the persist adapter
+	 * @param export the target zip export
+	 * @param data the data to write
+	 * @throws IOException
+	 */
+	public default void exp(PersistAdapter<T> adapter, ZipExport export, T data) throws IOException {
+		this.exp(adapter, export.getStream(), data);
+	}
+	
 	/**
 	 * Imports the file at the given path.
 	 * <p>
@@ -74,4 +89,35 @@ public interface ImportExportProvider<T extends Persistable> {
 	 * @throws IOException
 	 */
 	public DataImportResult<T> imp(PersistAdapter<T> adapter, Path path) throws IOException;
+	
+	/**
+	 * Imports the file at the given path whose mime type has already been detected.
+	 * <p>
+	 * The default implementation ignores the mime type.
+	 * @param adapter the persist adapter to import the item to
+	 * @param path the source file path
+	 * @param mimeType the file's mime type
+	 * @return {@link DataImportResult}
+	 * @throws IOException
+	 */
+	public default DataImportResult<T> imp(PersistAdapter<T> adapter, Path path, String mimeType) throws IOException {
+		return this.imp(adapter, path);
+	}
+	
+	/**
+	 * Imports the given stream, typically the contents of a zip entry.
+	 * <p>
+	 * Providers that can only read files should return null (the default) in which case
+	 * the caller will write the stream to a file and call {@link #imp(PersistAdapter, Path)}.
+	 * <p>
+	 * The stream is owned by the caller.
+	 * @param adapter the persist adapter to import the item to
+	 * @param name the file or entry name
+	 * @param stream the stream
+	 * @return {@link DataImportResult}
+	 * @throws IOException
+	 */
+	public default DataImportResult<T> imp(PersistAdapter<T> adapter, String name, InputStream stream) throws IOException {
+		return null;
+	}
 }
@@ -0,0 +1,177 @@
+package org.praisenter.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+/**
+ * An observable list of {@link Identifiable} items that keeps a lookup of id to list
+ * index so that lookups and replacements by id are constant time.
+ * <p>
+ * Removing an item preserves the order of the list.  Rather than updating the indices
+ * of every item after it, the indices from the removed position on are marked stale:
+ * they can only be too large by the number of removals since they were last updated,
+ * so a lookup of a stale index checks that many positions at most.  The stale indices
+ * are recomputed on the next lookup once too many removals have accumulated.
+ * <p>
+ * This class is not thread safe.  All access is expected to be on the Java FX UI thread.
+ * @param <T> the item type
+ */
+public final class IndexedObservableList<T extends Identifiable> {
+	/** The number of removals before the stale indices are recomputed */
+	private static final int MAXIMUM_STALE_SHIFT = 16;
+	
+	private final ObservableList<T> items;
+	private final ObservableList<T> itemsReadOnly;
+	private final Map<UUID, Integer> indices;
+	
+	/** The first position whose index may be stale */
+	private int staleFrom;
+	
+	/** The number of removals since the stale indices were last recomputed */
+	private int staleShift;
+
+	public IndexedObservableList() {
+		this.items = FXCollections.observableArrayList();
+		this.itemsReadOnly = FXCollections.unmodifiableObservableList(this.items);
+		this.indices = new HashMap<>();
+		this.staleFrom = Integer.MAX_VALUE;
+		this.staleShift = 0;
+	}
+
+	public ObservableList<T> getItemsUnmodifiable() {
+		return this.itemsReadOnly;
+	}
+
+	public int size() {
+		return this.items.size();
+	}
+
+	public boolean contains(UUID id) {
+		return this.indices.containsKey(id);
+	}
+
+	public T get(UUID id) {
+		int index = this.indexOf(id);
+		if (index < 0 || index >= this.items.size()) return null;
+		return this.items.get(index);
+	}
+	
+	/**
+	 * Returns the position of the item with the given id or -1 if not found.
+	 * <p>
+	 * The returned position can be beyond the end of the list for the items being added
+	 * by {@link #addAll(Collection)}.
+	 * @param id the id
+	 * @return int
+	 */
+	private int indexOf(UUID id) {
+		if (this.staleShift > MAXIMUM_STALE_SHIFT) {
+			this.reindex();
+		}
+		
+		Integer index = this.indices.get(id);
+		if (index == null) return -1;
+		
+		int i = index;
+		if (i < this.staleFrom) {
+			return i;
+		}
+		
+		// the item can only have moved down by the number of removals
+		int low = Math.max(this.staleFrom, i - this.staleShift);
+		for (int j = Math.min(i, this.items.size() - 1); j >= low; j--) {
+			if (this.items.get(j).getId().equals(id)) {
+				return j;
+			}
+		}
+		return i;
+	}
+	
+	/**
+	 * Recomputes the stale indices.
+	 */
+	private void reindex() {
+		int size = this.items.size();
+		for (int i = this.staleFrom; i < size; i++) {
+			this.indices.put(this.items.get(i).getId(), i);
+		}
+		this.staleFrom = Integer.MAX_VALUE;
+		this.staleShift = 0;
+	}
+
+	/**
+	 * Adds the given item or replaces the item with the same id.
+	 * @param item the item
+	 */
+	public void add(T item) {
+		if (!this.replace(item)) {
+			this.indices.put(item.getId(), this.items.size());
+			this.items.add(item);
+		}
+	}
+
+	/**
+	 * Adds the given items, replacing any items with the same id.
+	 * <p>
+	 * New items are added in one operation to limit the number of change events.
+	 * @param items the items
+	 */
+	public void addAll(Collection<? extends T> items) {
+		List<T> added = new ArrayList<>();
+		int index = this.items.size();
+		for (T item : items) {
+			if (this.replace(item)) {
+				continue;
+			}
+
+			Integer existing = this.indices.putIfAbsent(item.getId(), index);
+			if (existing != null) {
+				// duplicate in the given items, last one wins
+				added.set(existing - this.items.size(), item);
+			} else {
+				added.add(item);
+				index++;
+			}
+		}
+		this.items.addAll(added);
+	}
+
+	/**
+	 * Replaces the item with the same id as the given item.
+	 * @param item the item
+	 * @return boolean true if an item was replaced
+	 */
+	public boolean replace(T item) {
+		int index = this.indexOf(item.getId());
+		if (index < 0 || index >= this.items.size()) {
+			return false;
+		}
+		this.items.set(index, item);
+		return true;
+	}
+
+	/**
+	 * Removes the item with the given id.
+	 * @param id the id
+	 * @return T the item removed or null if not found
+	 */
+	public T remove(UUID id) {
+		int index = this.indexOf(id);
+		if (index < 0) return null;
+		
+		this.indices.remove(id);
+		T item = this.items.remove(index);
+		
+		// the indices of the items after the removed item are now one too large
+		this.staleFrom = Math.min(this.staleFrom, index);
+		this.staleShift++;
+		return item;
+	}
+}
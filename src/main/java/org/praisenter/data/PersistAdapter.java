@@ -3,9 +3,9 @@ package org.praisenter.data;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
-import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 
 public interface PersistAdapter<T extends Persistable> {
 	public void initialize() throws IOException;
@@ -16,8 +16,56 @@ public interface PersistAdapter<T extends Persistable> {
 	public boolean upsert(T item) throws IOException;
 	public Object getLock(UUID id);
 	public DataImportResult<T> importData(Path path) throws IOException;
-	public void exportData(ImportExportFormat format, ZipArchiveOutputStream destination, List<T> items) throws IOException;
+	public DataImportResult<T> importData(Path path, String mimeType) throws IOException;
+	public boolean isImportSupported(String mimeType);
+	public DataImportResult<T> importArchive(ImportArchive archive, Map<String, String> entries) throws IOException;
+	public void exportData(ImportExportFormat format, ZipExport destination, List<T> items) throws IOException;
 	public void exportData(ImportExportFormat format, Path path, T item) throws IOException;
 	public Path getFilePath(T item);
+	public String getFingerprint(T item, String previous) throws IOException;
+	
+	/**
+	 * Returns a fingerprint of the given item's stored state.
+	 * @param item the item
+	 * @return String
+	 * @throws IOException if an IO error occurs
+	 * @see #getFingerprint(Persistable, String)
+	 */
+	public default String getFingerprint(T item) throws IOException {
+		return this.getFingerprint(item, null);
+	}
 	public PathResolver<T> getPathResolver();
+	
+	/**
+	 * Returns true if the given item (or the item with the same id) has been fully loaded.
+	 * <p>
+	 * Stores that load placeholders at startup return false until the item is
+	 * marked as hydrated (see {@link #setHydrated(Persistable)}).
+	 * @param item the item
+	 * @return boolean
+	 */
+	public default boolean isHydrated(T item) {
+		return true;
+	}
+	
+	/**
+	 * Returns the fully loaded item for the given item.
+	 * <p>
+	 * Returns the given item if it's already fully loaded, otherwise the item is
+	 * read from its file.  This method does not change the hydrated state.
+	 * @param item the item
+	 * @return T
+	 * @throws IOException if the item could not be read
+	 */
+	public default T hydrate(T item) throws IOException {
+		return item;
+	}
+	
+	/**
+	 * Marks the item with the same id as the given item as fully loaded.
+	 * @param item the item
+	 */
+	public default void setHydrated(T item) {
+		
+	}
 }
@@ -2,36 +2,44 @@ package org.praisenter.data;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
-import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.praisenter.async.AsyncHelper;
 import org.praisenter.data.search.SearchIndex;
 
 import javafx.application.Platform;
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 public final class PersistentStore<T extends Persistable> {
 	private static final Logger LOGGER = LogManager.getLogger();
 	
+	/** The number of placeholders to load before replacing them in the list */
+	private static final int HYDRATE_BATCH_SIZE = 50;
+	
 	private final PersistAdapter<T> adapter;
 	private final SearchIndex index;
 	
-	private final ObservableList<T> items;
-	private final ObservableList<T> itemsReadOnly;
+	/** The fully loaded items */
+	private final IndexedObservableList<T> items;
+	
+	/** All items, including the placeholders that haven't been loaded yet */
+	private final IndexedObservableList<T> catalog;
 	
 	public PersistentStore(PersistAdapter<T> adapter, SearchIndex index) {
 		this.adapter = adapter;
 		this.index = index;
 		
-		this.items = FXCollections.observableArrayList();
-		this.itemsReadOnly = FXCollections.unmodifiableObservableList(this.items);
+		this.items = new IndexedObservableList<>();
+		this.catalog = new IndexedObservableList<>();
 	}
 	
 	public CompletableFuture<List<T>> initialize() {
@@ -43,7 +51,14 @@ public final class PersistentStore<T extends Persistable> {
 				throw new CompletionException(ex);
 			}
 		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait((items) -> {
-			this.items.addAll(items);
+			List<T> hydrated = new ArrayList<>(items.size());
+			for (T item : items) {
+				if (this.adapter.isHydrated(item)) {
+					hydrated.add(item);
+				}
+			}
+			this.items.addAll(hydrated);
+			this.catalog.addAll(items);
 			return items;
 		}));
 	}
@@ -54,32 +69,137 @@ public final class PersistentStore<T extends Persistable> {
 		}
 	}
 	
+	/**
+	 * Returns the fully loaded items.
+	 * <p>
+	 * Placeholders are added to this list once they are loaded.
+	 * @return ObservableList&lt;T&gt;
+	 */
 	public ObservableList<T> getItemsUnmodifiable() {
 		this.throwIfNotJavaFXThread();
-		return this.itemsReadOnly;
+		return this.items.getItemsUnmodifiable();
+	}
+	
+	/**
+	 * Returns all the items, including placeholders.
+	 * <p>
+	 * Placeholders only have enough set to be listed (see {@link #isHydrated(Persistable)}).
+	 * @return ObservableList&lt;T&gt;
+	 */
+	public ObservableList<T> getCatalogUnmodifiable() {
+		this.throwIfNotJavaFXThread();
+		return this.catalog.getItemsUnmodifiable();
 	}
 	
 	public T getItem(UUID id) {
 		this.throwIfNotJavaFXThread();
-		for (int i = 0; i < this.items.size(); i++) {
-			T item = this.items.get(i);
-			if (id.equals(item.getId())) {
-				return item;
+		return this.items.get(id);
+	}
+	
+	/**
+	 * Returns true if the given item has been fully loaded.
+	 * @param item the item
+	 * @return boolean
+	 * @see PersistAdapter#isHydrated(Persistable)
+	 */
+	public boolean isHydrated(T item) {
+		return this.adapter.isHydrated(item);
+	}
+	
+	/**
+	 * Returns the fully loaded item for the given item, loading it now if it's a placeholder
+	 * and replacing the placeholder in the lists.
+	 * <p>
+	 * If the item can't be loaded, the given item is returned.
+	 * @param item the item
+	 * @return T
+	 */
+	public T hydrate(T item) {
+		this.throwIfNotJavaFXThread();
+		if (this.adapter.isHydrated(item)) {
+			return item;
+		}
+		
+		try {
+			T full = this.adapter.hydrate(item);
+			this.put(full);
+			return full;
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to load '" + item.getName() + "' due to: " + ex.getMessage(), ex);
+		}
+		return item;
+	}
+	
+	/**
+	 * Returns the fully loaded item for the given item without changing the list.
+	 * <p>
+	 * This can be called from any thread.
+	 * @param item the item
+	 * @return T
+	 * @throws IOException if the item could not be loaded
+	 */
+	public T load(T item) throws IOException {
+		return this.adapter.hydrate(item);
+	}
+	
+	/**
+	 * Loads the given placeholders in the background, replacing them in the lists as they're loaded.
+	 * <p>
+	 * Items that were loaded on demand (or saved) in the meantime are skipped.
+	 * @param items the items returned by {@link #initialize()}
+	 * @param hydrated called on the Java FX UI thread with each item that replaced a placeholder
+	 * @return CompletableFuture&lt;Void&gt;
+	 */
+	public CompletableFuture<Void> hydrate(List<T> items, Consumer<T> hydrated) {
+		final List<T> placeholders = new ArrayList<>();
+		for (T item : items) {
+			if (!this.adapter.isHydrated(item)) {
+				placeholders.add(item);
 			}
 		}
-		return null;
+		
+		if (placeholders.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		LOGGER.debug("Loading {} placeholder(s) in the background", placeholders.size());
+		CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+		for (int i = 0; i < placeholders.size(); i += HYDRATE_BATCH_SIZE) {
+			final List<T> batch = placeholders.subList(i, Math.min(i + HYDRATE_BATCH_SIZE, placeholders.size()));
+			future = future.thenApplyAsync((v) -> {
+				List<T> loaded = new ArrayList<>(batch.size());
+				for (T item : batch) {
+					try {
+						loaded.add(this.adapter.hydrate(item));
+					} catch (Exception ex) {
+						LOGGER.warn("Failed to load '" + item.getName() + "' due to: " + ex.getMessage(), ex);
+					}
+				}
+				return loaded;
+			}).thenCompose(AsyncHelper.onJavaFXThreadAndWait((loaded) -> {
+				for (T item : loaded) {
+					// skip anything that was loaded on demand or saved in the meantime
+					if (this.adapter.isHydrated(item)) {
+						continue;
+					}
+					this.put(item);
+					hydrated.accept(item);
+				}
+			}));
+		}
+		return future;
 	}
 	
 	public CompletableFuture<Void> create(T item) {
 		return CompletableFuture.runAsync(() -> {
 			try {
 				this.adapter.create(item);
-				this.index.create(item);
+				this.index.create(item, this.fingerprint(item));
 			} catch (Exception ex) {
 				throw new CompletionException(ex);
 			}
 		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
-			this.items.add(item);
+			this.put(item);
 		}));
 	}
 	
@@ -87,21 +207,12 @@ public final class PersistentStore<T extends Persistable> {
 		return CompletableFuture.runAsync(() -> {
 			try {
 				this.adapter.update(item);
-				this.index.update(item);
+				this.index.update(item, this.fingerprint(item));
 			} catch (Exception ex) {
 				throw new CompletionException(ex);
 			}
 		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
-			int index = -1;
-			for (int i = 0; i < this.items.size(); i++) {
-				T test = this.items.get(i);
-				if (test.getId().equals(item.getId())) {
-					index = i;
-				}
-			}
-			if (index >= 0 && index < this.items.size()) {
-				this.items.set(index, item);
-			}
+			this.put(item);
 		}));
 	}
 	
@@ -114,20 +225,53 @@ public final class PersistentStore<T extends Persistable> {
 				throw new CompletionException(ex);
 			}
 		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
-			this.items.removeIf(i -> i.getId().equals(item.getId()));
+			this.items.remove(item.getId());
+			this.catalog.remove(item.getId());
 		}));
 	}
 	
 	public CompletableFuture<DataImportResult<T>> importData(Path path, boolean isTypeKnown) {
+		return this.importData(path, isTypeKnown, () -> this.adapter.importData(path));
+	}
+	
+	/**
+	 * Imports the given file using only the providers that support the given mime type.
+	 * <p>
+	 * Failures are logged and give a null result.
+	 * @param path the file
+	 * @param mimeType the file's mime type
+	 * @return CompletableFuture&lt;{@link DataImportResult}&gt;
+	 */
+	public CompletableFuture<DataImportResult<T>> importData(Path path, String mimeType) {
+		return this.importData(path, false, () -> this.adapter.importData(path, mimeType));
+	}
+	
+	/**
+	 * Imports the given entries of the given zip file individually.
+	 * <p>
+	 * Failures are logged and give a null result.
+	 * @param archive the zip file
+	 * @param entries the entries to import by name with their mime types
+	 * @return CompletableFuture&lt;{@link DataImportResult}&gt;
+	 */
+	public CompletableFuture<DataImportResult<T>> importArchive(ImportArchive archive, Map<String, String> entries) {
+		return this.importData(archive.getPath(), false, () -> this.adapter.importArchive(archive, entries));
+	}
+	
+	public boolean isImportSupported(String mimeType) {
+		return this.adapter.isImportSupported(mimeType);
+	}
+	
+	private CompletableFuture<DataImportResult<T>> importData(Path path, boolean isTypeKnown, Callable<DataImportResult<T>> importer) {
 		return CompletableFuture.supplyAsync(() -> {
 			try {
-				DataImportResult<T> result = this.adapter.importData(path);
+				DataImportResult<T> result = importer.call();
 				if (result != null) {
 					for (T item : result.getCreated()) {
-						this.index.create(item);
+						this.index.create(item, this.fingerprint(item));
 					}
 					for (T item : result.getUpdated()) {
-						this.index.update(item);
+						this.index.update(item, this.fingerprint(item));
 					}
 				}
 				return result;
@@ -141,22 +285,19 @@ public final class PersistentStore<T extends Persistable> {
 			}
 		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait((result) -> {
 			if (result != null) {
+				// NOTE: add will replace the existing item if present
 				for (T item : result.getUpdated()) {
-					int index = this.items.indexOf(item);
-					if (index < 0 || index >= this.items.size()) {
-						this.items.add(item);
-					} else {
-						this.items.set(index, item);
-					}
+					this.put(item);
 				}
 				this.items.addAll(result.getCreated());
+				this.catalog.addAll(result.getCreated());
 			}
 			return result;
 		}));
 	}
 	
-	public void exportData(ImportExportFormat format, ZipArchiveOutputStream stream, List<T> items) throws IOException {
-		this.adapter.exportData(format, stream, items);
+	public void exportData(ImportExportFormat format, ZipExport export, List<T> items) throws IOException {
+		this.adapter.exportData(format, export, items);
 	}
 	
 	public CompletableFuture<Void> exportData(ImportExportFormat format, Path path, T item) {
@@ -172,4 +313,41 @@ public final class PersistentStore<T extends Persistable> {
 	public Path getFilePath(T item) {
 		return this.adapter.getFilePath(item);
 	}
+	
+	public String getFingerprint(T item) throws IOException {
+		return this.adapter.getFingerprint(item);
+	}
+	
+	/**
+	 * Returns a fingerprint of the given item's stored state, returning the given previous
+	 * fingerprint without reading the item's contents if the item's file hasn't changed.
+	 * @param item the item
+	 * @param previous the previous fingerprint; can be null
+	 * @return String
+	 * @throws IOException if an IO error occurs
+	 */
+	public String getFingerprint(T item, String previous) throws IOException {
+		return this.adapter.getFingerprint(item, previous);
+	}
+	
+	/**
+	 * Adds or replaces the given fully loaded item in the lists.
+	 * @param item the item
+	 */
+	private void put(T item) {
+		// NOTE: add will replace the existing item if present
+		this.items.add(item);
+		this.catalog.add(item);
+		this.adapter.setHydrated(item);
+	}
+	
+	private String fingerprint(T item) {
+		try {
+			return this.adapter.getFingerprint(item);
+		} catch (Exception ex) {
+			// not critical, the item will be reindexed on the next startup
+			LOGGER.warn("Failed to compute the fingerprint for '" + item.getName() + "': " + ex.getMessage(), ex);
+			return null;
+		}
+	}
 }
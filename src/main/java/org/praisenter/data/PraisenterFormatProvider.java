@@ -25,7 +25,6 @@
 package org.praisenter.data;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -40,9 +39,7 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.praisenter.data.json.JsonIO;
-import org.praisenter.data.json.PraisenterFormat;
 import org.praisenter.utility.MimeType;
-import org.praisenter.utility.Streams;
 
 /**
  * {@link PraisenterFormatProvider} for the Praisenter format.
@@ -98,16 +95,25 @@ public class PraisenterFormatProvider<T extends Persistable> implements ImportEx
 		stream.closeArchiveEntry();
 	}
 	
+	@Override
+	public void exp(PersistAdapter<T> adapter, ZipExport export, T data) throws IOException {
+		Path path = adapter.getPathResolver().getExportPath(data);
+		export.addEntry(path, (stream) -> JsonIO.write(stream, data));
+	}
+	
 	@Override
 	public DataImportResult<T> imp(PersistAdapter<T> adapter, Path path) throws IOException {
+		return this.imp(adapter, path, MimeType.get(path));
+	}
+	
+	@Override
+	public DataImportResult<T> imp(PersistAdapter<T> adapter, Path path, String mimeType) throws IOException {
 		DataImportResult<T> result = new DataImportResult<>();
 		
 		try (FileInputStream fis = new FileInputStream(path.toFile());
 			 BufferedInputStream bis = new BufferedInputStream(fis);) {
-			bis.mark(Integer.MAX_VALUE);
-			
 			LOGGER.trace("Checking stream for zip/json");
-			if (MimeType.ZIP.check(path)) {
+			if (MimeType.ZIP.is(mimeType)) {
 				LOGGER.trace("Reading as ZIP");
 				// NOTE: Native java.util.zip package can't support zips 4GB or bigger or elements 2GB or bigger
 		        try (ZipFile zipFile = ZipFile.builder().setPath(path).get()) {
@@ -130,17 +136,15 @@ public class PraisenterFormatProvider<T extends Persistable> implements ImportEx
 						LOGGER.trace("Checking zip entry '{}'", entry.getName());
 						if (MimeType.JSON.check(zbis, entry.getName())) {
 							zbis.reset();
+							// drop the mark so the rest of the entry isn't kept in memory
+							zbis.mark(0);
 							
 							try {
 								LOGGER.trace("Zip entry '{}' is a JSON file, reading and checking format", entry.getName());
-								byte[] data = Streams.read(zbis);
-								ByteArrayInputStream bais = new ByteArrayInputStream(data);
-								PraisenterFormat format = JsonIO.getPraisenterFormat(bais);
+								T item = JsonIO.readPraisenterFormat(zbis, this.clazz);
 								
-								if (format != null && format.is(this.clazz)) {
-									bais.reset();
-									LOGGER.debug("Zip entry '{}' matches the format for '{}', attempting import", entry.getName(), this.clazz.getName());
-									T item = JsonIO.read(bais, this.clazz);
+								if (item != null) {
+									LOGGER.debug("Zip entry '{}' matched the format for '{}', importing", entry.getName(), this.clazz.getName());
 									boolean isUpdate = adapter.upsert(item);
 									if (isUpdate) {
 										result.getUpdated().add(item);
@@ -157,13 +161,9 @@ public class PraisenterFormatProvider<T extends Persistable> implements ImportEx
 			} else {
 				LOGGER.trace("Reading as JSON");
 				
-				byte[] data = Streams.read(bis);
-				ByteArrayInputStream bais = new ByteArrayInputStream(data);
-				PraisenterFormat format = JsonIO.getPraisenterFormat(bais);
-				
-				if (format != null && format.is(this.clazz)) {
-					LOGGER.debug("File '{}' matches the format for '{}', attempting import", path.getFileName(), this.clazz.getName());
-					T item = JsonIO.read(bis, this.clazz);
+				T item = JsonIO.readPraisenterFormat(bis, this.clazz);
+				if (item != null) {
+					LOGGER.debug("File '{}' matched the format for '{}', importing", path.getFileName(), this.clazz.getName());
 					boolean isUpdate = adapter.upsert(item);
 					if (isUpdate) {
 						result.getUpdated().add(item);
@@ -176,4 +176,26 @@ public class PraisenterFormatProvider<T extends Persistable> implements ImportEx
 		
 		return result;
 	}
+	
+	@Override
+	public DataImportResult<T> imp(PersistAdapter<T> adapter, String name, InputStream stream) throws IOException {
+		// exports (zips) are read from a file
+		if (!MimeType.JSON.check(name)) {
+			return null;
+		}
+		
+		DataImportResult<T> result = new DataImportResult<>();
+		T item = JsonIO.readPraisenterFormat(stream, this.clazz);
+		if (item != null) {
+			LOGGER.debug("Stream '{}' matched the format for '{}', importing", name, this.clazz.getName());
+			boolean isUpdate = adapter.upsert(item);
+			if (isUpdate) {
+				result.getUpdated().add(item);
+			} else {
+				result.getCreated().add(item);
+			}
+		}
+		
+		return result;
+	}
 }
@@ -57,6 +57,12 @@ public final class RawExportFormatProvider<T extends Persistable> implements Imp
 		stream.closeArchiveEntry();
 	}
 	
+	@Override
+	public void exp(PersistAdapter<T> adapter, ZipExport export, T data) throws IOException {
+		PathResolver<T> pr = adapter.getPathResolver();
+		export.addFile(pr.getFriendlyExportPath(data), pr.getRawPath(data));
+	}
+	
 	@Override
 	public DataImportResult<T> imp(PersistAdapter<T> adapter, Path path) throws IOException {
 		throw new NotImplementedException();
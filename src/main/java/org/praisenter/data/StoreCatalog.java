@@ -0,0 +1,144 @@
+package org.praisenter.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Reads and writes the binary catalog of a store's folder.
+ * <p>
+ * The catalog only holds the metadata of each file (see {@link CatalogEntry}), never the
+ * file contents, so it stays small no matter how large the items are.
+ */
+final class StoreCatalog {
+	private static final int MAGIC = 0x50534341; // PSCA
+	private static final int FORMAT_VERSION = 1;
+
+	private StoreCatalog() {}
+
+	/**
+	 * Reads the entries of the catalog at the given path by file name.
+	 * <p>
+	 * Returns an empty map if the catalog doesn't exist.
+	 * @param path the catalog path
+	 * @return Map&lt;String, {@link CatalogEntry}&gt;
+	 * @throws IOException if the catalog can't be read
+	 */
+	public static Map<String, CatalogEntry> read(Path path) throws IOException {
+		Map<String, CatalogEntry> entries = new HashMap<>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				throw new IOException("Unsupported store catalog format");
+			}
+
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String fileName = in.readUTF();
+				long size = in.readLong();
+				long lastModified = in.readLong();
+				if (!in.readBoolean()) {
+					entries.put(fileName, new CatalogEntry(fileName, size, lastModified));
+					continue;
+				}
+
+				UUID id = new UUID(in.readLong(), in.readLong());
+				String name = readString(in);
+				String type = readString(in);
+				Instant createdDate = readInstant(in);
+				Instant modifiedDate = readInstant(in);
+				int tagCount = in.readInt();
+				Set<String> tags = new HashSet<>(tagCount);
+				for (int j = 0; j < tagCount; j++) {
+					tags.add(in.readUTF());
+				}
+				entries.put(fileName, new CatalogEntry(fileName, size, lastModified, id, name, type, createdDate, modifiedDate, tags));
+			}
+		} catch (NoSuchFileException ex) {
+			// no catalog yet
+		}
+		return entries;
+	}
+
+	/**
+	 * Writes the given entries to a catalog at the given path.
+	 * <p>
+	 * The catalog is written to a temporary file first and then moved into place.
+	 * @param path the catalog path
+	 * @param entries the entries
+	 * @throws IOException if an IO error occurs
+	 */
+	public static void write(Path path, Collection<CatalogEntry> entries) throws IOException {
+		Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(entries.size());
+				for (CatalogEntry entry : entries) {
+					out.writeUTF(entry.getFileName());
+					out.writeLong(entry.getSize());
+					out.writeLong(entry.getLastModified());
+					out.writeBoolean(entry.isItem());
+					if (!entry.isItem()) {
+						continue;
+					}
+
+					out.writeLong(entry.getId().getMostSignificantBits());
+					out.writeLong(entry.getId().getLeastSignificantBits());
+					writeString(out, entry.getName());
+					writeString(out, entry.getType());
+					writeInstant(out, entry.getCreatedDate());
+					writeInstant(out, entry.getModifiedDate());
+					out.writeInt(entry.getTags().size());
+					for (String tag : entry.getTags()) {
+						out.writeUTF(tag);
+					}
+				}
+			}
+
+			try {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static Instant readInstant(DataInputStream in) throws IOException {
+		return in.readBoolean() ? Instant.ofEpochMilli(in.readLong()) : null;
+	}
+
+	private static void writeInstant(DataOutputStream out, Instant value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeLong(value.toEpochMilli());
+		}
+	}
+}
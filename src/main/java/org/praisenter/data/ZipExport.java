@@ -0,0 +1,302 @@
+package org.praisenter.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.parallel.FileBasedScatterGatherBackingStore;
+import org.apache.commons.compress.parallel.ScatterGatherBackingStore;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.praisenter.ThrowableConsumer;
+
+/**
+ * Builds a zip file using multiple threads.
+ * <p>
+ * Entries that compress well (JSON for example) are deflated on worker threads using a
+ * {@link ParallelScatterZipCreator}. Files that are already compressed (video, audio, images)
+ * are written as {@link ZipEntry#STORED} entries.  When the target is seekable (a file) they're
+ * copied straight to the target and the size and CRC are patched in afterwards, otherwise 
+ * they go through the worker threads which compute the CRC while copying.
+ * <p>
+ * Entries are collected using the add methods and nothing is written to the target stream
+ * until {@link #finish()} is called. Entries can also be written directly to the stream
+ * returned by {@link #getStream()} by the thread that owns this export.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ */
+public final class ZipExport implements Closeable {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	/** The extensions of files whose contents are already compressed */
+	private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+			"jpg", "jpeg", "png", "gif", "webp",
+			"mp4", "m4v", "mov", "mkv", "webm", "flv", "wmv", "ogv",
+			"mp3", "m4a", "aac", "ogg", "oga", "opus", "flac", "wma",
+			"zip", "gz", "7z");
+
+	/** The thread number counter */
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger(1);
+
+	/** The number of seconds to wait for the worker threads to stop when closed */
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+	private final ZipArchiveOutputStream stream;
+	private final DoubleConsumer progress;
+	private final ExecutorService executor;
+	private final ParallelScatterZipCreator creator;
+	private final Queue<ScatterGatherBackingStore> stores;
+	private final List<StoredEntry> stored;
+
+	private final AtomicInteger total;
+	private final AtomicInteger completed;
+
+	private boolean finished;
+
+	/**
+	 * Minimal constructor.
+	 * @param stream the target stream
+	 * @param progress a callback for the progress (0.0 - 1.0); called from multiple threads
+	 */
+	public ZipExport(ZipArchiveOutputStream stream, DoubleConsumer progress) {
+		this.stream = stream;
+		this.progress = progress;
+
+		ThreadFactory factory = (r) -> {
+			Thread thread = new Thread(r, "zip-export-" + THREAD_NUMBER.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		};
+
+		this.executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()), factory);
+		this.stores = new ConcurrentLinkedQueue<>();
+		this.creator = new ParallelScatterZipCreator(this.executor, () -> {
+			// track the backing stores so they can be released if finish isn't called
+			ScatterGatherBackingStore store = new FileBasedScatterGatherBackingStore(Files.createTempFile("parallelscatter", ".tmp"));
+			this.stores.add(store);
+			return store;
+		});
+		this.stored = new ArrayList<>();
+
+		this.total = new AtomicInteger();
+		this.completed = new AtomicInteger();
+		this.finished = false;
+	}
+
+	/**
+	 * Adds an entry with the given name whose content is produced by the given writer.
+	 * <p>
+	 * The writer is called immediately on the calling thread, so it can safely
+	 * read the state of the item being exported. The compression happens later
+	 * on a worker thread.
+	 * @param path the entry path
+	 * @param writer the writer for the entry content
+	 * @throws IOException
+	 */
+	public void addEntry(Path path, ThrowableConsumer<ByteArrayOutputStream> writer) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			writer.accept(bytes);
+		} catch (IOException ex) {
+			throw ex;
+		} catch (Exception ex) {
+			throw new IOException(ex);
+		}
+
+		byte[] data = bytes.toByteArray();
+		ZipArchiveEntry entry = this.createEntry(path, ZipEntry.DEFLATED);
+		this.total.incrementAndGet();
+		this.creator.addArchiveEntry(entry, () -> new CompletingInputStream(new ByteArrayInputStream(data)));
+	}
+
+	/**
+	 * Adds the given file as an entry at the given path.
+	 * <p>
+	 * The file is written as-is if its contents are already compressed, otherwise
+	 * it's compressed on a worker thread.
+	 * @param path the entry path
+	 * @param file the file
+	 */
+	public void addFile(Path path, Path file) {
+		this.total.incrementAndGet();
+
+		String extension = FilenameUtils.getExtension(file.getFileName().toString()).toLowerCase();
+		boolean compressed = COMPRESSED_EXTENSIONS.contains(extension);
+		if (compressed && this.stream.isSeekable()) {
+			// copied in finish; the size and CRC are patched in by the stream
+			this.stored.add(new StoredEntry(this.createEntry(path, ZipEntry.STORED), file));
+			return;
+		}
+
+		ZipArchiveEntry entry = this.createEntry(path, compressed ? ZipEntry.STORED : ZipEntry.DEFLATED);
+		this.creator.addArchiveEntry(entry, () -> {
+			try {
+				return new CompletingInputStream(Files.newInputStream(file));
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		});
+	}
+
+	/**
+	 * Returns the target stream for writing entries directly.
+	 * <p>
+	 * This should only be used by the thread that owns this export and
+	 * only before {@link #finish()} is called.
+	 * @return ZipArchiveOutputStream
+	 */
+	public ZipArchiveOutputStream getStream() {
+		return this.stream;
+	}
+
+	/**
+	 * Writes all the entries to the target stream, waiting for the worker
+	 * threads to complete.
+	 * <p>
+	 * The stored entries are copied while the worker threads are still compressing
+	 * the remaining entries.
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public void finish() throws IOException, InterruptedException {
+		if (this.finished) return;
+		this.finished = true;
+
+		try {
+			LOGGER.debug("Writing {} stored entries", this.stored.size());
+			for (StoredEntry se : this.stored) {
+				// the size lets the stream decide whether zip64 is needed up front
+				se.entry.setSize(Files.size(se.file));
+				this.stream.putArchiveEntry(se.entry);
+				Files.copy(se.file, this.stream);
+				this.stream.closeArchiveEntry();
+				this.completed();
+			}
+
+			LOGGER.debug("Writing compressed entries");
+			this.creator.writeTo(this.stream);
+			LOGGER.debug("Zip export completed: {}", this.creator.getStatisticsMessage());
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof UncheckedIOException) {
+				cause = cause.getCause();
+			}
+			if (cause instanceof IOException) {
+				throw (IOException)cause;
+			}
+			throw new IOException(cause);
+		} finally {
+			this.executor.shutdownNow();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		// make sure the worker threads and their temporary files are cleaned
+		// up if finish was never called (because of an error for example)
+		this.finished = true;
+		this.executor.shutdownNow();
+		try {
+			// the workers must stop writing before their stores are closed
+			if (!this.executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				LOGGER.warn("The zip export worker threads did not stop within {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+
+		// NOTE: closing a store that was already closed by finish does nothing
+		IOException error = null;
+		ScatterGatherBackingStore store;
+		while ((store = this.stores.poll()) != null) {
+			try {
+				store.close();
+			} catch (IOException ex) {
+				if (error == null) {
+					error = ex;
+				} else {
+					error.addSuppressed(ex);
+				}
+			}
+		}
+
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	private ZipArchiveEntry createEntry(Path path, int method) {
+		ZipArchiveEntry entry = new ZipArchiveEntry(FilenameUtils.separatorsToUnix(path.toString()));
+		entry.setMethod(method);
+		return entry;
+	}
+
+	private void completed() {
+		int total = this.total.get();
+		if (total > 0) {
+			this.progress.accept((double)this.completed.incrementAndGet() / (double)total);
+		}
+	}
+
+	/**
+	 * A stored entry that's copied directly to the target.
+	 * @author William Bittle
+	 * @version 3.1.5
+	 * @since 3.1.5
+	 */
+	private static final class StoredEntry {
+		private final ZipArchiveEntry entry;
+		private final Path file;
+
+		public StoredEntry(ZipArchiveEntry entry, Path file) {
+			this.entry = entry;
+			this.file = file;
+		}
+	}
+
+	/**
+	 * Stream wrapper that marks the entry complete when the worker thread
+	 * is done with it.
+	 * @author William Bittle
+	 * @version 3.1.5
+	 * @since 3.1.5
+	 */
+	private final class CompletingInputStream extends FilterInputStream {
+		public CompletingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public void close() throws IOException {
+			super.close();
+			ZipExport.this.completed();
+		}
+	}
+}
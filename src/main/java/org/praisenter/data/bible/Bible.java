@@ -1,7 +1,6 @@
 package org.praisenter.data.bible;
 
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -9,6 +8,8 @@ import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
@@ -36,6 +37,7 @@ import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
+import javafx.beans.InvalidationListener;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyStringProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -81,6 +83,13 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	private final ObservableList<Book> booksReadOnly;
 	private final ObservableSet<Tag> tags;
 	private final ObservableSet<Tag> tagsReadOnly;
+	
+	/** The verse store backing this bible until its books are first needed; null when the books are loaded */
+	private volatile BibleVerseStore verseStore;
+	
+	/** The positional index of the verses; built on demand and discarded when the books, chapters or verses change */
+	private BibleVerseIndex verseIndex;
+	private final InvalidationListener verseIndexInvalidator;
 
 	public Bible() {
 		this.format = new SimpleStringProperty(Constants.FORMAT_NAME);
@@ -98,6 +107,8 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 		this.booksReadOnly = FXCollections.unmodifiableObservableList(this.books);
 		this.tags = FXCollections.observableSet(new HashSet<>());
 		this.tagsReadOnly = FXCollections.unmodifiableObservableSet(this.tags);
+		
+		this.verseIndexInvalidator = obs -> this.invalidateVerseIndex();
 	}
 	
 	public Bible(String name) {
@@ -143,8 +154,14 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 		b.source.set(this.source.get());
 		b.copyright.set(this.copyright.get());
 		b.notes.set(this.notes.get());
-		for (Book book : this.books) {
-			b.books.add(book.copy());
+		BibleVerseStore store = this.verseStore;
+		if (store != null) {
+			// the store is read-only so it can be shared
+			b.verseStore = store;
+		} else {
+			for (Book book : this.books) {
+				b.books.add(book.copy());
+			}
 		}
 		b.tags.addAll(this.tags);
 		return b;
@@ -158,6 +175,128 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 		return this.name.get();
 	}
 	
+	/**
+	 * Backs this bible with the given verse store rather than the book, chapter
+	 * and verse graph.  Any loaded books are released.
+	 * <p>
+	 * The graph is rebuilt from the store the first time the books are needed.
+	 * Lookups and indexing are served from the store directly until then.
+	 * @param store the verse store
+	 */
+	void setVerseStore(BibleVerseStore store) {
+		synchronized (this) {
+			this.books.clear();
+			this.verseStore = store;
+		}
+	}
+	
+	/**
+	 * Returns true if this bible's books have been loaded into memory.
+	 * @return boolean
+	 */
+	public boolean isLoaded() {
+		return this.verseStore == null;
+	}
+	
+	/**
+	 * Builds the book, chapter and verse graph from the verse store, if this bible
+	 * is backed by one.
+	 */
+	private void load() {
+		if (this.verseStore == null) {
+			return;
+		}
+		synchronized (this) {
+			BibleVerseStore store = this.verseStore;
+			if (store != null) {
+				this.books.setAll(store.toBooks());
+				this.verseStore = null;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the verse at the given index of the given store.
+	 * <p>
+	 * The returned book only contains the verse's chapter.
+	 * @param store the verse store
+	 * @param verse the verse index
+	 * @return {@link LocatedVerse}
+	 */
+	private LocatedVerse getVerse(BibleVerseStore store, int verse) {
+		if (verse < 0 || verse >= store.getVerseCount()) {
+			return null;
+		}
+		int c = store.getChapterIndex(verse);
+		int b = store.getBookIndex(c);
+		Chapter chapter = store.toChapter(c);
+		Book book = new Book(store.getBookNumber(b), store.getBookName(b));
+		book.getChapters().add(chapter);
+		return new LocatedVerse(this, book, chapter, chapter.getVerses().get(verse - store.getChapterVerseStart(c)));
+	}
+	
+	/**
+	 * Returns the verse index, building it if necessary.
+	 * @return {@link BibleVerseIndex}
+	 */
+	private BibleVerseIndex getVerseIndex() {
+		synchronized (this) {
+			if (this.verseIndex == null) {
+				this.verseIndex = BibleVerseIndex.build(this.books, this.verseIndexInvalidator);
+			}
+			return this.verseIndex;
+		}
+	}
+	
+	private void invalidateVerseIndex() {
+		synchronized (this) {
+			if (this.verseIndex != null) {
+				this.verseIndex.release(this.verseIndexInvalidator);
+				this.verseIndex = null;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the verses at the given offsets (in reading order) from the given verse or null 
+	 * if the verse doesn't exist.  An offset that goes past the beginning or end of the bible
+	 * gives a null entry.
+	 * @param bookNumber the book number
+	 * @param chapterNumber the chapter number
+	 * @param verseNumber the verse number
+	 * @param offsets the offsets
+	 * @return {@link LocatedVerse}[]
+	 */
+	private LocatedVerse[] getVerses(int bookNumber, int chapterNumber, int verseNumber, int... offsets) {
+		LocatedVerse[] verses = new LocatedVerse[offsets.length];
+		
+		BibleVerseStore store = this.verseStore;
+		if (store != null) {
+			int position = store.indexOf(bookNumber, chapterNumber, verseNumber);
+			if (position < 0) return null;
+			for (int i = 0; i < offsets.length; i++) {
+				verses[i] = this.getVerse(store, position + offsets[i]);
+			}
+			return verses;
+		}
+		
+		BibleVerseIndex index = this.getVerseIndex();
+		int position = index.indexOf(bookNumber, chapterNumber, verseNumber);
+		if (position == BibleVerseIndex.STALE) {
+			// a number was edited since the index was built
+			this.invalidateVerseIndex();
+			index = this.getVerseIndex();
+			position = index.indexOf(bookNumber, chapterNumber, verseNumber);
+		}
+		
+		// a verse that doesn't exist doesn't need a rebuild
+		if (position < 0) return null;
+		for (int i = 0; i < offsets.length; i++) {
+			verses[i] = index.get(this, position + offsets[i]);
+		}
+		return verses;
+	}
+	
 	@Override
 	public Locale getLocale() {
 		String language = this.language.get();
@@ -172,45 +311,77 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	 */
 	@Override
 	public List<Document> index() {
-		List<Document> documents = new ArrayList<Document>();
-		for (Book book : this.getBooks()) {
-			for (Chapter chapter : book.getChapters()) {
-				for (Verse verse : chapter.getVerses()) {
-					Document document = new Document();
-
-					// allow filtering by the bible id
-					document.add(new StringField(FIELD_ID, this.getId().toString(), Field.Store.YES));
-					
-					// allow filtering by type
-					document.add(new StringField(FIELD_TYPE, DATA_TYPE_BIBLE, Field.Store.YES));
-					
-					// allow filtering by the book number
-					document.add(new IntPoint(FIELD_BOOK_ID, book.getNumber()));
-					
-					// stored data so we can look up the verse
-					document.add(new StoredField(FIELD_BOOK_NUMBER, book.getNumber()));
-					document.add(new StoredField(FIELD_VERSE_CHAPTER, chapter.getNumber()));
-					document.add(new StoredField(FIELD_VERSE_NUMBER, verse.getNumber()));
-					
-					if (!StringManipulator.isNullOrEmpty(verse.getText())) {
-						document.add(new TextField(FIELD_TEXT, verse.getText(), Field.Store.YES));
-					}
-					
-					documents.add(document);
-				}
-			}
+		return this.getDocuments().collect(Collectors.toList());
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.praisenter.data.search.Indexable#documents()
+	 */
+	@Override
+	public Iterable<Document> documents() {
+		// a bible has a document per verse, so generate them as they are consumed
+		return () -> this.getDocuments().iterator();
+	}
+	
+	private Stream<Document> getDocuments() {
+		Stream<Document> documents;
+		BibleVerseStore store = this.verseStore;
+		if (store != null) {
+			// index straight from the store so we don't load the books
+			documents = IntStream.range(0, store.getBookCount()).boxed().flatMap(b -> {
+				int bookNumber = store.getBookNumber(b);
+				int cs = store.getBookChapterStart(b);
+				return IntStream.range(cs, cs + store.getBookChapterCount(b)).boxed().flatMap(c -> {
+					int chapterNumber = store.getChapterNumber(c);
+					int vs = store.getChapterVerseStart(c);
+					return IntStream.range(vs, vs + store.getChapterVerseCount(c)).mapToObj(v -> 
+						this.createVerseDocument(bookNumber, chapterNumber, store.getVerseNumber(v), store.getVerseText(v)));
+				});
+			});
+		} else {
+			documents = this.books.stream().flatMap(book -> 
+				book.getChapters().stream().flatMap(chapter -> 
+					chapter.getVerses().stream().map(verse -> 
+						this.createVerseDocument(book.getNumber(), chapter.getNumber(), verse.getNumber(), verse.getText()))));
 		}
 		
+		return Stream.concat(documents, Stream.ofNullable(this.createTagsDocument()));
+	}
+	
+	private Document createTagsDocument() {
 		String tags = this.tags.stream().map(t -> t.getName()).collect(Collectors.joining(" "));
 		if (!StringManipulator.isNullOrEmpty(tags)) {
 			Document document = new Document();
 			document.add(new StringField(FIELD_ID, this.getId().toString(), Field.Store.YES));
 			document.add(new StringField(FIELD_TYPE, DATA_TYPE_BIBLE, Field.Store.YES));
 			document.add(new TextField(FIELD_TAGS, tags, Field.Store.YES));
-			documents.add(document);
+			return document;
 		}
+		return null;
+	}
+	
+	private Document createVerseDocument(int bookNumber, int chapterNumber, int verseNumber, String text) {
+		Document document = new Document();
+
+		// allow filtering by the bible id
+		document.add(new StringField(FIELD_ID, this.getId().toString(), Field.Store.YES));
+		
+		// allow filtering by type
+		document.add(new StringField(FIELD_TYPE, DATA_TYPE_BIBLE, Field.Store.YES));
+		
+		// allow filtering by the book number
+		document.add(new IntPoint(FIELD_BOOK_ID, bookNumber));
 		
-		return documents;
+		// stored data so we can look up the verse
+		document.add(new StoredField(FIELD_BOOK_NUMBER, bookNumber));
+		document.add(new StoredField(FIELD_VERSE_CHAPTER, chapterNumber));
+		document.add(new StoredField(FIELD_VERSE_NUMBER, verseNumber));
+		
+		if (!StringManipulator.isNullOrEmpty(text)) {
+			document.add(new TextField(FIELD_TEXT, text, Field.Store.YES));
+		}
+		
+		return document;
 	}
 	
 	/**
@@ -219,6 +390,10 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	 */
 	@Override
 	public int getVerseCount() {
+		BibleVerseStore store = this.verseStore;
+		if (store != null) {
+			return store.getVerseCount();
+		}
 		int n = 0;
 		for (Book book : this.books) {
 			for (Chapter chapter : book.getChapters()) {
@@ -234,6 +409,10 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	 */
 	@Override
 	public int getBookCount() {
+		BibleVerseStore store = this.verseStore;
+		if (store != null) {
+			return store.getBookCount();
+		}
 		return this.books.size();
 	}
 
@@ -246,20 +425,8 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	 */
 	@Override
 	public LocatedVerse getVerse(int bookNumber, int chapterNumber, int verseNumber) {
-		for (Book book : this.books) {
-			if (bookNumber == book.getNumber()) {
-				for (Chapter chapter : book.getChapters()) {
-					if (chapterNumber == chapter.getNumber()) {
-						for (Verse verse : chapter.getVerses()) {
-							if (verse.getNumber() == verseNumber) {
-								return new LocatedVerse(this, book, chapter, verse);
-							}
-						}
-					}
-				}
-			}
-		}
-		return null;
+		LocatedVerse[] verses = this.getVerses(bookNumber, chapterNumber, verseNumber, 0);
+		return verses != null ? verses[0] : null;
 	}
 	
 	/**
@@ -277,27 +444,8 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	 */
 	@Override
 	public LocatedVerse getNextVerse(int bookNumber, int chapterNumber, int verseNumber) {
-		boolean found = false;
-		for (Book book : this.books) {
-			if (found || book.getNumber() == bookNumber) {
-				for (Chapter chapter : book.getChapters()) {
-					if (found || chapter.getNumber() == chapterNumber) {
-						for (Verse verse : chapter.getVerses()) {
-							if (!found && verse.getNumber() == verseNumber) {
-								// we've found the verse
-								// so try to go to the next one
-								found = true;
-								continue;
-							}
-							if (found) {
-								return new LocatedVerse(this, book, chapter, verse);
-							}
-						}
-					}
-				}
-			}
-		}
-		return null;
+		LocatedVerse[] verses = this.getVerses(bookNumber, chapterNumber, verseNumber, 1);
+		return verses != null ? verses[0] : null;
 	}
 	
 	/**
@@ -315,32 +463,8 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	 */
 	@Override
 	public LocatedVerse getPreviousVerse(int bookNumber, int chapterNumber, int verseNumber) {
-		boolean found = false;
-		for (int i = this.books.size() - 1; i >= 0; i--) {
-			Book book = this.books.get(i);
-			if (found || book.getNumber() == bookNumber) {
-				List<Chapter> chapters = book.getChapters();
-				for (int j = chapters.size() - 1; j >= 0; j--) {
-					Chapter chapter = chapters.get(j);
-					if (found || chapter.getNumber() == chapterNumber) {
-						List<Verse> verses = chapter.getVerses();
-						for (int k = verses.size() - 1; k >= 0; k--) {
-							Verse verse = verses.get(k);
-							if (!found && verse.getNumber() == verseNumber) {
-								// we've found the verse
-								// so try to go to the next one
-								found = true;
-								continue;
-							}
-							if (found) {
-								return new LocatedVerse(this, book, chapter, verse);
-							}
-						}
-					}
-				}
-			}
-		}
-		return null;
+		LocatedVerse[] verses = this.getVerses(bookNumber, chapterNumber, verseNumber, -1);
+		return verses != null ? verses[0] : null;
 	}
 	
 	/**
@@ -362,35 +486,9 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	 */
 	@Override
 	public LocatedVerseTriplet getTriplet(int bookNumber, int chapterNumber, int verseNumber) {
-		LocatedVerse current = null;
-		LocatedVerse next = null;
-		boolean start = false;
-		for (Book book : this.books) {
-			if (start || book.getNumber() == bookNumber) {
-				for (Chapter chapter : book.getChapters()) {
-					if (start || chapter.getNumber() == chapterNumber) {
-						for (Verse verse : chapter.getVerses()) {
-							if (!start && verse.getNumber() == verseNumber) {
-								// we've found the verse
-								// so try to go to the next one
-								current = new LocatedVerse(this, book, chapter, verse);
-								start = true;
-								continue;
-							} else if (start && next == null) {
-								next = new LocatedVerse(this, book, chapter, verse);
-							}
-						}
-					}
-				}
-			}
-		}
-		if (current != null) {
-			return new LocatedVerseTriplet(
-					this.getPreviousVerse(bookNumber, chapterNumber, verseNumber), 
-					current, 
-					next);
-		}
-		return null;
+		LocatedVerse[] verses = this.getVerses(bookNumber, chapterNumber, verseNumber, -1, 0, 1);
+		if (verses == null) return null;
+		return new LocatedVerseTriplet(verses[0], verses[1], verses[2]);
 	}
 	
 	/**
@@ -412,36 +510,9 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	 */
 	@Override
 	public LocatedVerseTriplet getNextTriplet(int bookNumber, int chapterNumber, int verseNumber) {
-		LocatedVerse previous = null;
-		LocatedVerse current = null;
-		LocatedVerse next = null;
-		boolean start = false;
-		for (Book book : this.books) {
-			if (start || book.getNumber() == bookNumber) {
-				for (Chapter chapter : book.getChapters()) {
-					if (start || chapter.getNumber() == chapterNumber) {
-						for (Verse verse : chapter.getVerses()) {
-							if (!start && verse.getNumber() == verseNumber) {
-								// we've found the verse
-								// so try to go to the next one
-								previous = new LocatedVerse(this, book, chapter, verse);
-								start = true;
-								continue;
-							} else if (start && current == null) {
-								current = new LocatedVerse(this, book, chapter, verse);
-							} else if (start && next == null) {
-								next = new LocatedVerse(this, book, chapter, verse);
-								return new LocatedVerseTriplet(previous, current, next);
-							}
-						}
-					}
-				}
-			}
-		}
-		if (current != null) {
-			return new LocatedVerseTriplet(previous, current, next);
-		}
-		return null;
+		LocatedVerse[] verses = this.getVerses(bookNumber, chapterNumber, verseNumber, 0, 1, 2);
+		if (verses == null || verses[1] == null) return null;
+		return new LocatedVerseTriplet(verses[0], verses[1], verses[2]);
 	}
 	
 	/**
@@ -463,41 +534,9 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	 */
 	@Override
 	public LocatedVerseTriplet getPreviousTriplet(int bookNumber, int chapterNumber, int verseNumber) {
-		LocatedVerse previous = null;
-		LocatedVerse current = null;
-		LocatedVerse next = null;
-		boolean start = false;
-		for (int i = this.books.size() - 1; i >= 0; i--) {
-			Book book = this.books.get(i);
-			if (start || book.getNumber() == bookNumber) {
-				List<Chapter> chapters = book.getChapters();
-				for (int j = chapters.size() - 1; j >= 0; j--) {
-					Chapter chapter = chapters.get(j);
-					if (start || chapter.getNumber() == chapterNumber) {
-						List<Verse> verses = chapter.getVerses();
-						for (int k = verses.size() - 1; k >= 0; k--) {
-							Verse verse = verses.get(k);
-							if (!start && verse.getNumber() == verseNumber) {
-								// we've found the verse
-								// so try to go to the next one
-								next = new LocatedVerse(this, book, chapter, verse);
-								start = true;
-								continue;
-							} else if (start && current == null) {
-								current = new LocatedVerse(this, book, chapter, verse);
-							} else if (start && previous == null) {
-								previous = new LocatedVerse(this, book, chapter, verse);
-								return new LocatedVerseTriplet(previous, current, next);
-							}
-						}
-					}
-				}
-			}
-		}
-		if (current != null) {
-			return new LocatedVerseTriplet(previous, current, next);
-		}
-		return null;
+		LocatedVerse[] verses = this.getVerses(bookNumber, chapterNumber, verseNumber, -2, -1, 0);
+		if (verses == null || verses[1] == null) return null;
+		return new LocatedVerseTriplet(verses[0], verses[1], verses[2]);
 	}
 	
 	/**
@@ -524,6 +563,7 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	 */
 	@Override
 	public Book getLastBook() {
+		this.load();
 		if (this.books.isEmpty()) {
 			return null;
 		}
@@ -538,6 +578,7 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	@Override
 	public Book getMatchingBook(ReadOnlyBook book) {
 		if (book == null) return null;
+		this.load();
 		// try name first
 		for (Book b : this.books) {
 			if (b.getName().equalsIgnoreCase(book.getName())) {
@@ -559,6 +600,7 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	 */
 	@Override
 	public int getMaxBookNumber() {
+		this.load();
 		int max = -Integer.MAX_VALUE;
 		for (Book book : this.books) {
 			int n = book.getNumber();
@@ -570,6 +612,7 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	}
 	
 	public void renumber() {
+		this.load();
 		int n = 1;
 		for (Book book : this.books) {
 			book.setNumber(n++);
@@ -578,6 +621,7 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	}
 	
 	public void reorder() {
+		this.load();
 		FXCollections.sort(this.books);
 		for (Book book : this.books) {
 			book.reorder();
@@ -755,17 +799,22 @@ public final class Bible implements ReadOnlyBible, Indexable, Persistable, Copya
 	
 	@JsonProperty
 	public void setBooks(List<Book> books) {
-		this.books.setAll(books);
+		synchronized (this) {
+			this.verseStore = null;
+			this.books.setAll(books);
+		}
 	}
 	
 	@JsonProperty
 	@Watchable(name = "books")
 	public ObservableList<Book> getBooks() {
+		this.load();
 		return this.books;
 	}
 	
 	@Override
 	public ObservableList<? extends ReadOnlyBook> getBooksUnmodifiable() {
+		this.load();
 		return this.booksReadOnly;
 	}
 
@@ -0,0 +1,131 @@
+package org.praisenter.data.bible;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assembles a {@link Bible} from a format that's read sequentially (book, chapter, verse).
+ * <p>
+ * The books, chapters and verses are collected in plain lists sized for a typical bible
+ * and are set on the observable lists once, when the chapter or book is complete, rather
+ * than adding to the observable lists one verse at a time.  Book names are interned since
+ * the same names appear in every bible.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ */
+final class BibleImportBuilder {
+	/** The number of books in most bibles */
+	static final int BOOK_CAPACITY = 66;
+
+	/** Enough chapters for all but a few books */
+	static final int CHAPTER_CAPACITY = 64;
+
+	/** Enough verses for all but a few chapters */
+	static final int VERSE_CAPACITY = 64;
+
+	private final Bible bible;
+	private final List<Book> books;
+
+	private Book book;
+	private List<Chapter> chapters;
+
+	private Chapter chapter;
+	private List<Verse> verses;
+
+	/**
+	 * Minimal constructor.
+	 * @param bible the bible to build
+	 */
+	public BibleImportBuilder(Bible bible) {
+		this.bible = bible;
+		this.books = new ArrayList<>(BOOK_CAPACITY);
+	}
+
+	/**
+	 * Starts a new book, completing the current book.
+	 * @param number the book number
+	 * @param name the book name
+	 * @return {@link Book}
+	 */
+	public Book startBook(int number, String name) {
+		this.endBook();
+		this.book = new Book(number, name != null ? name.intern() : null);
+		this.chapters = new ArrayList<>(CHAPTER_CAPACITY);
+		this.books.add(this.book);
+		return this.book;
+	}
+
+	/**
+	 * Starts a new chapter in the current book, completing the current chapter.
+	 * @param number the chapter number
+	 * @return {@link Chapter}
+	 * @throws IllegalStateException if a book hasn't been started
+	 */
+	public Chapter startChapter(int number) {
+		if (this.book == null) {
+			throw new IllegalStateException("Chapter " + number + " was found before any book.");
+		}
+		this.endChapter();
+		this.chapter = new Chapter(number);
+		this.verses = new ArrayList<>(VERSE_CAPACITY);
+		this.chapters.add(this.chapter);
+		return this.chapter;
+	}
+
+	/**
+	 * Adds a verse to the current chapter.
+	 * @param number the verse number
+	 * @param text the verse text
+	 * @throws IllegalStateException if a chapter hasn't been started
+	 */
+	public void addVerse(int number, String text) {
+		if (this.chapter == null) {
+			throw new IllegalStateException("Verse " + number + " was found before any chapter.");
+		}
+		this.verses.add(new Verse(number, text));
+	}
+
+	/**
+	 * Returns the current book.
+	 * @return {@link Book}
+	 */
+	public Book getBook() {
+		return this.book;
+	}
+
+	/**
+	 * Returns the current chapter.
+	 * @return {@link Chapter}
+	 */
+	public Chapter getChapter() {
+		return this.chapter;
+	}
+
+	/**
+	 * Completes the current book and chapter and returns the bible.
+	 * @return {@link Bible}
+	 */
+	public Bible build() {
+		this.endBook();
+		this.bible.getBooks().setAll(this.books);
+		return this.bible;
+	}
+
+	private void endChapter() {
+		if (this.chapter != null) {
+			this.chapter.getVerses().setAll(this.verses);
+			this.chapter = null;
+			this.verses = null;
+		}
+	}
+
+	private void endBook() {
+		this.endChapter();
+		if (this.book != null) {
+			this.book.getChapters().setAll(this.chapters);
+			this.book = null;
+			this.chapters = null;
+		}
+	}
+}
@@ -2,8 +2,15 @@ package org.praisenter.data.bible;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.praisenter.data.AbstractPersistAdapter;
 import org.praisenter.data.BasicPathResolver;
 import org.praisenter.data.ImportExportFormat;
@@ -14,10 +21,21 @@ import org.praisenter.data.json.JsonIO;
 import org.praisenter.utility.MimeType;
 
 public final class BiblePersistAdapter extends AbstractPersistAdapter<Bible, BasicPathResolver<Bible>> implements PersistAdapter<Bible> {
+	private static final Logger LOGGER = LogManager.getLogger();
 	private static final String EXTENSION = "json";
+	private static final String VERSE_STORE_RELATIVE_PATH = "_verses";
+	private static final String VERSE_STORE_EXTENSION = ".bin";
+	private static final String BOOKS_PROPERTY = "books";
 
-	public BiblePersistAdapter(Path path) {
+	private final BibleStorageConfiguration configuration;
+	
+	/** The verse stores used by the last load */
+	private final Set<Path> verseStores;
+	
+	public BiblePersistAdapter(Path path, BibleStorageConfiguration configuration) {
 		super(new BasicPathResolver<>(path, "bibles", EXTENSION));
+		this.configuration = configuration;
+		this.verseStores = ConcurrentHashMap.newKeySet();
 
 		this.importExportProviders.put(ImportExportFormat.PRAISENTER3, new PraisenterFormatProvider<>(Bible.class));
 		this.importExportProviders.put(ImportExportFormat.UNBOUNDBIBLE, new UnboundBibleFormatProvider());
@@ -26,16 +44,127 @@ public final class BiblePersistAdapter extends AbstractPersistAdapter<Bible, Bas
 		this.importExportProviders.put(ImportExportFormat.RAW, new RawExportFormatProvider<Bible>());
 	}
 
+	/**
+	 * Loads every bible and then deletes the verse stores that weren't used.
+	 * <p>
+	 * A verse store that's rebuilt is written under a new name (see {@link #getVerseStorePath(Path, long, long)})
+	 * since the old one may still be mapped by this process.  The old ones are deleted here, on a
+	 * later start, when nothing has them mapped.
+	 */
+	@Override
+	public List<Bible> load() throws IOException {
+		this.verseStores.clear();
+		List<Bible> bibles = super.load();
+		this.deleteUnusedVerseStores();
+		return bibles;
+	}
+	
+	private void deleteUnusedVerseStores() {
+		Path folder = this.pathResolver.getBasePath().resolve(VERSE_STORE_RELATIVE_PATH);
+		if (!Files.isDirectory(folder)) {
+			return;
+		}
+		
+		try (Stream<Path> paths = Files.list(folder)) {
+			paths.filter(p -> !this.verseStores.contains(p)).forEach(p -> {
+				try {
+					Files.deleteIfExists(p);
+					LOGGER.debug("Deleted unused verse store '{}'", p.toAbsolutePath());
+				} catch (IOException ex) {
+					// it may still be mapped, try again on the next load
+					LOGGER.warn("Failed to delete unused verse store '" + p.toAbsolutePath() + "'", ex);
+				}
+			});
+		} catch (IOException ex) {
+			LOGGER.warn("Failed to list the verse stores in '" + folder.toAbsolutePath() + "'", ex);
+		}
+	}
+	
 	@Override
 	protected Bible load(Path path) throws IOException {
 		if (Files.isRegularFile(path)) {
 			if (MimeType.JSON.check(path)) {
+				if (this.configuration.isLazyBibleLoadingEnabled()) {
+					return this.loadLazy(path);
+				}
 				return JsonIO.read(path, Bible.class);
 			}
 		}
 		return null;
 	}
 	
+	/**
+	 * Loads the bible's metadata from the given file and backs its verses with a verse store,
+	 * building the verse store first if it's missing or out of date.
+	 * <p>
+	 * The store's name includes the size and modified time of the bible file so a changed
+	 * bible never overwrites a store that's mapped.
+	 * @param path the bible file
+	 * @return {@link Bible}
+	 * @throws IOException if an IO error occurs
+	 */
+	private Bible loadLazy(Path path) throws IOException {
+		long size = Files.size(path);
+		long modified = Files.getLastModifiedTime(path).toMillis();
+		Path storePath = this.getVerseStorePath(path, size, modified);
+		this.verseStores.add(storePath);
+		
+		BibleVerseStore store = null;
+		boolean build = false;
+		try {
+			store = BibleVerseStore.open(storePath);
+			if (!store.isCurrent(size, modified)) {
+				LOGGER.warn("Verse store '{}' doesn't match its bible", storePath.toAbsolutePath());
+				store = null;
+			}
+		} catch (NoSuchFileException ex) {
+			LOGGER.debug("Verse store '{}' doesn't exist", storePath.toAbsolutePath());
+			build = true;
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to open verse store '" + storePath.toAbsolutePath() + "'", ex);
+		}
+		
+		if (store == null && !build) {
+			// the bad store may still be mapped so don't overwrite it, it's deleted
+			// on the next load and then rebuilt
+			this.verseStores.remove(storePath);
+			return JsonIO.read(path, Bible.class);
+		}
+		
+		if (store != null) {
+			Bible bible = JsonIO.readExcluding(path, Bible.class, BOOKS_PROPERTY);
+			bible.setVerseStore(store);
+			return bible;
+		}
+		
+		// build the store from a full read
+		Bible bible = JsonIO.read(path, Bible.class);
+		try {
+			BibleVerseStore.write(storePath, bible, size, modified);
+			bible.setVerseStore(BibleVerseStore.open(storePath));
+		} catch (Exception ex) {
+			// just keep the full bible in memory
+			LOGGER.warn("Failed to build verse store '" + storePath.toAbsolutePath() + "'", ex);
+		}
+		return bible;
+	}
+	
+	/**
+	 * Returns the path of the verse store for the given bible file with the given size and modified time.
+	 * @param path the bible file
+	 * @param size the bible file size
+	 * @param modified the bible file modified time in milliseconds
+	 * @return Path
+	 */
+	private Path getVerseStorePath(Path path, long size, long modified) {
+		String name = path.getFileName().toString();
+		int index = name.lastIndexOf('.');
+		if (index > 0) {
+			name = name.substring(0, index);
+		}
+		return this.pathResolver.getBasePath().resolve(VERSE_STORE_RELATIVE_PATH).resolve(name + "-" + size + "-" + modified + VERSE_STORE_EXTENSION);
+	}
+	
 	@Override
 	protected void create(Path path, Bible item) throws IOException {
 		JsonIO.write(path, item);
@@ -43,11 +172,13 @@ public final class BiblePersistAdapter extends AbstractPersistAdapter<Bible, Bas
 	
 	@Override
 	protected void update(Path path, Bible item) throws IOException {
+		// the verse store will be rebuilt on the next load
 		JsonIO.write(path, item);
 	}
 	
 	@Override
 	protected void delete(Path path, Bible item) throws IOException {
+		// NOTE: the verse store may still be mapped so it's deleted on the next load
 		Files.deleteIfExists(path);
 	}
 }
@@ -0,0 +1,5 @@
+package org.praisenter.data.bible;
+
+public interface BibleStorageConfiguration {
+	public boolean isLazyBibleLoadingEnabled();
+}
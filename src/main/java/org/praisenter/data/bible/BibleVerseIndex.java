@@ -0,0 +1,206 @@
+package org.praisenter.data.bible;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.beans.InvalidationListener;
+import javafx.collections.ObservableList;
+
+/**
+ * A positional index of the verses of a bible.
+ * <p>
+ * Every verse is given a position in reading order (the order of the book, chapter and verse
+ * lists) so that finding a verse is a binary search (or a hash lookup when the lists aren't in
+ * number order) and finding its neighbours is an array access.
+ * <p>
+ * The index registers the given listener with every book, chapter and verse list so that the
+ * owner can discard it when the structure changes.  Number edits are caught by validating each
+ * hit against the indexed verse.
+ */
+final class BibleVerseIndex {
+	private static final int NUMBER_BITS = 21;
+	private static final int MAX_NUMBER = (1 << NUMBER_BITS) - 1;
+
+	/** Returned by {@link #indexOf(int, int, int)} when the indexed verse no longer has the numbers it was indexed with */
+	public static final int STALE = -2;
+
+	private final Book[] books;
+	private final Chapter[] chapters;
+	private final Verse[] verses;
+
+	/** The verse keys in position order; null if they aren't sorted */
+	private final long[] keys;
+
+	/** The position of each verse; null if the keys are sorted */
+	private final Map<VerseKey, Integer> positions;
+
+	/** The lists the listener was registered with */
+	private final List<ObservableList<?>> observed;
+
+	private static final class VerseKey {
+		private final int book;
+		private final int chapter;
+		private final int verse;
+
+		public VerseKey(int book, int chapter, int verse) {
+			this.book = book;
+			this.chapter = chapter;
+			this.verse = verse;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * this.book + this.chapter) + this.verse;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) return true;
+			if (obj instanceof VerseKey) {
+				VerseKey other = (VerseKey)obj;
+				return other.book == this.book && other.chapter == this.chapter && other.verse == this.verse;
+			}
+			return false;
+		}
+	}
+
+	private BibleVerseIndex(Book[] books, Chapter[] chapters, Verse[] verses, long[] keys, Map<VerseKey, Integer> positions, List<ObservableList<?>> observed) {
+		this.books = books;
+		this.chapters = chapters;
+		this.verses = verses;
+		this.keys = keys;
+		this.positions = positions;
+		this.observed = observed;
+	}
+
+	/**
+	 * Builds an index for the given books and registers the given listener with every list.
+	 * @param books the books
+	 * @param listener the listener to notify when the structure changes
+	 * @return {@link BibleVerseIndex}
+	 */
+	public static BibleVerseIndex build(ObservableList<Book> books, InvalidationListener listener) {
+		List<ObservableList<?>> observed = new ArrayList<>();
+		observed.add(books);
+
+		int n = 0;
+		for (Book book : books) {
+			observed.add(book.getChapters());
+			for (Chapter chapter : book.getChapters()) {
+				observed.add(chapter.getVerses());
+				n += chapter.getVerses().size();
+			}
+		}
+
+		Book[] b = new Book[n];
+		Chapter[] c = new Chapter[n];
+		Verse[] v = new Verse[n];
+		long[] keys = new long[n];
+		boolean sorted = true;
+
+		int i = 0;
+		for (Book book : books) {
+			for (Chapter chapter : book.getChapters()) {
+				for (Verse verse : chapter.getVerses()) {
+					b[i] = book;
+					c[i] = chapter;
+					v[i] = verse;
+					if (sorted) {
+						long key = key(book.getNumber(), chapter.getNumber(), verse.getNumber());
+						sorted = key >= 0 && (i == 0 || key > keys[i - 1]);
+						keys[i] = key;
+					}
+					i++;
+				}
+			}
+		}
+
+		Map<VerseKey, Integer> positions = null;
+		if (!sorted) {
+			keys = null;
+			positions = new HashMap<>(n * 4 / 3 + 1);
+			for (int j = 0; j < n; j++) {
+				// keep the first, like a scan would
+				positions.putIfAbsent(new VerseKey(b[j].getNumber(), c[j].getNumber(), v[j].getNumber()), j);
+			}
+		}
+
+		for (ObservableList<?> list : observed) {
+			list.addListener(listener);
+		}
+
+		return new BibleVerseIndex(b, c, v, keys, positions, observed);
+	}
+
+	private static long key(int book, int chapter, int verse) {
+		if (book < 0 || book > MAX_NUMBER || chapter < 0 || chapter > MAX_NUMBER || verse < 0 || verse > MAX_NUMBER) {
+			return -1;
+		}
+		return ((long)book << (2 * NUMBER_BITS)) | ((long)chapter << NUMBER_BITS) | verse;
+	}
+
+	/**
+	 * Removes the given listener from every list it was registered with.
+	 * @param listener the listener
+	 */
+	public void release(InvalidationListener listener) {
+		for (ObservableList<?> list : this.observed) {
+			list.removeListener(listener);
+		}
+	}
+
+	/**
+	 * Returns the position of the given verse, -1 if it's not in the index or {@link #STALE}
+	 * if the indexed verse no longer has the given numbers (the index should be rebuilt).
+	 * @param bookNumber the book number
+	 * @param chapterNumber the chapter number
+	 * @param verseNumber the verse number
+	 * @return int
+	 */
+	public int indexOf(int bookNumber, int chapterNumber, int verseNumber) {
+		int position = -1;
+		if (this.keys != null) {
+			long key = key(bookNumber, chapterNumber, verseNumber);
+			if (key >= 0) {
+				position = Arrays.binarySearch(this.keys, key);
+			}
+		} else {
+			Integer p = this.positions.get(new VerseKey(bookNumber, chapterNumber, verseNumber));
+			if (p != null) {
+				position = p;
+			}
+		}
+
+		if (position < 0) {
+			return -1;
+		}
+
+		if (this.verses[position].getNumber() != verseNumber ||
+			this.chapters[position].getNumber() != chapterNumber ||
+			this.books[position].getNumber() != bookNumber) {
+			return STALE;
+		}
+
+		return position;
+	}
+
+	/**
+	 * Returns the verse at the given position or null if the position is out of range.
+	 * @param bible the bible
+	 * @param position the position
+	 * @return {@link LocatedVerse}
+	 */
+	public LocatedVerse get(Bible bible, int position) {
+		if (position < 0 || position >= this.verses.length) {
+			return null;
+		}
+		return new LocatedVerse(bible, this.books[position], this.chapters[position], this.verses[position]);
+	}
+
+	public int size() {
+		return this.verses.length;
+	}
+}
@@ -0,0 +1,353 @@
+package org.praisenter.data.bible;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact, read-only, memory-mapped copy of the books, chapters and verses of a {@link Bible}.
+ * <p>
+ * The store is made up of fixed size book, chapter and verse records followed by a block
+ * of UTF-8 text.  Nothing but the mapped buffer is kept on the heap and all reads use absolute
+ * positions, so an instance can be shared between threads and between copies of a bible.
+ * <p>
+ * The store records the size and modified time of the file it was built from so that it
+ * can be rebuilt when that file changes.
+ */
+public final class BibleVerseStore {
+	private static final int MAGIC = 0x50425653; // PBVS
+	private static final int FORMAT_VERSION = 1;
+
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 4;
+	private static final int BOOK_RECORD_SIZE = 5 * 4;
+	private static final int CHAPTER_RECORD_SIZE = 3 * 4;
+	private static final int VERSE_RECORD_SIZE = 3 * 4;
+
+	private final MappedByteBuffer buffer;
+	private final long sourceSize;
+	private final long sourceModified;
+	private final int bookCount;
+	private final int chapterCount;
+	private final int verseCount;
+	private final int chaptersOffset;
+	private final int versesOffset;
+	private final int textOffset;
+
+	private BibleVerseStore(MappedByteBuffer buffer) throws IOException {
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+			throw new IOException("Unsupported bible verse store format");
+		}
+
+		this.buffer = buffer;
+		this.sourceSize = buffer.getLong(8);
+		this.sourceModified = buffer.getLong(16);
+		this.bookCount = buffer.getInt(24);
+		this.chapterCount = buffer.getInt(28);
+		this.verseCount = buffer.getInt(32);
+		this.chaptersOffset = HEADER_SIZE + this.bookCount * BOOK_RECORD_SIZE;
+		this.versesOffset = this.chaptersOffset + this.chapterCount * CHAPTER_RECORD_SIZE;
+		this.textOffset = this.versesOffset + this.verseCount * VERSE_RECORD_SIZE;
+
+		if (this.textOffset > buffer.capacity()) {
+			throw new IOException("The bible verse store is truncated");
+		}
+	}
+
+	/**
+	 * Maps the store at the given path.
+	 * @param path the path
+	 * @return {@link BibleVerseStore}
+	 * @throws IOException if the file can't be read or isn't a verse store
+	 */
+	public static BibleVerseStore open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			// the mapping remains valid after the channel is closed
+			return new BibleVerseStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Writes the books, chapters and verses of the given bible to a store at the given path.
+	 * <p>
+	 * The store is written to a temporary file first and then moved into place.
+	 * @param path the path
+	 * @param bible the bible
+	 * @param sourceSize the size of the file the bible was read from
+	 * @param sourceModified the modified time (in milliseconds) of the file the bible was read from
+	 * @throws IOException if an IO error occurs
+	 */
+	public static void write(Path path, Bible bible, long sourceSize, long sourceModified) throws IOException {
+		List<Book> books = bible.getBooks();
+
+		int chapterCount = 0;
+		int verseCount = 0;
+		for (Book book : books) {
+			chapterCount += book.getChapters().size();
+			for (Chapter chapter : book.getChapters()) {
+				verseCount += chapter.getVerses().size();
+			}
+		}
+
+		ByteArrayOutputStream text = new ByteArrayOutputStream(verseCount * 128);
+		ByteArrayOutputStream records = new ByteArrayOutputStream(HEADER_SIZE + books.size() * BOOK_RECORD_SIZE + chapterCount * CHAPTER_RECORD_SIZE + verseCount * VERSE_RECORD_SIZE);
+		DataOutputStream out = new DataOutputStream(records);
+
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		out.writeLong(sourceSize);
+		out.writeLong(sourceModified);
+		out.writeInt(books.size());
+		out.writeInt(chapterCount);
+		out.writeInt(verseCount);
+
+		int chapterIndex = 0;
+		for (Book book : books) {
+			out.writeInt(book.getNumber());
+			out.writeInt(chapterIndex);
+			out.writeInt(book.getChapters().size());
+			writeText(out, text, book.getName());
+			chapterIndex += book.getChapters().size();
+		}
+
+		int verseIndex = 0;
+		for (Book book : books) {
+			for (Chapter chapter : book.getChapters()) {
+				out.writeInt(chapter.getNumber());
+				out.writeInt(verseIndex);
+				out.writeInt(chapter.getVerses().size());
+				verseIndex += chapter.getVerses().size();
+			}
+		}
+
+		for (Book book : books) {
+			for (Chapter chapter : book.getChapters()) {
+				for (Verse verse : chapter.getVerses()) {
+					out.writeInt(verse.getNumber());
+					writeText(out, text, verse.getText());
+				}
+			}
+		}
+		out.flush();
+
+		Files.createDirectories(path.getParent());
+		Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream file = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				records.writeTo(file);
+				text.writeTo(file);
+			}
+
+			try {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static void writeText(DataOutputStream out, ByteArrayOutputStream text, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(0);
+			out.writeInt(-1);
+			return;
+		}
+
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(text.size());
+		out.writeInt(bytes.length);
+		text.write(bytes);
+	}
+
+	private String readText(int offset, int length) {
+		if (length < 0) return null;
+		if (length == 0) return "";
+		byte[] bytes = new byte[length];
+		this.buffer.get(this.textOffset + offset, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns true if this store was built from a file with the given size and modified time.
+	 * @param sourceSize the file size
+	 * @param sourceModified the file modified time in milliseconds
+	 * @return boolean
+	 */
+	public boolean isCurrent(long sourceSize, long sourceModified) {
+		return this.sourceSize == sourceSize && this.sourceModified == sourceModified;
+	}
+
+	public int getBookCount() {
+		return this.bookCount;
+	}
+
+	public int getChapterCount() {
+		return this.chapterCount;
+	}
+
+	public int getVerseCount() {
+		return this.verseCount;
+	}
+
+	// books
+
+	public int getBookNumber(int book) {
+		return this.buffer.getInt(HEADER_SIZE + book * BOOK_RECORD_SIZE);
+	}
+
+	public int getBookChapterStart(int book) {
+		return this.buffer.getInt(HEADER_SIZE + book * BOOK_RECORD_SIZE + 4);
+	}
+
+	public int getBookChapterCount(int book) {
+		return this.buffer.getInt(HEADER_SIZE + book * BOOK_RECORD_SIZE + 8);
+	}
+
+	public String getBookName(int book) {
+		int record = HEADER_SIZE + book * BOOK_RECORD_SIZE;
+		return this.readText(this.buffer.getInt(record + 12), this.buffer.getInt(record + 16));
+	}
+
+	// chapters
+
+	public int getChapterNumber(int chapter) {
+		return this.buffer.getInt(this.chaptersOffset + chapter * CHAPTER_RECORD_SIZE);
+	}
+
+	public int getChapterVerseStart(int chapter) {
+		return this.buffer.getInt(this.chaptersOffset + chapter * CHAPTER_RECORD_SIZE + 4);
+	}
+
+	public int getChapterVerseCount(int chapter) {
+		return this.buffer.getInt(this.chaptersOffset + chapter * CHAPTER_RECORD_SIZE + 8);
+	}
+
+	// verses
+
+	public int getVerseNumber(int verse) {
+		return this.buffer.getInt(this.versesOffset + verse * VERSE_RECORD_SIZE);
+	}
+
+	public String getVerseText(int verse) {
+		int record = this.versesOffset + verse * VERSE_RECORD_SIZE;
+		return this.readText(this.buffer.getInt(record + 4), this.buffer.getInt(record + 8));
+	}
+
+	// lookup
+
+	/**
+	 * Returns the index of the given verse in this store or -1 if it doesn't exist.
+	 * @param bookNumber the book number
+	 * @param chapterNumber the chapter number
+	 * @param verseNumber the verse number
+	 * @return int
+	 */
+	public int indexOf(int bookNumber, int chapterNumber, int verseNumber) {
+		for (int b = 0; b < this.bookCount; b++) {
+			if (this.getBookNumber(b) != bookNumber) continue;
+			int cs = this.getBookChapterStart(b);
+			int ce = cs + this.getBookChapterCount(b);
+			for (int c = cs; c < ce; c++) {
+				if (this.getChapterNumber(c) != chapterNumber) continue;
+				int vs = this.getChapterVerseStart(c);
+				int ve = vs + this.getChapterVerseCount(c);
+				for (int v = vs; v < ve; v++) {
+					if (this.getVerseNumber(v) == verseNumber) {
+						return v;
+					}
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the chapter containing the given verse index.
+	 * @param verse the verse index
+	 * @return int
+	 */
+	public int getChapterIndex(int verse) {
+		// chapters are stored in verse order, so find the last chapter starting at or before the verse
+		int lo = 0;
+		int hi = this.chapterCount - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (this.getChapterVerseStart(mid) <= verse) {
+				lo = mid;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the index of the book containing the given chapter index.
+	 * @param chapter the chapter index
+	 * @return int
+	 */
+	public int getBookIndex(int chapter) {
+		int lo = 0;
+		int hi = this.bookCount - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (this.getBookChapterStart(mid) <= chapter) {
+				lo = mid;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return lo;
+	}
+
+	// hydration
+
+	/**
+	 * Builds a chapter and all of its verses.
+	 * @param chapter the chapter index
+	 * @return {@link Chapter}
+	 */
+	public Chapter toChapter(int chapter) {
+		int vs = this.getChapterVerseStart(chapter);
+		int vc = this.getChapterVerseCount(chapter);
+		List<Verse> verses = new ArrayList<>(vc);
+		for (int v = vs; v < vs + vc; v++) {
+			verses.add(new Verse(this.getVerseNumber(v), this.getVerseText(v)));
+		}
+		Chapter c = new Chapter(this.getChapterNumber(chapter));
+		c.setVerses(verses);
+		return c;
+	}
+
+	/**
+	 * Builds the full book, chapter and verse graph stored in this store.
+	 * @return List&lt;{@link Book}&gt;
+	 */
+	public List<Book> toBooks() {
+		List<Book> books = new ArrayList<>(this.bookCount);
+		for (int b = 0; b < this.bookCount; b++) {
+			int cs = this.getBookChapterStart(b);
+			int cc = this.getBookChapterCount(b);
+			List<Chapter> chapters = new ArrayList<>(cc);
+			for (int c = cs; c < cs + cc; c++) {
+				chapters.add(this.toChapter(c));
+			}
+			Book book = new Book(this.getBookNumber(b), this.getBookName(b));
+			book.setChapters(chapters);
+			books.add(book);
+		}
+		return books;
+	}
+}
@@ -25,7 +25,6 @@
 package org.praisenter.data.bible;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -34,10 +33,9 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
@@ -49,10 +47,6 @@ import org.praisenter.data.ImportExportProvider;
 import org.praisenter.data.InvalidImportExportFormatException;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.utility.MimeType;
-import org.praisenter.utility.Streams;
-import org.xml.sax.Attributes;
-import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * A bible importer for the OpenSong bible format.
@@ -64,6 +58,9 @@ final class OpenSongBibleFormatProvider implements ImportExportProvider<Bible> {
 	/** The class level-logger */
 	private static final Logger LOGGER = LogManager.getLogger();
 	
+	/** The number of bytes at the start of a stream that may be read to check its format */
+	private static final int FORMAT_CHECK_LIMIT = 64 * 1024;
+	
 	/** The source */
 	private static final String SOURCE = "OpenSong (http://www.opensong.org/)";
 	
@@ -98,23 +95,34 @@ final class OpenSongBibleFormatProvider implements ImportExportProvider<Bible> {
 	
 	@Override
 	public DataImportResult<Bible> imp(PersistAdapter<Bible> adapter, Path path) throws IOException {
+		try (FileInputStream fis = new FileInputStream(path.toFile())) {
+			return this.imp(adapter, path.getFileName().toString(), fis);
+		}
+	}
+	
+	@Override
+	public DataImportResult<Bible> imp(PersistAdapter<Bible> adapter, String name, InputStream stream) throws IOException {
 		DataImportResult<Bible> result = new DataImportResult<>();
 		
-		if (!this.isOpenSongBible(path)) {
+		// only the start of the stream is kept for the format check so that
+		// the rest can be parsed as it's read
+		BufferedInputStream bis = new BufferedInputStream(stream);
+		bis.mark(FORMAT_CHECK_LIMIT);
+		boolean matches = this.isOpenSongBible(bis);
+		bis.reset();
+		if (!matches) {
 			return result;
 		}
 		
-		String name = path.getFileName().toString();
 		int i = name.lastIndexOf('.');
 		if (i >= 0) {
 			name = name.substring(0, i);
 		}
 		
 		List<DataReadResult<Bible>> results = new ArrayList<>();
-		try (FileInputStream fis = new FileInputStream(path.toFile());
-			BufferedInputStream bis = new BufferedInputStream(fis)) {
+		try {
 			results.add(this.parse(bis, name));
-		} catch (SAXException | ParserConfigurationException ex) {
+		} catch (XMLStreamException ex) {
 			throw new InvalidImportExportFormatException(ex);
 		}
 		
@@ -138,196 +146,143 @@ final class OpenSongBibleFormatProvider implements ImportExportProvider<Bible> {
 		return result;
 	}
 	
-	private boolean isOpenSongBible(Path path) {
-		try (FileInputStream stream = new FileInputStream(path.toFile())) {
-			XMLInputFactory f = XMLInputFactory.newInstance();
-			// prevent XXE attacks
-			// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet#XMLInputFactory_.28a_StAX_parser.29
-			f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-			f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-			XMLStreamReader r = f.createXMLStreamReader(stream);
-			while(r.hasNext()) {
-			    r.next();
-			    if (r.isStartElement()) {
-			    	if (r.getLocalName().equalsIgnoreCase("bible")) {
-			    		return true;
-			    	}
-			    }
+	/**
+	 * Returns true if the root element of the given stream is an OpenSong bible.
+	 * <p>
+	 * Only the start of the document is read.
+	 * @param stream the stream
+	 * @return boolean
+	 */
+	private boolean isOpenSongBible(InputStream stream) {
+		try {
+			XMLStreamReader r = createXMLInputFactory().createXMLStreamReader(stream);
+			try {
+				while (r.hasNext()) {
+					r.next();
+					if (r.isStartElement()) {
+						return r.getLocalName().equalsIgnoreCase("bible");
+					}
+				}
+			} finally {
+				// doesn't close the stream
+				r.close();
 			}
 		} catch (Exception ex) {
-			LOGGER.trace("Failed to read the path as an XML document.", ex);
+			LOGGER.trace("Failed to read the stream as an XML document.", ex);
 		}
 		return false;
 	}
 	
 	/**
-	 * Attempts to parse the given input stream into the internal bible format.
-	 * @param stream the input stream
-	 * @param name the name
-	 * @throws IOException if an IO error occurs
-	 * @throws InvalidImportExportFormatException if the stream was not in the expected format
-	 * @return {@link Bible}
-	 * @throws SAXException 
-	 * @throws ParserConfigurationException 
+	 * Creates a StAX factory that doesn't process DTDs or external entities.
+	 * @return XMLInputFactory
 	 */
-	private DataReadResult<Bible> parse(InputStream stream, String name) throws ParserConfigurationException, SAXException, IOException {
-		byte[] content = Streams.read(stream);
-		// read the bytes
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		// prevent XXE attacks 
-		// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet
-		factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-		factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-		SAXParser parser = factory.newSAXParser();
-		OpenSongHandler handler = new OpenSongHandler(name);
-		parser.parse(new ByteArrayInputStream(content), handler);
-		return new DataReadResult<Bible>(handler.getBible(), handler.warnings);
+	private static XMLInputFactory createXMLInputFactory() {
+		XMLInputFactory f = XMLInputFactory.newInstance();
+		// prevent XXE attacks
+		// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet#XMLInputFactory_.28a_StAX_parser.29
+		f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return f;
 	}
 	
 	/**
-	 * A SAX parser handler for the OpenSong Bible format.
-	 * @author William Bittle
-	 * @version 3.0.0
-	 * @since 3.0.0
+	 * Attempts to parse the given input stream into the internal bible format.
+	 * <p>
+	 * The stream is read as it's parsed rather than being read into memory first.
+	 * @param stream the input stream
+	 * @param name the name
+	 * @return {@link Bible}
+	 * @throws XMLStreamException if the stream isn't valid XML
 	 */
-	private final class OpenSongHandler extends DefaultHandler {
-		// imported data
-		
-		/** The bible */
-		private Bible bible;
-		
-		// temp data
-		
-		/** The current book */
-		private Book book;
+	private DataReadResult<Bible> parse(InputStream stream, String name) throws XMLStreamException {
+		Bible bible = new Bible();
+		bible.setName(name);
+		bible.setSource(SOURCE);
 		
-		/** The book number */
-		private int bookNumber;
+		BibleImportBuilder builder = new BibleImportBuilder(bible);
+		List<String> warnings = new ArrayList<>();
 		
-		/** The current chapter */
-		private Chapter chapter;
+		// buffer for tag contents
+		StringBuilder data = new StringBuilder();
 		
-		/** The chapter number */
-		private int chapterNumber;
+		int bookNumber = 1;
+		int chapterNumber = 1;
+		int number = 1;
+		int verseTo = -1;
 		
-		/** The verse number */
-		private int number;
-		
-		/** The verse range */
-		private int verseTo;
-		
-		/** Buffer for tag contents */
-		private StringBuilder dataBuilder;
-		
-		private List<String> warnings;
-		
-		/**
-		 * Full constructor.
-		 * @param name the bible name
-		 */
-		public OpenSongHandler(String name) {
-			this.bible = new Bible();
-			this.bible.setName(name);
-			this.bible.setSource(SOURCE);
-			this.bookNumber = 1;
-			this.chapterNumber = 1;
-			this.number = 1;
-			this.warnings = new ArrayList<>();
-		}
-		
-		/**
-		 * Returns the bible.
-		 * @return {@link Bible}
-		 */
-		public Bible getBible() {
-			return this.bible;
-		}
-		
-		/* (non-Javadoc)
-		 * @see org.xml.sax.helpers.DefaultHandler#startElement(java.lang.String, java.lang.String, java.lang.String, org.xml.sax.Attributes)
-		 */
-		@Override
-		public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
-			// inspect the tag name
-			if (qName.equalsIgnoreCase("bible")) {
-				// get the name if present
-				String name = attributes.getValue("n");
-				if (name != null) {
-					this.bible.setName(name.trim());
-				}
-			} else if (qName.equalsIgnoreCase("b")) {
-				book = new Book(bookNumber, attributes.getValue("n"));
-				this.bible.getBooks().add(book);
-				bookNumber++;
-			} else if (qName.equalsIgnoreCase("c")) {
-				String number = attributes.getValue("n");
-				try {
-					this.chapterNumber = Short.parseShort(number);
-				} catch (NumberFormatException ex) {
-					LOGGER.warn("Failed to parse chapter number '" + number + "' for '" + this.book.getName() + "' in '" + this.bible.getName() + "'. Using next chapter number in sequence instead.");
-					this.chapterNumber++;
-				}
-				this.chapter = new Chapter(this.chapterNumber);
-				this.book.getChapters().add(this.chapter);
-				this.number = 0;
-			} else if (qName.equalsIgnoreCase("v")) {
-				this.verseTo = -1;
-				String number = attributes.getValue("n");
-				String to = attributes.getValue("t");
-				try {
-					this.number = Short.parseShort(number);
-				} catch (NumberFormatException ex) {
-					LOGGER.warn("Failed to parse verse number '" + number + "' for '" + this.book.getName() + "' chatper '"  + this.chapter.getNumber() + "' in '" + this.bible.getName() + "'. Using next verse number in sequence instead.");
-					this.number++;
-				}
-				if (to != null) {
-					try {
-						this.verseTo = Short.parseShort(to);
-					} catch (NumberFormatException ex) {
-						LOGGER.warn("Failed to parse the to verse number '" + to + "' for '" + this.bible.getName() + "'. Skipping.");
+		XMLStreamReader reader = createXMLInputFactory().createXMLStreamReader(stream);
+		try {
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String tag = reader.getLocalName();
+					if (tag.equalsIgnoreCase("bible")) {
+						// get the name if present
+						String bname = reader.getAttributeValue(null, "n");
+						if (bname != null) {
+							bible.setName(bname.trim());
+						}
+					} else if (tag.equalsIgnoreCase("b")) {
+						builder.startBook(bookNumber, reader.getAttributeValue(null, "n"));
+						bookNumber++;
+					} else if (tag.equalsIgnoreCase("c")) {
+						String n = reader.getAttributeValue(null, "n");
+						try {
+							chapterNumber = Short.parseShort(n);
+						} catch (NumberFormatException ex) {
+							LOGGER.warn("Failed to parse chapter number '" + n + "' for '" + builder.getBook().getName() + "' in '" + bible.getName() + "'. Using next chapter number in sequence instead.");
+							chapterNumber++;
+						}
+						builder.startChapter(chapterNumber);
+						number = 0;
+					} else if (tag.equalsIgnoreCase("v")) {
+						verseTo = -1;
+						String n = reader.getAttributeValue(null, "n");
+						String to = reader.getAttributeValue(null, "t");
+						try {
+							number = Short.parseShort(n);
+						} catch (NumberFormatException ex) {
+							LOGGER.warn("Failed to parse verse number '" + n + "' for '" + builder.getBook().getName() + "' chatper '"  + builder.getChapter().getNumber() + "' in '" + bible.getName() + "'. Using next verse number in sequence instead.");
+							number++;
+						}
+						if (to != null) {
+							try {
+								verseTo = Short.parseShort(to);
+							} catch (NumberFormatException ex) {
+								LOGGER.warn("Failed to parse the to verse number '" + to + "' for '" + bible.getName() + "'. Skipping.");
+							}
+						}
 					}
-				}
-			}
-		}
-
-		/* (non-Javadoc)
-		 * @see org.xml.sax.helpers.DefaultHandler#characters(char[], int, int)
-		 */
-		@Override
-		public void characters(char[] ch, int start, int length) throws SAXException {
-			// this method can be called a number of times for the contents of a tag
-			// this is done to improve performance so we need to append the text before
-			// using it
-			String s = new String(ch, start, length);
-			if (this.dataBuilder == null) {
-				this.dataBuilder = new StringBuilder();
-			}
-			this.dataBuilder.append(s);
-		}
-		
-		/* (non-Javadoc)
-		 * @see org.xml.sax.helpers.DefaultHandler#endElement(java.lang.String, java.lang.String, java.lang.String)
-		 */
-		@Override
-		public void endElement(String uri, String localName, String qName) throws SAXException {
-			if ("v".equalsIgnoreCase(qName)) {
-				// check for embedded verses (n="1" t="4") ...why oh why...
-				if (this.verseTo > 0 && this.verseTo > this.number) {
-					String warning = "The bible '" + this.bible.getName() + "' included a verse that is a collection of verses with a range of " + this.number + " to " + this.verseTo + ". These were imported as separate verses, all with the same text.";
-					this.warnings.add(warning);
-					LOGGER.warn(warning);
-					// just duplicate the verse content for each
-					for (int i = this.number; i <= this.verseTo; i++) {
-						this.chapter.getVerses().add(new Verse(i, this.dataBuilder.toString().trim()));
+				} else if (event == XMLStreamConstants.CHARACTERS ||
+						   event == XMLStreamConstants.CDATA ||
+						   event == XMLStreamConstants.SPACE) {
+					// the contents of a tag can be split across a number of events
+					data.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					if ("v".equalsIgnoreCase(reader.getLocalName())) {
+						String text = data.toString().trim();
+						// check for embedded verses (n="1" t="4") ...why oh why...
+						if (verseTo > 0 && verseTo > number) {
+							String warning = "The bible '" + bible.getName() + "' included a verse that is a collection of verses with a range of " + number + " to " + verseTo + ". These were imported as separate verses, all with the same text.";
+							warnings.add(warning);
+							LOGGER.warn(warning);
+							// just duplicate the verse content for each
+							for (int i = number; i <= verseTo; i++) {
+								builder.addVerse(i, text);
+							}
+						} else {
+							// add as normal
+							builder.addVerse(number, text);
+						}
 					}
-				} else {
-					// add as normal
-					this.chapter.getVerses().add(new Verse(this.number, this.dataBuilder.toString().trim()));
+					data.setLength(0);
 				}
-				
 			}
-			this.dataBuilder = null;
+		} finally {
+			reader.close();
 		}
+		
+		return new DataReadResult<Bible>(builder.build(), warnings);
 	}
 }
@@ -37,6 +37,7 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
@@ -49,8 +50,6 @@ import org.praisenter.data.InvalidImportExportFormatException;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.utility.MimeType;
 
-import javafx.collections.FXCollections;
-
 /**
  * A bible importer for the bible data files hosted on The Unbound Bible at www.unboundbible.org.
  * <p>
@@ -62,6 +61,9 @@ final class UnboundBibleFormatProvider implements ImportExportProvider<Bible> {
 	/** The class level-logger */
 	private static final Logger LOGGER = LogManager.getLogger();
 	
+	/** The number of columns to read before the columns are known */
+	private static final int MINIMUM_COLUMN_CAPACITY = 8;
+	
 	@Override
 	public boolean isSupported(Path path) {
 		return this.isSupported(MimeType.get(path));
@@ -188,36 +190,44 @@ final class UnboundBibleFormatProvider implements ImportExportProvider<Bible> {
 	 */
 	private Map<String, Book> readBooks(Bible bible, String fileName, InputStream is) throws InvalidImportExportFormatException, IOException {
 		Map<String, Book> bookMap = new HashMap<String, Book>();
+		List<Book> books = new ArrayList<>(BibleImportBuilder.BOOK_CAPACITY);
 		// load up the book names
 		BufferedReader reader = new BufferedReader(new InputStreamReader(is));
 		// read them line by line
 		String line = null;
 		int order = 1;
 		int i = 1;
+		int[] starts = new int[3];
+		int[] ends = new int[3];
 		while ((line = reader.readLine()) != null) {
 			if (line.startsWith("#")) {
 				// ignore the line, its a comment
 			} else {
 				// split the line by tabs
-				String[] data = line.split("\\t");
-				if (data.length != 2) {
-					LOGGER.error("Expected 2 columns of tab delimited data, but found " + data.length + " columns at line " + i + " of " + fileName);
+				int n = tokenize(line, starts, ends);
+				if (n != 2) {
+					LOGGER.error("Expected 2 columns of tab delimited data, but found " + n + " columns at line " + i + " of " + fileName);
 					throw new InvalidImportExportFormatException(fileName + ":" + i);
 				} else {
+					String name = line.substring(starts[1], ends[1]);
 					Book book = new Book();
-					book.setName(data[1].trim().equalsIgnoreCase("Acts of the Apostles") ? "Acts" : data[1].trim());
+					book.setName(name.equalsIgnoreCase("Acts of the Apostles") ? "Acts" : name.intern());
 					book.setNumber(order++);
-					bible.getBooks().add(book);
-					bookMap.put(data[0].trim(), book);
+					books.add(book);
+					bookMap.put(line.substring(starts[0], ends[0]), book);
 				}
 			}
 			i++;
 		}
+		bible.getBooks().addAll(books);
 		return bookMap;
 	}
 	
 	/**
 	 * Reads the verses and assigns some bible fields.
+	 * <p>
+	 * The verses are collected by book and chapter and set on the bible's books
+	 * once they've all been read.
 	 * @param bible the bible to add to
 	 * @param bookMap the mapping of bookcode to book
 	 * @param fileName the file name
@@ -235,6 +245,19 @@ final class UnboundBibleFormatProvider implements ImportExportProvider<Bible> {
 		Arrays.fill(columnMapping, -1);
 		int i = 0;
 		
+		// the field positions of the current line
+		int[] starts = new int[MINIMUM_COLUMN_CAPACITY];
+		int[] ends = new int[MINIMUM_COLUMN_CAPACITY];
+		
+		// the verses of each chapter of each book (sorted by chapter)
+		Map<Book, TreeMap<Integer, List<Verse>>> chapters = new HashMap<>();
+		
+		// the verses are typically in order so keep the current book and chapter
+		String bookCode = null;
+		Book book = null;
+		int chapterNumber = -1;
+		List<Verse> verses = null;
+		
 		while ((line = reader.readLine()) != null) {
 			i++;
 			if (line.startsWith("#")) {
@@ -266,31 +289,45 @@ final class UnboundBibleFormatProvider implements ImportExportProvider<Bible> {
 						}
 						k++;
 					}
+					
+					if (columns.length > starts.length) {
+						starts = new int[columns.length];
+						ends = new int[columns.length];
+					}
 				}
 			} else {
 				// split the line by tabs
-				String[] data = line.split("\\t");
+				int n = tokenize(line, starts, ends);
 				// we need at least 4 columns to continue (book,chapter,verse,text)
-				if (data.length < 4) {
-					LOGGER.error("Expected at least 4 columns of tab delimited data, but found " + data.length + " columns at line " + i + " of " + fileName);
+				if (n < 4) {
+					LOGGER.error("Expected at least 4 columns of tab delimited data, but found " + n + " columns at line " + i + " of " + fileName);
 					throw new InvalidImportExportFormatException(fileName + ":" + i);
 				} else {
 					try {
 						// dont bother checking the mapping on these since they are necessary
-						String bc = data[columnMapping[0]].trim();
-						int cn = Integer.parseInt(data[columnMapping[1]].trim());
+						int bs = starts[columnMapping[0]];
+						int be = ends[columnMapping[0]];
+						int cn = Integer.parseInt(line, starts[columnMapping[1]], ends[columnMapping[1]], 10);
+						int verse = Integer.parseInt(line, starts[columnMapping[2]], ends[columnMapping[2]], 10);
 						
 						// get the book
-						Book book = bookMap.get(bc);
-						// get the chapter
-						Chapter chapter = book.getChapter(cn);
-						// check for chapter not exists
-						if (chapter == null) {
-							chapter = new Chapter(cn);
-							book.getChapters().add(chapter);
+						if (bookCode == null || bookCode.length() != be - bs || !line.regionMatches(bs, bookCode, 0, be - bs)) {
+							bookCode = line.substring(bs, be);
+							book = bookMap.get(bookCode);
+							chapterNumber = -1;
+							if (book == null) {
+								LOGGER.error("The book '" + bookCode + "' at line " + i + " of " + fileName + " was not in the book names file");
+								throw new InvalidImportExportFormatException(fileName + ":" + i);
+							}
 						}
 						
-						int verse = Integer.parseInt(data[columnMapping[2]].trim());
+						// get the chapter
+						if (cn != chapterNumber) {
+							chapterNumber = cn;
+							verses = chapters
+									.computeIfAbsent(book, b -> new TreeMap<>())
+									.computeIfAbsent(cn, c -> new ArrayList<>(BibleImportBuilder.VERSE_CAPACITY));
+						}
 						
 						String text = null;
 
@@ -298,19 +335,17 @@ final class UnboundBibleFormatProvider implements ImportExportProvider<Bible> {
 						// normal verses with duplicate verse numbers
 						
 						// make sure the text is there
-						if (data.length > columnMapping[5]) {
-							text = data[columnMapping[5]].trim();
+						if (n > columnMapping[5]) {
+							text = line.substring(starts[columnMapping[5]], ends[columnMapping[5]]);
 						} else {
 							// continue, but log a warning
 							text = "";
-							String warning = "Verse [" + bc + "|" + cn + "|" + verse + "] is missing text on line " + i + " in " + fileName + ".";
+							String warning = "Verse [" + bookCode + "|" + cn + "|" + verse + "] is missing text on line " + i + " in " + fileName + ".";
 							warnings.add(warning);
 							LOGGER.warn(warning);
 						}
 						
-						if (chapter != null) {
-							chapter.getVerses().add(new Verse(verse, text));
-						}
+						verses.add(new Verse(verse, text));
 					} catch (NumberFormatException e) {
 						LOGGER.error("Failed to parse chapter, verse or order as integers at line " + i + " of " + fileName);
 						throw new InvalidImportExportFormatException(fileName + ":" + i);
@@ -319,14 +354,66 @@ final class UnboundBibleFormatProvider implements ImportExportProvider<Bible> {
 			}
 		}
 		
-		// sort since the chapters/verses could be out of order
-		for (Book book : bible.getBooks()) {
-			FXCollections.sort(book.getChapters());
-			for (Chapter chapter : book.getChapters()) {
-				FXCollections.sort(chapter.getVerses());
+		// sort since the verses could be out of order (the chapters already are)
+		for (Map.Entry<Book, TreeMap<Integer, List<Verse>>> entry : chapters.entrySet()) {
+			List<Chapter> cs = new ArrayList<>(entry.getValue().size());
+			for (Map.Entry<Integer, List<Verse>> ce : entry.getValue().entrySet()) {
+				List<Verse> vs = ce.getValue();
+				vs.sort(null);
+				Chapter chapter = new Chapter(ce.getKey());
+				chapter.getVerses().setAll(vs);
+				cs.add(chapter);
 			}
+			entry.getKey().getChapters().setAll(cs);
 		}
 		
 		return warnings;
 	}
+	
+	/**
+	 * Finds the tab delimited fields of the given line.
+	 * <p>
+	 * Rather than creating a string for each field, like {@link String#split(String)}, 
+	 * this records the start and end index of each (whitespace trimmed) field.  Like
+	 * {@link String#split(String)}, trailing empty fields are not counted.  Fields beyond
+	 * the length of the given arrays are ignored.
+	 * @param line the line
+	 * @param starts the start index of each field
+	 * @param ends the end index (exclusive) of each field
+	 * @return int the number of fields
+	 */
+	private static int tokenize(String line, int[] starts, int[] ends) {
+		int length = line.length();
+		int start = 0;
+		int n = 0;
+		int count = 0;
+		while (n < starts.length) {
+			int end = line.indexOf('\t', start);
+			if (end < 0) {
+				end = length;
+			}
+			
+			// the untrimmed field was empty
+			boolean empty = end == start;
+			
+			int s = start;
+			int e = end;
+			while (s < e && line.charAt(s) <= ' ') s++;
+			while (e > s && line.charAt(e - 1) <= ' ') e--;
+			starts[n] = s;
+			ends[n] = e;
+			n++;
+			
+			if (!empty) {
+				count = n;
+			}
+			
+			if (end == length) {
+				return count;
+			}
+			start = end + 1;
+		}
+		// there were more fields than we're looking for
+		return n;
+	}
 }
@@ -25,7 +25,6 @@
 package org.praisenter.data.bible;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -34,10 +33,9 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
@@ -49,10 +47,6 @@ import org.praisenter.data.ImportExportProvider;
 import org.praisenter.data.InvalidImportExportFormatException;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.utility.MimeType;
-import org.praisenter.utility.Streams;
-import org.xml.sax.Attributes;
-import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * A bible importer for the Zefania XML Bible format.
@@ -66,6 +60,9 @@ final class ZefaniaBibleFormatProvider implements ImportExportProvider<Bible> {
 	/** The class level-logger */
 	private static final Logger LOGGER = LogManager.getLogger();
 	
+	/** The number of bytes at the start of a stream that may be read to check its format */
+	private static final int FORMAT_CHECK_LIMIT = 64 * 1024;
+	
 	/** The source */
 	private static final String SOURCE = "Zefania XML Bible (https://sourceforge.net/projects/zefania-sharp/files/Bibles/)";
 	
@@ -101,23 +98,34 @@ final class ZefaniaBibleFormatProvider implements ImportExportProvider<Bible> {
 
 	@Override
 	public DataImportResult<Bible> imp(PersistAdapter<Bible> adapter, Path path) throws IOException {
+		try (FileInputStream fis = new FileInputStream(path.toFile())) {
+			return this.imp(adapter, path.getFileName().toString(), fis);
+		}
+	}
+	
+	@Override
+	public DataImportResult<Bible> imp(PersistAdapter<Bible> adapter, String name, InputStream stream) throws IOException {
 		DataImportResult<Bible> result = new DataImportResult<>();
 		
-		if (!this.isZefaniaBible(path)) {
+		// only the start of the stream is kept for the format check so that
+		// the rest can be parsed as it's read
+		BufferedInputStream bis = new BufferedInputStream(stream);
+		bis.mark(FORMAT_CHECK_LIMIT);
+		boolean matches = this.isZefaniaBible(bis);
+		bis.reset();
+		if (!matches) {
 			return result;
 		}
 		
-		String name = path.getFileName().toString();
 		int i = name.lastIndexOf('.');
 		if (i >= 0) {
 			name = name.substring(0, i);
 		}
 		
 		List<DataReadResult<Bible>> results = new ArrayList<>();
-		try (FileInputStream fis = new FileInputStream(path.toFile());
-			BufferedInputStream bis = new BufferedInputStream(fis)) {
+		try {
 			results.add(this.parse(bis, name));
-		} catch (SAXException | ParserConfigurationException ex) {
+		} catch (XMLStreamException ex) {
 			throw new InvalidImportExportFormatException(ex);
 		}
 		
@@ -141,228 +149,196 @@ final class ZefaniaBibleFormatProvider implements ImportExportProvider<Bible> {
 		return result;
 	}
 	
-	private boolean isZefaniaBible(Path path) {
-		try (FileInputStream stream = new FileInputStream(path.toFile())) {
-			XMLInputFactory f = XMLInputFactory.newInstance();
-			// prevent XXE attacks
-			// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet#XMLInputFactory_.28a_StAX_parser.29
-			f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-			f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-			XMLStreamReader r = f.createXMLStreamReader(stream);
-			while(r.hasNext()) {
-			    r.next();
-			    if (r.isStartElement()) {
-			    	if (r.getLocalName().equalsIgnoreCase("xmlbible") ||
-			    		r.getLocalName().equalsIgnoreCase("x")) {
-			    		return true;
-			    	}
-			    }
+	/**
+	 * Returns true if the root element of the given stream is a Zefania bible.
+	 * <p>
+	 * Only the start of the document is read.
+	 * @param stream the stream
+	 * @return boolean
+	 */
+	private boolean isZefaniaBible(InputStream stream) {
+		try {
+			XMLStreamReader r = createXMLInputFactory().createXMLStreamReader(stream);
+			try {
+				while (r.hasNext()) {
+					r.next();
+					if (r.isStartElement()) {
+						return r.getLocalName().equalsIgnoreCase("xmlbible") ||
+							r.getLocalName().equalsIgnoreCase("x");
+					}
+				}
+			} finally {
+				// doesn't close the stream
+				r.close();
 			}
 		} catch (Exception ex) {
-			LOGGER.trace("Failed to read the path as an XML document.", ex);
+			LOGGER.trace("Failed to read the stream as an XML document.", ex);
 		}
 		return false;
 	}
 	
 	/**
-	 * Attempts to parse the given input stream into the internal bible format.
-	 * @param stream the input stream
-	 * @param name the name
-	 * @return {@link Bible}
-	 * @throws IOException if an IO error occurs
-	 * @throws ParserConfigurationException
-	 * @throws SAXException 
+	 * Creates a StAX factory that doesn't process DTDs or external entities.
+	 * @return XMLInputFactory
 	 */
-	private DataReadResult<Bible> parse(InputStream stream, String name) throws ParserConfigurationException, SAXException, IOException {
-		byte[] content = Streams.read(stream);
-		// read the bytes
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		// prevent XXE attacks 
-		// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet
-		factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-		factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-		SAXParser parser = factory.newSAXParser();
-		ZefaniaHandler handler = new ZefaniaHandler(name);
-		parser.parse(new ByteArrayInputStream(content), handler);
-		DataReadResult<Bible> result = new DataReadResult<Bible>(handler.getBible(), handler.warnings);
-		return result;
+	private static XMLInputFactory createXMLInputFactory() {
+		XMLInputFactory f = XMLInputFactory.newInstance();
+		// prevent XXE attacks
+		// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet#XMLInputFactory_.28a_StAX_parser.29
+		f.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return f;
 	}
 	
 	/**
-	 * A SAX parser for the Zefania XML Bible format.
-	 * @author William Bittle
-	 * @version 3.0.0
-	 * @since 3.0.0
+	 * Attempts to parse the given input stream into the internal bible format.
+	 * <p>
+	 * The stream is read as it's parsed rather than being read into memory first.
+	 * @param stream the input stream
+	 * @param name the name
+	 * @return {@link Bible}
+	 * @throws XMLStreamException if the stream isn't valid XML
 	 */
-	private final class ZefaniaHandler extends DefaultHandler {
-
-		// imported data
-		
-		/** The bible */
-		private Bible bible;
-		
-		// temp data
-		
-		/** The current book */
-		private Book book;
+	private DataReadResult<Bible> parse(InputStream stream, String name) throws XMLStreamException {
+		Bible bible = new Bible();
+		bible.setName(name);
+		bible.setSource(SOURCE);
 		
-		/** The book number */
-		private int bookNumber;
+		BibleImportBuilder builder = new BibleImportBuilder(bible);
+		List<String> warnings = new ArrayList<>();
 		
-		/** The current chapter */
-		private Chapter chapter;
+		// buffer for tag contents
+		StringBuilder data = new StringBuilder();
 		
-		/** The chapter number */
-		private int chapterNumber;
+		int bookNumber = 1;
+		int chapterNumber = 1;
+		int verse = 1;
 		
-		/** The verse number */
-		private int verse;
+		// true if we are reading the verse content
+		boolean verseContent = false;
+		// true if we need to ignore the current content
+		boolean ignoreContent = false;
 		
-		/** Buffer for tag contents */
-		private StringBuilder dataBuilder;
-		
-		/** True if we are reading the verse content */
-		private boolean verseContent;
-		
-		/** True if we need to ignore the current content */
-		private boolean ignoreContent;
-		
-		/** The list of warnings */
-		private List<String> warnings;
-		
-		/**
-		 * Minimal constructor.
-		 * @param name the bible name
-		 */
-		public ZefaniaHandler(String name) {
-			this.bible = new Bible();
-			this.bible.setName(name);
-			this.bible.setSource(SOURCE);
-			this.bookNumber = 1;
-			this.chapterNumber = 1;
-			this.verse = 1;
-			this.warnings = new ArrayList<>();
-		}
-		
-		/**
-		 * Returns the parsed bible.
-		 * @return {@link Bible}
-		 */
-		public Bible getBible() {
-			return this.bible;
-		}
-		
-		/* (non-Javadoc)
-		 * @see org.xml.sax.helpers.DefaultHandler#startElement(java.lang.String, java.lang.String, java.lang.String, org.xml.sax.Attributes)
-		 */
-		@Override
-		public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
-			// inspect the tag name
-			if (qName.equalsIgnoreCase("xmlbible") ||
-				qName.equalsIgnoreCase("x")) {
-				// get the name if present
-				String name = attributes.getValue("biblename");
-				if (name != null) {
-					this.bible.setName(name.trim());
-				}
-			} else if (qName.equalsIgnoreCase("biblebook") ||
-					   qName.equalsIgnoreCase("b")) {
-				String bnumber = attributes.getValue("bnumber");
-				String bname = attributes.getValue("bname");
-				try {
-					this.bookNumber = Short.parseShort(bnumber);
-				} catch (NumberFormatException ex) {
-					String warning = "Failed to parse book number '" + bnumber + "' for '" + bname + "' in '" + this.bible.getName() + "'. Using next book number in sequence instead.";
-					warnings.add(warning);
-					LOGGER.warn(warning);
-					this.bookNumber++;
-				}
-				this.book = new Book(bookNumber, bname);
-				this.bible.getBooks().add(book);
-				this.chapterNumber = 0;
-			} else if (qName.equalsIgnoreCase("chapter") ||
-					   qName.equalsIgnoreCase("c")) {
-				String cnumber = attributes.getValue("cnumber");
-				try {
-					this.chapterNumber = Short.parseShort(cnumber);
-				} catch (NumberFormatException ex) {
-					String warning = "Failed to parse chapter number '" + cnumber + "' for '" + this.book.getName() + "' in '" + this.bible.getName() + "'. Using next chapter number in sequence instead.";
-					warnings.add(warning);
-					LOGGER.warn(warning);
-					this.chapterNumber++;
-				}
-				this.chapter = new Chapter(this.chapterNumber);
-				this.book.getChapters().add(this.chapter);
-				this.verse = 0;
-			} else if (qName.equalsIgnoreCase("vers") ||
-					   qName.equalsIgnoreCase("v")) {
-				String v = attributes.getValue("v");
-				String vnumber = v == null || v.length() == 0 ? attributes.getValue("vnumber") : v;
-				try {
-					this.verse = Short.parseShort(vnumber);
-				} catch (NumberFormatException ex) {
-					String warning = "Failed to parse verse number '" + vnumber + "' for '" + this.book.getName() + "' chapter '" + this.chapter.getNumber() + "' in '" + this.bible.getName() + "'. Using next verse number in sequence instead.";
-					warnings.add(warning);
-					LOGGER.warn(warning);
-					this.verse++;
+		XMLStreamReader reader = createXMLInputFactory().createXMLStreamReader(stream);
+		try {
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String tag = reader.getLocalName();
+					if (tag.equalsIgnoreCase("xmlbible") ||
+						tag.equalsIgnoreCase("x")) {
+						// get the name if present
+						String bname = reader.getAttributeValue(null, "biblename");
+						if (bname != null) {
+							bible.setName(bname.trim());
+						}
+					} else if (tag.equalsIgnoreCase("biblebook") ||
+							   tag.equalsIgnoreCase("b")) {
+						String bnumber = reader.getAttributeValue(null, "bnumber");
+						String bname = reader.getAttributeValue(null, "bname");
+						try {
+							bookNumber = Short.parseShort(bnumber);
+						} catch (NumberFormatException ex) {
+							String warning = "Failed to parse book number '" + bnumber + "' for '" + bname + "' in '" + bible.getName() + "'. Using next book number in sequence instead.";
+							warnings.add(warning);
+							LOGGER.warn(warning);
+							bookNumber++;
+						}
+						builder.startBook(bookNumber, bname);
+						chapterNumber = 0;
+					} else if (tag.equalsIgnoreCase("chapter") ||
+							   tag.equalsIgnoreCase("c")) {
+						String cnumber = reader.getAttributeValue(null, "cnumber");
+						try {
+							chapterNumber = Short.parseShort(cnumber);
+						} catch (NumberFormatException ex) {
+							String warning = "Failed to parse chapter number '" + cnumber + "' for '" + builder.getBook().getName() + "' in '" + bible.getName() + "'. Using next chapter number in sequence instead.";
+							warnings.add(warning);
+							LOGGER.warn(warning);
+							chapterNumber++;
+						}
+						builder.startChapter(chapterNumber);
+						verse = 0;
+					} else if (tag.equalsIgnoreCase("vers") ||
+							   tag.equalsIgnoreCase("v")) {
+						String v = reader.getAttributeValue(null, "v");
+						String vnumber = v == null || v.length() == 0 ? reader.getAttributeValue(null, "vnumber") : v;
+						try {
+							verse = Short.parseShort(vnumber);
+						} catch (NumberFormatException ex) {
+							String warning = "Failed to parse verse number '" + vnumber + "' for '" + builder.getBook().getName() + "' chapter '" + builder.getChapter().getNumber() + "' in '" + bible.getName() + "'. Using next verse number in sequence instead.";
+							warnings.add(warning);
+							LOGGER.warn(warning);
+							verse++;
+						}
+						verseContent = true;
+					} else if (tag.equalsIgnoreCase("note") ||
+							   tag.equalsIgnoreCase("n") ||
+							   tag.equalsIgnoreCase("xref") ||
+							   tag.equalsIgnoreCase("xr")) {
+						ignoreContent = true;
+					}
+				} else if (event == XMLStreamConstants.CHARACTERS ||
+						   event == XMLStreamConstants.CDATA ||
+						   event == XMLStreamConstants.SPACE) {
+					// the contents of a tag can be split across a number of events
+					if (!ignoreContent) {
+						data.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					String tag = reader.getLocalName();
+					if (tag.equalsIgnoreCase("vers") ||
+						tag.equalsIgnoreCase("v")) {
+						builder.addVerse(verse, normalize(data));
+						verseContent = false;
+					} else if (tag.equalsIgnoreCase("title")) {
+						bible.setName(data.toString().trim());
+					} else if (tag.equalsIgnoreCase("language")) {
+						bible.setLanguage(data.toString().trim());
+					} else if (tag.equalsIgnoreCase("rights")) {
+						bible.setCopyright(data.toString().trim());
+					} else if (tag.equalsIgnoreCase("note") ||
+							   tag.equalsIgnoreCase("n") ||
+							   tag.equalsIgnoreCase("xref") ||
+							   tag.equalsIgnoreCase("xr")) {
+						ignoreContent = false;
+					}
+					if (!verseContent) {
+						data.setLength(0);
+					}
 				}
-				this.verseContent = true;
-			} else if (qName.equalsIgnoreCase("note") ||
-					   qName.equalsIgnoreCase("n") ||
-					   qName.equalsIgnoreCase("xref") ||
-					   qName.equalsIgnoreCase("xr")) {
-				this.ignoreContent = true;
-			}
-		}
-
-		/* (non-Javadoc)
-		 * @see org.xml.sax.helpers.DefaultHandler#characters(char[], int, int)
-		 */
-		@Override
-		public void characters(char[] ch, int start, int length) throws SAXException {
-			// this method can be called a number of times for the contents of a tag
-			// this is done to improve performance so we need to append the text before
-			// using it
-			String s = new String(ch, start, length);
-			if (this.dataBuilder == null) {
-				this.dataBuilder = new StringBuilder();
-			}
-			if (!this.ignoreContent) {
-				this.dataBuilder.append(s);
 			}
+		} finally {
+			reader.close();
 		}
 		
-		/* (non-Javadoc)
-		 * @see org.xml.sax.helpers.DefaultHandler#endElement(java.lang.String, java.lang.String, java.lang.String)
-		 */
-		@Override
-		public void endElement(String uri, String localName, String qName) throws SAXException {
-			if (qName.equalsIgnoreCase("vers") ||
-				qName.equalsIgnoreCase("v")) {
-				this.chapter.getVerses().add(new Verse(this.verse, this.dataBuilder.toString().replaceAll("\\n|\\r", "").replaceAll("\\s+", " ").trim()));
-				this.verseContent = false;
-			} else if (qName.equalsIgnoreCase("title")) {
-				String name = this.dataBuilder.toString();
-				if (name != null) {
-					this.bible.setName(name.trim());
-				}
-			} else if (qName.equalsIgnoreCase("language")) {
-				String language = this.dataBuilder.toString();
-				if (language != null) {
-					this.bible.setLanguage(language.trim());
-				}
-			} else if (qName.equalsIgnoreCase("rights")) {
-				this.bible.setCopyright(this.dataBuilder.toString().trim());
-			} else if (qName.equalsIgnoreCase("note") ||
-					   qName.equalsIgnoreCase("n") ||
-					   qName.equalsIgnoreCase("xref") ||
-					   qName.equalsIgnoreCase("xr")) {
-				this.ignoreContent = false;
+		return new DataReadResult<Bible>(builder.build(), warnings);
+	}
+	
+	/**
+	 * Removes line breaks, collapses whitespace and trims the given verse text.
+	 * @param text the text
+	 * @return String
+	 */
+	private static String normalize(CharSequence text) {
+		int n = text.length();
+		StringBuilder sb = new StringBuilder(n);
+		boolean whitespace = false;
+		for (int i = 0; i < n; i++) {
+			char c = text.charAt(i);
+			if (c == '\n' || c == '\r') {
+				continue;
+			}
+			if (c == ' ' || c == '\t' || c == '\u000B' || c == '\f') {
+				whitespace = true;
+				continue;
 			}
-			if (!this.verseContent) {
-				this.dataBuilder = null;
+			if (whitespace && sb.length() > 0) {
+				sb.append(' ');
 			}
+			whitespace = false;
+			sb.append(c);
 		}
+		return sb.toString();
 	}
 }
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Path;
+import java.util.Set;
 
 import org.praisenter.Constants;
 
@@ -37,13 +38,19 @@ import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.core.JsonFactoryBuilder;
 import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.filter.FilteringParserDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 /**
  * Helper class for serializing and deserializing between Java objects and JSON.
@@ -122,6 +129,85 @@ public final class JsonIO {
 		return MAPPER.readerFor(clazz).readValue(path.toFile());
 	}
 	
+	/**
+	 * Deserializes the given file into the given class skipping the given top-level properties.
+	 * <p>
+	 * The skipped properties are still parsed, but nothing is built for them.
+	 * @param path the path to a JSON file
+	 * @param clazz the class
+	 * @param properties the top-level properties to skip
+	 * @return T
+	 * @throws JsonProcessingException if a JSON deserialization error occurs
+	 * @throws IOException if an IO error occurs
+	 */
+	public static final <T> T readExcluding(Path path, Class<T> clazz, String... properties) throws JsonProcessingException, IOException {
+		final Set<String> excluded = Set.of(properties);
+		final TokenFilter filter = new TokenFilter() {
+			@Override
+			public TokenFilter includeProperty(String name) {
+				return excluded.contains(name) ? null : TokenFilter.INCLUDE_ALL;
+			}
+		};
+		try (JsonParser parser = new FilteringParserDelegate(MAPPER.createParser(path.toFile()), filter, TokenFilter.Inclusion.INCLUDE_ALL_AND_PATH, true)) {
+			return MAPPER.readerFor(clazz).readValue(parser);
+		}
+	}
+	
+	/**
+	 * Deserializes the given stream into the given class if it's in the Praisenter format for
+	 * the given class, otherwise returns null.
+	 * <p>
+	 * The stream is only parsed once.  The top-level properties are buffered until the type
+	 * and format properties have been read.  If they match, the object is bound from the 
+	 * buffered properties followed by the rest of the stream.  Since the type and format are 
+	 * normally the first properties, very little is buffered.
+	 * @param stream the JSON input stream
+	 * @param clazz the class
+	 * @return T
+	 * @throws JsonProcessingException if a JSON deserialization error occurs
+	 * @throws IOException if an IO error occurs
+	 */
+	public static final <T> T readPraisenterFormat(InputStream stream, Class<T> clazz) throws JsonProcessingException, IOException {
+		try (JsonParser parser = MAPPER.createParser(stream)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return null;
+			}
+			
+			TokenBuffer buffer = new TokenBuffer(parser);
+			buffer.copyCurrentEvent(parser);
+			
+			String type = null;
+			String format = null;
+			String version = null;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+				buffer.copyCurrentEvent(parser);
+				parser.nextToken();
+				if ("@type".equals(name)) {
+					type = parser.getValueAsString();
+				} else if (Constants.FORMAT_PROPERTY_NAME.equals(name)) {
+					format = parser.getValueAsString();
+				} else if (Constants.VERSION_PROPERTY_NAME.equals(name)) {
+					version = parser.getValueAsString();
+				}
+				buffer.copyCurrentStructure(parser);
+				
+				if (type != null && format != null) {
+					break;
+				}
+			}
+			
+			if (type == null || format == null || !new PraisenterFormat(type, format, version).is(clazz)) {
+				return null;
+			}
+			
+			// continue with the rest of the stream after the buffered properties
+			try (JsonParser combined = JsonParserSequence.createFlattened(false, buffer.asParser(), parser)) {
+				return MAPPER.readerFor(clazz).readValue(combined);
+			}
+		}
+	}
+	
 	// write
 	
 	/**
@@ -196,6 +282,52 @@ public final class JsonIO {
 		return getPraisenterFormat(MAPPER.readTree(path.toFile()));
 	}
 	
+	/**
+	 * Returns a {@link PraisenterFormat} object for the given JSON stream or null if it's not a 
+	 * Praisenter file format.
+	 * <p>
+	 * Unlike {@link #getPraisenterFormat(InputStream)}, this method streams the top-level
+	 * properties (skipping their contents) and stops as soon as the type and format are found.
+	 * @param stream the stream
+	 * @return {@link PraisenterFormat}
+	 * @throws JsonProcessingException if an error occurs while interpreting the stream as JSON
+	 * @throws IOException if and IO error occurs
+	 */
+	public static final PraisenterFormat readPraisenterFormatHeader(InputStream stream) throws JsonProcessingException, IOException {
+		try (JsonParser parser = MAPPER.createParser(stream)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return null;
+			}
+			
+			String type = null;
+			String format = null;
+			String version = null;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.currentName();
+				JsonToken token = parser.nextToken();
+				if ("@type".equals(name)) {
+					type = parser.getValueAsString();
+				} else if (Constants.FORMAT_PROPERTY_NAME.equals(name)) {
+					format = parser.getValueAsString();
+				} else if (Constants.VERSION_PROPERTY_NAME.equals(name)) {
+					version = parser.getValueAsString();
+				} else if (token.isStructStart()) {
+					parser.skipChildren();
+				}
+				
+				if (type != null && format != null) {
+					break;
+				}
+			}
+			
+			if (type == null || format == null) {
+				return null;
+			}
+			
+			return new PraisenterFormat(type, format, version);
+		}
+	}
+	
 	/**
 	 * Returns a {@link PraisenterFormat} object for the given JSON.
 	 * @param node the JSON
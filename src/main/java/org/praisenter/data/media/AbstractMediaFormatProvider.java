@@ -27,9 +27,12 @@ package org.praisenter.data.media;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Iterator;
+import java.util.UUID;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
@@ -38,9 +41,14 @@ import javax.imageio.stream.ImageInputStream;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.praisenter.data.DataImportResult;
 import org.praisenter.data.ImportExportProvider;
+import org.praisenter.data.PathResolver;
+import org.praisenter.data.PersistAdapter;
+import org.praisenter.data.ZipExport;
 import org.praisenter.data.media.tools.MediaTools;
 import org.praisenter.data.media.tools.TranscodeSettings;
+import org.praisenter.utility.Archives;
 import org.praisenter.utility.ImageManipulator;
 import org.praisenter.utility.StringManipulator;
 
@@ -73,6 +81,65 @@ abstract class AbstractMediaFormatProvider implements ImportExportProvider<Media
 		this.tools = tools;
 	}
 	
+	@Override
+	public final DataImportResult<Media> imp(PersistAdapter<Media> adapter, Path path) throws IOException {
+		return this.imp(adapter, path, path.getFileName().toString(), null, false);
+	}
+	
+	@Override
+	public final DataImportResult<Media> imp(PersistAdapter<Media> adapter, Path path, String mimeType) throws IOException {
+		return this.imp(adapter, path, path.getFileName().toString(), mimeType, false);
+	}
+	
+	/**
+	 * Writes the stream to the media import folder and imports it from there so that
+	 * the media only has to be moved (rather than copied again) to its final location.
+	 */
+	@Override
+	public final DataImportResult<Media> imp(PersistAdapter<Media> adapter, String name, InputStream stream) throws IOException {
+		MediaPathResolver mpr = (MediaPathResolver)adapter.getPathResolver();
+		Path source = mpr.getImportPath().resolve(mpr.getFileName(UUID.randomUUID(), FilenameUtils.getExtension(name)));
+		try {
+			Archives.transfer(stream, source);
+			return this.imp(adapter, source, name, null, true);
+		} finally {
+			this.delete(source);
+		}
+	}
+	
+	@Override
+	public void exp(PersistAdapter<Media> adapter, ZipExport export, Media data) throws IOException {
+		PathResolver<Media> pr = adapter.getPathResolver();
+		export.addFile(pr.getFriendlyExportPath(data), pr.getRawPath(data));
+	}
+	
+	/**
+	 * Imports the given source file.
+	 * @param adapter the persist adapter
+	 * @param source the source file
+	 * @param name the original file name
+	 * @param mimeType the source file's mime type; null if it hasn't been detected
+	 * @param isSourceDisposable true if the source can be moved rather than copied
+	 * @return {@link DataImportResult}
+	 * @throws IOException if an IO error occurs
+	 */
+	protected abstract DataImportResult<Media> imp(PersistAdapter<Media> adapter, Path source, String name, String mimeType, boolean isSourceDisposable) throws IOException;
+	
+	/**
+	 * Puts the source file at the target location, moving it if it's disposable.
+	 * @param source the source file
+	 * @param target the target file
+	 * @param isSourceDisposable true if the source can be moved rather than copied
+	 * @throws IOException if an IO error occurs
+	 */
+	protected final void place(Path source, Path target, boolean isSourceDisposable) throws IOException {
+		if (isSourceDisposable) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		} else {
+			Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
 	/**
 	 * Returns the extension for the given file.
 	 * @param path
@@ -174,6 +241,23 @@ abstract class AbstractMediaFormatProvider implements ImportExportProvider<Media
 				true);
 	}
 
+	/**
+	 * Creates a display-sized variant of the given image whose shortest side is
+	 * the given size.
+	 * @param image the full size image
+	 * @param size the variant size
+	 * @return BufferedImage
+	 * @see MediaImageSize
+	 */
+	protected final BufferedImage createImageVariant(BufferedImage image, int size) {
+		double s = (double)size / (double)Math.min(image.getWidth(), image.getHeight());
+		return ImageManipulator.getNonUniformScaledImage(
+				image,
+				(int)Math.ceil(s * image.getWidth()),
+				(int)Math.ceil(s * image.getHeight()),
+				ResampleOp.FILTER_LANCZOS);
+	}
+
 	/**
 	 * Verifies if the transcoding command for the given media type is valid.
 	 * <p>
@@ -200,6 +284,23 @@ abstract class AbstractMediaFormatProvider implements ImportExportProvider<Media
 	 * @throws MediaImportException if an error occurs during transcoding
 	 */
 	protected final void transcode(Path source, Path target, MediaType type) throws MediaImportException {
+		this.transcode(source, target, type, null);
+	}
+	
+	/**
+	 * Transcodes the given source file from its current format to a supported format using FFmpeg CLI
+	 * and captures the best frame in the same pass.
+	 * <p>
+	 * This method blocks until transcoding is complete. Returns null if the frame could not be captured 
+	 * as part of the transcode.
+	 * @param source the source file
+	 * @param target the target file
+	 * @param type the media type
+	 * @param frameCommand the frame extraction command; can be null
+	 * @return BufferedImage
+	 * @throws MediaImportException if an error occurs during transcoding
+	 */
+	protected final BufferedImage transcode(Path source, Path target, MediaType type, String frameCommand) throws MediaImportException {
 		// split the command by whitespace
 		String command = (type == MediaType.VIDEO 
 				 ? this.configuration.getVideoTranscodeCommand()
@@ -211,7 +312,7 @@ abstract class AbstractMediaFormatProvider implements ImportExportProvider<Media
 			settings.setCommandTemplate(command);
 			settings.setAdjustVolumeEnabled(this.configuration.isVolumeAdjustmentEnabled());
 			settings.setTargetMeanVolume(this.configuration.getTargetMeanVolume());
-			this.tools.ffmpegTranscode(settings, source, target);
+			return this.tools.ffmpegTranscode(settings, source, target, frameCommand);
 		} catch (IOException ex) {
 			throw new MediaImportException("Failed to transcode media '" + source.toAbsolutePath().toString() + "'.", ex);
 		} catch (InterruptedException ex) {
@@ -29,6 +29,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
@@ -118,6 +119,7 @@ public final class Media implements ReadOnlyMedia, Indexable, Persistable, Copya
 	private final ObjectProperty<Path> mediaPath;
 	private final ObjectProperty<Path> mediaImagePath;
 	private final ObjectProperty<Path> mediaThumbnailPath;
+	private Map<Integer, Path> mediaImageVariantPaths;
 	
 	/**
 	 * Default constructor.
@@ -144,6 +146,7 @@ public final class Media implements ReadOnlyMedia, Indexable, Persistable, Copya
 		this.mediaPath = new SimpleObjectProperty<Path>();
 		this.mediaImagePath = new SimpleObjectProperty<Path>();
 		this.mediaThumbnailPath = new SimpleObjectProperty<Path>();
+		this.mediaImageVariantPaths = Collections.emptyMap();
 	}
 
 	@Override
@@ -197,6 +200,7 @@ public final class Media implements ReadOnlyMedia, Indexable, Persistable, Copya
 		media.mediaPath.set(this.mediaPath.get());
 		media.mediaImagePath.set(this.mediaImagePath.get());
 		media.mediaThumbnailPath.set(this.mediaThumbnailPath.get());
+		media.mediaImageVariantPaths = this.mediaImageVariantPaths;
 		return media;
 	}
 	
@@ -532,6 +536,19 @@ public final class Media implements ReadOnlyMedia, Indexable, Persistable, Copya
 	public ReadOnlyObjectProperty<Path> mediaThumbnailPathProperty() {
 		return this.mediaThumbnailPath;
 	}
+	
+	@Override
+	public Path getMediaImagePath(int size) {
+		Path path = this.mediaImageVariantPaths.get(size);
+		if (path != null) {
+			return path;
+		}
+		return this.mediaImagePath.get();
+	}
+	
+	void setMediaImageVariantPaths(Map<Integer, Path> paths) {
+		this.mediaImageVariantPaths = paths;
+	}
 
 	@Override
 	public Set<UUID> getDependencies() {
@@ -16,6 +16,9 @@ public interface MediaConfiguration {
 	/** The default command (extract a frame every 2 seconds until we have 10 frames) */
 	public static final String DEFAULT_VIDEO_FRAME_EXTRACT_COMMAND = "{ffmpeg} -v fatal -i {media} -vf fps=2 -frames:v 10 -vsync vfr {frame}";
 	
+	/** The default number of FFmpeg processes to run at the same time (FFmpeg is multi-threaded itself) */
+	public static final int DEFAULT_MEDIA_JOB_CONCURRENCY = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+	
 	public int getThumbnailWidth();
 	public int getThumbnailHeight();
 	public boolean isAudioTranscodingEnabled();
@@ -27,4 +30,12 @@ public interface MediaConfiguration {
 	public String getAudioTranscodeCommand();
 	public String getVideoTranscodeCommand();
 	public String getVideoFrameExtractCommand();
+	public int getMediaJobConcurrency();
+	
+	/**
+	 * Returns the {@link MediaImageSize}s of the image variants to generate when
+	 * image media is imported.
+	 * @return int[]
+	 */
+	public int[] getImageVariantSizes();
 }
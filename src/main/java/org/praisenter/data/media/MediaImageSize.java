@@ -0,0 +1,46 @@
+package org.praisenter.data.media;
+
+/**
+ * The sizes of the display-sized variants of image media.
+ * <p>
+ * A variant of size s is the image scaled down so that its shortest side is s
+ * which means it can cover any display that fits in an s &times; s square without
+ * being scaled up.
+ */
+public final class MediaImageSize {
+	/** The full size image */
+	public static final int FULL = 0;
+	
+	/** The variant sizes in ascending order */
+	private static final int[] SIZES = new int[] { 1280, 1920, 2560, 3840 };
+	
+	private MediaImageSize() {}
+	
+	/**
+	 * Returns the smallest variant size that can cover a display of the given size
+	 * or {@link #FULL} if none can.
+	 * @param width the display width
+	 * @param height the display height
+	 * @return int
+	 */
+	public static int getSize(double width, double height) {
+		double max = Math.max(width, height);
+		if (max <= 0) {
+			return FULL;
+		}
+		for (int size : SIZES) {
+			if (size >= max) {
+				return size;
+			}
+		}
+		return FULL;
+	}
+	
+	/**
+	 * Returns all the variant sizes in ascending order.
+	 * @return int[]
+	 */
+	public static int[] getSizes() {
+		return SIZES.clone();
+	}
+}
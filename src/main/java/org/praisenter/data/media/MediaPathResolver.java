@@ -4,6 +4,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.praisenter.data.BasicPathResolver;
 import org.praisenter.data.PathResolver;
@@ -85,6 +88,44 @@ final class MediaPathResolver extends BasicPathResolver<Media> implements PathRe
 		return IMAGE_EXTENSION;
 	}
 	
+	// image variants
+	
+	public Path getImageVariantPath(Media media, int size) {
+		return this.imagePath.resolve(media.getId().toString().replaceAll("-", "") + "-" + size + "." + this.getImageVariantExtension(media));
+	}
+	
+	public String getImageVariantExtension(Media media) {
+		// keep jpg as jpg, everything else could have transparency
+		String extension = media.getExtension();
+		if ("jpg".equalsIgnoreCase(extension) || "jpeg".equalsIgnoreCase(extension)) {
+			return IMAGE_EXTENSION;
+		}
+		return THUMB_EXTENSION;
+	}
+	
+	/**
+	 * Sets the media, image, image variant and thumbnail paths of the given media.
+	 * @param media the media
+	 * @return {@link Media}
+	 */
+	public Media setPaths(Media media) {
+		media.setMediaPath(this.getMediaPath(media));
+		if (media.getMediaType() == MediaType.IMAGE) {
+			media.setMediaImagePath(this.getMediaPath(media));
+			Map<Integer, Path> variants = new HashMap<>();
+			for (int size : MediaImageSize.getSizes()) {
+				variants.put(size, this.getImageVariantPath(media, size));
+			}
+			media.setMediaImageVariantPaths(Collections.unmodifiableMap(variants));
+		} else if (media.getMediaType() == MediaType.AUDIO) {
+			media.setMediaImagePath(this.getThumbPath(media));
+		} else {
+			media.setMediaImagePath(this.getImagePath(media));
+		}
+		media.setMediaThumbnailPath(this.getThumbPath(media));
+		return media;
+	}
+	
 	// thumb
 	
 	public Path getThumbFileName(Media media) {
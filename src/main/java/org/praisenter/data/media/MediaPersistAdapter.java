@@ -6,26 +6,30 @@ import java.nio.file.Path;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.praisenter.data.AbstractPersistAdapter;
+import org.praisenter.data.AbstractCatalogPersistAdapter;
+import org.praisenter.data.CatalogEntry;
 import org.praisenter.data.DeleteFilesShutdownHook;
 import org.praisenter.data.ImportExportFormat;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.data.RawExportFormatProvider;
+import org.praisenter.data.Tag;
 import org.praisenter.data.json.JsonIO;
+import org.praisenter.data.media.tools.MediaJobScheduler;
 import org.praisenter.data.media.tools.MediaTools;
 import org.praisenter.utility.MimeType;
 
-public final class MediaPersistAdapter extends AbstractPersistAdapter<Media, MediaPathResolver> implements PersistAdapter<Media> {
+public final class MediaPersistAdapter extends AbstractCatalogPersistAdapter<Media, MediaPathResolver> implements PersistAdapter<Media> {
 	private static final Logger LOGGER = LogManager.getLogger();
 	private static final String EXTENSION = "json";
+	private static final char CATALOG_TYPE_SEPARATOR = ':';
 
 	private final MediaConfiguration configuration;
 	private final MediaTools tools;
 	
-	public MediaPersistAdapter(Path path, MediaConfiguration configuration) {
+	public MediaPersistAdapter(Path path, MediaConfiguration configuration, MediaJobScheduler scheduler) {
 		super(new MediaPathResolver(path, EXTENSION));
 		this.configuration = configuration;
-		this.tools = new MediaTools(this.pathResolver.getBasePath());
+		this.tools = new MediaTools(this.pathResolver.getBasePath(), scheduler);
 		
 		// praisenter zip format (allows us to skip import steps)
 		this.importExportProviders.put(ImportExportFormat.PRAISENTER3, new PraisenterMediaFormatProvider());
@@ -48,22 +52,42 @@ public final class MediaPersistAdapter extends AbstractPersistAdapter<Media, Med
 		if (Files.isRegularFile(path)) {
 			String mimeType = MimeType.get(path);
 			if (MimeType.JSON.is(mimeType)) {
-				Media m = JsonIO.read(path, Media.class);
-				m.setMediaPath(this.pathResolver.getMediaPath(m));
-				if (m.getMediaType() == MediaType.IMAGE) {
-					m.setMediaImagePath(this.pathResolver.getMediaPath(m));
-				} else if (m.getMediaType() == MediaType.AUDIO) {
-					m.setMediaImagePath(this.pathResolver.getThumbPath(m));
-				} else {
-					m.setMediaImagePath(this.pathResolver.getImagePath(m));
-				}
-				m.setMediaThumbnailPath(this.pathResolver.getThumbPath(m));
-				return m;
+				return this.pathResolver.setPaths(JsonIO.read(path, Media.class));
 			}
 		}
 		return null;
 	}
 	
+	@Override
+	protected String getCatalogType(Media item) {
+		// the media type and extension are needed to resolve the media's paths
+		MediaType type = item.getMediaType();
+		if (type == null) return null;
+		return type.name() + CATALOG_TYPE_SEPARATOR + item.getExtension();
+	}
+	
+	@Override
+	protected Media createPlaceholder(CatalogEntry entry) {
+		Media media = new Media();
+		media.setId(entry.getId());
+		media.setName(entry.getName());
+		media.setCreatedDate(entry.getCreatedDate());
+		media.setModifiedDate(entry.getModifiedDate());
+		for (String tag : entry.getTags()) {
+			media.getTags().add(new Tag(tag));
+		}
+		
+		String type = entry.getType();
+		if (type != null) {
+			int index = type.indexOf(CATALOG_TYPE_SEPARATOR);
+			media.setMediaType(MediaType.valueOf(index < 0 ? type : type.substring(0, index)));
+			if (index >= 0) {
+				media.setExtension(type.substring(index + 1));
+			}
+		}
+		return this.pathResolver.setPaths(media);
+	}
+	
 	@Override
 	protected void create(Path path, Media item) throws IOException {
 		JsonIO.write(path, item);
@@ -86,6 +110,11 @@ public final class MediaPersistAdapter extends AbstractPersistAdapter<Media, Med
 		this.deleteWithShutdownFallback(this.pathResolver.getMediaPath(item));
 		this.deleteWithShutdownFallback(this.pathResolver.getImagePath(item));
 		this.deleteWithShutdownFallback(this.pathResolver.getThumbPath(item));
+		if (item.getMediaType() == MediaType.IMAGE) {
+			for (int size : MediaImageSize.getSizes()) {
+				this.deleteWithShutdownFallback(this.pathResolver.getImageVariantPath(item, size));
+			}
+		}
 	}
 	
 	private void deleteWithShutdownFallback(Path path) {
@@ -1,7 +1,6 @@
 package org.praisenter.data.media;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -10,7 +9,9 @@ import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
@@ -22,10 +23,10 @@ import org.praisenter.data.DataImportResult;
 import org.praisenter.data.DeleteFilesShutdownHook;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.data.PraisenterFormatProvider;
+import org.praisenter.data.ZipExport;
 import org.praisenter.data.json.JsonIO;
-import org.praisenter.data.json.PraisenterFormat;
+import org.praisenter.utility.Archives;
 import org.praisenter.utility.MimeType;
-import org.praisenter.utility.Streams;
 
 final class PraisenterMediaFormatProvider extends PraisenterFormatProvider<Media> {
 	/** The class-level logger */
@@ -102,7 +103,32 @@ final class PraisenterMediaFormatProvider extends PraisenterFormatProvider<Media
 		Files.copy(mpr.getThumbPath(data), stream);
 		stream.closeArchiveEntry();
 	}
+	
+	@Override
+	public void exp(PersistAdapter<Media> adapter, ZipExport export, Media data) throws IOException {
+		MediaPathResolver mpr = (MediaPathResolver)adapter.getPathResolver();
+		
+		LOGGER.trace("Exporting media '{}'", data.getName());
+		export.addEntry(mpr.getExportPath(data), (stream) -> JsonIO.write(stream, data));
+		export.addFile(mpr.getExportMediaPath(data), mpr.getMediaPath(data));
+		if (data.getMediaType() == MediaType.VIDEO) {
+			export.addFile(mpr.getExportImagePath(data), mpr.getImagePath(data));
+		}
+		export.addFile(mpr.getExportThumbPath(data), mpr.getThumbPath(data));
+	}
 
+	@Override
+	public DataImportResult<Media> imp(PersistAdapter<Media> adapter, String name, InputStream stream) throws IOException {
+		// media metadata is only useful with the media files that go with it, so read the whole archive
+		return null;
+	}
+	
+	@Override
+	public DataImportResult<Media> imp(PersistAdapter<Media> adapter, Path path, String mimeType) throws IOException {
+		// only zips are supported, so there's nothing to do with the mime type
+		return this.imp(adapter, path);
+	}
+	
 	@Override
 	public DataImportResult<Media> imp(PersistAdapter<Media> adapter, Path path) throws IOException {
 		DataImportResult<Media> result = new DataImportResult<>();
@@ -141,26 +167,14 @@ final class PraisenterMediaFormatProvider extends PraisenterFormatProvider<Media
 				LOGGER.trace("Checking if '{}' is media metadata", entryName);
 				if (MimeType.JSON.check(zbis, entryName)) {
 					zbis.reset();
+					// drop the mark so the rest of the entry isn't kept in memory
+					zbis.mark(0);
 					try {
-						// read the stream to the end
-						byte[] data = Streams.read(zbis);
-						ByteArrayInputStream bais = new ByteArrayInputStream(data);
-						PraisenterFormat format = JsonIO.getPraisenterFormat(bais);
-						
-						// check the format
-						if (format != null && format.is(Media.class)) {
+						// check the format and read in one pass
+						Media media = JsonIO.readPraisenterFormat(zbis, Media.class);
+						if (media != null) {
 							LOGGER.trace("Entry '{}' is media metadata", entryName);
-							bais.reset();
-							Media media = JsonIO.read(bais, Media.class);
-							if (media.getMediaType() == MediaType.IMAGE) {
-								media.setMediaImagePath(mpr.getMediaPath(media));	
-							} else if (media.getMediaType() == MediaType.AUDIO) {
-								media.setMediaImagePath(mpr.getThumbPath(media));
-							} else {
-								media.setMediaImagePath(mpr.getImagePath(media));
-							}
-							media.setMediaPath(mpr.getMediaPath(media));
-							media.setMediaThumbnailPath(mpr.getThumbPath(media));
+							mpr.setPaths(media);
 							metadata.add(media);
 						}
 					} catch (Exception ex) {
@@ -168,21 +182,21 @@ final class PraisenterMediaFormatProvider extends PraisenterFormatProvider<Media
 					}
 				}
 			}
-		}
-		
-		if (!metadata.isEmpty()) {
-			LOGGER.trace("Media metadata found in '{}'", name);
-			for (Media media : metadata) {
-				LOGGER.trace("Importing '{}'", media.getName());
-				DataImportResult<Media> res = this.load(adapter, path, media, files);
-				result.add(res);
+			
+			if (!metadata.isEmpty()) {
+				LOGGER.trace("Media metadata found in '{}'", name);
+				for (Media media : metadata) {
+					LOGGER.trace("Importing '{}'", media.getName());
+					DataImportResult<Media> res = this.load(adapter, zipFile, media, files);
+					result.add(res);
+				}
 			}
 		}
 		
 		return result;
 	}
 	
-	private DataImportResult<Media> load(PersistAdapter<Media> adapter, Path path, Media media, List<String> files) throws IOException {
+	private DataImportResult<Media> load(PersistAdapter<Media> adapter, ZipFile zipFile, Media media, List<String> files) throws IOException {
 		DataImportResult<Media> result = new DataImportResult<>();
 		MediaPathResolver mpr = (MediaPathResolver)adapter.getPathResolver();
 		
@@ -236,41 +250,30 @@ final class PraisenterMediaFormatProvider extends PraisenterFormatProvider<Media
 					}
 				}
 				
-				// extract the files from the zip
+				// extract the files from the zip straight to their final location
 				LOGGER.trace("Extracting files from zip for '{}'", media.getName());
+				Map<String, Path> outputs = new LinkedHashMap<>();
+				outputs.put(dep, dp);
+				outputs.put(mep, mp);
+				if (media.getMediaType() == MediaType.VIDEO) outputs.put(iep, ip); // image is only for video
+				outputs.put(tep, tp);
+				
 				boolean success = true;
-				// NOTE: Native java.util.zip package can't support zips 4GB or bigger or elements 2GB or bigger
-		        try (ZipFile zipFile = ZipFile.builder().setPath(path).get()) {
-		        	Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
-		        	while (entries.hasMoreElements()) {
-		        		ZipArchiveEntry entry = entries.nextElement();
-		        		
-		        		if (entry.isDirectory()) 
-		        			continue;
-		        		
-		        		if (!zipFile.canReadEntryData(entry)) {
-		        			LOGGER.warn("Unable to read entry '{}'. This is usually caused by encryption or an unsupported compression algorithm.", entry.getName());
-		        			continue;
-		        		}
-		        		
-						Path outputPath = null;
-						String name = entry.getName();
-						if (name.equals(dep)) outputPath = dp;
-						if (name.equals(mep)) outputPath = mp;
-						if (media.getMediaType() == MediaType.VIDEO && name.equals(iep)) outputPath = ip; // image is only for video
-						if (name.equals(tep)) outputPath = tp;
-						if (outputPath == null)  {
-							continue;
-						}
-						try {
-							LOGGER.trace("Extracting file '{}'", name);
-							Files.copy(zipFile.getInputStream(entry), outputPath, StandardCopyOption.REPLACE_EXISTING);
-						} catch (Exception ex) {
-							success = false;
-							LOGGER.warn("Failed to copy zip entry '" + entry.getName() + "' to '" + outputPath + "' due to: " + ex.getMessage(), ex);
-							result.getErrors().add(ex);
-							break;
-						}
+				for (Map.Entry<String, Path> output : outputs.entrySet()) {
+					String name = output.getKey();
+					Path outputPath = output.getValue();
+					ZipArchiveEntry entry = zipFile.getEntry(name);
+					if (entry == null) {
+						continue;
+					}
+					try {
+						LOGGER.trace("Extracting file '{}'", name);
+						Archives.transfer(zipFile.getInputStream(entry), outputPath);
+					} catch (Exception ex) {
+						success = false;
+						LOGGER.warn("Failed to copy zip entry '" + name + "' to '" + outputPath + "' due to: " + ex.getMessage(), ex);
+						result.getErrors().add(ex);
+						break;
 					}
 				}
 					
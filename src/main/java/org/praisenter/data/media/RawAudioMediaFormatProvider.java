@@ -118,7 +118,7 @@ final class RawAudioMediaFormatProvider extends AbstractMediaFormatProvider {
 	}
 	
 	@Override
-	public DataImportResult<Media> imp(PersistAdapter<Media> adapter, Path path) throws IOException {
+	protected DataImportResult<Media> imp(PersistAdapter<Media> adapter, Path path, String name, String mimeType, boolean isSourceDisposable) throws IOException {
 		MediaPathResolver mpr = (MediaPathResolver)adapter.getPathResolver();
 		UUID id = UUID.randomUUID();
 		
@@ -135,7 +135,7 @@ final class RawAudioMediaFormatProvider extends AbstractMediaFormatProvider {
 			this.transcode(path, target, MediaType.AUDIO);
 		} else {
 			// just copy the file
-			Files.copy(path, target, StandardCopyOption.REPLACE_EXISTING);
+			this.place(path, target, isSourceDisposable);
 		}
 		
 		// now that the media is the proper location and in the proper format
@@ -167,7 +167,7 @@ final class RawAudioMediaFormatProvider extends AbstractMediaFormatProvider {
 		media.setMediaFormat(metadata.getFormat());
 		media.setMediaType(MediaType.AUDIO);
 		media.setMimeType(MimeType.get(target));
-		media.setName(FilenameUtils.getBaseName(path.getFileName().toString()));
+		media.setName(FilenameUtils.getBaseName(name));
 		media.setWidth(0);
 		media.setSize(this.getFileSize(target));
 		
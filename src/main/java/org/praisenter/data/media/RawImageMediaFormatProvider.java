@@ -118,13 +118,15 @@ final class RawImageMediaFormatProvider extends AbstractMediaFormatProvider {
 	}
 	
 	@Override
-	public DataImportResult<Media> imp(PersistAdapter<Media> adapter, Path path) throws IOException {
+	protected DataImportResult<Media> imp(PersistAdapter<Media> adapter, Path path, String name, String mimeType, boolean isSourceDisposable) throws IOException {
 		MediaPathResolver mpr = (MediaPathResolver)adapter.getPathResolver();
 		
 		UUID id = UUID.randomUUID();
 		
 		// default the target location
-		String mimeType = MimeType.get(path);
+		if (mimeType == null) {
+			mimeType = MimeType.get(path);
+		}
 		String extension = this.getExtension(path);
 		Path target = mpr.getMediaPath().resolve(mpr.getFileName(id, extension));
 				
@@ -133,7 +135,7 @@ final class RawImageMediaFormatProvider extends AbstractMediaFormatProvider {
 		if (orientation != -1) {
 			this.copyAndCorrectOrientation(path, target, orientation);
 		} else {
-			Files.copy(path, target);
+			this.place(path, target, isSourceDisposable);
 		}
 		
 		// read the image
@@ -160,13 +162,11 @@ final class RawImageMediaFormatProvider extends AbstractMediaFormatProvider {
 					media.setMediaFormat(format);
 					media.setMediaType(MediaType.IMAGE);
 					media.setMimeType(mimeType);
-					media.setName(FilenameUtils.getBaseName(path.getFileName().toString()));
+					media.setName(FilenameUtils.getBaseName(name));
 					media.setWidth(image.getWidth());
 					media.setSize(this.getFileSize(target));
 					
-					media.setMediaPath(mpr.getMediaPath(media));
-					media.setMediaImagePath(mpr.getMediaPath(media));
-					media.setMediaThumbnailPath(mpr.getThumbPath(media));
+					mpr.setPaths(media);
 
 					try {
 						// write the JSON data
@@ -193,6 +193,22 @@ final class RawImageMediaFormatProvider extends AbstractMediaFormatProvider {
 						throw new MediaImportException("Failed to store thumbnail for media '" + media.getName() + "'.", ex);
 					}
 					
+					// write the display-sized variants (they're optional so failure isn't fatal)
+					for (int size : this.configuration.getImageVariantSizes()) {
+						if (Math.min(image.getWidth(), image.getHeight()) <= size) {
+							continue;
+						}
+						Path variantPath = mpr.getImageVariantPath(media, size);
+						try {
+							BufferedImage variant = this.createImageVariant(image, size);
+							ImageIO.write(variant, mpr.getImageVariantExtension(media), variantPath.toFile());
+							LOGGER.debug("Wrote {} image variant for '{}'", size, path);
+						} catch (Exception ex) {
+							LOGGER.warn("Failed to store " + size + " image variant for media '" + media.getName() + "'.", ex);
+							this.delete(variantPath);
+						}
+					}
+					
 					LOGGER.debug("Image media '{}' loaded", path);
 					
 					DataImportResult<Media> result = new DataImportResult<>();
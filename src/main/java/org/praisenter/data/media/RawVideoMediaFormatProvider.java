@@ -115,7 +115,7 @@ final class RawVideoMediaFormatProvider extends AbstractMediaFormatProvider {
 	}
 	
 	@Override
-	public DataImportResult<Media> imp(PersistAdapter<Media> adapter, Path path) throws IOException {
+	protected DataImportResult<Media> imp(PersistAdapter<Media> adapter, Path path, String name, String mimeType, boolean isSourceDisposable) throws IOException {
 		MediaPathResolver mpr = (MediaPathResolver)adapter.getPathResolver();
 		
 		UUID id = UUID.randomUUID();
@@ -123,17 +123,21 @@ final class RawVideoMediaFormatProvider extends AbstractMediaFormatProvider {
 		// default the target location
 		String extension = this.getExtension(path);
 		Path target = mpr.getMediaPath().resolve(mpr.getFileName(id, extension));
+		String command = this.configuration.getVideoFrameExtractCommand();
+		
+		// the best frame (if captured while transcoding)
+		BufferedImage image = null;
 		
 		// are we doing transcoding?
 		if (this.configuration.isVideoTranscodingEnabled() && this.isValidTranscodeCommand(MediaType.VIDEO)) {
 			extension = this.configuration.getVideoTranscodeExtension();
 			// get the proper target path
 			target = mpr.getMediaPath().resolve(mpr.getFileName(id, extension));
-			// transcode the file
-			this.transcode(path, target, MediaType.VIDEO);
+			// transcode the file (capturing the frames in the same pass)
+			image = this.transcode(path, target, MediaType.VIDEO, command);
 		} else {
 			// just copy the file
-			Files.copy(path, target, StandardCopyOption.REPLACE_EXISTING);
+			this.place(path, target, isSourceDisposable);
 		}
 		
 		// now that the media is the proper location and in the proper format
@@ -157,15 +161,14 @@ final class RawVideoMediaFormatProvider extends AbstractMediaFormatProvider {
 		}
 		
 		// try to produce a frame capture and thumbnail
-		BufferedImage image = null;
-		
-		try {
-			String command = this.configuration.getVideoFrameExtractCommand();
-			
-			LOGGER.debug("Video media '{}' - searching for best frame.", path);
-			image = this.tools.ffmpegExtractFrame(command, path);
-		} catch (Exception ex) {
-			LOGGER.warn("Failed to extract frame from video '" + path.toAbsolutePath().toString() + "'.");
+		// NOTE: use the target since the source may have been moved there
+		if (image == null) {
+			try {
+				LOGGER.debug("Video media '{}' - searching for best frame.", target);
+				image = this.tools.ffmpegExtractFrame(command, target);
+			} catch (Exception ex) {
+				LOGGER.warn("Failed to extract frame from video '" + target.toAbsolutePath().toString() + "'.");
+			}
 		}
 
 		media = new Media();
@@ -177,7 +180,7 @@ final class RawVideoMediaFormatProvider extends AbstractMediaFormatProvider {
 		media.setMediaFormat(metadata.getFormat());
 		media.setMediaType(MediaType.VIDEO);
 		media.setMimeType(MimeType.get(target));
-		media.setName(FilenameUtils.getBaseName(path.getFileName().toString()));
+		media.setName(FilenameUtils.getBaseName(name));
 		media.setWidth(metadata.getWidth());
 		media.setSize(this.getFileSize(target));
 		
@@ -56,6 +56,16 @@ public interface ReadOnlyMedia extends Indexable, Persistable, Copyable, Identif
 	 */
 	public Path getMediaImagePath();
 	
+	/**
+	 * Returns the file system path to the display-sized variant of the media's image
+	 * for the given {@link MediaImageSize} or the media's image if there isn't one.
+	 * <p>
+	 * The variant may not exist on disk if it wasn't generated at import.
+	 * @param size the variant size
+	 * @return Path
+	 */
+	public Path getMediaImagePath(int size);
+	
 	public ReadOnlyObjectProperty<Path> mediaPathProperty();
 	public ReadOnlyObjectProperty<Path> mediaImagePathProperty();
 	public ReadOnlyObjectProperty<Path> mediaThumbnailPathProperty();
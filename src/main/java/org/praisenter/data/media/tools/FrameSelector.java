@@ -0,0 +1,95 @@
+package org.praisenter.data.media.tools;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.praisenter.utility.ImageManipulator;
+
+/**
+ * Reads raw BGR24 video frames from a stream and keeps the frame whose log average
+ * luminance is closest to the middle.
+ * <p>
+ * Only two frame buffers are used regardless of the number of frames: the best frame
+ * so far and the one being read. The luminance is computed with 
+ * {@link ImageManipulator#getLogAverageLuminance(BufferedImage)} as each frame arrives.
+ * @author William Bittle
+ * @version 3.1.5
+ */
+final class FrameSelector {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	private final int width;
+	private final int height;
+	
+	private BufferedImage best;
+	private double score;
+	private int frames;
+	
+	public FrameSelector(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.best = null;
+		this.score = 0;
+		this.frames = 0;
+	}
+	
+	/**
+	 * Reads frames from the given stream until it ends.
+	 * @param stream the raw video stream
+	 * @throws IOException if an IO error occurs
+	 */
+	public void read(InputStream stream) throws IOException {
+		BufferedImage current = this.createFrame();
+		while (true) {
+			byte[] data = ((DataBufferByte)current.getRaster().getDataBuffer()).getData();
+			int n = stream.readNBytes(data, 0, data.length);
+			if (n < data.length) {
+				// end of stream (a partial frame is ignored)
+				break;
+			}
+			
+			this.frames++;
+			double logAvgLuminance = ImageManipulator.getLogAverageLuminance(current);
+			
+			// how far from the middle is the score?
+			double distance = Math.abs(logAvgLuminance - 0.5);
+			if (distance < this.score || this.best == null) {
+				LOGGER.debug("Best Log Average Luminance {} from frame {}.", logAvgLuminance, this.frames);
+				// swap the buffers so the old best is overwritten next
+				BufferedImage previous = this.best;
+				this.best = current;
+				this.score = distance;
+				current = previous != null ? previous : this.createFrame();
+			}
+		}
+	}
+	
+	private BufferedImage createFrame() {
+		// TYPE_3BYTE_BGR has the same memory layout as the bgr24 pixel format
+		return new BufferedImage(this.width, this.height, BufferedImage.TYPE_3BYTE_BGR);
+	}
+	
+	/**
+	 * Returns the best frame or null if no frames were read.
+	 * @return BufferedImage
+	 */
+	public BufferedImage getBest() {
+		return this.best;
+	}
+	
+	public int getWidth() {
+		return this.width;
+	}
+	
+	public int getHeight() {
+		return this.height;
+	}
+	
+	public int getFrameCount() {
+		return this.frames;
+	}
+}
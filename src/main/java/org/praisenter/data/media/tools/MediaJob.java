@@ -0,0 +1,129 @@
+package org.praisenter.data.media.tools;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import org.praisenter.ThrowableFunction;
+
+/**
+ * Represents a unit of work, typically an FFmpeg process, that's executed by the 
+ * {@link MediaJobScheduler}.
+ * <p>
+ * Jobs are ordered by priority and then by submission order. Cancelling a job that 
+ * hasn't started removes it from consideration; cancelling a job that's running 
+ * destroys its process.
+ * @author William Bittle
+ * @version 3.1.5
+ * @param <T> the job result type
+ */
+public final class MediaJob<T> implements Runnable, Comparable<MediaJob<?>> {
+	private final MediaJobScheduler scheduler;
+	private final String name;
+	private final Path source;
+	private final MediaJobPriority priority;
+	private final long sequence;
+	private final ThrowableFunction<MediaJob<T>, T> operation;
+	private final CompletableFuture<T> future;
+	
+	private volatile double progress;
+	private volatile Process process;
+	
+	MediaJob(MediaJobScheduler scheduler, String name, Path source, MediaJobPriority priority, long sequence, ThrowableFunction<MediaJob<T>, T> operation) {
+		this.scheduler = scheduler;
+		this.name = name;
+		this.source = source;
+		this.priority = priority;
+		this.sequence = sequence;
+		this.operation = operation;
+		this.future = new CompletableFuture<>();
+		this.progress = 0;
+	}
+	
+	@Override
+	public int compareTo(MediaJob<?> o) {
+		int diff = this.priority.compareTo(o.priority);
+		if (diff == 0) {
+			return Long.compare(this.sequence, o.sequence);
+		}
+		return diff;
+	}
+	
+	@Override
+	public String toString() {
+		return this.name + "[" + this.source + "]";
+	}
+	
+	@Override
+	public void run() {
+		// skip jobs that were cancelled while waiting
+		if (this.future.isDone()) {
+			return;
+		}
+		
+		try {
+			this.future.complete(this.operation.apply(this));
+		} catch (Throwable t) {
+			this.future.completeExceptionally(t);
+		} finally {
+			this.process = null;
+		}
+	}
+	
+	/**
+	 * Cancels this job, destroying its process if it's running.
+	 * @return boolean true if the job was cancelled
+	 */
+	public boolean cancel() {
+		boolean cancelled = this.future.cancel(false);
+		Process process = this.process;
+		if (cancelled && process != null) {
+			process.destroy();
+		}
+		return cancelled;
+	}
+	
+	/**
+	 * Sets the process executing this job so that it can be destroyed on cancel.
+	 * @param process the process
+	 */
+	void setProcess(Process process) {
+		this.process = process;
+		// in case it was cancelled before the process was started
+		if (this.future.isCancelled()) {
+			process.destroy();
+		}
+	}
+	
+	/**
+	 * Sets the progress of this job and notifies the scheduler's listeners.
+	 * @param progress the progress from 0.0 to 1.0
+	 */
+	void setProgress(double progress) {
+		this.progress = progress;
+		this.scheduler.notifyProgress(this);
+	}
+	
+	public String getName() {
+		return this.name;
+	}
+	
+	public Path getSource() {
+		return this.source;
+	}
+	
+	public MediaJobPriority getPriority() {
+		return this.priority;
+	}
+	
+	public double getProgress() {
+		return this.progress;
+	}
+	
+	public boolean isCancelled() {
+		return this.future.isCancelled();
+	}
+	
+	public CompletableFuture<T> getFuture() {
+		return this.future;
+	}
+}
@@ -0,0 +1,17 @@
+package org.praisenter.data.media.tools;
+
+/**
+ * Listener for {@link MediaJob} progress.
+ * <p>
+ * Listeners are called on the thread running the job.
+ * @author William Bittle
+ * @version 3.1.5
+ */
+@FunctionalInterface
+public interface MediaJobListener {
+	/**
+	 * Called when the progress of the given job changes.
+	 * @param job the job
+	 */
+	public void progress(MediaJob<?> job);
+}
@@ -0,0 +1,18 @@
+package org.praisenter.data.media.tools;
+
+/**
+ * The priority of a {@link MediaJob}; higher priority jobs are started before
+ * lower priority jobs regardless of the order they were submitted.
+ * @author William Bittle
+ * @version 3.1.5
+ */
+public enum MediaJobPriority {
+	/** Short jobs the user is waiting on (frame extraction for example) */
+	HIGH,
+	
+	/** Analysis jobs (volume detection for example) */
+	NORMAL,
+	
+	/** Long running jobs (transcoding for example) */
+	LOW
+}
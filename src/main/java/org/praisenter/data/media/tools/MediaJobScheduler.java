@@ -0,0 +1,138 @@
+package org.praisenter.data.media.tools;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.praisenter.ThrowableFunction;
+import org.praisenter.data.media.MediaConfiguration;
+
+/**
+ * Runs {@link MediaJob}s with a limited number of concurrent jobs.
+ * <p>
+ * Waiting jobs are started by {@link MediaJobPriority} and then in the order they 
+ * were submitted. The concurrency limit is read from the {@link MediaConfiguration} 
+ * each time a job is submitted so changes take effect without a restart.
+ * @author William Bittle
+ * @version 3.1.5
+ */
+public final class MediaJobScheduler {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The time idle threads are kept around */
+	private static final long KEEP_ALIVE_TIME_IN_SECONDS = 30;
+	
+	private final MediaConfiguration configuration;
+	private final ThreadPoolExecutor executor;
+	private final AtomicLong sequence;
+	private final List<MediaJobListener> listeners;
+	
+	public MediaJobScheduler(MediaConfiguration configuration) {
+		this.configuration = configuration;
+		this.sequence = new AtomicLong();
+		this.listeners = new CopyOnWriteArrayList<>();
+		
+		final AtomicInteger threadNumber = new AtomicInteger();
+		final ThreadFactory factory = (r) -> {
+			Thread thread = new Thread(r, "media-job-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		
+		final int concurrency = this.getConcurrency();
+		this.executor = new ThreadPoolExecutor(
+				concurrency, 
+				concurrency, 
+				KEEP_ALIVE_TIME_IN_SECONDS, 
+				TimeUnit.SECONDS, 
+				new PriorityBlockingQueue<Runnable>(), 
+				factory);
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+	
+	private int getConcurrency() {
+		return Math.max(1, this.configuration.getMediaJobConcurrency());
+	}
+	
+	/**
+	 * Updates the thread pool size if the configured concurrency has changed.
+	 */
+	private synchronized void updateConcurrency() {
+		final int concurrency = this.getConcurrency();
+		final int current = this.executor.getCorePoolSize();
+		if (concurrency == current) {
+			return;
+		}
+		
+		LOGGER.info("Changing the media job concurrency from {} to {}", current, concurrency);
+		// the order matters here since the core size can't exceed the max
+		if (concurrency > current) {
+			this.executor.setMaximumPoolSize(concurrency);
+			this.executor.setCorePoolSize(concurrency);
+		} else {
+			this.executor.setCorePoolSize(concurrency);
+			this.executor.setMaximumPoolSize(concurrency);
+		}
+	}
+	
+	/**
+	 * Submits the given operation as a job and returns the job.
+	 * <p>
+	 * Use the job's future to wait on the result.
+	 * @param name the job name (for logging)
+	 * @param source the media the job is working on
+	 * @param priority the job priority
+	 * @param operation the operation to perform
+	 * @return {@link MediaJob}
+	 */
+	public <T> MediaJob<T> submit(String name, Path source, MediaJobPriority priority, ThrowableFunction<MediaJob<T>, T> operation) {
+		this.updateConcurrency();
+		
+		MediaJob<T> job = new MediaJob<T>(this, name, source, priority, this.sequence.getAndIncrement(), operation);
+		LOGGER.debug("Submitting media job {} with priority {}. {} jobs waiting", job, priority, this.executor.getQueue().size());
+		this.executor.execute(job);
+		return job;
+	}
+	
+	public void addListener(MediaJobListener listener) {
+		this.listeners.add(listener);
+	}
+	
+	public void removeListener(MediaJobListener listener) {
+		this.listeners.remove(listener);
+	}
+	
+	void notifyProgress(MediaJob<?> job) {
+		for (MediaJobListener listener : this.listeners) {
+			try {
+				listener.progress(job);
+			} catch (Exception ex) {
+				LOGGER.warn("Media job listener failed: " + ex.getMessage(), ex);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of jobs that haven't started yet.
+	 * @return int
+	 */
+	public int getWaitingJobCount() {
+		return this.executor.getQueue().size();
+	}
+	
+	/**
+	 * Returns the number of jobs that are running.
+	 * @return int
+	 */
+	public int getRunningJobCount() {
+		return this.executor.getActiveCount();
+	}
+}
@@ -26,7 +26,6 @@ package org.praisenter.data.media.tools;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -37,11 +36,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.imageio.ImageIO;
-
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.praisenter.LockMap;
@@ -50,7 +50,6 @@ import org.praisenter.data.media.CodecType;
 import org.praisenter.data.media.MediaCodec;
 import org.praisenter.data.media.MediaFormat;
 import org.praisenter.utility.CommandLine;
-import org.praisenter.utility.ImageManipulator;
 import org.praisenter.utility.RuntimeProperties;
 import org.praisenter.utility.StringManipulator;
 
@@ -68,6 +67,12 @@ public final class MediaTools {
 	/** The FFmpeg folder */
 	private static final String TOOLS_DIR = "tools";
 	
+	/** The maximum width of extracted frames */
+	private static final double MAXIMUM_FRAME_WIDTH = 1920;
+	
+	/** The maximum height of extracted frames */
+	private static final double MAXIMUM_FRAME_HEIGHT = 1080;
+	
 	// data
 
 	/** The locks for the tools */
@@ -82,8 +87,12 @@ public final class MediaTools {
 	/** The path to the ffprobe binary */
 	public final Path ffprobe;
 	
-	public MediaTools(Path basePath) {
+	/** The scheduler for ffmpeg jobs */
+	public final MediaJobScheduler scheduler;
+	
+	public MediaTools(Path basePath, MediaJobScheduler scheduler) {
 		this.path = basePath.resolve(TOOLS_DIR);
+		this.scheduler = scheduler;
 		
 		this.lockMap = new LockMap<String>();
 		
@@ -133,14 +142,6 @@ public final class MediaTools {
 		}
 	}
 	
-	/**
-	 * Returns a lock for the ffmpeg binary.
-	 * @return Object
-	 */
-	private Object getFFmpegLock() {
-		return this.lockMap.get("ffmpeg");
-	}
-	
 	/**
 	 * Returns a lock for the ffprobe binary.
 	 * @return Object
@@ -165,7 +166,10 @@ public final class MediaTools {
 				String match = token.toLowerCase().trim();
 				String replacement = parameters.get(match);
 				if (replacement != null) {
-					command.add(replacement);
+					// an empty replacement removes the token
+					if (!replacement.isEmpty()) {
+						command.add(replacement);
+					}
 				} else {
 					command.add(token);
 				}
@@ -175,6 +179,85 @@ public final class MediaTools {
 		return command;
 	}
 	
+	/**
+	 * Adds the arguments to the given ffmpeg command to have it report progress 
+	 * to the given pipe.
+	 * @param command the command
+	 * @param pipe the pipe (pipe:1 for standard out, pipe:2 for standard error)
+	 * @return List&lt;String&gt;
+	 */
+	private List<String> withProgress(List<String> command, String pipe) {
+		// these are global options so they go right after the executable
+		command.addAll(1, List.of("-progress", pipe, "-nostats"));
+		return command;
+	}
+	
+	/**
+	 * Returns a consumer of ffmpeg output that parses the progress lines and updates 
+	 * the given job's progress.
+	 * @param job the job
+	 * @param lengthInSeconds the length of the media
+	 * @return Consumer&lt;String&gt;
+	 */
+	private Consumer<String> progressParser(MediaJob<?> job, long lengthInSeconds) {
+		if (lengthInSeconds <= 0) {
+			return null;
+		}
+		
+		final double lengthInMicroseconds = lengthInSeconds * 1e6;
+		return (line) -> {
+			// NOTE: out_time_ms is actually in microseconds too
+			if (line.startsWith("out_time_us=") || line.startsWith("out_time_ms=")) {
+				try {
+					long time = Long.parseLong(line.substring(12).trim());
+					job.setProgress(Math.min(1.0, Math.max(0.0, time / lengthInMicroseconds)));
+				} catch (NumberFormatException ex) {
+					// N/A is output at the start, just ignore it
+				}
+			} else if (line.equals("progress=end")) {
+				job.setProgress(1.0);
+			}
+		};
+	}
+	
+	/**
+	 * Returns the metadata of the given media or null if it can't be determined.
+	 * @param media the media file
+	 * @return {@link FFProbeMediaMetadata}
+	 */
+	private FFProbeMediaMetadata getMetadata(Path media) {
+		try {
+			return this.ffprobeExtractMetadata(media);
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to read the metadata of '" + media.toAbsolutePath() + "': " + ex.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Waits for the given job to complete, cancelling it if the waiting thread is interrupted.
+	 * @param job the job
+	 * @return T
+	 * @throws IOException if an IO error occurs
+	 * @throws InterruptedException if the job was cancelled or the wait was interrupted
+	 */
+	private <T> T await(MediaJob<T> job) throws IOException, InterruptedException {
+		try {
+			return job.getFuture().get();
+		} catch (InterruptedException ex) {
+			job.cancel();
+			throw ex;
+		} catch (CancellationException ex) {
+			throw new InterruptedException("The media job " + job + " was cancelled.");
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) throw (IOException)cause;
+			if (cause instanceof InterruptedException) throw (InterruptedException)cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+			throw new IOException(cause);
+		}
+	}
+	
 	/**
 	 * Uses the FFmpeg tool to transcode the given source file to the given target file using the given command template.
 	 * @param template the command template
@@ -185,48 +268,182 @@ public final class MediaTools {
 	 * @throws CommandLineExecutionException if the tools fails to perform its action
 	 */
 	public void ffmpegTranscode(TranscodeSettings settings, Path source, Path target) throws IOException, InterruptedException {
+		this.ffmpegTranscode(settings, source, target, null);
+	}
+	
+	/**
+	 * Uses the FFmpeg tool to transcode the given source file to the given target file using the given command template
+	 * and returns the best frame from the source based on a Luminance metric.
+	 * <p>
+	 * When volume adjustment is enabled, the mean volume is measured first with an audio only pass (the video 
+	 * isn't decoded) and the adjustment is applied by the transcode itself so that the configured codec settings
+	 * and all the streams of the target are kept. The frame extraction is added as an extra output of the 
+	 * transcode so the video is only decoded once.
+	 * <p>
+	 * Returns null if no frame template was given, the media has no video, or the frame template could not be 
+	 * combined with the transcode; use {@link #ffmpegExtractFrame(String, Path)} in that case.
+	 * @param settings the transcode settings
+	 * @param source the source file
+	 * @param target the target file
+	 * @param frameTemplate the frame extraction command template; can be null
+	 * @return BufferedImage
+	 * @throws IOException if an IO error occurs
+	 * @throws InterruptedException if the process is interrupted while waiting for it to complete
+	 * @throws CommandLineExecutionException if the tools fails to perform its action
+	 */
+	public BufferedImage ffmpegTranscode(TranscodeSettings settings, Path source, Path target, String frameTemplate) throws IOException, InterruptedException {
 		Map<String, String> parameters = new HashMap<String, String>();
 		parameters.put("{ffmpeg}", this.ffmpeg.toAbsolutePath().toString());
 		parameters.put("{source}", source.toAbsolutePath().toString());
 		parameters.put("{target}", target.toAbsolutePath().toString());
+		// the volume adjustment (if any) is set once the volume is known
+		parameters.put("{volumeadjust}", "");
+		
+		// the metadata is used to report progress and decide what outputs we can add
+		final FFProbeMediaMetadata metadata = this.getMetadata(source);
+		final long length = metadata != null ? metadata.getLength() : 0;
 		
-		String template = settings.getCommandTemplate();
+		final String template = settings.getCommandTemplate();
+		final boolean detectVolume = 
+				settings.isAdjustVolumeEnabled() && 
+				template.contains("{volumeadjust}") &&
+				(metadata == null || metadata.hasAudio());
 		
-		// does the command template have volumeadjust token?
-		if (template.contains("{volumeadjust}")) {
-			// is volume adjustment enabled?
-			if (settings.isAdjustVolumeEnabled()) {
-				// get the volume offset
+		// add the frame extraction output (streamed to standard out)
+		final FrameSelector selector = this.createFrameSelector(metadata);
+		final List<String> frameOutput = selector != null ? this.getFrameOutput(frameTemplate, selector) : null;
+		final boolean extractFrames = frameOutput != null;
+		
+		MediaJob<BufferedImage> job = this.scheduler.submit("transcode", source, MediaJobPriority.LOW, (j) -> {
+			String command = template;
+			if (detectVolume) {
 				int adjustment = 0;
 				try {
-					adjustment = this.ffmpegGetNormalizedDecibelOffset(source, settings.getTargetMeanVolume());
+					adjustment = this.getDecibelOffset(this.detectVolume(source, j, null), settings.getTargetMeanVolume());
+				} catch (InterruptedException ex) {
+					throw ex;
 				} catch (Exception ex) {
 					LOGGER.error("Failed to detect volume: " + ex.getMessage(), ex);
 				}
 				if (adjustment != 0) {
-					// it's non-zero, so we need to adjust
 					// the adjustment needs to be two parameters so replace the single token with two tokens
-					template = template.replaceAll("\\{volumeadjust\\}", "{audiofilter} {volumeoffset}");
-					// then set the two token's values
+					LOGGER.debug("Adjusting the volume of '{}' by {} dB", source, adjustment);
+					command = command.replace("{volumeadjust}", "{audiofilter} {volumeoffset}");
 					parameters.put("{audiofilter}", "-af");
-					parameters.put("{volumeoffset}", "\"volume=" + adjustment + "dB\"");
-				} else {
-					// it's zero, so no adjustment needed, clear the token
-					parameters.put("{volumeadjust}", "");
+					parameters.put("{volumeoffset}", "volume=" + adjustment + "dB");
 				}
-			} else {
-				// not enabled, so clear this token
-				parameters.put("{volumeadjust}", "");
 			}
+			
+			List<String> tokens = this.parseCommand(command, parameters);
+			if (extractFrames) {
+				tokens.addAll(List.of("-map", "0:v:0"));
+				tokens.addAll(frameOutput);
+				
+				// standard out has the frames, so progress goes to standard error
+				this.withProgress(tokens, "pipe:2");
+				CommandLine.execute(tokens, j::setProcess, this.progressParser(j, length), selector::read);
+				return selector.getBest();
+			}
+			
+			this.withProgress(tokens, "pipe:1");
+			CommandLine.execute(tokens, j::setProcess, this.progressParser(j, length));
+			return null;
+		});
+		
+		return this.await(job);
+	}
+	
+	/**
+	 * Runs the FFmpeg volumedetect filter over the audio of the given media and returns the output.
+	 * <p>
+	 * Only the first audio stream is decoded; video, subtitles and data are skipped so this is
+	 * much cheaper than a transcode.
+	 * @param media the media file
+	 * @param job the job this is running as part of
+	 * @param progress the progress consumer; can be null
+	 * @return String
+	 * @throws IOException if an IO error occurs
+	 * @throws InterruptedException if the process is interrupted while waiting for it to complete
+	 * @throws CommandLineExecutionException if the tools fails to perform its action
+	 */
+	private String detectVolume(Path media, MediaJob<?> job, Consumer<String> progress) throws IOException, InterruptedException {
+		Map<String, String> parameters = new HashMap<String, String>();
+		parameters.put("{ffmpeg}", this.ffmpeg.toAbsolutePath().toString());
+		parameters.put("{media}", media.toAbsolutePath().toString());
+		parameters.put("{null}", RuntimeProperties.IS_WINDOWS_OS ? "NUL" : "/dev/null");
+		
+		final List<String> command = this.withProgress(this.parseCommand("{ffmpeg} -i {media} -map 0:a:0 -af volumedetect -vn -sn -dn -f null {null}", parameters), "pipe:1");
+		return CommandLine.execute(command, job::setProcess, progress);
+	}
+	
+	/**
+	 * Returns a frame selector sized for the frames of the given media or null if the media
+	 * has no video.
+	 * <p>
+	 * The frames are scaled down to fit {@link #MAXIMUM_FRAME_WIDTH}x{@link #MAXIMUM_FRAME_HEIGHT}
+	 * since they are only used for the media image and thumbnail.
+	 * @param metadata the media metadata
+	 * @return {@link FrameSelector}
+	 */
+	private FrameSelector createFrameSelector(FFProbeMediaMetadata metadata) {
+		if (metadata == null || !metadata.hasVideo() || metadata.getWidth() <= 0 || metadata.getHeight() <= 0) {
+			return null;
 		}
 		
-		synchronized (this.getFFmpegLock()) {
-			CommandLine.execute(this.parseCommand(template, parameters));
+		double w = metadata.getWidth();
+		double h = metadata.getHeight();
+		double scale = Math.min(1.0, Math.min(MAXIMUM_FRAME_WIDTH / w, MAXIMUM_FRAME_HEIGHT / h));
+		
+		// keep the dimensions even for the scaler
+		int fw = Math.max(2, (int)Math.round(w * scale / 2.0) * 2);
+		int fh = Math.max(2, (int)Math.round(h * scale / 2.0) * 2);
+		return new FrameSelector(fw, fh);
+	}
+	
+	/**
+	 * Returns the output portion of the given frame extraction command template (everything after the
+	 * media input) modified to stream raw frames of the selector's size to standard out or null if 
+	 * it can't be determined.
+	 * @param frameTemplate the frame extraction command template
+	 * @param selector the frame selector
+	 * @return List&lt;String&gt;
+	 */
+	private List<String> getFrameOutput(String frameTemplate, FrameSelector selector) {
+		if (StringManipulator.isNullOrEmpty(frameTemplate)) {
+			return null;
+		}
+		
+		int index = frameTemplate.indexOf("{media}");
+		if (index < 0 || !frameTemplate.contains("{frame}")) {
+			return null;
+		}
+		
+		List<String> output = this.parseCommand(frameTemplate.substring(index + "{media}".length()), Map.of());
+		int frame = output.indexOf("{frame}");
+		if (frame < 0) {
+			return null;
+		}
+		
+		// scale to exactly the selector's size (padding if the aspect ratio differs, a rotated video for example)
+		String scale = String.format("scale=%1$d:%2$d:force_original_aspect_ratio=decrease,pad=%1$d:%2$d:(ow-iw)/2:(oh-ih)/2", selector.getWidth(), selector.getHeight());
+		int filter = Math.max(output.lastIndexOf("-vf"), output.lastIndexOf("-filter:v"));
+		if (filter >= 0 && filter + 1 < output.size()) {
+			output.set(filter + 1, output.get(filter + 1) + "," + scale);
+		} else {
+			output.addAll(frame, List.of("-vf", scale));
+			frame += 2;
 		}
+		
+		// replace the frame file pattern with raw frames to standard out
+		output.remove(frame);
+		output.addAll(frame, List.of("-f", "rawvideo", "-pix_fmt", "bgr24", "pipe:1"));
+		return output;
 	}
 	
 	/**
 	 * Uses the FFmpeg tool to extract frames from the given video file and returns the best one based on a Luminance metric.
+	 * <p>
+	 * The frames are streamed from FFmpeg as raw video and scored as they arrive; nothing is written to disk.
 	 * @param template the command template
 	 * @param media the video file
 	 * @return BufferedImage
@@ -235,60 +452,29 @@ public final class MediaTools {
 	 * @throws CommandLineExecutionException if the tools fails to perform its action
 	 */
 	public BufferedImage ffmpegExtractFrame(String template, Path media) throws IOException, InterruptedException {
-		// create a unique identifer for naming;
-		String id = UUID.randomUUID().toString().replaceAll("-", "");
-		Path tempArea = this.path.resolve(id);
+		final FrameSelector selector = this.createFrameSelector(this.getMetadata(media));
+		final List<String> output = selector != null ? this.getFrameOutput(template, selector) : null;
+		if (output == null) {
+			LOGGER.warn("Unable to extract frames from '{}' using the command '{}'", media.toAbsolutePath(), template);
+			return null;
+		}
 		
 		Map<String, String> parameters = new HashMap<String, String>();
 		parameters.put("{ffmpeg}", this.ffmpeg.toAbsolutePath().toString());
 		parameters.put("{media}", media.toAbsolutePath().toString());
-		parameters.put("{frame}", tempArea.resolve("frame%02d.jpg").toAbsolutePath().toString());
 		
-		synchronized (this.getFFmpegLock()) {
-			try {
-				// create the temp folder for easy clean up
-				Files.createDirectories(tempArea);
-				
-				// run the command
-				CommandLine.execute(this.parseCommand(template, parameters));
-				
-				// scan the frames and pick the best
-				BufferedImage best = null;
-				double score = 0;
-				try (DirectoryStream<Path> dir = Files.newDirectoryStream(tempArea)) {
-					for (Path path : dir) {
-						if (Files.isRegularFile(path) && path.getFileName().toString().startsWith("frame")) {
-							try {
-								BufferedImage image = ImageIO.read(path.toFile());
-								double logAvgLuminance = ImageManipulator.getLogAverageLuminance(image);
-								
-								// how far from the middle is the score?
-								double distance = Math.abs(logAvgLuminance - 0.5);
-								if (distance < score || best == null) {
-									LOGGER.debug("Best Log Average Luminance {} from {}.", logAvgLuminance, path.toAbsolutePath().toString());
-									best = image;
-									score = distance;
-								}
-							} catch (IOException ex) {
-								LOGGER.error("Failed to read frame from media '" + media.toAbsolutePath().toString() + "'.", ex);
-							}
-						}
-					}
-				}
-				
-				return best;
-			} finally {
-				Files.walk(tempArea)
-			     .sorted((a, b) -> b.compareTo(a)) // reverse; files before dirs
-			     .forEach(p -> {
-			        try { 
-			        	Files.delete(p); 
-			        } catch(IOException e) {
-			        	LOGGER.warn("Failed to delete the temp file '" + p.toAbsolutePath().toString() + "'.", e);
-			        }
-			     });
-			}
-		}
+		// everything up to and including the media input, then the modified output
+		final List<String> command = this.parseCommand(template.substring(0, template.indexOf("{media}") + "{media}".length()), parameters);
+		command.addAll(output);
+		
+		MediaJob<BufferedImage> job = this.scheduler.submit("extract-frame", media, MediaJobPriority.HIGH, (j) -> {
+			// run the command, scoring the frames as they come in
+			CommandLine.execute(command, j::setProcess, null, selector::read);
+			LOGGER.debug("Scored {} frames from '{}'", selector.getFrameCount(), media.toAbsolutePath());
+			return selector.getBest();
+		});
+		
+		return this.await(job);
 	}
 	
 	/**
@@ -304,20 +490,29 @@ public final class MediaTools {
 	 * @throws CommandLineExecutionException if the tools fails to perform its action
 	 */
 	public int ffmpegGetNormalizedDecibelOffset(Path media, final double targetMeanVolume) throws IOException, InterruptedException {
-		Map<String, String> parameters = new HashMap<String, String>();
-		parameters.put("{ffmpeg}", this.ffmpeg.toAbsolutePath().toString());
-		parameters.put("{media}", media.toAbsolutePath().toString());
-		parameters.put("{null}", RuntimeProperties.IS_WINDOWS_OS ? "NUL" : "/dev/null");
+		final FFProbeMediaMetadata metadata = this.getMetadata(media);
+		final long length = metadata != null ? metadata.getLength() : 0;
+		MediaJob<String> job = this.scheduler.submit("volume-detect", media, MediaJobPriority.NORMAL, (j) -> {
+			return this.detectVolume(media, j, this.progressParser(j, length));
+		});
 		
-		synchronized (this.getFFmpegLock()) {
-			// run the command
-			String output = CommandLine.execute(this.parseCommand("{ffmpeg} -i {media} -af volumedetect -vn -sn -dn -f null {null}", parameters));
-			
-			// somewhere around -40 dB is the target for the mean volume
-			// the max_volume doesn't seem to matter as much
-			Matcher matcher = null;
+		// run the command
+		String output = this.await(job);
+		return this.getDecibelOffset(output, targetMeanVolume);
+	}
+	
+	/**
+	 * Parses the mean volume from the given volumedetect output and returns a volume adjustment in dB.
+	 * @param output the ffmpeg output
+	 * @param targetMeanVolume the target mean volume
+	 * @return int
+	 */
+	private int getDecibelOffset(String output, final double targetMeanVolume) {
+		// somewhere around -40 dB is the target for the mean volume
+		// the max_volume doesn't seem to matter as much
+		Matcher matcher = null;
 
-			// for now, I'm not worring about the max_volume
+		// for now, I'm not worring about the max_volume
 //			double maxVolume = targetMeanVolume;
 //			Matcher matcher = Pattern.compile("(max_volume:.+dB)").matcher(output);
 //			if (matcher.find() && matcher.groupCount() >= 1) {
@@ -331,27 +526,26 @@ public final class MediaTools {
 //					}
 //				}
 //			}
-			
-			double meanVolume = targetMeanVolume;
-			matcher = Pattern.compile("(mean_volume:.+dB)").matcher(output);
-			if (matcher.find() && matcher.groupCount() >= 1) {
-				String maxVolumeOutput = matcher.group(1);
-				String[] parts = maxVolumeOutput.split("\\s+");
-				if (parts.length >= 3) {
-					try {
-						meanVolume = Double.parseDouble(parts[1].trim());
-					} catch (NumberFormatException ex) {
-						LOGGER.warn("Failed to parse mean_volume: '" + parts[1].trim() + "'");
-					}
+		
+		double meanVolume = targetMeanVolume;
+		matcher = Pattern.compile("(mean_volume:.+dB)").matcher(output);
+		if (matcher.find() && matcher.groupCount() >= 1) {
+			String maxVolumeOutput = matcher.group(1);
+			String[] parts = maxVolumeOutput.split("\\s+");
+			if (parts.length >= 3) {
+				try {
+					meanVolume = Double.parseDouble(parts[1].trim());
+				} catch (NumberFormatException ex) {
+					LOGGER.warn("Failed to parse mean_volume: '" + parts[1].trim() + "'");
 				}
 			}
-			
-			int meanTarget = (int)Math.ceil(targetMeanVolume);
-			int meanNorm = (int)Math.ceil(meanVolume);
-			LOGGER.debug("Detected mean volume: '" + meanNorm + "'");
-			if (meanNorm > targetMeanVolume) {
-				return meanTarget - meanNorm;
-			}
+		}
+		
+		int meanTarget = (int)Math.ceil(targetMeanVolume);
+		int meanNorm = (int)Math.ceil(meanVolume);
+		LOGGER.debug("Detected mean volume: '" + meanNorm + "'");
+		if (meanNorm > targetMeanVolume) {
+			return meanTarget - meanNorm;
 		}
 		
 		return 0;
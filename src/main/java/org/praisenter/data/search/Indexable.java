@@ -14,4 +14,15 @@ public interface Indexable extends Identifiable {
 	
 	public String getName();
 	public List<Document> index();
+	
+	/**
+	 * Returns the documents for this item.
+	 * <p>
+	 * Items with a lot of documents should override this method to generate
+	 * the documents as they are consumed rather than all at once.
+	 * @return Iterable&lt;Document&gt;
+	 */
+	public default Iterable<Document> documents() {
+		return this.index();
+	}
 }
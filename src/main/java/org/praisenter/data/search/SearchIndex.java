@@ -2,86 +2,438 @@ package org.praisenter.data.search;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
 import org.apache.lucene.index.StoredFields;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.highlight.Highlighter;
 import org.apache.lucene.search.highlight.QueryScorer;
 import org.apache.lucene.search.highlight.TokenSources;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
 
+/**
+ * Wrapper around the Lucene index for a workspace.
+ * <p>
+ * A single {@link IndexWriter} is held open for the lifetime of the index and
+ * searches are performed against near-real-time readers obtained from a
+ * {@link SearcherManager}. Changes are made visible to the next search (the
+ * reader is refreshed once, on demand, for all the changes since the last search)
+ * but are only committed (fsync'd) to disk periodically or when enough changes
+ * have accumulated. Call {@link #close()} to commit any remaining changes and
+ * release the index.
+ */
 public final class SearchIndex {
 	/** The class-level logger */
 	private static final Logger LOGGER = LogManager.getLogger();
 
+	/** The document type for item fingerprint documents */
+	private static final String DATA_TYPE_FINGERPRINT = "fingerprint";
+	
+	/** The field that stores the fingerprint of an item */
+	private static final String FIELD_FINGERPRINT = "docFingerprint";
+	
+	/** The default maximum amount of time between commits (in seconds) */
+	public static final long DEFAULT_COMMIT_INTERVAL = 30;
+	
+	/** The default number of uncommitted changes that will force a commit */
+	public static final int DEFAULT_COMMIT_CHANGE_THRESHOLD = 500;
+	
+	/** The RAM buffer size before the writer flushes a segment (in MB) */
+	private static final double RAM_BUFFER_SIZE = 64.0;
+	
 	/** The file-system index */
-	private Directory directory;
+	private final Directory directory;
 	
 	/** The analyzer for the index */
-	private Analyzer analyzer;
+	private final Analyzer analyzer;
 	
-	public SearchIndex(Directory directory, Analyzer analyzer) {
-		this.directory = directory;
-		this.analyzer = analyzer;
+	/** The shared index writer */
+	private final IndexWriter writer;
+	
+	/** The near-real-time searcher manager */
+	private final SearcherManager searcherManager;
+	
+	/** The number of uncommitted changes that will force a commit */
+	private final int commitChangeThreshold;
+	
+	/** The timer used to commit uncommitted changes periodically */
+	private final ScheduledExecutorService commitTimer;
+	
+	/** The periodic commit task */
+	private final ScheduledFuture<?> commitTask;
+	
+	/** The number of changes since the last commit */
+	private int uncommittedChanges;
+	
+	/** True if the index has changed since the searcher manager was last refreshed */
+	private final AtomicBoolean refreshNeeded;
+	
+	/** True if this index has been closed */
+	private boolean closed;
+	
+	public SearchIndex(Directory directory, Analyzer analyzer) throws IOException {
+		this(directory, analyzer, DEFAULT_COMMIT_INTERVAL, DEFAULT_COMMIT_CHANGE_THRESHOLD);
 	}
 	
-	public synchronized void create(Indexable item) throws IOException {
-		List<Document> docs = item.index();
-		if (docs == null || docs.isEmpty()) return;
+	public SearchIndex(Directory directory, Analyzer analyzer, long commitInterval, int commitChangeThreshold) throws IOException {
+		this.directory = directory;
+		this.analyzer = analyzer;
+		this.commitChangeThreshold = commitChangeThreshold;
+		this.uncommittedChanges = 0;
+		this.refreshNeeded = new AtomicBoolean(false);
+		this.closed = false;
+		
 		IndexWriterConfig config = new IndexWriterConfig(this.analyzer);
 		config.setOpenMode(OpenMode.CREATE_OR_APPEND);
-		try (IndexWriter writer = new IndexWriter(this.directory, config)) {
-			writer.updateDocuments(new Term(Indexable.FIELD_ID, item.getId().toString()), docs);	
-		}
+		config.setRAMBufferSizeMB(RAM_BUFFER_SIZE);
+		this.writer = new IndexWriter(this.directory, config);
+		
+		// NOTE: passing the writer here gives us near-real-time readers that
+		// see uncommitted changes without the cost of a full commit
+		this.searcherManager = new SearcherManager(this.writer, null);
+		
+		this.commitTimer = Executors.newSingleThreadScheduledExecutor((r) -> {
+			Thread thread = new Thread(r, "search-index-commit");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.commitTask = this.commitTimer.scheduleWithFixedDelay(() -> {
+			try {
+				this.commitIfChanged();
+			} catch (Exception ex) {
+				LOGGER.warn("Failed to commit the search index: " + ex.getMessage(), ex);
+			}
+		}, commitInterval, commitInterval, TimeUnit.SECONDS);
 	}
 	
-	public synchronized void update(Indexable item) throws IOException {
-		List<Document> docs = item.index();
-		if (docs == null || docs.isEmpty()) return;
-		IndexWriterConfig config = new IndexWriterConfig(this.analyzer);
-		config.setOpenMode(OpenMode.CREATE_OR_APPEND);
-		try (IndexWriter writer = new IndexWriter(this.directory, config)) {
-			writer.updateDocuments(new Term(Indexable.FIELD_ID, item.getId().toString()), docs);	
-		}
+	public void create(Indexable item) throws IOException {
+		this.create(item, null);
+	}
+	
+	public synchronized void create(Indexable item, String fingerprint) throws IOException {
+		this.throwIfClosed();
+		this.index(item, fingerprint);
+		this.changed(1);
+	}
+	
+	public void update(Indexable item) throws IOException {
+		this.update(item, null);
+	}
+	
+	public synchronized void update(Indexable item, String fingerprint) throws IOException {
+		this.throwIfClosed();
+		this.index(item, fingerprint);
+		this.changed(1);
 	}
 	
 	public synchronized void delete(Indexable item) throws IOException {
-		IndexWriterConfig config = new IndexWriterConfig(this.analyzer);
-		config.setOpenMode(OpenMode.CREATE_OR_APPEND);
-		try (IndexWriter writer = new IndexWriter(this.directory, config)) {
-			writer.deleteDocuments(new Term(Indexable.FIELD_ID, item.getId().toString()));	
+		this.throwIfClosed();
+		this.writer.deleteDocuments(new Term(Indexable.FIELD_ID, item.getId().toString()));
+		this.changed(1);
+	}
+	
+	public void reindex(Collection<? extends Indexable> items) throws IOException {
+		this.reindex(items, null, null, 1, null, null);
+	}
+	
+	/**
+	 * Rebuilds the index for the given items.
+	 * <p>
+	 * Documents are generated on a pool of worker threads and fed to the shared
+	 * writer. Any documents in the index that don't belong to the given items are
+	 * removed when the reindex completes. If the reindex is cancelled, the items
+	 * that have already been indexed are kept and a {@link CancellationException}
+	 * is thrown.
+	 * @param items the items to index
+	 * @param loader returns the fully loaded item to index for an item; can be null
+	 * @param fingerprints returns the fingerprint for an item; can be null
+	 * @param parallelism the number of worker threads to use
+	 * @param progress the progress listener (0.0 - 1.0); can be null
+	 * @param isCancelled returns true if the reindex should stop; can be null
+	 * @throws IOException if an IO error occurs
+	 * @throws CancellationException if the reindex was cancelled
+	 */
+	public synchronized void reindex(Collection<? extends Indexable> items, Function<Indexable, Indexable> loader, Function<Indexable, String> fingerprints, int parallelism, DoubleConsumer progress, BooleanSupplier isCancelled) throws IOException {
+		this.throwIfClosed();
+		
+		this.indexAll(items, loader, fingerprints, parallelism, progress, isCancelled);
+		
+		// remove anything that's left over from items that no longer exist
+		this.deleteOrphans(items);
+		
+		// always commit after a full reindex
+		this.commit();
+		LOGGER.info("Reindex of {} items complete", items.size());
+	}
+	
+	/**
+	 * Brings the index in line with the given items by only indexing the items
+	 * whose fingerprint differs from the one stored in the index and removing
+	 * any documents for items that no longer exist.
+	 * <p>
+	 * If nothing has changed, the index is not modified.
+	 * @param items the full set of items that should be in the index
+	 * @param loader returns the fully loaded item to index for an item; can be null
+	 * @param fingerprints returns the fingerprint for an item given the fingerprint in the index (which can be null)
+	 * @param parallelism the number of worker threads to use
+	 * @return int the number of items added, updated or removed
+	 * @throws IOException if an IO error occurs
+	 */
+	public synchronized int reconcile(Collection<? extends Indexable> items, Function<Indexable, Indexable> loader, BiFunction<Indexable, String, String> fingerprints, int parallelism) throws IOException {
+		this.throwIfClosed();
+		
+		final Map<UUID, String> indexed = this.getFingerprints();
+		final Map<UUID, String> current = new HashMap<>();
+		final List<Indexable> changed = new ArrayList<>();
+		for (Indexable item : items) {
+			String previous = indexed.get(item.getId());
+			String fingerprint = fingerprints.apply(item, previous);
+			if (fingerprint == null || !fingerprint.equals(previous)) {
+				changed.add(item);
+				current.put(item.getId(), fingerprint);
+			}
 		}
+		
+		LOGGER.info("{} of {} items are new or have changed since they were last indexed", changed.size(), items.size());
+		if (!changed.isEmpty()) {
+			// use the fingerprints computed above
+			this.indexAll(changed, loader, (item) -> current.get(item.getId()), parallelism, null, null);
+		}
+		
+		int removed = this.deleteOrphans(items);
+		if (removed > 0) {
+			LOGGER.info("Removed {} item(s) from the index that no longer exist", removed);
+		}
+		
+		int n = changed.size() + removed;
+		if (n > 0) {
+			this.commit();
+		}
+		return n;
 	}
 	
-	public synchronized void reindex(Iterable<? extends Indexable> items) throws IOException {
-		IndexWriterConfig config = new IndexWriterConfig(this.analyzer);
-		config.setOpenMode(OpenMode.CREATE);
-		try (IndexWriter writer = new IndexWriter(this.directory, config)) {
+	/**
+	 * Returns the fingerprints of all items in the index by item id.
+	 * @return Map&lt;UUID, String&gt;
+	 * @throws IOException if an IO error occurs
+	 */
+	public Map<UUID, String> getFingerprints() throws IOException {
+		Map<UUID, String> fingerprints = new HashMap<>();
+		Query query = new TermQuery(new Term(Indexable.FIELD_TYPE, DATA_TYPE_FINGERPRINT));
+		Set<String> fields = Set.of(Indexable.FIELD_ID, FIELD_FINGERPRINT);
+		
+		IndexSearcher searcher = this.acquire();
+		try {
+			int count = searcher.count(query);
+			if (count == 0) {
+				return fingerprints;
+			}
+			
+			TopDocs result = searcher.search(query, count);
+			StoredFields storedFields = searcher.storedFields();
+			for (ScoreDoc doc : result.scoreDocs) {
+				Document document = storedFields.document(doc.doc, fields);
+				try {
+					fingerprints.put(UUID.fromString(document.get(Indexable.FIELD_ID)), document.get(FIELD_FINGERPRINT));
+				} catch (IllegalArgumentException ex) {
+					LOGGER.warn("Invalid id '" + document.get(Indexable.FIELD_ID) + "' found in the search index");
+				}
+			}
+		} finally {
+			this.searcherManager.release(searcher);
+		}
+		
+		return fingerprints;
+	}
+	
+	private void indexAll(Collection<? extends Indexable> items, Function<Indexable, Indexable> loader, Function<Indexable, String> fingerprints, int parallelism, DoubleConsumer progress, BooleanSupplier isCancelled) throws IOException {
+		final int total = items.size();
+		final int threads = Math.max(1, parallelism);
+		final AtomicInteger completed = new AtomicInteger();
+		final AtomicReference<Exception> error = new AtomicReference<>();
+		
+		// NOTE: bound the number of items in flight so that we don't hold
+		// the documents for a large number of items in memory at once
+		final Semaphore inFlight = new Semaphore(threads * 2);
+		final ExecutorService workers = Executors.newFixedThreadPool(threads, (r) -> {
+			Thread thread = new Thread(r, "search-index-reindex");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		LOGGER.info("Reindexing {} items using {} thread(s)", total, threads);
+		boolean cancelled = false;
+		try {
 			for (Indexable item : items) {
-				LOGGER.debug("Indexing document {} {}", item.getClass().getName(), item.getName());
-				List<Document> docs = item.index();
-				if (docs == null || docs.isEmpty()) {
-					continue;
+				if (error.get() != null) {
+					break;
+				}
+				if (isCancelled != null && isCancelled.getAsBoolean()) {
+					cancelled = true;
+					break;
 				}
-				writer.updateDocuments(new Term(Indexable.FIELD_ID, item.getId().toString()), docs);	
+				
+				try {
+					inFlight.acquire();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					cancelled = true;
+					break;
+				}
+				
+				workers.execute(() -> {
+					try {
+						if (error.get() != null || (isCancelled != null && isCancelled.getAsBoolean())) {
+							return;
+						}
+						
+						LOGGER.debug("Indexing document {} {}", item.getClass().getName(), item.getName());
+						Indexable full = loader != null ? loader.apply(item) : item;
+						this.index(full, fingerprints != null ? fingerprints.apply(item) : null);
+						
+						int n = completed.incrementAndGet();
+						if (progress != null) {
+							progress.accept((double)n / total);
+						}
+					} catch (Exception ex) {
+						error.compareAndSet(null, ex);
+					} finally {
+						inFlight.release();
+					}
+				});
 			}
+		} finally {
+			workers.shutdown();
+			try {
+				while (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+					LOGGER.trace("Waiting for reindex workers to complete");
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				workers.shutdownNow();
+				cancelled = true;
+			}
+		}
+		
+		Exception ex = error.get();
+		if (ex != null) {
+			// keep what we have so far
+			this.commit();
+			if (ex instanceof IOException) throw (IOException)ex;
+			throw new IOException(ex);
+		}
+		
+		if (cancelled || (isCancelled != null && isCancelled.getAsBoolean())) {
+			// keep what we have so far
+			this.commit();
+			LOGGER.info("Reindex was cancelled after {} of {} items", completed.get(), total);
+			throw new CancellationException("The reindex was cancelled after " + completed.get() + " of " + total + " items.");
+		}
+	}
+	
+	private void index(Indexable item, String fingerprint) throws IOException {
+		Term term = new Term(Indexable.FIELD_ID, item.getId().toString());
+		// NOTE: the documents can be expensive to generate (bibles) so only iterate them once
+		Iterable<Document> itemDocs = item.documents();
+		Iterator<Document> itemDocIterator = itemDocs != null ? itemDocs.iterator() : Collections.emptyIterator();
+		boolean hasItemDocs = itemDocIterator.hasNext();
+		
+		Document fingerprintDoc = null;
+		if (fingerprint != null) {
+			fingerprintDoc = new Document();
+			fingerprintDoc.add(new StringField(Indexable.FIELD_ID, item.getId().toString(), Field.Store.YES));
+			fingerprintDoc.add(new StringField(Indexable.FIELD_TYPE, DATA_TYPE_FINGERPRINT, Field.Store.YES));
+			fingerprintDoc.add(new StoredField(FIELD_FINGERPRINT, fingerprint));
+		}
+		
+		if (!hasItemDocs && fingerprintDoc == null) {
+			this.writer.deleteDocuments(term);
+		} else if (!hasItemDocs) {
+			this.writer.updateDocuments(term, List.of(fingerprintDoc));
+		} else {
+			// the writer consumes the documents as they are generated so that
+			// items with a lot of documents (bibles) aren't held in memory
+			final Iterator<Document> it = Stream.concat(
+					StreamSupport.stream(Spliterators.spliteratorUnknownSize(itemDocIterator, Spliterator.ORDERED), false), 
+					Stream.ofNullable(fingerprintDoc)).iterator();
+			
+			// the writer only iterates the documents once, so it can be given the same iterator
+			Iterable<Document> docs = () -> it;
+			this.writer.updateDocuments(term, docs);
+		}
+	}
+	
+	private int deleteOrphans(Collection<? extends Indexable> items) throws IOException {
+		List<BytesRef> ids = new ArrayList<>();
+		for (Indexable item : items) {
+			ids.add(new BytesRef(item.getId().toString()));
+		}
+		
+		BooleanQuery.Builder builder = new BooleanQuery.Builder();
+		builder.add(new MatchAllDocsQuery(), Occur.MUST);
+		builder.add(new TermInSetQuery(Indexable.FIELD_ID, ids), Occur.MUST_NOT);
+		Query orphans = builder.build();
+		
+		// only touch the index if there's something to remove
+		IndexSearcher searcher = this.acquire();
+		int count = 0;
+		try {
+			count = searcher.count(orphans);
+		} finally {
+			this.searcherManager.release(searcher);
+		}
+		
+		if (count > 0) {
+			this.writer.deleteDocuments(orphans);
 		}
+		return count;
 	}
 	
 	public SearchResults search(SearchCriteria criteria) throws IOException {
@@ -91,11 +443,10 @@ public final class SearchIndex {
 		
 		List<SearchResult> results = new ArrayList<SearchResult>();
 		
-		// NOTE: this doesn't need to be synchronized with the index, it will use a snapshot
-		// of the index at the time it's opened
-		try (IndexReader reader = DirectoryReader.open(this.directory)) {
-			IndexSearcher searcher = new IndexSearcher(reader);
-			
+		// NOTE: this doesn't need to be synchronized with the index, the acquired
+		// searcher is a point-in-time snapshot of the index
+		IndexSearcher searcher = this.acquire();
+		try {
 			TopDocs result = searcher.search(query, criteria.getMaxResults() + 1);
 			ScoreDoc[] docs = result.scoreDocs;
 			
@@ -128,8 +479,96 @@ public final class SearchIndex {
 				
 				results.add(new SearchResult(document, matches, doc.score));
 			}
+		} finally {
+			this.searcherManager.release(searcher);
 		}
 		
 		return new SearchResults(criteria, results);
 	}
+	
+	/**
+	 * Commits any uncommitted changes to disk.
+	 * @throws IOException if an IO error occurs
+	 */
+	public synchronized void commit() throws IOException {
+		this.throwIfClosed();
+		LOGGER.debug("Committing {} change(s) to the search index", this.uncommittedChanges);
+		this.writer.commit();
+		this.uncommittedChanges = 0;
+		
+		// bulk changes go straight to the writer and are followed by a commit
+		this.refreshNeeded.set(true);
+	}
+	
+	/**
+	 * Commits any remaining changes and releases the index.
+	 * <p>
+	 * The index cannot be used after it has been closed.
+	 * @throws IOException if an IO error occurs
+	 */
+	public synchronized void close() throws IOException {
+		if (this.closed) return;
+		
+		LOGGER.info("Closing the search index");
+		this.commitTask.cancel(false);
+		this.commitTimer.shutdown();
+		
+		try {
+			this.commit();
+		} finally {
+			this.closed = true;
+			try {
+				this.searcherManager.close();
+			} finally {
+				try {
+					this.writer.close();
+				} finally {
+					this.directory.close();
+				}
+			}
+		}
+	}
+	
+	private synchronized void commitIfChanged() throws IOException {
+		if (!this.closed && this.uncommittedChanges > 0) {
+			this.commit();
+		}
+	}
+	
+	private void changed(int n) throws IOException {
+		this.uncommittedChanges += n;
+		
+		// make the change visible to the next search
+		this.refreshNeeded.set(true);
+		if (this.uncommittedChanges >= this.commitChangeThreshold) {
+			this.commit();
+		}
+	}
+	
+	/**
+	 * Acquires a searcher, refreshing it first if the index has changed.
+	 * <p>
+	 * This refreshes once for any number of changes rather than once per change.  The
+	 * searcher must be released with {@link SearcherManager#release(IndexSearcher)}.
+	 * @return IndexSearcher
+	 * @throws IOException if an IO error occurs
+	 */
+	private IndexSearcher acquire() throws IOException {
+		// NOTE: a change made during the refresh sets the flag again
+		if (this.refreshNeeded.getAndSet(false)) {
+			try {
+				this.searcherManager.maybeRefreshBlocking();
+			} catch (IOException | RuntimeException ex) {
+				this.refreshNeeded.set(true);
+				throw ex;
+			}
+		}
+		return this.searcherManager.acquire();
+	}
+	
+	private void throwIfClosed() {
+		if (this.closed) {
+			throw new IllegalStateException("The search index has been closed.");
+		}
+	}
 }
@@ -7,15 +7,17 @@ import java.nio.file.Path;
 
 import javax.imageio.ImageIO;
 
-import org.praisenter.data.AbstractPersistAdapter;
+import org.praisenter.data.AbstractCatalogPersistAdapter;
+import org.praisenter.data.CatalogEntry;
 import org.praisenter.data.ImportExportFormat;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.data.PraisenterFormatProvider;
 import org.praisenter.data.RawExportFormatProvider;
+import org.praisenter.data.Tag;
 import org.praisenter.data.json.JsonIO;
 import org.praisenter.utility.MimeType;
 
-public final class SlidePersistAdapter extends AbstractPersistAdapter<Slide, SlidePathResolver> implements PersistAdapter<Slide> {
+public final class SlidePersistAdapter extends AbstractCatalogPersistAdapter<Slide, SlidePathResolver> implements PersistAdapter<Slide> {
 	private static final String EXTENSION = "json";
 	
 	private final SlideConfiguration configuration;
@@ -43,6 +45,20 @@ public final class SlidePersistAdapter extends AbstractPersistAdapter<Slide, Sli
 		return null;
 	}
 	
+	@Override
+	protected Slide createPlaceholder(CatalogEntry entry) {
+		Slide s = new Slide();
+		s.setId(entry.getId());
+		s.setName(entry.getName());
+		s.setCreatedDate(entry.getCreatedDate());
+		s.setModifiedDate(entry.getModifiedDate());
+		for (String tag : entry.getTags()) {
+			s.getTags().add(new Tag(tag));
+		}
+		s.setThumbnailPath(this.pathResolver.getThumbPath(s));
+		return s;
+	}
+	
 	@Override
 	protected void create(Path path, Slide item) throws IOException {
 		Path thumbnailPath = this.pathResolver.getThumbPath(item);
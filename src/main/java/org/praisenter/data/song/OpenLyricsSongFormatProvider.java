@@ -74,22 +74,30 @@ final class OpenLyricsSongFormatProvider implements ImportExportProvider<Song> {
 
 	@Override
 	public DataImportResult<Song> imp(PersistAdapter<Song> adapter, Path path) throws IOException {
+		try (FileInputStream fis = new FileInputStream(path.toFile());
+			BufferedInputStream bis = new BufferedInputStream(fis)) {
+			return this.imp(adapter, path.getFileName().toString(), bis);
+		}
+	}
+	
+	@Override
+	public DataImportResult<Song> imp(PersistAdapter<Song> adapter, String name, InputStream stream) throws IOException {
 		DataImportResult<Song> result = new DataImportResult<>();
 		
-		if (!this.isOpenLyricsSong(path)) {
+		// song files are small so they're read once for both the format check and the parse
+		byte[] content = Streams.read(stream);
+		if (!this.isOpenLyricsSong(new ByteArrayInputStream(content))) {
 			return result;
 		}
 		
-		String name = path.getFileName().toString();
 		int i = name.lastIndexOf('.');
 		if (i >= 0) {
 			name = name.substring(0, i);
 		}
 		
 		List<DataReadResult<Song>> results = new ArrayList<>();
-		try (FileInputStream fis = new FileInputStream(path.toFile());
-			BufferedInputStream bis = new BufferedInputStream(fis)) {
-			results.add(this.parse(bis, name));
+		try {
+			results.add(this.parse(new ByteArrayInputStream(content), name));
 		} catch (SAXException | ParserConfigurationException ex) {
 			throw new InvalidImportExportFormatException(ex);
 		}
@@ -114,8 +122,8 @@ final class OpenLyricsSongFormatProvider implements ImportExportProvider<Song> {
 		return result;
 	}
 	
-	private boolean isOpenLyricsSong(Path path) {
-		try (FileInputStream stream = new FileInputStream(path.toFile())) {
+	private boolean isOpenLyricsSong(InputStream stream) {
+		try {
 			XMLInputFactory f = XMLInputFactory.newInstance();
 			// prevent XXE attacks
 			// https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet#XMLInputFactory_.28a_StAX_parser.29
@@ -134,7 +142,7 @@ final class OpenLyricsSongFormatProvider implements ImportExportProvider<Song> {
 			    }
 			}
 		} catch (Exception ex) {
-			LOGGER.trace("Failed to read the path as an XML document.", ex);
+			LOGGER.trace("Failed to read the stream as an XML document.", ex);
 		}
 		return false;
 	}
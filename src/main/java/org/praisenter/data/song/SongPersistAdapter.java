@@ -5,16 +5,18 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
-import org.praisenter.data.AbstractPersistAdapter;
+import org.praisenter.data.AbstractCatalogPersistAdapter;
 import org.praisenter.data.BasicPathResolver;
+import org.praisenter.data.CatalogEntry;
 import org.praisenter.data.ImportExportFormat;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.data.PraisenterFormatProvider;
 import org.praisenter.data.RawExportFormatProvider;
+import org.praisenter.data.Tag;
 import org.praisenter.data.json.JsonIO;
 import org.praisenter.utility.MimeType;
 
-public final class SongPersistAdapter extends AbstractPersistAdapter<Song, BasicPathResolver<Song>> implements PersistAdapter<Song> {
+public final class SongPersistAdapter extends AbstractCatalogPersistAdapter<Song, BasicPathResolver<Song>> implements PersistAdapter<Song> {
 	private static final String EXTENSION = "json";
 
 	public SongPersistAdapter(Path path) {
@@ -35,6 +37,19 @@ public final class SongPersistAdapter extends AbstractPersistAdapter<Song, Basic
 		this.importExportProviders.put(ImportExportFormat.RAW, new RawExportFormatProvider<Song>());
 	}
 	
+	@Override
+	protected Song createPlaceholder(CatalogEntry entry) {
+		Song song = new Song();
+		song.setId(entry.getId());
+		song.setName(entry.getName());
+		song.setCreatedDate(entry.getCreatedDate());
+		song.setModifiedDate(entry.getModifiedDate());
+		for (String tag : entry.getTags()) {
+			song.getTags().add(new Tag(tag));
+		}
+		return song;
+	}
+	
 	@Override
 	protected Song load(Path path) throws IOException {
 		if (Files.isRegularFile(path)) {
@@ -0,0 +1,294 @@
+package org.praisenter.data.workspace;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.praisenter.data.ImportArchive;
+import org.praisenter.data.PersistentStore;
+import org.praisenter.data.json.JsonIO;
+import org.praisenter.data.json.PraisenterFormat;
+import org.praisenter.data.slide.Slide;
+import org.praisenter.utility.Archives;
+import org.praisenter.utility.MimeType;
+
+/**
+ * Decides which stores should import a file.
+ * <p>
+ * Each file's mime type is detected once and Praisenter files (and archives of them) are
+ * sniffed so that they are only handed to the stores of the types they contain.  Other files
+ * are handed to every store that has a provider for their mime type.
+ * <p>
+ * When nothing can read an archive as a whole, its entries are classified in a single pass
+ * and each store is given only the entries it supports.
+ * <p>
+ * Slides are planned as dependent steps since they must be imported after the media they
+ * reference.
+ */
+final class ImportPlanner {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	private final Map<Class<?>, PersistentStore<?>> adapters;
+	
+	static final class Step {
+		private final PersistentStore<?> store;
+		private final Path path;
+		private final String mimeType;
+		private final ImportArchive archive;
+		private final Map<String, String> entries;
+		
+		public Step(PersistentStore<?> store, Path path, String mimeType) {
+			this.store = store;
+			this.path = path;
+			this.mimeType = mimeType;
+			this.archive = null;
+			this.entries = null;
+		}
+		
+		public Step(PersistentStore<?> store, ImportArchive archive, Map<String, String> entries) {
+			this.store = store;
+			this.path = archive.getPath();
+			this.mimeType = null;
+			this.archive = archive;
+			this.entries = entries;
+		}
+		
+		public PersistentStore<?> getStore() {
+			return this.store;
+		}
+		
+		public Path getPath() {
+			return this.path;
+		}
+		
+		public String getMimeType() {
+			return this.mimeType;
+		}
+		
+		/**
+		 * Returns true if the store should import the entries of an archive.
+		 * @return boolean
+		 */
+		public boolean isArchive() {
+			return this.archive != null;
+		}
+		
+		/**
+		 * Returns the archive whose entries should be imported or null.
+		 * @return {@link ImportArchive}
+		 */
+		public ImportArchive getArchive() {
+			return this.archive;
+		}
+		
+		/**
+		 * Returns the entries of the archive (by name with their mime types) assigned to the store.
+		 * @return Map&lt;String, String&gt;
+		 */
+		public Map<String, String> getEntries() {
+			return this.entries;
+		}
+	}
+	
+	static final class Plan implements AutoCloseable {
+		private final List<Step> steps;
+		private final List<Step> dependentSteps;
+		
+		/** An archive whose entries should be imported if none of the steps import anything */
+		private Path archive;
+		
+		/** The archive whose entries the steps import; shared by the steps */
+		private ImportArchive importArchive;
+		
+		public Plan() {
+			this.steps = new ArrayList<>();
+			this.dependentSteps = new ArrayList<>();
+		}
+		
+		public List<Step> getSteps() {
+			return Collections.unmodifiableList(this.steps);
+		}
+		
+		public List<Step> getDependentSteps() {
+			return Collections.unmodifiableList(this.dependentSteps);
+		}
+		
+		public Path getArchive() {
+			return this.archive;
+		}
+		
+		/**
+		 * Cleans up any files written while importing the entries of an archive.
+		 */
+		@Override
+		public void close() {
+			if (this.importArchive != null) {
+				this.importArchive.close();
+			}
+		}
+	}
+	
+	public ImportPlanner(Map<Class<?>, PersistentStore<?>> adapters) {
+		this.adapters = adapters;
+	}
+	
+	/**
+	 * Plans the import of the given file.
+	 * @param path the file
+	 * @return {@link Plan}
+	 * @throws IOException if the file isn't a regular file
+	 */
+	public Plan plan(Path path) throws IOException {
+		if (!Files.isRegularFile(path)) {
+			throw new IOException("Cannot import data from '" + path.toAbsolutePath() + "' because it's not a regular file");
+		}
+		
+		Plan plan = new Plan();
+		this.plan(plan, path);
+		return plan;
+	}
+	
+	/**
+	 * Plans the import of the entries of the given plan's archive.
+	 * <p>
+	 * The mime type of each entry is detected once and the entry is assigned to the stores
+	 * that support it.  The entries are streamed from the archive, nothing is extracted up 
+	 * front.  The returned plan should be closed once it's been executed.
+	 * @param plan the plan
+	 * @return {@link Plan}
+	 */
+	public Plan planArchive(Plan plan) {
+		Plan contents = new Plan();
+		if (plan.archive == null) {
+			return contents;
+		}
+		
+		LOGGER.debug("No import provider could read the archive '{}', importing its contents individually", plan.archive.toAbsolutePath());
+		
+		// entry name to mime type by store type
+		final Map<Class<?>, Map<String, String>> assigned = new LinkedHashMap<>();
+		try {
+			Archives.forEachEntry(plan.archive, (zipFile, entry) -> {
+				String mimeType;
+				try (InputStream stream = new BufferedInputStream(zipFile.getInputStream(entry))) {
+					mimeType = MimeType.get(stream, FilenameUtils.getName(entry.getName()));
+				}
+				
+				if (mimeType == null) {
+					return;
+				}
+				
+				for (Map.Entry<Class<?>, PersistentStore<?>> e : this.adapters.entrySet()) {
+					if (e.getValue().isImportSupported(mimeType)) {
+						assigned.computeIfAbsent(e.getKey(), (k) -> new LinkedHashMap<>()).put(entry.getName(), mimeType);
+					}
+				}
+			});
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to read the archive '" + plan.archive.toAbsolutePath() + "'", ex);
+		}
+		
+		if (assigned.isEmpty()) {
+			return contents;
+		}
+		
+		contents.importArchive = new ImportArchive(plan.archive);
+		for (Map.Entry<Class<?>, Map<String, String>> e : assigned.entrySet()) {
+			LOGGER.debug("Planned {} entries of '{}' for '{}'", e.getValue().size(), plan.archive.toAbsolutePath(), e.getKey().getSimpleName());
+			this.addStep(contents, e.getKey(), new Step(this.adapters.get(e.getKey()), contents.importArchive, e.getValue()));
+		}
+		
+		return contents;
+	}
+	
+	private void plan(Plan plan, Path path) {
+		String mimeType = MimeType.get(path);
+		LOGGER.debug("Planning import of '{}' with mime type '{}'", path.toAbsolutePath(), mimeType);
+		
+		Set<Class<?>> types = null;
+		if (MimeType.JSON.is(mimeType)) {
+			types = this.getPraisenterTypes(path);
+		} else if (MimeType.ZIP.is(mimeType)) {
+			types = this.getPraisenterArchiveTypes(path);
+			if (types.isEmpty()) {
+				plan.archive = path;
+			}
+		}
+		
+		if (types != null && !types.isEmpty()) {
+			// a Praisenter file or export, send it only where it belongs
+			for (Class<?> clazz : types) {
+				this.addStep(plan, clazz, new Step(this.adapters.get(clazz), path, mimeType));
+			}
+			return;
+		}
+		
+		for (Map.Entry<Class<?>, PersistentStore<?>> entry : this.adapters.entrySet()) {
+			if (entry.getValue().isImportSupported(mimeType)) {
+				this.addStep(plan, entry.getKey(), new Step(entry.getValue(), path, mimeType));
+			}
+		}
+	}
+	
+	private void addStep(Plan plan, Class<?> clazz, Step step) {
+		if (Slide.class.isAssignableFrom(clazz)) {
+			plan.dependentSteps.add(step);
+		} else {
+			plan.steps.add(step);
+		}
+	}
+	
+	private Set<Class<?>> getPraisenterTypes(Path path) {
+		Set<Class<?>> types = new LinkedHashSet<>();
+		try (InputStream stream = Files.newInputStream(path)) {
+			this.addPraisenterType(types, JsonIO.readPraisenterFormatHeader(stream));
+		} catch (Exception ex) {
+			LOGGER.debug("Failed to read the Praisenter format of '" + path.toAbsolutePath() + "'", ex);
+		}
+		return types;
+	}
+	
+	private Set<Class<?>> getPraisenterArchiveTypes(Path path) {
+		Set<Class<?>> types = new LinkedHashSet<>();
+		try {
+			Archives.forEachEntry(path, (zipFile, entry) -> {
+				if (!MimeType.JSON.check(entry.getName())) {
+					return;
+				}
+				
+				try (InputStream stream = zipFile.getInputStream(entry)) {
+					this.addPraisenterType(types, JsonIO.readPraisenterFormatHeader(stream));
+				} catch (Exception ex) {
+					LOGGER.debug("Failed to read the Praisenter format of '" + entry.getName() + "' in '" + path.toAbsolutePath() + "'", ex);
+				}
+			});
+		} catch (Exception ex) {
+			LOGGER.debug("Failed to read the archive '" + path.toAbsolutePath() + "'", ex);
+		}
+		return types;
+	}
+	
+	private void addPraisenterType(Set<Class<?>> types, PraisenterFormat format) {
+		if (format == null) {
+			return;
+		}
+		
+		for (Class<?> clazz : this.adapters.keySet()) {
+			if (format.is(clazz)) {
+				types.add(clazz);
+			}
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package org.praisenter.data.workspace;           
 
 import org.praisenter.data.Identifiable;
+import org.praisenter.data.bible.BibleStorageConfiguration;
 import org.praisenter.data.media.MediaConfiguration;
 import org.praisenter.data.slide.SlideConfiguration;
 
@@ -11,12 +12,13 @@ import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.ReadOnlyStringProperty;
 import javafx.collections.ObservableList;
 
-public interface ReadOnlyWorkspaceConfiguration extends MediaConfiguration, SlideConfiguration, Identifiable {
+public interface ReadOnlyWorkspaceConfiguration extends MediaConfiguration, SlideConfiguration, BibleStorageConfiguration, Identifiable {
 	public String getFormat();
 	public String getVersion();
 	
 	public boolean isRenumberBibleWarningEnabled();
 	public boolean isReorderBibleWarningEnabled();
+	public boolean isLazyBibleLoadingEnabled();
 	
 	public String getLanguageTag();
 	public String getThemeName();
@@ -28,6 +30,8 @@ public interface ReadOnlyWorkspaceConfiguration extends MediaConfiguration, Slid
 	public double getApplicationFontSize();
 	public boolean isApplicationMaximized();
 	public boolean isDebugModeEnabled();
+	public int getImageCacheSize();
+	public int getMediaReadyTimeout();
 
 	public boolean isWaitForTransitionsToCompleteEnabled();
 	public PlaceholderTransitionBehavior getPlaceholderTransitionBehavior();
@@ -40,6 +44,7 @@ public interface ReadOnlyWorkspaceConfiguration extends MediaConfiguration, Slid
 	
 	public ReadOnlyBooleanProperty renumberBibleWarningEnabledProperty();
 	public ReadOnlyBooleanProperty reorderBibleWarningEnabledProperty();
+	public ReadOnlyBooleanProperty lazyBibleLoadingEnabledProperty();
 	
 	public ReadOnlyIntegerProperty thumbnailWidthProperty();
 	public ReadOnlyIntegerProperty thumbnailHeightProperty();
@@ -52,6 +57,7 @@ public interface ReadOnlyWorkspaceConfiguration extends MediaConfiguration, Slid
 	public ReadOnlyStringProperty videoTranscodeCommandProperty();
 	public ReadOnlyStringProperty videoFrameExtractCommandProperty();
 	public ReadOnlyDoubleProperty targetMeanVolumeProperty();
+	public ReadOnlyIntegerProperty mediaJobConcurrencyProperty();
 	
 	public ReadOnlyStringProperty languageTagProperty();
 	public ReadOnlyStringProperty themeNameProperty();
@@ -63,6 +69,8 @@ public interface ReadOnlyWorkspaceConfiguration extends MediaConfiguration, Slid
 	public ReadOnlyDoubleProperty applicationFontSizeProperty();
 	public ReadOnlyBooleanProperty applicationMaximizedProperty();
 	public ReadOnlyBooleanProperty debugModeEnabledProperty();
+	public ReadOnlyIntegerProperty imageCacheSizeProperty();
+	public ReadOnlyIntegerProperty mediaReadyTimeoutProperty();
 
 	public ReadOnlyBooleanProperty waitForTransitionsToCompleteEnabledProperty();
 	public ReadOnlyObjectProperty<PlaceholderTransitionBehavior> placeholderTransitionBehaviorProperty();
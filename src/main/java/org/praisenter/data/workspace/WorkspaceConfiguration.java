@@ -3,12 +3,14 @@ package org.praisenter.data.workspace;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.TreeSet;
 import java.util.UUID;
 
 import org.praisenter.Constants;
 import org.praisenter.Version;
 import org.praisenter.data.Identifiable;
 import org.praisenter.data.media.MediaConfiguration;
+import org.praisenter.data.media.MediaImageSize;
 import org.praisenter.data.slide.SlideConfiguration;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -36,6 +38,8 @@ import javafx.collections.ObservableList;
 public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfiguration, MediaConfiguration, SlideConfiguration, Identifiable {
 	public static final double POSITION_SIZE_UNSET = -1;
 	public static final double DEFAULT_FONT_SIZE = 14;
+	public static final int DEFAULT_IMAGE_CACHE_SIZE = 512;
+	public static final int DEFAULT_MEDIA_READY_TIMEOUT = 5000;
 	
 	private final StringProperty format;
 	private final StringProperty version;
@@ -43,6 +47,7 @@ public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfigurat
 	
 	private final BooleanProperty renumberBibleWarningEnabled;
 	private final BooleanProperty reorderBibleWarningEnabled;
+	private final BooleanProperty lazyBibleLoadingEnabled;
 	
 	private final IntegerProperty thumbnailWidth;
 	private final IntegerProperty thumbnailHeight;
@@ -55,6 +60,7 @@ public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfigurat
 	private final StringProperty videoTranscodeCommand;
 	private final StringProperty videoFrameExtractCommand;
 	private final DoubleProperty targetMeanVolume;
+	private final IntegerProperty mediaJobConcurrency;
 	
 	private final StringProperty languageTag;
 	private final StringProperty themeName;
@@ -66,6 +72,8 @@ public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfigurat
 	private final DoubleProperty applicationFontSize;
 	private final BooleanProperty applicationMaximized;
 	private final BooleanProperty debugModeEnabled;
+	private final IntegerProperty imageCacheSize;
+	private final IntegerProperty mediaReadyTimeout;
 
 	private final BooleanProperty waitForTransitionsToCompleteEnabled;
 	private final ObjectProperty<PlaceholderTransitionBehavior> placeholderTransitionBehavior;
@@ -85,6 +93,7 @@ public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfigurat
 		
 		this.renumberBibleWarningEnabled = new SimpleBooleanProperty(true);
 		this.reorderBibleWarningEnabled = new SimpleBooleanProperty(true);
+		this.lazyBibleLoadingEnabled = new SimpleBooleanProperty(true);
 		
 		this.thumbnailWidth = new SimpleIntegerProperty(Constants.THUMBNAIL_SIZE);
 		this.thumbnailHeight = new SimpleIntegerProperty(Constants.THUMBNAIL_SIZE);
@@ -97,6 +106,7 @@ public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfigurat
 		this.videoTranscodeCommand = new SimpleStringProperty(MediaConfiguration.DEFAULT_TRANSCODE_COMMAND);
 		this.videoFrameExtractCommand = new SimpleStringProperty(MediaConfiguration.DEFAULT_VIDEO_FRAME_EXTRACT_COMMAND);
 		this.targetMeanVolume = new SimpleDoubleProperty(MediaConfiguration.DEFAULT_TARGET_MEAN_VOLUME);
+		this.mediaJobConcurrency = new SimpleIntegerProperty(MediaConfiguration.DEFAULT_MEDIA_JOB_CONCURRENCY);
 		
 		this.languageTag = new SimpleStringProperty(null);
 		this.themeName = new SimpleStringProperty();
@@ -108,6 +118,8 @@ public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfigurat
 		this.applicationFontSize = new SimpleDoubleProperty(DEFAULT_FONT_SIZE);
 		this.applicationMaximized = new SimpleBooleanProperty(false);
 		this.debugModeEnabled = new SimpleBooleanProperty(false);
+		this.imageCacheSize = new SimpleIntegerProperty(DEFAULT_IMAGE_CACHE_SIZE);
+		this.mediaReadyTimeout = new SimpleIntegerProperty(DEFAULT_MEDIA_READY_TIMEOUT);
 
 		this.waitForTransitionsToCompleteEnabled = new SimpleBooleanProperty();
 		this.placeholderTransitionBehavior = new SimpleObjectProperty<>(PlaceholderTransitionBehavior.PLACEHOLDERS);
@@ -145,6 +157,22 @@ public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfigurat
 		return null;
 	}
 	
+	@Override
+	public int[] getImageVariantSizes() {
+		// one variant per distinct active display size
+		TreeSet<Integer> sizes = new TreeSet<>();
+		List<DisplayConfiguration> configurations = new ArrayList<>(this.displayConfigurations);
+		for (DisplayConfiguration configuration : configurations) {
+			if (configuration.isActive()) {
+				int size = MediaImageSize.getSize(configuration.getWidth(), configuration.getHeight());
+				if (size != MediaImageSize.FULL) {
+					sizes.add(size);
+				}
+			}
+		}
+		return sizes.stream().mapToInt(Integer::intValue).toArray();
+	}
+	
 	@Override
 	public DisplayConfiguration getPrimaryDisplayConfiguration() {
 		List<DisplayConfiguration> configurations = new ArrayList<>(this.displayConfigurations);
@@ -242,6 +270,22 @@ public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfigurat
 		return this.reorderBibleWarningEnabled;
 	}
 
+	@Override
+	@JsonProperty
+	public boolean isLazyBibleLoadingEnabled() {
+		return this.lazyBibleLoadingEnabled.get();
+	}
+	
+	@JsonProperty
+	public void setLazyBibleLoadingEnabled(boolean enabled) {
+		this.lazyBibleLoadingEnabled.set(enabled);
+	}
+	
+	@Override
+	public BooleanProperty lazyBibleLoadingEnabledProperty() {
+		return this.lazyBibleLoadingEnabled;
+	}
+
 	@Override
 	@JsonProperty
 	public int getThumbnailWidth() {
@@ -418,6 +462,22 @@ public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfigurat
 		return this.targetMeanVolume;
 	}
 	
+	@Override
+	@JsonProperty
+	public int getMediaJobConcurrency() {
+		return this.mediaJobConcurrency.get();
+	}
+	
+	@JsonProperty
+	public void setMediaJobConcurrency(int concurrency) {
+		this.mediaJobConcurrency.set(concurrency);
+	}
+	
+	@Override
+	public IntegerProperty mediaJobConcurrencyProperty() {
+		return this.mediaJobConcurrency;
+	}
+	
 	@Override
 	@JsonProperty
 	public String getLanguageTag() {
@@ -577,6 +637,38 @@ public final class WorkspaceConfiguration implements ReadOnlyWorkspaceConfigurat
 	public BooleanProperty debugModeEnabledProperty() {
 		return this.debugModeEnabled;
 	}
+	
+	@Override
+	@JsonProperty
+	public int getImageCacheSize() {
+		return this.imageCacheSize.get();
+	}
+	
+	@JsonProperty
+	public void setImageCacheSize(int size) {
+		this.imageCacheSize.set(size);
+	}
+	
+	@Override
+	public IntegerProperty imageCacheSizeProperty() {
+		return this.imageCacheSize;
+	}
+	
+	@Override
+	@JsonProperty
+	public int getMediaReadyTimeout() {
+		return this.mediaReadyTimeout.get();
+	}
+	
+	@JsonProperty
+	public void setMediaReadyTimeout(int timeout) {
+		this.mediaReadyTimeout.set(timeout);
+	}
+	
+	@Override
+	public IntegerProperty mediaReadyTimeoutProperty() {
+		return this.mediaReadyTimeout;
+	}
 
 	@Override
 	@JsonProperty
@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -15,8 +16,10 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
 
-import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.analysis.Analyzer;
@@ -25,16 +28,20 @@ import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.store.FSDirectory;
 import org.praisenter.async.AsyncHelper;
 import org.praisenter.data.DataImportResult;
+import org.praisenter.data.ExportManifest;
 import org.praisenter.data.ImportExportFormat;
+import org.praisenter.data.IndexedObservableList;
 import org.praisenter.data.PersistAdapter;
 import org.praisenter.data.Persistable;
 import org.praisenter.data.PersistentStore;
 import org.praisenter.data.Tag;
+import org.praisenter.data.ZipExport;
 import org.praisenter.data.bible.Bible;
 import org.praisenter.data.bible.BiblePersistAdapter;
 import org.praisenter.data.json.JsonIO;
 import org.praisenter.data.media.Media;
 import org.praisenter.data.media.MediaPersistAdapter;
+import org.praisenter.data.media.tools.MediaJobScheduler;
 import org.praisenter.data.search.Indexable;
 import org.praisenter.data.search.SearchCriteria;
 import org.praisenter.data.search.SearchIndex;
@@ -44,6 +51,7 @@ import org.praisenter.data.slide.SlidePersistAdapter;
 import org.praisenter.data.slide.SlideRenderer;
 import org.praisenter.data.song.Song;
 import org.praisenter.data.song.SongPersistAdapter;
+import org.praisenter.utility.MimeType;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -53,18 +61,29 @@ import javafx.collections.ObservableSet;
 public final class WorkspaceManager {
 	private static final Logger LOGGER = LogManager.getLogger();
 	
+	/** Loading a placeholder on demand for longer than this is logged */
+	private static final long SLOW_HYDRATE_MILLIS = 50;
+	
 	private final WorkspacePathResolver pathResolver;
 	private final WorkspaceConfiguration workspaceConfiguration;
 	private final SearchIndex searchIndex;
 	private final Set<Path> otherWorkspaces;
 	private final boolean newWorkspace;
+	private final MediaJobScheduler mediaJobScheduler;
 	
 	private final ConcurrentMap<Class<?>, PersistentStore<?>> adapters;
 	
-	private final Map<UUID, Persistable> itemLookup;
+	/** The fully loaded items of all stores */
+	private final IndexedObservableList<Persistable> items;
+	
+	/** All items of all stores, including placeholders */
+	private final IndexedObservableList<Persistable> catalog;
+	
+	/** The background loads of each store's placeholders */
+	private final List<CompletableFuture<Void>> hydrations;
 	
-	private final ObservableList<Persistable> items;
-	private final ObservableList<Persistable> itemsReadOnly;
+	/** The stores whose items haven't been added to the lists yet, in registration order */
+	private final List<Registration<?>> registrations;
 	
 	private final ObservableSet<Tag> tags;
 	private final ObservableSet<Tag> tagsReadOnly;
@@ -80,13 +99,14 @@ public final class WorkspaceManager {
 		this.searchIndex = searchIndex;
 		this.otherWorkspaces = otherWorkspaces;
 		this.newWorkspace = isNewWorkspace;
+		this.mediaJobScheduler = new MediaJobScheduler(workspaceConfiguration);
 		
 		this.adapters = new ConcurrentHashMap<>();
 		
-		this.itemLookup = new HashMap<>();
-		
-		this.items = FXCollections.observableArrayList();
-		this.itemsReadOnly = FXCollections.unmodifiableObservableList(this.items);
+		this.items = new IndexedObservableList<>();
+		this.catalog = new IndexedObservableList<>();
+		this.hydrations = new ArrayList<>();
+		this.registrations = new ArrayList<>();
 		
 		this.tags = FXCollections.observableSet(new HashSet<>());
 		this.tagsReadOnly = FXCollections.unmodifiableObservableSet(this.tags);
@@ -187,8 +207,12 @@ public final class WorkspaceManager {
 		return this.newWorkspace;
 	}
 	
+	public MediaJobScheduler getMediaJobScheduler() {
+		return this.mediaJobScheduler;
+	}
+	
 	public CompletableFuture<Void> registerBiblePersistAdapter() {
-		return this.registerPersistAdapter(Bible.class, new BiblePersistAdapter(this.pathResolver.getBiblesPath()));
+		return this.registerPersistAdapter(Bible.class, new BiblePersistAdapter(this.pathResolver.getBiblesPath(), this.workspaceConfiguration));
 	}
 
 	public CompletableFuture<Void> registerSongPersistAdapter() {
@@ -196,36 +220,174 @@ public final class WorkspaceManager {
 	}
 	
 	public CompletableFuture<Void> registerMediaPersistAdapter() {
-		return this.registerPersistAdapter(Media.class, new MediaPersistAdapter(this.pathResolver.getMediaPath(), this.workspaceConfiguration));
+		return this.registerPersistAdapter(Media.class, new MediaPersistAdapter(this.pathResolver.getMediaPath(), this.workspaceConfiguration, this.mediaJobScheduler));
 	}
 	
 	public CompletableFuture<Void> registerSlidePersistAdapter(SlideRenderer slideRenderer) {
 		return this.registerPersistAdapter(Slide.class, new SlidePersistAdapter(this.pathResolver.getSlidesPath(), slideRenderer, this.workspaceConfiguration));
 	}
 	
+	/**
+	 * Registers the given persist adapter and loads its items.
+	 * <p>
+	 * Stores can be registered concurrently.  To keep the order of the items deterministic,
+	 * each store's items are added to the lists in registration order, once every store
+	 * registered so far has finished loading.  This means the returned future can complete
+	 * before the store's items are in the lists when an earlier store is still loading.
+	 * @param clazz the type of item
+	 * @param adapter the persist adapter
+	 * @return CompletableFuture&lt;Void&gt;
+	 */
 	public <T extends Persistable> CompletableFuture<Void> registerPersistAdapter(Class<T> clazz, PersistAdapter<T> adapter) {
 		PersistentStore<T> store = new PersistentStore<T>(adapter, this.searchIndex);
-		return store.initialize().thenApply((items) -> {
+		Registration<T> registration = new Registration<>(clazz, store);
+		synchronized (this.registrations) {
+			this.registrations.add(registration);
+		}
+		
+		CompletableFuture<List<T>> loaded = store.initialize().thenApply((items) -> {
 			this.adapters.put(clazz, store);
 			return items;
-		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait((items) -> {
-			// add all items to the lookup and
-			// initialize the set of all saved tags
-			for (T item : items) {
-				this.itemLookup.put(item.getId(), item);
-				Set<Tag> tags = item.getTagsUnmodifiable();
-				if (tags != null && !tags.isEmpty()) {
-					this.tags.addAll(tags);
+		});
+		
+		// a store that failed to load must still give up its place in the order
+		return loaded.handle((items, t) -> items).thenCompose(AsyncHelper.onJavaFXThreadAndWait((items) -> {
+			registration.items = items;
+			registration.complete = true;
+			this.addCompletedRegistrations();
+		})).thenCompose((v) -> loaded.thenAccept((items) -> {}));
+	}
+	
+	/**
+	 * Adds the items of the registered stores to the lists in registration order
+	 * if all of them have finished loading.
+	 * <p>
+	 * This must be called on the Java FX UI thread.
+	 */
+	private void addCompletedRegistrations() {
+		List<Registration<?>> completed;
+		synchronized (this.registrations) {
+			for (Registration<?> registration : this.registrations) {
+				if (!registration.complete) {
+					return;
 				}
 			}
-			
-			// add all items to the full list
-			this.items.addAll(items);
+			completed = new ArrayList<>(this.registrations);
+			this.registrations.clear();
+		}
+		
+		for (Registration<?> registration : completed) {
+			this.addRegistration(registration);
+		}
+	}
+	
+	private <T extends Persistable> void addRegistration(Registration<T> registration) {
+		final PersistentStore<T> store = registration.store;
+		final List<T> items = registration.items;
+		if (items == null) {
+			// the store failed to load
+			return;
+		}
+		
+		// initialize the set of all saved tags
+		for (T item : items) {
+			Set<Tag> tags = item.getTagsUnmodifiable();
+			if (tags != null && !tags.isEmpty()) {
+				this.tags.addAll(tags);
+			}
+		}
+		
+		// add all items to the catalog and the loaded items to the full list
+		List<T> hydrated = new ArrayList<>(items.size());
+		for (T item : items) {
+			if (store.isHydrated(item)) {
+				hydrated.add(item);
+			}
+		}
+		this.items.addAll(hydrated);
+		this.catalog.addAll(items);
+		
+		// load any placeholders in the background
+		this.hydrations.add(store.hydrate(items, this::updateListItem).exceptionally((t) -> {
+			LOGGER.error("Failed to load the placeholders of store '" + registration.clazz.getSimpleName() + "': " + t.getMessage(), t);
+			return null;
 		}));
 	}
+	
+	/**
+	 * Returns a future that completes when the placeholders of all the registered stores
+	 * have been loaded in the background.
+	 * <p>
+	 * This must be called on the Java FX UI thread.
+	 * @return CompletableFuture&lt;Void&gt;
+	 */
+	public CompletableFuture<Void> whenHydrated() {
+		this.throwIfNotJavaFXThread();
+		return CompletableFuture.allOf(this.hydrations.toArray(new CompletableFuture[0]));
+	}
+	
+	/**
+	 * Returns the fully loaded item for the given item.
+	 * <p>
+	 * Items in the catalog (see {@link #getCatalogUnmodifiable()}) can be placeholders for
+	 * a short time after startup while they are loaded in the background.  Anything that
+	 * reads more than the name, dates and tags of a catalog item (editing, copying, etc.)
+	 * should call this method first.  If the item is a placeholder, its file is read now,
+	 * on the calling thread, and it's replaced in the lists.
+	 * @param item the item
+	 * @return T
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Persistable> T hydrate(T item) {
+		this.throwIfNotJavaFXThread();
+		if (item == null) return null;
+		PersistentStore<T> store = (PersistentStore<T>)this.adapters.get(item.getClass());
+		if (store == null || store.isHydrated(item)) {
+			return item;
+		}
+		long start = System.nanoTime();
+		T full = store.hydrate(item);
+		if (full != item) {
+			this.updateListItem(full);
+		}
+		
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		if (elapsed > SLOW_HYDRATE_MILLIS) {
+			LOGGER.warn("Loading '{}' on demand took {}ms", item.getName(), elapsed);
+		}
+		return full;
+	}
+	
+	/**
+	 * Returns true if the given item has been fully loaded.
+	 * @param item the item
+	 * @return boolean
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Persistable> boolean isHydrated(T item) {
+		PersistentStore<T> store = (PersistentStore<T>)this.adapters.get(item.getClass());
+		return store == null || store.isHydrated(item);
+	}
 
+	/**
+	 * Returns the fully loaded items of all stores.
+	 * <p>
+	 * Placeholders are added to this list (and the lists of each store) once they are loaded.
+	 * @return ObservableList&lt;{@link Persistable}&gt;
+	 */
 	public ObservableList<Persistable> getItemsUnmodifiable() {
-		return this.itemsReadOnly;
+		return this.items.getItemsUnmodifiable();
+	}
+	
+	/**
+	 * Returns all the items of all stores, including the placeholders that haven't been
+	 * loaded yet.
+	 * <p>
+	 * This is for listing the items only, see {@link #hydrate(Persistable)}.
+	 * @return ObservableList&lt;{@link Persistable}&gt;
+	 */
+	public ObservableList<Persistable> getCatalogUnmodifiable() {
+		return this.catalog.getItemsUnmodifiable();
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -258,11 +420,8 @@ public final class WorkspaceManager {
 		PersistentStore<T> store = (PersistentStore<T>)this.adapters.get(clazz);
 		if (store == null) throw new UnsupportedOperationException("A persistence adapter was not found for class '" + clazz + "'.");
 		return store.create(item).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
-			// add to lookup
-			this.itemLookup.put(item.getId(), item);
-			
-			// add to the main list
-			this.items.add(item);
+			// add to the main list and lookup
+			this.updateListItem(item);
 			
 			// make sure any new tags are added to the main set
 			this.addItemTags(item);
@@ -288,11 +447,9 @@ public final class WorkspaceManager {
 		PersistentStore<T> store = (PersistentStore<T>)this.adapters.get(clazz);
 		if (store == null) throw new UnsupportedOperationException("A persistence adapter was not found for class '" + clazz + "'.");
 		return store.delete(item).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
-			// remove from the lookup
-			this.itemLookup.remove(item.getId());
-			
-			// remove from the main list
-			this.items.removeIf(i -> i.getId().equals(item.getId()));
+			// remove from the main list and lookup
+			this.items.remove(item.getId());
+			this.catalog.remove(item.getId());
 		}));
 	}
 	
@@ -330,10 +487,81 @@ public final class WorkspaceManager {
 		}
 		
 		List<Persistable> results = new ArrayList<>();
+		return this.addImportResults(futures, results).thenApply((v) -> {
+			if (results.isEmpty()) {
+				throw new CompletionException(new Exception("Failed to import path '" + path + "' it does not match any supported format of media, bible, song, or slide."));
+			}
+			return results;
+		});
+	}
+	
+	/**
+	 * Imports the given file into the stores that can read it.
+	 * <p>
+	 * The file is only inspected once to decide which stores to send it to.  Slides are
+	 * imported after everything else so that the media they reference is available.
+	 * @param path the file
+	 * @return CompletableFuture&lt;List&lt;{@link Persistable}&gt;&gt;
+	 */
+	public CompletableFuture<List<Persistable>> importFile(Path path) {
+		final ImportPlanner planner = new ImportPlanner(this.adapters);
+		final List<Persistable> results = new ArrayList<>();
+		
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return planner.plan(path);
+			} catch (IOException ex) {
+				throw new CompletionException(ex);
+			}
+		}).thenCompose((plan) -> {
+			return this.executeImportPlan(planner, plan, results);
+		}).thenApply((v) -> {
+			LOGGER.debug("Mime type cache hits: {} misses: {}", MimeType.getCacheHitCount(), MimeType.getCacheMissCount());
+			if (results.isEmpty()) {
+				throw new CompletionException(new Exception("Failed to import path '" + path + "' it does not match any supported format of media, bible, song, or slide."));
+			}
+			return results;
+		});
+	}
+	
+	private CompletableFuture<Void> executeImportPlan(ImportPlanner planner, ImportPlanner.Plan plan, List<Persistable> results) {
+		return this.executeImportSteps(plan.getSteps(), results).thenCompose((v) -> {
+			if (!results.isEmpty() || plan.getArchive() == null) {
+				return CompletableFuture.completedFuture(null);
+			}
+			
+			// nothing could read the archive as a whole, so import its contents individually
+			return CompletableFuture.supplyAsync(() -> planner.planArchive(plan)).thenCompose((contents) -> {
+				return this.executeImportPlan(planner, contents, results).whenComplete((r, ex) -> contents.close());
+			});
+		}).thenCompose((v) -> {
+			return this.executeImportSteps(plan.getDependentSteps(), results);
+		});
+	}
+	
+	private CompletableFuture<Void> executeImportSteps(List<ImportPlanner.Step> steps, List<Persistable> results) {
+		if (steps.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		final List<CompletableFuture<DataImportResult<? extends Persistable>>> futures = new ArrayList<>();
+		for (ImportPlanner.Step step : steps) {
+			futures.add(this.executeImportStep(step.getStore(), step));
+		}
+		
+		return this.addImportResults(futures, results);
+	}
+	
+	private <T extends Persistable> CompletableFuture<DataImportResult<? extends Persistable>> executeImportStep(PersistentStore<T> store, ImportPlanner.Step step) {
+		CompletableFuture<DataImportResult<T>> future = step.isArchive()
+				? store.importArchive(step.getArchive(), step.getEntries())
+				: store.importData(step.getPath(), step.getMimeType());
+		return future.thenApply((l) -> l);
+	}
+	
+	private CompletableFuture<Void> addImportResults(List<CompletableFuture<DataImportResult<? extends Persistable>>> futures, List<Persistable> results) {
 		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
 			// process the results
-			int numberImported = 0;
-			
 			for (CompletableFuture<DataImportResult<? extends Persistable>> future : futures) {
 				DataImportResult<? extends Persistable> result = future.get();
 
@@ -342,48 +570,29 @@ public final class WorkspaceManager {
 					continue;
 				}
 				
-				// add created lookups
-				for (Persistable item : result.getCreated()) {
-					this.itemLookup.put(item.getId(), item);
-					results.add(item);
-					numberImported++;
-				}
+				// track created
+				results.addAll(result.getCreated());
 				
 				// add created
 				this.items.addAll(result.getCreated());
+				this.catalog.addAll(result.getCreated());
 				
 				// update updated
 				for (Persistable item : result.getUpdated()) {
 					this.updateListItem(item);
 					results.add(item);
-					numberImported++;
 				}
 				
 				// make sure we capture any new tags from the import
 				this.addDataImportResultTags(result);
 			}
-			
-			if (numberImported == 0) {
-				throw new CompletionException(new Exception("Failed to import path '" + path + "' it does not match any supported format of media, bible, song, or slide."));
-			}
-		})).thenApply((v) -> {
-			return results;
-		});
+		}));
 	}
 	
 	private void updateListItem(Persistable item) {
-		this.itemLookup.put(item.getId(), item);
-		
-		int index = -1;
-		for (int i = 0; i < this.items.size(); i++) {
-			Persistable test = this.items.get(i);
-			if (test.getId().equals(item.getId())) {
-				index = i;
-			}
-		}
-		if (index >= 0 && index < this.items.size()) {
-			this.items.set(index, item);
-		}
+		// NOTE: this will replace the existing item if present
+		this.items.add(item);
+		this.catalog.add(item);
 	}
 	
 	private <T> void addDataImportResultTags(DataImportResult<T> result) {
@@ -407,7 +616,7 @@ public final class WorkspaceManager {
 	}
 	
 	@SuppressWarnings("unchecked")
-	public <T extends Persistable> void exportData(ImportExportFormat format, ZipArchiveOutputStream stream, List<T> items) throws IOException {
+	public <T extends Persistable> void exportData(ImportExportFormat format, ZipExport export, List<T> items) throws IOException {
 		if (items == null || items.isEmpty()) return;
 		
 		// group by class
@@ -426,10 +635,123 @@ public final class WorkspaceManager {
 		for (Class<?> clazz : grouped.keySet()) {
 			PersistentStore<Persistable> store = (PersistentStore<Persistable>)this.adapters.get(clazz);
 			if (store == null) throw new UnsupportedOperationException("A persistence adapter was not found for class '" + clazz + "'.");
-			store.exportData(format, stream, grouped.get(clazz));
+			store.exportData(format, export, grouped.get(clazz));
 		}
 	}
 	
+	/**
+	 * Builds the manifest for an export of the given items.
+	 * <p>
+	 * When a base manifest is given, only the items whose fingerprint is different
+	 * from the base are marked as changed and the items in the base that are no
+	 * longer in the workspace are marked as removed.
+	 * @param items the items in the export
+	 * @param base the base export's manifest; null for a full export
+	 * @param existing the ids of all the items in the workspace
+	 * @return {@link ExportManifest}
+	 * @throws IOException if an item's fingerprint could not be computed
+	 */
+	@SuppressWarnings("unchecked")
+	public ExportManifest createExportManifest(List<? extends Persistable> items, ExportManifest base, Set<UUID> existing) throws IOException {
+		ExportManifest manifest = new ExportManifest(base);
+		for (Persistable item : items) {
+			PersistentStore<Persistable> store = (PersistentStore<Persistable>)this.adapters.get(item.getClass());
+			if (store == null) throw new UnsupportedOperationException("A persistence adapter was not found for class '" + item.getClass() + "'.");
+			String previous = base != null ? base.getHash(item.getId()) : null;
+			manifest.add(base, item.getId(), item.getModifiedDate(), store.getFingerprint(item, previous));
+		}
+		manifest.computeRemoved(base, existing);
+		return manifest;
+	}
+	
+	/**
+	 * Restores the given exports by importing them in the order they were created.
+	 * <p>
+	 * This is intended for a full export and the incremental exports based on it.  Each
+	 * export is imported after the previous completes so that later changes win and
+	 * the items removed by an incremental export are deleted after it's imported.
+	 * @param paths the exports
+	 * @return CompletableFuture&lt;List&lt;{@link Persistable}&gt;&gt;
+	 */
+	public CompletableFuture<List<Persistable>> restore(List<Path> paths) {
+		final List<Persistable> results = new ArrayList<>();
+		
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return this.getRestoreOrder(paths);
+			} catch (IOException ex) {
+				throw new CompletionException(ex);
+			}
+		}).thenCompose((exports) -> {
+			CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+			for (Map.Entry<Path, ExportManifest> export : exports.entrySet()) {
+				future = future.thenCompose((v) -> this.restore(export.getKey(), export.getValue(), results));
+			}
+			return future;
+		}).thenApply((v) -> {
+			return results;
+		});
+	}
+	
+	private Map<Path, ExportManifest> getRestoreOrder(List<Path> paths) throws IOException {
+		List<Map.Entry<Path, ExportManifest>> exports = new ArrayList<>();
+		for (Path path : paths) {
+			ExportManifest manifest = ExportManifest.read(path);
+			if (manifest == null) {
+				throw new IOException("The file '" + path.toAbsolutePath() + "' is not a Praisenter export that can be restored.");
+			}
+			exports.add(Map.entry(path, manifest));
+		}
+		
+		// incremental exports are always created after their base
+		exports.sort((a, b) -> a.getValue().getCreatedDate().compareTo(b.getValue().getCreatedDate()));
+		
+		Map<Path, ExportManifest> ordered = new LinkedHashMap<>();
+		Set<UUID> restored = new HashSet<>();
+		for (Map.Entry<Path, ExportManifest> export : exports) {
+			ExportManifest manifest = export.getValue();
+			if (!manifest.isFull() && !restored.contains(manifest.getBaseId())) {
+				LOGGER.warn("The base export '{}' of '{}' was not included in the restore; items that haven't changed since the base export will not be restored.", manifest.getBaseId(), export.getKey().toAbsolutePath());
+			}
+			restored.add(manifest.getId());
+			ordered.put(export.getKey(), manifest);
+		}
+		return ordered;
+	}
+	
+	private CompletableFuture<Void> restore(Path path, ExportManifest manifest, List<Persistable> results) {
+		LOGGER.info("Restoring {} changed and {} removed items from '{}'", manifest.getChanged().size(), manifest.getRemoved().size(), path.toAbsolutePath());
+		
+		CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+		if (!manifest.getChanged().isEmpty()) {
+			future = this.importFile(path).thenAccept((items) -> {
+				results.addAll(items);
+			});
+		}
+		
+		if (manifest.getRemoved().isEmpty()) {
+			return future;
+		}
+		
+		return future.thenCompose(AsyncHelper.onJavaFXThreadAndWait((v) -> {
+			List<Persistable> removed = new ArrayList<>();
+			for (UUID id : manifest.getRemoved()) {
+				Persistable item = this.catalog.get(id);
+				if (item != null) {
+					removed.add(item);
+				}
+			}
+			results.removeAll(removed);
+			return removed;
+		})).thenCompose((removed) -> {
+			List<CompletableFuture<Void>> futures = new ArrayList<>();
+			for (Persistable item : removed) {
+				futures.add(this.delete(item));
+			}
+			return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+		});
+	}
+	
 	@SuppressWarnings("unchecked")
 	public <T extends Persistable> CompletableFuture<Void> exportData(ImportExportFormat format, Path path, T item) {
 		PersistentStore<T> store = (PersistentStore<T>)this.adapters.get(item.getClass());
@@ -448,16 +770,82 @@ public final class WorkspaceManager {
 	}
 	
 	public CompletableFuture<Void> reindex() {
-		List<? extends Indexable> items = new ArrayList<Persistable>(this.items);
+		return this.reindex(null, null);
+	}
+	
+	public CompletableFuture<Void> reindex(DoubleConsumer progress, BooleanSupplier isCancelled) {
+		List<? extends Indexable> items = new ArrayList<Persistable>(this.catalog.getItemsUnmodifiable());
+		// leave a core for the UI
+		int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
 		return CompletableFuture.runAsync(() -> {
 			try {
-				this.searchIndex.reindex(items);
+				this.searchIndex.reindex(items, this::load, this::getFingerprint, parallelism, progress, isCancelled);
 			} catch (IOException e) {
 				throw new CompletionException(e);
 			}	
 		});
 	}
 	
+	/**
+	 * Compares the fingerprints stored in the search index with the loaded items
+	 * and only reindexes the items that have been added, changed, or removed.
+	 * <p>
+	 * This should be called after all the persist adapters have been registered.
+	 * @return CompletableFuture&lt;Integer&gt; the number of items reindexed or removed
+	 */
+	public CompletableFuture<Integer> reconcileSearchIndex() {
+		List<? extends Indexable> items = new ArrayList<Persistable>(this.catalog.getItemsUnmodifiable());
+		int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return this.searchIndex.reconcile(items, this::load, this::getFingerprint, parallelism);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		});
+	}
+	
+	/**
+	 * Returns the fully loaded item for the given item without replacing it in the
+	 * lists so that placeholders can be indexed from any thread.
+	 */
+	@SuppressWarnings("unchecked")
+	private Indexable load(Indexable item) {
+		PersistentStore<Persistable> store = (PersistentStore<Persistable>)this.adapters.get(item.getClass());
+		if (store == null) return item;
+		try {
+			return store.load((Persistable)item);
+		} catch (Exception ex) {
+			throw new CompletionException(ex);
+		}
+	}
+	
+	private String getFingerprint(Indexable item) {
+		return this.getFingerprint(item, null);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private String getFingerprint(Indexable item, String previous) {
+		PersistentStore<Persistable> store = (PersistentStore<Persistable>)this.adapters.get(item.getClass());
+		if (store == null) return null;
+		try {
+			return store.getFingerprint((Persistable)item, previous);
+		} catch (Exception ex) {
+			LOGGER.warn("Failed to compute the fingerprint for '" + item.getName() + "': " + ex.getMessage(), ex);
+			return null;
+		}
+	}
+	
+	public CompletableFuture<Void> close() {
+		return CompletableFuture.runAsync(() -> {
+			try {
+				this.searchIndex.close();
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		});
+	}
+	
 	@SuppressWarnings("unchecked")
 	public <T extends Persistable> Path getFilePath(T item) {
 		PersistentStore<T> store = (PersistentStore<T>)this.adapters.get(item.getClass());
@@ -465,9 +853,23 @@ public final class WorkspaceManager {
 		return store.getFilePath(item);
 	}
 	
+	/**
+	 * Returns the fully loaded item with the given id.
+	 * <p>
+	 * If the item is still a placeholder, only its own file is read, on the Java FX UI
+	 * thread (see {@link #hydrate(Persistable)}).  This only happens for items requested
+	 * by id (references from other items, search results, etc.) before the background
+	 * load reaches them and is logged when it's slow.
+	 * @param id the id
+	 * @return {@link Persistable}
+	 */
 	public Persistable getPersistableById(UUID id) {
 		this.throwIfNotJavaFXThread();
-		return this.itemLookup.get(id);
+		Persistable item = this.items.get(id);
+		if (item != null) {
+			return item;
+		}
+		return this.hydrate(this.catalog.get(id));
 	}
 	
 	public ObservableSet<Tag> getTagsUmodifiable() {
@@ -479,4 +881,35 @@ public final class WorkspaceManager {
 			throw new IllegalStateException("The getItem method must be called on the Java FX UI thread.");
 		}
 	}
+	
+	/**
+	 * A store that's been registered but whose items haven't been added to the lists yet.
+	 * @author William Bittle
+	 * @version 3.1.5
+	 * @since 3.1.5
+	 * @param <T> the item type
+	 */
+	private static final class Registration<T extends Persistable> {
+		/** The type of item */
+		private final Class<T> clazz;
+		
+		/** The store */
+		private final PersistentStore<T> store;
+		
+		/** The loaded items; null if the store failed to load */
+		private List<T> items;
+		
+		/** True when the store has finished loading (successfully or not) */
+		private volatile boolean complete;
+		
+		/**
+		 * Minimal constructor.
+		 * @param clazz the type of item
+		 * @param store the store
+		 */
+		public Registration(Class<T> clazz, PersistentStore<T> store) {
+			this.clazz = clazz;
+			this.store = store;
+		}
+	}
 }
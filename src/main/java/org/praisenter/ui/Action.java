@@ -34,6 +34,7 @@ public enum Action {
 	SELECT_INVERT("action.select.invert", getGraphicSupplier(Icons.SELECT_INVERT)),
 
 	IMPORT("action.import", getGraphicSupplier(Icons.IMPORT)),
+	RESTORE("action.restore", getGraphicSupplier(Icons.IMPORT)),
 	EXPORT("action.export", getGraphicSupplier(Icons.EXPORT)),
 	
 	BULK_EDIT_BEGIN("action.edit.bulk"),
@@ -5,6 +5,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -21,6 +22,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
@@ -34,13 +36,18 @@ import org.praisenter.Version;
 import org.praisenter.async.AsyncHelper;
 import org.praisenter.async.BackgroundTask;
 import org.praisenter.async.ReadOnlyBackgroundTask;
+import org.praisenter.data.ExportManifest;
 import org.praisenter.data.ImportExportFormat;
 import org.praisenter.data.Persistable;
+import org.praisenter.data.ZipExport;
 import org.praisenter.data.bible.Bible;
 import org.praisenter.data.bible.Book;
 import org.praisenter.data.bible.Chapter;
 import org.praisenter.data.bible.Verse;
+import org.praisenter.data.json.JsonIO;
 import org.praisenter.data.media.Media;
+import org.praisenter.data.media.tools.MediaJobListener;
+import org.praisenter.data.media.tools.MediaJobScheduler;
 import org.praisenter.data.slide.Slide;
 import org.praisenter.data.slide.graphics.SlideColor;
 import org.praisenter.data.song.Author;
@@ -145,6 +152,7 @@ public final class GlobalContext {
 	private final ChangeListener<? super Boolean> windowFocusedListener;
 	private final ChangeListener<? super Boolean> textSelectedListener;
 	private final InvalidationListener screensListener;
+	private final InvalidationListener displayConfigurationsListener;
 	private final List<ChangeListener<Number>> fontSizeListeners;
 	private final List<ChangeListener<String>> accentListeners;
 	
@@ -155,7 +163,7 @@ public final class GlobalContext {
 		this.application = application;
 		this.stage = stage;
 		this.workspaceManager = workspaceManager;
-		this.imageCache = new ImageCache();
+		this.imageCache = new ImageCache(Math.max(1, workspaceManager.getWorkspaceConfiguration().getImageCacheSize()) * 1024L * 1024L);
 		this.displayManager = new DisplayManager(this);
 		
 		this.scene = new SimpleObjectProperty<>();
@@ -352,15 +360,24 @@ public final class GlobalContext {
 		this.screensListener = (Observable obs) -> {
 			LOGGER.info("Screen change detected.");
 			this.addMissingResolutionsBasedOnHost();
+			this.updateImageCacheDisplaySize();
 		};
 		Screen.getScreens().addListener(this.screensListener);
 		
+		// watch for display changes (NDI displays for example)
+		this.displayConfigurationsListener = (Observable obs) -> {
+			this.updateImageCacheDisplaySize();
+		};
+		this.workspaceManager.getWorkspaceConfiguration().getDisplayConfigurations().addListener(this.displayConfigurationsListener);
+		
 		this.addMissingResolutionsBasedOnHost();
+		this.updateImageCacheDisplaySize();
 	}
 	
 	public void dispose() {
 		// remove listeners
 		Screen.getScreens().removeListener(this.screensListener);
+		this.workspaceManager.getWorkspaceConfiguration().getDisplayConfigurations().removeListener(this.displayConfigurationsListener);
 		this.scene.removeListener(this.sceneListener);
 		this.sceneRoot.removeListener(this.sceneRootListener);
 		this.focusOwner.removeListener(this.focusListener);
@@ -391,6 +408,13 @@ public final class GlobalContext {
 		this.displayManager.dispose();
 		// NOTE: dispose of images AFTER we've disposed of the display targets
 		// otherwise, the images will get loaded again before cleanup
+		LOGGER.debug("Image cache: {} image(s), {}/{} bytes, {} hit(s), {} miss(es), {} eviction(s)",
+				this.imageCache.getImageCount(),
+				this.imageCache.getSize(),
+				this.imageCache.getMaximumSize(),
+				this.imageCache.getHitCount(),
+				this.imageCache.getMissCount(),
+				this.imageCache.getEvictionCount());
 		this.imageCache.clear();
 	}
 	
@@ -414,6 +438,27 @@ public final class GlobalContext {
 		}
 	}
 	
+	/**
+	 * Sizes the images in the image cache for the largest screen (where the editor
+	 * can be) or active display.
+	 */
+	private void updateImageCacheDisplaySize() {
+		double width = 0;
+		double height = 0;
+		for (Screen screen : Screen.getScreens()) {
+			Resolution res = ScreenHelper.getResolution(screen);
+			width = Math.max(width, res.getWidth());
+			height = Math.max(height, res.getHeight());
+		}
+		for (ReadOnlyDisplayConfiguration configuration : this.workspaceManager.getWorkspaceConfiguration().getDisplayConfigurations()) {
+			if (configuration.isActive()) {
+				width = Math.max(width, configuration.getWidth());
+				height = Math.max(height, configuration.getHeight());
+			}
+		}
+		this.imageCache.setDisplaySize(width, height);
+	}
+	
 	/**
 	 * Called in a number of scenarios so that the state of global actions can be updated.
 	 * @param reason the reason for the update
@@ -443,6 +488,7 @@ public final class GlobalContext {
 			case NEW_SLIDE:
 			case NEW_SONG:
 			case IMPORT:
+			case RESTORE:
 			case REINDEX:
 			case RESTART:
 			case EXIT:
@@ -780,12 +826,21 @@ public final class GlobalContext {
 		task.setMessage(Translations.get("task.reindex.description"));
 		task.setOperation(Translations.get("task.reindex"));
 		task.setType("lucene/index");
+		task.setCancellable(true);
 		this.addBackgroundTask(task);
 		
-		return this.workspaceManager.reindex().thenRun(() -> {
+		return this.workspaceManager.reindex((p) -> {
+			// NOTE: a progress of 1.0 marks the task complete, so hold off
+			// until the index has been committed
+			task.setProgress(Math.min(p, 0.99));
+		}, task::isCancelRequested).thenRun(() -> {
 			task.setProgress(1);
 		}).exceptionally((ex) -> {
-			LOGGER.error("Failed to reindex the lucene search index: " + ex.getMessage(), ex);
+			if (ex.getCause() instanceof CancellationException) {
+				LOGGER.info("Reindex of the lucene search index was cancelled");
+			} else {
+				LOGGER.error("Failed to reindex the lucene search index: " + ex.getMessage(), ex);
+			}
 			task.setException(ex);
 			if (ex instanceof CompletionException) throw (CompletionException)ex;
 			throw new CompletionException(ex);
@@ -918,6 +973,7 @@ public final class GlobalContext {
 		
 		List<CompletableFuture<Void>> futures = new ArrayList<>();
 		List<Persistable> results = new ArrayList<>();
+		Map<Path, BackgroundTask> tasks = new HashMap<>();
 		
 		for (File file : files) {
 			final BackgroundTask bt = new BackgroundTask();
@@ -926,27 +982,17 @@ public final class GlobalContext {
 			bt.setOperation(Translations.get("action.import"));
 			bt.setType(MimeType.get(file.toPath()));
 			this.addBackgroundTask(bt);
+			tasks.put(file.toPath().toAbsolutePath(), bt);
 			
-			// NOTE: we have to sequence the import of Slides AFTER media so that when it generates a new thumbnail
-			// the media is available.  The WorkspaceManager.importData method imports the content in parallel, so we
-			// just call it twice, once to pull out non-dependent things, and second to pull out the slides.
+			// NOTE: the WorkspaceManager.importFile method imports slides AFTER media so that when
+			// it generates a new thumbnail the media is available
 			LOGGER.info("Beginning import of '{}'", file.toPath().toAbsolutePath().toString());
-			CompletableFuture<Void> future = this.workspaceManager.importData(file.toPath(), Bible.class, Media.class, Song.class).thenAccept((r) -> {
-				bt.setProgress(0.5);
-				results.addAll(r);
-			}).thenCompose((v) -> {
-				return this.workspaceManager.importData(file.toPath(), Slide.class);
-			}).thenAccept((r) -> {
+			CompletableFuture<Void> future = this.workspaceManager.importFile(file.toPath()).thenAccept((r) -> {
 				bt.setProgress(1.0);
-				results.addAll(r);
-			}).exceptionally(t -> {
-				// NOTE: since we have to import in two stages, make sure that the total imported
-				// was zero before showing an error message
-				if (results.size() > 0) {
-					bt.setProgress(1.0);
-					return null;
+				synchronized (results) {
+					results.addAll(r);
 				}
-				
+			}).exceptionally(t -> {
 				LOGGER.error("Failed to import file '" + file.toPath().toAbsolutePath().toString() + "' due to: " + t.getMessage(), t);
 				bt.setException(t);
 				
@@ -958,11 +1004,69 @@ public final class GlobalContext {
 			futures.add(future);
 		}
 		
-		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply((v) -> {
+		// report the progress of any media jobs (transcoding for example) on
+		// the import's task and allow the task to cancel them
+		final MediaJobScheduler scheduler = this.workspaceManager.getMediaJobScheduler();
+		final MediaJobListener listener = (job) -> {
+			BackgroundTask bt = tasks.get(job.getSource().toAbsolutePath());
+			if (bt == null) {
+				return;
+			}
+			
+			if (bt.isCancelRequested()) {
+				job.cancel();
+				return;
+			}
+			
+			bt.setCancellable(true);
+			// the import isn't complete until the job's output is stored
+			bt.setProgress(Math.min(0.99, job.getProgress()));
+		};
+		scheduler.addListener(listener);
+		
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((v, t) -> {
+			scheduler.removeListener(listener);
+		}).thenApply((v) -> {
 			return results;
 		});
 	}
 	
+	/**
+	 * Restores the given exports, typically a full export and the incremental exports based on it.
+	 * @param files the exports
+	 * @return CompletableFuture&lt;List&lt;{@link Persistable}&gt;&gt;
+	 * @see WorkspaceManager#restore(List)
+	 */
+	public CompletableFuture<List<Persistable>> restore(List<File> files) {
+		if (files == null || files.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		final BackgroundTask bt = new BackgroundTask();
+		bt.setName(Translations.get("action.restore.task", files.size()));
+		bt.setMessage(Translations.get("action.restore.task", files.size()));
+		bt.setOperation(Translations.get("action.restore"));
+		bt.setType("application/zip");
+		this.addBackgroundTask(bt);
+		
+		List<Path> paths = files.stream().map(f -> f.toPath()).collect(Collectors.toList());
+		
+		LOGGER.info("Beginning restore of {} exports", paths.size());
+		return this.workspaceManager.restore(paths).thenApply((r) -> {
+			LOGGER.info("Restore of {} exports completed successfully", paths.size());
+			bt.setProgress(1.0);
+			return r;
+		}).exceptionally(t -> {
+			LOGGER.error("Failed to restore the exports due to: " + t.getMessage(), t);
+			bt.setException(t);
+			
+			if (t instanceof CompletionException) 
+				throw (CompletionException)t;
+			
+			throw new CompletionException(t);
+		});
+	}
+	
 	public CompletableFuture<Persistable> importImage(String name, Image image) {
 		if (image == null) {
 			return CompletableFuture.completedFuture(null);
@@ -975,7 +1079,7 @@ public final class GlobalContext {
 		bt.setType(MimeType.get(name));
 		this.addBackgroundTask(bt);
 		
-		Path tempPath = this.getWorkspaceManager().getWorkspacePathResolver().getBasePath().resolve("temp");
+		Path tempPath = this.getWorkspaceManager().getWorkspacePathResolver().getTempPath();
 		Path tempFile = tempPath.resolve(name);
 		
 		LOGGER.info("Beginning import of '{}'", name);
@@ -1023,6 +1127,36 @@ public final class GlobalContext {
 	}
 	
 	public CompletableFuture<Void> export(List<Persistable> items, Path path, ImportExportFormat format) {
+		return this.export(items, path, format, null);
+	}
+	
+	/**
+	 * Exports the given items (and their dependencies) to the given path.
+	 * <p>
+	 * When a base export is given, only the items that changed since the base
+	 * export was created are written.  Exports in the Praisenter format always
+	 * include a manifest so that they can be the base of a later export.
+	 * @param selected the items to export
+	 * @param path the target zip file
+	 * @param format the export format
+	 * @param base a previous export; null for a full export
+	 * @return CompletableFuture&lt;Void&gt;
+	 */
+	public CompletableFuture<Void> export(List<Persistable> selected, Path path, ImportExportFormat format, Path base) {
+		// the dependencies of placeholders aren't known until they're loaded so wait
+		// for the background load rather than reading them on the UI thread
+		return this.workspaceManager.whenHydrated().thenCompose(AsyncHelper.onJavaFXThreadAndWait((v) -> {
+			// the selection may still hold the placeholders
+			List<Persistable> items = selected.stream()
+					.map(i -> this.workspaceManager.getPersistableById(i.getId()))
+					.filter(Objects::nonNull)
+					.collect(Collectors.toList());
+			return this.exportLoaded(items, path, format, base);
+		})).thenCompose((f) -> f);
+	}
+	
+	private CompletableFuture<Void> exportLoaded(List<Persistable> items, Path path, ImportExportFormat format, Path base) {
+		
 		BackgroundTask task = new BackgroundTask();
 		task.setName(Translations.get("action.export.task", items.size()));
 		task.setMessage(Translations.get("action.export.task", items.size()));
@@ -1055,13 +1189,62 @@ public final class GlobalContext {
 				.collect(Collectors.toList());
 		
 		LOGGER.debug("Found {} dependencies for the {} selected items", dependentItems.size(), items.size());
+		
+		// an incremental export can be a selection, so items are only removed
+		// if they are no longer in the workspace
+		final Set<UUID> existing = this.workspaceManager.getCatalogUnmodifiable().stream()
+				.map(Persistable::getId)
+				.collect(Collectors.toSet());
+		
 		return CompletableFuture.runAsync(() -> {
-			try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			// the base manifest must be read before the target is truncated
+			ExportManifest manifest = null;
+			List<Persistable> exportItems = items;
+			List<Persistable> exportDependentItems = dependentItems;
+			try {
+				ExportManifest baseManifest = null;
+				if (base != null) {
+					if (Files.exists(path) && Files.isSameFile(base, path)) {
+						throw new IllegalArgumentException("The base export '" + base.toAbsolutePath() + "' cannot be the target of the export.");
+					}
+					
+					baseManifest = ExportManifest.read(base);
+					if (baseManifest == null) {
+						throw new IOException("The file '" + base.toAbsolutePath() + "' is not a Praisenter export that can be used as a base.");
+					}
+				}
+				
+				if (format == ImportExportFormat.PRAISENTER3) {
+					List<Persistable> all = new ArrayList<>(items);
+					all.addAll(dependentItems);
+					manifest = this.workspaceManager.createExportManifest(all, baseManifest, existing);
+					
+					if (baseManifest != null) {
+						final Set<UUID> changed = manifest.getChanged();
+						exportItems = items.stream().filter(i -> changed.contains(i.getId())).collect(Collectors.toList());
+						exportDependentItems = dependentItems.stream().filter(i -> changed.contains(i.getId())).collect(Collectors.toList());
+						LOGGER.info("Incremental export based on '{}': {} changed, {} removed", base.toAbsolutePath(), changed.size(), manifest.getRemoved().size());
+					}
+				}
+			} catch (Exception ex) {
+				throw new CompletionException(ex);
+			}
+			
+			try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+				 ZipExport export = new ZipExport(zos, (p) -> task.setProgress(Math.min(p, 0.99)))) {
 				// export the items selected
-				LOGGER.info("Attempting export of {} selected items", items.size());
-				this.workspaceManager.exportData(format, zos, items);
-				LOGGER.info("Attempting export of {} dependent items", dependentItems.size());
-				this.workspaceManager.exportData(format, zos, dependentItems);
+				LOGGER.info("Attempting export of {} selected items", exportItems.size());
+				this.workspaceManager.exportData(format, export, exportItems);
+				LOGGER.info("Attempting export of {} dependent items", exportDependentItems.size());
+				this.workspaceManager.exportData(format, export, exportDependentItems);
+				
+				if (manifest != null) {
+					final ExportManifest m = manifest;
+					export.addEntry(Paths.get(ExportManifest.FILE_NAME), (stream) -> JsonIO.write(stream, m));
+				}
+				
+				// write the entries
+				export.finish();
 			} catch (Exception ex) {
 				throw new CompletionException(ex);
 			}
@@ -1090,7 +1273,9 @@ public final class GlobalContext {
 		});
 	}
 	
-	public CompletableFuture<Void> rename(Persistable item, String newName) {
+	public CompletableFuture<Void> rename(Persistable p, String newName) {
+		// make sure we're not saving a placeholder
+		final Persistable item = this.workspaceManager.hydrate(p);
 		final String oldName = item.getName();
 		final Persistable copy = item.copy();
 		
@@ -1318,7 +1503,13 @@ public final class GlobalContext {
 	 * @param document the document
 	 * @param isNewDocument true if the document is a new (unsaved) document
 	 */
+	@SuppressWarnings("unchecked")
 	public <T extends Persistable> void openDocument(T document, boolean isNewDocument) {
+		// make sure we're not editing a placeholder
+		if (!isNewDocument && !this.workspaceManager.isHydrated(document)) {
+			document = (T)this.workspaceManager.hydrate(document).copy();
+		}
+		
 		// is the document already open?
 		DocumentContext<? extends Persistable> context = null;
 		if (!isNewDocument) {
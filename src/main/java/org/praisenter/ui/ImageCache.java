@@ -1,29 +1,104 @@
 package org.praisenter.ui;
 
-import java.io.IOException;
-import java.lang.ref.SoftReference;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
-import javax.imageio.ImageIO;
-
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.praisenter.data.media.MediaImageSize;
+import org.praisenter.data.media.ReadOnlyMedia;
 
-import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
 
+/**
+ * A least recently used cache of images bounded by the decoded size of the images.
+ * <p>
+ * The size of an image is estimated as width &times; height &times; 4 bytes.  Loading
+ * is done outside of the cache lock and concurrent requests for the same key wait
+ * for the same load.
+ * <p>
+ * Media images are only decoded as large as the largest display needs (see
+ * {@link #setDisplaySize(double, double)}) using the media's display-sized variant
+ * when one was generated at import.
+ */
 public final class ImageCache {
 	private static final Logger LOGGER = LogManager.getLogger();
 	
-	private final Map<ImageCacheKey, SoftReference<Image>> images;
-
+	/** The default maximum size of the cache in bytes */
+	public static final long DEFAULT_MAXIMUM_SIZE = 512L * 1024L * 1024L;
+	
+	/** The estimated number of bytes per pixel of a decoded image */
+	private static final int BYTES_PER_PIXEL = 4;
+	
+	private final long maximumSize;
+	
+	/** The {@link MediaImageSize} that covers the largest display */
+	private volatile int displaySize;
+	
+	/** The cached images in least recently used order; guarded by itself */
+	private final LinkedHashMap<ImageCacheKey, Entry> images;
+	
+	/** The loads in progress */
+	private final Map<ImageCacheKey, CompletableFuture<Image>> loading;
+	
+	// gauges
+	
+	private final LongAdder hits;
+	private final LongAdder misses;
+	private final LongAdder evictions;
+	private long size;
+	
+	private static final class Entry {
+		private final Image image;
+		private final long size;
+		
+		public Entry(Image image, long size) {
+			this.image = image;
+			this.size = size;
+		}
+	}
+	
 	public ImageCache() {
-		this.images = new HashMap<ImageCacheKey, SoftReference<Image>>();
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+	
+	/**
+	 * Full constructor.
+	 * @param maximumSize the maximum size of the cache in bytes
+	 */
+	public ImageCache(long maximumSize) {
+		this.maximumSize = maximumSize;
+		this.images = new LinkedHashMap<ImageCacheKey, Entry>(64, 0.75f, true);
+		this.loading = new ConcurrentHashMap<ImageCacheKey, CompletableFuture<Image>>();
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+		this.size = 0;
+		this.displaySize = MediaImageSize.FULL;
+	}
+	
+	/**
+	 * Sets the size of the largest display (or editor) that images will be shown on.
+	 * <p>
+	 * Images loaded after this call are decoded at the smallest size that covers
+	 * the given size.  Images cached at other sizes are evicted as usual.
+	 * @param width the width
+	 * @param height the height
+	 */
+	public void setDisplaySize(double width, double height) {
+		int size = MediaImageSize.getSize(width, height);
+		if (size != this.displaySize) {
+			LOGGER.debug("Image cache display size changed from {} to {} for {}x{}", this.displaySize, size, width, height);
+			this.displaySize = size;
+		}
 	}
 	
 	/**
@@ -34,24 +109,83 @@ public final class ImageCache {
 	 * @param supplier the function to load the image if it doesn't exist
 	 * @return Image
 	 */
-	private synchronized Image getOrLoad(ImageCacheKey key, Supplier<Image> supplier) {
-		this.evict();
-		if (this.images.containsKey(key)) {
-			Image image = this.images.get(key).get();
-			if (image != null) {
+	private Image getOrLoad(ImageCacheKey key, Supplier<Image> supplier) {
+		Image image = this.get(key);
+		if (image != null) {
+			this.hits.increment();
+			return image;
+		}
+		
+		this.misses.increment();
+		
+		CompletableFuture<Image> future = new CompletableFuture<>();
+		CompletableFuture<Image> existing = this.loading.putIfAbsent(key, future);
+		if (existing != null) {
+			LOGGER.trace("Image for key: {} is already loading. Waiting...", key);
+			return existing.join();
+		}
+		
+		try {
+			// it may have been loaded between the lookup and the registration
+			image = this.get(key);
+			if (image == null) {
+				LOGGER.debug("Image for key: {} was not found in the cache. Loading...", key);
+				image = supplier.get();
+				if (image != null) {
+					LOGGER.debug("Image loaded for key: {}", key);
+					this.put(key, image);
+				} else {
+					LOGGER.warn("Image was loaded but was null for key: {}", key);
+				}
+			}
+			future.complete(image);
+			return image;
+		} catch (RuntimeException ex) {
+			future.complete(null);
+			throw ex;
+		} finally {
+			this.loading.remove(key, future);
+		}
+	}
+	
+	private Image get(ImageCacheKey key) {
+		synchronized (this.images) {
+			Entry entry = this.images.get(key);
+			if (entry != null) {
 				LOGGER.trace("Image for key: {} found in cache.", key);
-				return image;
+				return entry.image;
 			}
 		}
-		LOGGER.debug("Image for key: {} was not found in the cache. Loading...", key);
-		Image image = supplier.get();
-		if (image != null) {
-			LOGGER.debug("Image loaded for key: {}", key);
-			this.images.put(key, new SoftReference<Image>(image));
-		} else {
-			LOGGER.warn("Image was loaded but was null.", key);
+		return null;
+	}
+	
+	private void put(ImageCacheKey key, Image image) {
+		long size = Math.max(1, (long)image.getWidth() * (long)image.getHeight() * BYTES_PER_PIXEL);
+		if (size > this.maximumSize) {
+			LOGGER.debug("Image for key: {} ({} bytes) is larger than the cache and will not be cached.", key, size);
+			return;
+		}
+		
+		synchronized (this.images) {
+			Entry previous = this.images.put(key, new Entry(image, size));
+			if (previous != null) {
+				this.size -= previous.size;
+			}
+			this.size += size;
+			
+			// evict the least recently used images until we're under budget
+			Iterator<Map.Entry<ImageCacheKey, Entry>> it = this.images.entrySet().iterator();
+			while (this.size > this.maximumSize && it.hasNext()) {
+				Map.Entry<ImageCacheKey, Entry> eldest = it.next();
+				if (eldest.getKey().equals(key)) {
+					continue;
+				}
+				it.remove();
+				this.size -= eldest.getValue().size;
+				this.evictions.increment();
+				LOGGER.debug("Image with key '{}' has been evicted from the image cache.", eldest.getKey());
+			}
 		}
-		return image;
 	}
 	
 	// helpers
@@ -63,12 +197,11 @@ public final class ImageCache {
 	 * @param thumbnail the image
 	 * @return Image
 	 */
-	public synchronized Image getOrLoadThumbnail(UUID id, Path path) {
+	public Image getOrLoadThumbnail(UUID id, Path path) {
 		ImageCacheKey key = new ImageCacheKey(ImageCacheKeyType.THUMBNAIL, id.toString());
 		return getOrLoad(key, () -> {
 			try {
-				LOGGER.debug("Converting BufferedImage into Image.");
-				return this.load(path);
+				return ImageDecoder.decode(path, MediaImageSize.FULL);
 			} catch (Exception ex) {
 				LOGGER.error("Failed to convert buffered image for '" + id + "'", ex);
 			}
@@ -77,17 +210,25 @@ public final class ImageCache {
 	}
 	
 	/**
-	 * Returns the cached image for the given image media or loads the image given the path
+	 * Returns the cached image for the given media or loads the media's image
 	 * if the image is not in the cache.
-	 * @param id the id
-	 * @param path the path to the image
+	 * <p>
+	 * The image is loaded at the current display size.
+	 * @param media the media
 	 * @return Image
 	 */
-	public synchronized Image getOrLoadImage(UUID id, Path path) {
-		ImageCacheKey key = new ImageCacheKey(ImageCacheKeyType.MEDIA_IMAGE, id.toString());
+	public Image getOrLoadImage(ReadOnlyMedia media) {
+		final int size = this.displaySize;
+		final Path path = media.getMediaImagePath();
+		final Path variant = media.getMediaImagePath(size);
+		ImageCacheKey key = new ImageCacheKey(ImageCacheKeyType.MEDIA_IMAGE, media.getId().toString(), size);
 		return getOrLoad(key, () -> {
 			try {
-				return this.load(path);
+				// use the pre-generated variant if there is one
+				if (!variant.equals(path) && Files.exists(variant)) {
+					return ImageDecoder.decode(variant, MediaImageSize.FULL);
+				}
+				return ImageDecoder.decode(path, size);
 			} catch (Exception ex) {
 				LOGGER.error("Failed to load image from path '" + path.toAbsolutePath().toString() + "'", ex);
 			}
@@ -96,19 +237,17 @@ public final class ImageCache {
 	}
 
 	/**
-	 * Returns true if the given image id is present in the image cache.
-	 * @param id the id
+	 * Returns true if the given media's image is present in the image cache at
+	 * the current display size.
+	 * @param media the media
 	 * @return true if the id exists, and it's image is non-null
 	 */
-	public synchronized boolean isImageCached(UUID id) {
-		ImageCacheKey key = new ImageCacheKey(ImageCacheKeyType.MEDIA_IMAGE, id.toString());
-		if (this.images.containsKey(key)) {
-			Image image = this.images.get(key).get();
-			if (image != null) {
-				return true;
-			}
+	public boolean isImageCached(ReadOnlyMedia media) {
+		ImageCacheKey key = new ImageCacheKey(ImageCacheKeyType.MEDIA_IMAGE, media.getId().toString(), this.displaySize);
+		synchronized (this.images) {
+			// containsKey doesn't change the access order
+			return this.images.containsKey(key);
 		}
-		return false;
 	}
 	
 	/**
@@ -119,7 +258,7 @@ public final class ImageCache {
 	 * @param classpath the classpath path to the image
 	 * @return Image
 	 */
-	public synchronized Image getOrLoadClasspathImage(String classpath) {
+	public Image getOrLoadClasspathImage(String classpath) {
 		ImageCacheKey key = new ImageCacheKey(ImageCacheKeyType.APPLICATION_IMAGE, classpath);
 		return getOrLoad(key, () -> {
 			try {
@@ -133,35 +272,66 @@ public final class ImageCache {
 	}
 	
 	/**
-	 * Removes keys from the cache whose soft references have been collected.
+	 * Removes everything from the cache.
 	 */
-	private void evict() {
-		Iterator<SoftReference<Image>> it = this.images.values().iterator();
-		while (it.hasNext()) {
-			SoftReference<Image> ref = it.next();
-			if (ref.get() == null) {
-				it.remove();
-				LOGGER.debug("Image with key '{}' has been evicted from the image cache.");
-			}
+	public void clear() {
+		synchronized (this.images) {
+			this.images.clear();
+			this.size = 0;
 		}
 	}
 	
+	// gauges
+	
 	/**
-	 * Removes everything from the cache.
+	 * Returns the number of lookups that found the image in the cache.
+	 * @return long
 	 */
-	public void clear() {
-		this.images.clear();
+	public long getHitCount() {
+		return this.hits.sum();
 	}
 	
 	/**
-	 * Loads an Image from the given path.
-	 * @param path the path
-	 * @return Image
-	 * @throws IOException 
+	 * Returns the number of lookups that didn't find the image in the cache.
+	 * @return long
+	 */
+	public long getMissCount() {
+		return this.misses.sum();
+	}
+	
+	/**
+	 * Returns the number of images removed to stay under the maximum size.
+	 * @return long
+	 */
+	public long getEvictionCount() {
+		return this.evictions.sum();
+	}
+	
+	/**
+	 * Returns the estimated size of the cached images in bytes.
+	 * @return long
+	 */
+	public long getSize() {
+		synchronized (this.images) {
+			return this.size;
+		}
+	}
+	
+	/**
+	 * Returns the maximum size of the cache in bytes.
+	 * @return long
+	 */
+	public long getMaximumSize() {
+		return this.maximumSize;
+	}
+	
+	/**
+	 * Returns the number of cached images.
+	 * @return int
 	 */
-	private Image load(Path path) throws IOException {
-		LOGGER.debug("Loading image at path '{}'", path.toAbsolutePath().toString());
-		// using ImageIO and twelvemonkeys lib allows for more supported formats
-		return SwingFXUtils.toFXImage(ImageIO.read(path.toFile()), null);
+	public int getImageCount() {
+		synchronized (this.images) {
+			return this.images.size();
+		}
 	}
 }
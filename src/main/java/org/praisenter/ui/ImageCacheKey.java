@@ -1,13 +1,23 @@
 package org.praisenter.ui;
 
+import org.praisenter.data.media.MediaImageSize;
+
 final class ImageCacheKey {
 	private final ImageCacheKeyType type;
 	private final String key;
 	
+	/** The {@link MediaImageSize} of the image */
+	private final int size;
+	
 	public ImageCacheKey(ImageCacheKeyType type, String key) {
+		this(type, key, MediaImageSize.FULL);
+	}
+	
+	public ImageCacheKey(ImageCacheKeyType type, String key, int size) {
 		if (type == null || key == null) throw new NullPointerException("The type and key parameters cannot be null.");
 		this.type = type;
 		this.key = key;
+		this.size = size;
 	}
 
 	@Override
@@ -16,7 +26,7 @@ final class ImageCacheKey {
 		if (obj == this) return true;
 		if (obj instanceof ImageCacheKey) {
 			ImageCacheKey key = (ImageCacheKey)obj;
-			return key.key.equals(this.key) && key.type == this.type;
+			return key.key.equals(this.key) && key.type == this.type && key.size == this.size;
 		}
 		return false;
 	}
@@ -26,13 +36,14 @@ final class ImageCacheKey {
 		int hash = 1;
 		hash = hash * 31 + this.type.hashCode();
 		hash = hash * 31 + this.key.hashCode();
+		hash = hash * 31 + this.size;
 		return hash;
 	}
 	
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
-		sb.append("[").append(this.type).append("|").append(this.key).append("]");
+		sb.append("[").append(this.type).append("|").append(this.key).append("|").append(this.size).append("]");
 		return sb.toString();
 	}
 	
@@ -43,4 +54,8 @@ final class ImageCacheKey {
 	public String getKey() {
 		return this.key;
 	}
+	
+	public int getSize() {
+		return this.size;
+	}
 }
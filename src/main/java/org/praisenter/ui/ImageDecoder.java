@@ -0,0 +1,175 @@
+package org.praisenter.ui;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.praisenter.data.media.MediaImageSize;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Decodes image files into Java FX images.
+ * <p>
+ * Formats Java FX can read are handed to its own loader which decodes (and scales)
+ * straight into the Java FX image.  Everything else is read with ImageIO (and the
+ * twelvemonkeys plugins) into a pre-multiplied ARGB buffer that's written to a
+ * {@link WritableImage} in one call rather than being converted pixel by pixel.
+ */
+final class ImageDecoder {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	/** The ImageIO format names that Java FX can decode itself */
+	private static final Set<String> NATIVE_FORMATS = Set.of("png", "jpeg", "jpg", "gif", "bmp");
+	
+	private ImageDecoder() {}
+	
+	/**
+	 * Decodes the image at the given path.
+	 * <p>
+	 * If size isn't {@link MediaImageSize#FULL} the image is decoded so that its
+	 * shortest side is no smaller than size.
+	 * @param path the path
+	 * @param size the {@link MediaImageSize} to decode at
+	 * @return Image
+	 * @throws IOException if the image couldn't be read
+	 */
+	public static Image decode(Path path, int size) throws IOException {
+		try (ImageInputStream in = ImageIO.createImageInputStream(path.toFile())) {
+			if (in == null) {
+				throw new IOException("Unable to open image '" + path.toAbsolutePath().toString() + "'");
+			}
+			
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+			if (!readers.hasNext()) {
+				throw new IOException("No image reader was found for '" + path.toAbsolutePath().toString() + "'");
+			}
+			
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(in, true, true);
+				
+				// only the header is read here
+				String format = reader.getFormatName().toLowerCase(Locale.ROOT);
+				int width = reader.getWidth(0);
+				int height = reader.getHeight(0);
+				
+				if (NATIVE_FORMATS.contains(format)) {
+					Image image = decodeNative(path, width, height, size);
+					if (image != null) {
+						return image;
+					}
+				}
+				
+				return decodeImageIO(path, reader, width, height, size);
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+	
+	/**
+	 * Decodes the image using Java FX's image loader, returning null if it
+	 * wasn't able to decode it.
+	 */
+	private static Image decodeNative(Path path, int width, int height, int size) {
+		double rw = 0;
+		double rh = 0;
+		int min = Math.min(width, height);
+		if (size != MediaImageSize.FULL && min > size) {
+			double s = (double)size / (double)min;
+			rw = Math.ceil(s * width);
+			rh = Math.ceil(s * height);
+		}
+		
+		LOGGER.debug("Decoding image at path '{}' with Java FX at {}x{}", path.toAbsolutePath().toString(), rw, rh);
+		Image image = new Image(path.toUri().toString(), rw, rh, true, true, false);
+		if (image.isError()) {
+			// for example, CMYK JPEGs
+			LOGGER.debug("Java FX failed to decode image at path '" + path.toAbsolutePath().toString() + "', falling back to ImageIO", image.getException());
+			return null;
+		}
+		return image;
+	}
+	
+	/**
+	 * Decodes the image using ImageIO, subsampling if needed.
+	 */
+	private static Image decodeImageIO(Path path, ImageReader reader, int width, int height, int size) throws IOException {
+		ImageReadParam param = reader.getDefaultReadParam();
+		if (size != MediaImageSize.FULL) {
+			int factor = Math.min(width, height) / size;
+			if (factor > 1) {
+				LOGGER.debug("Subsampling image at path '{}' by {}", path.toAbsolutePath().toString(), factor);
+				param.setSourceSubsampling(factor, factor, 0, 0);
+			}
+		}
+		
+		// decode straight into pre-multiplied ARGB if the reader supports it
+		Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+		while (types.hasNext()) {
+			if (types.next().getBufferedImageType() == BufferedImage.TYPE_INT_ARGB_PRE) {
+				param.setDestinationType(ImageTypeSpecifier.createFromBufferedImageType(BufferedImage.TYPE_INT_ARGB_PRE));
+				break;
+			}
+		}
+		
+		LOGGER.debug("Decoding image at path '{}' with ImageIO", path.toAbsolutePath().toString());
+		return toFXImage(reader.read(0, param));
+	}
+	
+	/**
+	 * Copies the given image into a {@link WritableImage}.
+	 * <p>
+	 * Integer ARGB images are copied with a single bulk write. Other image types are
+	 * converted to pre-multiplied ARGB first.
+	 */
+	private static Image toFXImage(BufferedImage image) {
+		int w = image.getWidth();
+		int h = image.getHeight();
+		
+		int type = image.getType();
+		PixelFormat<IntBuffer> format;
+		if (type == BufferedImage.TYPE_INT_ARGB_PRE) {
+			format = PixelFormat.getIntArgbPreInstance();
+		} else if (type == BufferedImage.TYPE_INT_ARGB) {
+			format = PixelFormat.getIntArgbInstance();
+		} else {
+			BufferedImage converted = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+			Graphics2D g = converted.createGraphics();
+			try {
+				g.drawImage(image, 0, 0, null);
+			} finally {
+				g.dispose();
+			}
+			image = converted;
+			format = PixelFormat.getIntArgbPreInstance();
+		}
+		
+		DataBufferInt buffer = (DataBufferInt)image.getRaster().getDataBuffer();
+		SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel)image.getSampleModel();
+		
+		WritableImage fx = new WritableImage(w, h);
+		PixelWriter pw = fx.getPixelWriter();
+		pw.setPixels(0, 0, w, h, format, buffer.getData(), buffer.getOffset(), model.getScanlineStride());
+		return fx;
+	}
+}
@@ -588,6 +588,14 @@ public final class LifecycleHandler {
     	}).thenApply((v) -> true);
     }
     
+    private CompletableFuture<Boolean> closeWorkspace(Logger LOGGER, GlobalContext context) {
+    	LOGGER.info("Closing the workspace");
+    	return context.getWorkspaceManager().close().exceptionally((e) -> {
+    		LOGGER.warn("Failed to close the workspace: " + e.getMessage(), e);
+    		return null;
+    	}).thenApply((v) -> true);
+    }
+    
     private CompletableFuture<Boolean> cleanUp(Logger LOGGER, GlobalContext context) {
     	// prompt for unsaved changes
 		return promptUnsavedChanges(LOGGER, context).exceptionally((t) -> {
@@ -613,6 +621,11 @@ public final class LifecycleHandler {
 				return this.disposeContext(LOGGER, context);
 			}
 			return CompletableFuture.completedStage(false);
+		}).thenCompose((shouldContinue) -> {
+			if (shouldContinue) {
+				return this.closeWorkspace(LOGGER, context);
+			}
+			return CompletableFuture.completedStage(false);
 		});
     }
 }
@@ -4,6 +4,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -56,6 +57,9 @@ final class LoadingPane extends Pane {
 	private static final double LINE_WIDTH = 4.0;
 	private static final long ANIMATION_DURATION = 300;
 	
+	/** The progress made by loading each of the four stores (from 0.1 to 0.8) */
+	private static final double STORE_PROGRESS = 0.7 / 4.0;
+	
 	// members
 	
 	private final GlobalContext context;
@@ -212,51 +216,25 @@ final class LoadingPane extends Pane {
 		}));
 	}
 	
-	private CompletableFuture<Void> loadBibles() {
-		return AsyncHelper.onJavaFXThreadAndWait(() -> {
-			this.message.set(Translations.get("task.loading.bible"));
-		}).apply(null).thenCompose((v) -> {
-			LOGGER.info("Loading bibles");
-			return this.context.workspaceManager.registerBiblePersistAdapter();
-		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
-			LOGGER.info("Bible loading complete");
-			this.progress.set(0.3);
-		}));
-	}
-
-	private CompletableFuture<Void> loadSongs() {
+	private CompletableFuture<Void> loadLibrary() {
+		// NOTE: the stores don't depend on each other, so load them all at once
 		return AsyncHelper.onJavaFXThreadAndWait(() -> {
-			this.message.set(Translations.get("task.loading.song"));
+			this.message.set(Translations.get("task.loading.library"));
 		}).apply(null).thenCompose((v) -> {
-			LOGGER.info("Loading songs");
-			return this.context.workspaceManager.registerSongPersistAdapter();
-		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
-			LOGGER.info("Song loading complete");
-			this.progress.set(0.5);
-		}));
-	}
-	
-	private CompletableFuture<Void> loadMedia() {
-		return AsyncHelper.onJavaFXThreadAndWait(() -> {
-			this.message.set(Translations.get("task.loading.media"));
-		}).apply(null).thenCompose((v) -> {
-			LOGGER.info("Loading media");
-			return this.context.workspaceManager.registerMediaPersistAdapter();
-		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
-			LOGGER.info("Media loading complete");
-			this.progress.set(0.7);
-		}));
+			return CompletableFuture.allOf(
+				this.loadStore("Bible", () -> this.context.workspaceManager.registerBiblePersistAdapter()),
+				this.loadStore("Song", () -> this.context.workspaceManager.registerSongPersistAdapter()),
+				this.loadStore("Media", () -> this.context.workspaceManager.registerMediaPersistAdapter()),
+				this.loadStore("Slide", () -> this.context.workspaceManager.registerSlidePersistAdapter(new JavaFXSlideRenderer(this.context))));
+		});
 	}
 	
-	private CompletableFuture<Void> loadSlides() {
-		return AsyncHelper.onJavaFXThreadAndWait(() -> {
-			this.message.set(Translations.get("task.loading.slide"));
-		}).apply(null).thenCompose((v) -> {
-			LOGGER.info("Loading slides");
-			return this.context.workspaceManager.registerSlidePersistAdapter(new JavaFXSlideRenderer(this.context));
-		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
-			LOGGER.info("Slide loading complete");
-			this.progress.set(0.8);
+	private CompletableFuture<Void> loadStore(String name, Supplier<CompletableFuture<Void>> register) {
+		LOGGER.info("Loading {} store", name);
+		final long start = System.nanoTime();
+		return register.get().thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
+			LOGGER.info("{} store loading complete in {}ms", name, (System.nanoTime() - start) / 1000000);
+			this.progress.set(this.progress.get() + STORE_PROGRESS);
 		}));
 	}
 
@@ -272,6 +250,22 @@ final class LoadingPane extends Pane {
 		}));
 	}
 	
+	private CompletableFuture<Void> reconcileSearchIndex() {
+		return AsyncHelper.onJavaFXThreadAndWait(() -> {
+			this.message.set(Translations.get("task.loading.index"));
+		}).apply(null).thenCompose((v) -> {
+			LOGGER.info("Reconciling the search index");
+			return this.context.workspaceManager.reconcileSearchIndex().exceptionally((t) -> {
+				// not fatal - the user can still perform a full reindex
+				LOGGER.error("Failed to reconcile the search index: " + t.getMessage(), t);
+				return 0;
+			});
+		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait((n) -> {
+			LOGGER.info("Search index reconciliation complete ({} changes)", n);
+			this.progress.set(0.84);
+		}));
+	}
+	
 	private CompletableFuture<Void> updateWorkspaceVersionPostUpgrade(Version workspaceVersion) {
 		if (this.upgradeHandler.isUpgradeRequired(LOGGER, workspaceVersion)) {
 			LOGGER.debug("Updating workspace version");
@@ -321,11 +315,11 @@ final class LoadingPane extends Pane {
 		}).apply(null).thenCompose((v) -> {
 			CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
 			LOGGER.info("Checking for new workspace");
-                        if (this.context.workspaceManager.isNewWorkspace()) {
-                                LOGGER.info("New workspace detected; skipping sample data import");
-                        } else {
-                                LOGGER.info("Existing workspace detected, sample data import skipped");
-                        }
+                        if (this.context.workspaceManager.isNewWorkspace()) {
+                                LOGGER.info("New workspace detected; skipping sample data import");
+                        } else {
+                                LOGGER.info("Existing workspace detected, sample data import skipped");
+                        }
 			
 			return future;
 		}).thenCompose(AsyncHelper.onJavaFXThreadAndWait(() -> {
@@ -372,15 +366,11 @@ final class LoadingPane extends Pane {
 		.thenCompose((v) -> {
 			return this.performPreLoadUpgrade(workspaceVersion);
 		}).thenCompose((v) -> {
-			return this.loadBibles();
-		}).thenCompose((v) -> {
-			return this.loadSongs();
-		}).thenCompose((v) -> {
-			return this.loadMedia();
-		}).thenCompose((v) -> {
-			return this.loadSlides();
+			return this.loadLibrary();
 		}).thenCompose((v) -> {
 			return this.performPostLoadUpgrade(workspaceVersion);
+		}).thenCompose((v) -> {
+			return this.reconcileSearchIndex();
 		}).thenCompose((v) -> {
 			return this.updateWorkspaceVersionPostUpgrade(workspaceVersion);
 		}).thenCompose((v) -> {
@@ -34,6 +34,7 @@ import javafx.scene.control.MenuItem;
 import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.input.KeyCombination;
 import javafx.stage.FileChooser;
+import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
@@ -105,6 +106,7 @@ final class MainMenu extends MenuBar {
 				this.createMenuItem(Action.REINDEX),
 				new SeparatorMenuItem(),
 				this.createMenuItem(Action.IMPORT),
+				this.createMenuItem(Action.RESTORE),
 				this.createMenuItem(Action.EXPORT),
 				new SeparatorMenuItem(),
 				workspacesMenu,
@@ -237,6 +239,9 @@ final class MainMenu extends MenuBar {
 			case IMPORT:
 				this.promptImport();
 				return;
+			case RESTORE:
+				this.promptRestore();
+				return;
 			case APPLICATION_LOGS:
 				this.viewApplicationLogs();
 				return;
@@ -290,6 +295,21 @@ final class MainMenu extends MenuBar {
 		}));
 	}
 	
+	private void promptRestore() {
+		FileChooser fc = new FileChooser();
+		fc.setTitle(Translations.get("action.restore"));
+		fc.getExtensionFilters().add(new ExtensionFilter(Translations.get("action.export.filetype"), "*.zip"));
+		List<File> files = fc.showOpenMultipleDialog(this.context.stage);
+		this.context.restore(files).thenAccept((items) -> {
+			// nothing extra to do with the restored data
+		}).exceptionallyCompose(AsyncHelper.onJavaFXThreadAndWait(t -> {
+			Platform.runLater(() -> {
+				Alert alert = Dialogs.exception(this.context.stage, t);
+				alert.show();
+			});
+		}));
+	}
+	
 	private void switchWorkspace(Path path) {
 		LifecycleHandler lifecycleHandler = new LifecycleHandler();
 		lifecycleHandler.restart(this.context, path);
@@ -638,9 +638,10 @@ public final class BibleNavigationPane extends GridPane {
 			}
 		}
 		
-		this.value.set(value);
+		// set previous/next first so that they're current when value listeners run
 		this.previous.set(previous);
 		this.next.set(next);
+		this.value.set(value);
 		
 		this.mutating = false;
 	}
@@ -468,6 +468,35 @@ public final class DisplayController extends BorderPane implements ActionPane {
 			}
 		});
 		
+		// after something goes live, prepare what's most likely to go live next
+		// so that showing it is just a node swap
+		final Runnable prerenderNext = () -> {
+			Slide slide = null;
+			TextStore data = null;
+			
+			int queueIndex = lstSlideQueue.getSelectionModel().getSelectedIndex();
+			int index = tabs.getSelectionModel().getSelectedIndex();
+			if (queueIndex >= 0 && queueIndex + 1 < this.slides.size()) {
+				// the next item in the queue
+				slide = this.slides.get(queueIndex + 1);
+				data = slide.getPlaceholderData();
+			} else if (index == 0) {
+				// the next verse
+				slide = cmbBibleSlideTemplate.getValue();
+				data = bibleNavigationPane.getNext();
+				if (data == null) return;
+			} else if (index == 1) {
+				// the next song section
+				slide = cmbSongSlideTemplate.getValue();
+				data = songNavigationPane.getNext();
+				if (data == null) return;
+			}
+			
+			if (slide != null) {
+				target.prerenderSlide(slide, data);
+			}
+		};
+		
 		btnQueueAdd.setOnAction(e -> {
 			// get the current slide w/ placeholder data
 			Slide slide = null;
@@ -538,6 +567,7 @@ public final class DisplayController extends BorderPane implements ActionPane {
 			}
 			
 			target.displaySlide(slide, data);
+			prerenderNext.run();
 		});
 		
 		btnClear.setOnAction(e -> {
@@ -651,6 +681,7 @@ public final class DisplayController extends BorderPane implements ActionPane {
 			// update the display (if auto-show enabled)
 			if (autoShow && change == DisplayChange.DATA) {
 				target.displaySlide(slide, data);
+				prerenderNext.run();
 			}
 		};
 		
@@ -10,6 +10,14 @@ public interface DisplayTarget extends Comparable<DisplayTarget> {
 	public void displaySlide(final Slide slide, final TextStore data, boolean transtion);
 	public void displayNotification(final Slide slide, final TextStore data);
 	public void displayNotification(final Slide slide, final TextStore data, boolean transtion);
+	
+	/**
+	 * Prepares the given slide in the background so that it shows without delay
+	 * if it's the next one displayed.
+	 * @param slide the slide expected next
+	 * @param data the data expected next
+	 */
+	public void prerenderSlide(final Slide slide, final TextStore data);
 	public void clear();
 	public void clear(boolean transition);
 	
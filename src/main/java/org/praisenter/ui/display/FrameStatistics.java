@@ -0,0 +1,68 @@
+package org.praisenter.ui.display;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for a frame pipeline that can be updated from both the producer
+ * and consumer threads.
+ * <ul>
+ * <li>sent - frames handed to the output</li>
+ * <li>dropped - frames that were rendered (or should have been) but never sent</li>
+ * <li>duplicated - output intervals where no new frame was available so the previous frame was repeated</li>
+ * <li>late - frames that were sent more than one output interval after they were rendered</li>
+ * </ul>
+ * @author William Bittle
+ */
+public final class FrameStatistics {
+	private final LongAdder sent;
+	private final LongAdder dropped;
+	private final LongAdder duplicated;
+	private final LongAdder late;
+
+	public FrameStatistics() {
+		this.sent = new LongAdder();
+		this.dropped = new LongAdder();
+		this.duplicated = new LongAdder();
+		this.late = new LongAdder();
+	}
+
+	@Override
+	public String toString() {
+		return "FrameStatistics[sent=" + this.sent.sum()
+			+ ", dropped=" + this.dropped.sum()
+			+ ", duplicated=" + this.duplicated.sum()
+			+ ", late=" + this.late.sum() + "]";
+	}
+
+	void sent() {
+		this.sent.increment();
+	}
+
+	void dropped(long n) {
+		this.dropped.add(n);
+	}
+
+	void duplicated() {
+		this.duplicated.increment();
+	}
+
+	void late() {
+		this.late.increment();
+	}
+
+	public long getSentCount() {
+		return this.sent.sum();
+	}
+
+	public long getDroppedCount() {
+		return this.dropped.sum();
+	}
+
+	public long getDuplicatedCount() {
+		return this.duplicated.sum();
+	}
+
+	public long getLateCount() {
+		return this.late.sum();
+	}
+}
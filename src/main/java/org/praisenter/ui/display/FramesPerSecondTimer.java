@@ -29,14 +29,20 @@ public final class FramesPerSecondTimer extends AnimationTimer {
 	private final int fps;
 	private final double nanosBetweenFrames;
 	private final Consumer<Long> fn;
+	private final FrameStatistics statistics;
 	
 	private long lastTimeStamp;
 	private long elapsedTime;
 	private long frameNumber;
 	
 	public FramesPerSecondTimer(int fps, Consumer<Long> fn) {
+		this(fps, fn, null);
+	}
+	
+	public FramesPerSecondTimer(int fps, Consumer<Long> fn, FrameStatistics statistics) {
 		this.fps = fps;
 		this.fn = fn;
+		this.statistics = statistics;
 		this.nanosBetweenFrames = NANOSECONDS_TO_SECONDS / (double)(fps + 1);
 		
 		this.lastTimeStamp = -1;
@@ -70,6 +76,9 @@ public final class FramesPerSecondTimer extends AnimationTimer {
 				int n = (int)Math.ceil(this.elapsedTime / this.nanosBetweenFrames);
 				this.frameNumber += n;
 				LOGGER.debug("Java FX AnimationTimer dropped {} frames", n);
+				if (this.statistics != null) {
+					this.statistics.dropped(n);
+				}
 				this.elapsedTime = 0;
 			}
 			
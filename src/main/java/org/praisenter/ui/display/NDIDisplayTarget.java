@@ -4,9 +4,12 @@ import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -45,6 +48,12 @@ import me.walkerknapp.devolay.DevolayVideoFrame;
 public final class NDIDisplayTarget implements DisplayTarget {
 	private static final Logger LOGGER = LogManager.getLogger();
 	
+	/** 
+	 * The number of pooled frames; one being rendered by Java FX, one 
+	 * waiting in the latest frame slot and one being copied to an NDI buffer 
+	 */
+	private static final int FRAME_POOL_SIZE = 3;
+	
 	private final GlobalContext context;
 	private final DisplayConfiguration configuration;
 	
@@ -54,7 +63,9 @@ public final class NDIDisplayTarget implements DisplayTarget {
 	
 	private final DevolaySender ndiTarget;
 	private final FramesPerSecondTimer frameProducer;
-	private final PriorityBlockingQueue<NDIVideoFrame> frameQueue;
+	private final AtomicReference<NDIVideoFrame> latestFrame;
+	private final BlockingQueue<NDIVideoFrame> framePool;
+	private final FrameStatistics frameStatistics;
 	private final Thread frameConsumer;
 	private final ChangeListener<Boolean> activeListener;
 	
@@ -62,7 +73,8 @@ public final class NDIDisplayTarget implements DisplayTarget {
     private final int height;
     private final int pixelDepth;
     
-    private boolean disposed;
+    private volatile boolean disposed;
+    private volatile boolean rendering;
     private boolean sentHideFrame;
     
     // NDI Consumer state
@@ -75,7 +87,6 @@ public final class NDIDisplayTarget implements DisplayTarget {
     
     private final int NDIFPS;
     private final DevolayVideoFrame videoFrame;
-    private final byte[] convertBuffer;
     private final ByteBuffer[] frameBuffers;
     
     private long lastFrameNumber = -1;
@@ -111,7 +122,6 @@ public final class NDIDisplayTarget implements DisplayTarget {
 		this.videoFrame.setFrameRate(this.NDIFPS, 1);
 	    
 	    int nbytes = this.width * this.height * this.pixelDepth;
-	    this.convertBuffer = new byte[nbytes];
 	    this.frameBuffers = new ByteBuffer[] { 
 			ByteBuffer.allocateDirect(nbytes),
 	        ByteBuffer.allocateDirect(nbytes) 
@@ -150,7 +160,18 @@ public final class NDIDisplayTarget implements DisplayTarget {
         final String ndiName = configuration.getName();
         
         this.ndiTarget = new DevolaySender(ndiName);
-		this.frameQueue = new PriorityBlockingQueue<>();
+		
+		// the producer always replaces the frame in this slot so the consumer 
+		// only ever sees the freshest frame and stale frames go back to the pool
+		this.latestFrame = new AtomicReference<>();
+		this.frameStatistics = new FrameStatistics();
+		
+		// pre-allocate the snapshot targets so that we aren't creating
+		// a full resolution image for every frame
+		this.framePool = new ArrayBlockingQueue<>(FRAME_POOL_SIZE);
+		for (int i = 0; i < FRAME_POOL_SIZE; i++) {
+			this.framePool.offer(new NDIVideoFrame(new WritableImage(this.width, this.height)));
+		}
 		
 		this.activeListener = (obs, ov, nv) -> {
 			if (!nv) {
@@ -174,14 +195,17 @@ public final class NDIDisplayTarget implements DisplayTarget {
 			if (configuration.isActive()) {
 				// optimization: try to predict if we can avoid rendering or not
 				boolean render = this.renderRequired();
+				this.rendering = render;
 				if (render) {
 					this.generateFrame(params, frame);
 				}
 			} else if (!this.sentHideFrame) {
-				this.generateFrame(params, frame);
-				this.sentHideFrame = true;
+				this.rendering = true;
+				this.sentHideFrame = this.generateFrame(params, frame);
+			} else {
+				this.rendering = false;
 			}
-		});
+		}, this.frameStatistics);
 		
 		this.frameConsumer = new Thread(() -> {
 			ndiSendLoop();
@@ -236,40 +260,85 @@ public final class NDIDisplayTarget implements DisplayTarget {
 		return false;
 	}
 	
-	private final void generateFrame(SnapshotParameters params, long frameNumber) {
-		WritableImage image = this.container.snapshot(params, null);
-		this.frameQueue.offer(new NDIVideoFrame(image, frameNumber));
+	private final boolean generateFrame(SnapshotParameters params, long frameNumber) {
+		NDIVideoFrame frame = this.framePool.poll();
+		if (frame == null) {
+			// all the frames are in use, meaning the NDI consumer is behind
+			// so skip this frame rather than allocate a new one
+			LOGGER.trace("Skipping frame {} because no pooled frame is available", frameNumber);
+			this.frameStatistics.dropped(1);
+			return false;
+		}
+		
+		// NOTE: the snapshot is rendered directly into the given image since it 
+		// matches the viewport size
+		WritableImage image = this.container.snapshot(params, frame.getImage());
+		if (image != frame.getImage()) {
+			// Java FX allocated a new image because the pooled one couldn't hold the
+			// snapshot, so keep the new one in the pool rather than send the old one
+			LOGGER.warn("The NDI snapshot of frame {} didn't fit the pooled {}x{} image, replacing it with a {}x{} image", frameNumber, frame.getImage().getWidth(), frame.getImage().getHeight(), image.getWidth(), image.getHeight());
+			frame.setImage(image);
+		}
+		frame.setFrameNumber(frameNumber);
+		frame.setRenderTime(System.nanoTime());
+		
+		// hand off the frame, recycling the previous one if the consumer never got to it
+		NDIVideoFrame stale = this.latestFrame.getAndSet(frame);
+		if (stale != null) {
+			this.frameStatistics.dropped(1);
+			this.framePool.offer(stale);
+		}
+		LockSupport.unpark(this.frameConsumer);
+		return true;
 	}
 	
 	private final void ndiSendLoop() {
         // define the amount of time to wait for a frame from the Java FX producer thread
-        final long frameWaitTime = 1000 / this.NDIFPS;
+        final long frameWaitTime = TimeUnit.SECONDS.toNanos(1) / this.NDIFPS;
+        
+        // the statistics are logged about once a second
+        final long logInterval = TimeUnit.SECONDS.toNanos(1);
         
         // now run forever, pushing any frames we receive to NDI
-        long startTime = System.nanoTime();
+        long logTime = System.nanoTime();
+        long logFrames = 0;
+        long nextFrameTime = logTime + frameWaitTime;
+        boolean hasSent = false;
         while (!this.disposed) {
-        	// attempt to get a frame from the frame queue
-        	NDIVideoFrame frame = null;
-			try {
-				frame = this.frameQueue.poll(frameWaitTime, TimeUnit.MILLISECONDS);
-			} catch (InterruptedException e) {
-				LOGGER.warn("Waiting for a frame was interrupted.");
-			}
-			
-			// the frame can be null if we waited long enough and we still
-			// didn't get a frame in the frame queue
+        	// attempt to take the latest frame
+        	NDIVideoFrame frame = this.latestFrame.getAndSet(null);
         	if (frame == null) {
-        		// it's fine, just start waiting again
+        		long remaining = nextFrameTime - System.nanoTime();
+        		if (remaining > 0) {
+        			// wait for the producer to signal a new frame (or the wait time to elapse)
+        			// NOTE: the park can return early (spurious wakeups), so just check again
+        			LockSupport.parkNanos(this, remaining);
+        			continue;
+        		}
+        		
+        		// the frame interval elapsed without a new frame from the producer
+        		nextFrameTime = System.nanoTime() + frameWaitTime;
+        		if (this.rendering && hasSent) {
+        			// Java FX should have rendered a frame, so repeat the last frame to
+        			// keep the output rate steady (the buffer isn't touched until the next frame)
+        			this.ndiTarget.sendVideoFrameAsync(this.videoFrame);
+        			this.frameStatistics.duplicated();
+        		}
         		continue;
         	} else if (frame.getFrameNumber() <= this.lastFrameNumber) {
         		// in the case that we get an old frame for some reason
         		// just drop the frame and report it - this shouldn't ever happen
         		LOGGER.warn("Dropping frame {} it came in after frame {}", frame.getFrameNumber(), this.lastFrameNumber);
+        		this.frameStatistics.dropped(1);
+        		this.framePool.offer(frame);
         		continue;
         	}
         	
         	// keep track of the last frame number
         	this.lastFrameNumber = frame.getFrameNumber();
+        	if (System.nanoTime() - frame.getRenderTime() > frameWaitTime) {
+        		this.frameStatistics.late();
+        	}
         	
             // Use the buffer that currently isn't in flight
             ByteBuffer buffer = this.frameBuffers[this.bufferIndex];
@@ -277,19 +346,27 @@ public final class NDIDisplayTarget implements DisplayTarget {
             // Fill in the buffer for one frame.
             writeImageToBuffer(frame.getImage(), buffer);
             this.videoFrame.setData(buffer);
+            
+            // the image has been copied, so it can be reused for another snapshot
+            this.framePool.offer(frame);
 
             // Submit the frame asynchronously.
             // This call will return immediately and the API will "own" the buffer until a synchronizing event.
             // A synchronizing event is one of: DevolaySender#sendVideoFrameAsync, DevolaySender#sendVideoFrame, DevolaySender#close
             this.ndiTarget.sendVideoFrameAsync(this.videoFrame);
+            this.frameStatistics.sent();
+            hasSent = true;
+            logFrames++;
+            
+            long now = System.nanoTime();
+            nextFrameTime = now + frameWaitTime;
 
-            // Give an FPS message every 30 frames submitted
-            if(frame.getFrameNumber() % this.NDIFPS == 0) {
-            	long now = System.nanoTime();
-            	double seconds = (now - startTime) / (double)1e9;
-            	
-            	LOGGER.trace("Sent {} frames. Average FPS: {}", this.NDIFPS, (this.NDIFPS / seconds));
-                startTime = now;
+            // give an FPS message about every second
+            if (now - logTime >= logInterval) {
+            	double seconds = (now - logTime) / (double)1e9;
+            	LOGGER.trace("Sent {} frames in {} seconds. Average FPS: {}. {}", logFrames, seconds, (logFrames / seconds), this.frameStatistics);
+            	logTime = now;
+            	logFrames = 0;
             }
             
             this.bufferIndex++;
@@ -304,13 +381,14 @@ public final class NDIDisplayTarget implements DisplayTarget {
 	private final void writeImageToBuffer(WritableImage image, ByteBuffer data) {
         data.position(0);
 
-        final int w = (int)image.getWidth();
-        final int h = (int)image.getHeight();
+        // never write more than the NDI frame holds
+        final int w = Math.min((int)image.getWidth(), this.width);
+        final int h = Math.min((int)image.getHeight(), this.height);
         
+        // read the pixels straight into the (direct) NDI buffer
         PixelReader pr = image.getPixelReader();
-        pr.getPixels(0, 0, w, h, PixelFormat.getByteBgraInstance(), convertBuffer, 0, w * 4);
-        data.put(convertBuffer);
-        data.flip();
+        pr.getPixels(0, 0, w, h, PixelFormat.getByteBgraInstance(), data, this.width * this.pixelDepth);
+        data.position(0);
     }
 	
 	private final void writeTransparentToBuffer(ByteBuffer data) {
@@ -379,8 +457,11 @@ public final class NDIDisplayTarget implements DisplayTarget {
 			LOGGER.debug("Releasing NDI resources");
 			this.ndiTarget.close();
 			
-			LOGGER.debug("Clearing NDI frame queue");
-			this.frameQueue.clear();
+			LOGGER.debug("Clearing NDI frames");
+			this.latestFrame.set(null);
+			this.framePool.clear();
+			
+			LOGGER.info("NDI output '{}' {}", this.configuration.getName(), this.frameStatistics);
 			
 			LOGGER.debug("NDI clean up complete");
 		});
@@ -413,6 +494,24 @@ public final class NDIDisplayTarget implements DisplayTarget {
 		this.slideView.render(copy, copy.getPlaceholderData(), transtion);
 	}
 	
+	@Override
+	public void prerenderSlide(final Slide slide, final TextStore data) {
+		if (slide == null) {
+			return;
+		}
+		
+		Slide copy = slide.copy();
+		
+		if (data != null) {
+			copy.setPlaceholderData(data.copy());
+		}
+		
+		copy.fit(this.configuration.getWidth(), this.configuration.getHeight());
+		this.muteAllAudio(copy);
+		
+		this.slideView.prerender(copy, copy.getPlaceholderData());
+	}
+	
 	@Override
 	public void displayNotification(Slide slide, TextStore data) {
 		this.displayNotification(slide, data, true);
@@ -483,4 +582,8 @@ public final class NDIDisplayTarget implements DisplayTarget {
 	public DisplayConfiguration getDisplayConfiguration() {
 		return this.configuration;
 	}
+	
+	public FrameStatistics getFrameStatistics() {
+		return this.frameStatistics;
+	}
 }
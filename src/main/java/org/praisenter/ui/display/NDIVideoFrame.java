@@ -2,27 +2,48 @@ package org.praisenter.ui.display;
 
 import javafx.scene.image.WritableImage;
 
-final class NDIVideoFrame implements Comparable<NDIVideoFrame> {
-	private final WritableImage image;
-	private final long frameNumber;
+/**
+ * A reusable frame for NDI output.
+ * <p>
+ * Each frame owns a {@link WritableImage} that the Java FX snapshot is rendered
+ * into.  Frames are pooled by the {@link NDIDisplayTarget} so that the frame
+ * number and render time are updated each time the frame is reused.
+ * @author William Bittle
+ */
+final class NDIVideoFrame {
+	private WritableImage image;
+	private long frameNumber;
+	private long renderTime;
 	
-	public NDIVideoFrame(WritableImage image, long frameNumber) {
+	public NDIVideoFrame(WritableImage image) {
 		super();
 		this.image = image;
-		this.frameNumber = frameNumber;
-	}
-	
-	@Override
-	public int compareTo(NDIVideoFrame o) {
-		return Long.compare(this.frameNumber, o.frameNumber);
+		this.frameNumber = -1;
+		this.renderTime = 0;
 	}
 	
 	public WritableImage getImage() {
 		return image;
 	}
 	
+	public void setImage(WritableImage image) {
+		this.image = image;
+	}
+	
 	public long getFrameNumber() {
 		return frameNumber;
 	}
 	
+	public void setFrameNumber(long frameNumber) {
+		this.frameNumber = frameNumber;
+	}
+	
+	public long getRenderTime() {
+		return renderTime;
+	}
+	
+	public void setRenderTime(long renderTime) {
+		this.renderTime = renderTime;
+	}
+	
 }
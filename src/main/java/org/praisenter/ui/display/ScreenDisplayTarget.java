@@ -181,6 +181,23 @@ public final class ScreenDisplayTarget extends Stage implements DisplayTarget {
 		this.toFront();
 	}
 	
+	@Override
+	public void prerenderSlide(final Slide slide, final TextStore data) {
+		if (slide == null) {
+			return;
+		}
+		
+		Slide copy = slide.copy();
+		
+		if (data != null) {
+			copy.setPlaceholderData(data.copy());
+		}
+		
+		copy.fit(this.configuration.getWidth(), this.configuration.getHeight());
+		
+		this.slideView.prerender(copy, copy.getPlaceholderData());
+	}
+	
 	@Override
 	public void displayNotification(Slide slide, TextStore data) {
 		this.displayNotification(slide, data, true);
@@ -7,10 +7,12 @@ import org.praisenter.data.ImportExportFormat;
 final class ExportRequest {
 	private final ImportExportFormat format;
 	private final Path path;
+	private final Path base;
 	
-	public ExportRequest(ImportExportFormat format, Path path) {
+	public ExportRequest(ImportExportFormat format, Path path, Path base) {
 		this.format = format;
 		this.path = path;
+		this.base = base;
 	}
 	
 	public ImportExportFormat getFormat() {
@@ -20,4 +22,8 @@ final class ExportRequest {
 	public Path getPath() {
 		return path;
 	}
+	
+	public Path getBase() {
+		return base;
+	}
 }
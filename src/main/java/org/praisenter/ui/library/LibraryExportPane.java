@@ -34,12 +34,14 @@ final class LibraryExportPane extends BorderPane {
 	
 	private final ObjectProperty<ImportExportFormat> exportFormat;
 	private final ObjectProperty<Path> exportPath;
+	private final ObjectProperty<Path> basePath;
 	
 	private final ObjectProperty<ExportRequest> value;
 	
 	public LibraryExportPane(GlobalContext context) {
 		this.exportFormat = new SimpleObjectProperty<ImportExportFormat>(ImportExportFormat.PRAISENTER3);
 		this.exportPath = new SimpleObjectProperty<>();
+		this.basePath = new SimpleObjectProperty<>();
 		this.value = new SimpleObjectProperty<ExportRequest>();
 		
 		this.getStyleClass().add(LIBRARY_LIST_EXPORT_PANE_CSS);
@@ -79,6 +81,40 @@ final class LibraryExportPane extends BorderPane {
 	    	}
 		});
 		
+		TextField txtBasePath = new TextField();
+		txtBasePath.textProperty().bind(Bindings.createStringBinding(() -> {
+			Path path = this.basePath.get();
+			if (path == null)
+				return null;
+			return path.toAbsolutePath().toString();
+		}, this.basePath));
+		
+		Button btnBaseBrowse = new Button(null, Icons.getIcon(Icons.FOLDER, Icons.COLOR_FOLDER));
+		btnBaseBrowse.setTooltip(new Tooltip(Translations.get("browse")));
+		Button btnBaseClear = new Button(null, Icons.getIcon(Icons.DELETE));
+		btnBaseClear.setTooltip(new Tooltip(Translations.get("action.delete")));
+		btnBaseClear.disableProperty().bind(this.basePath.isNull());
+		HBox baseRow = new HBox(txtBasePath, btnBaseBrowse, btnBaseClear);
+		baseRow.setAlignment(Pos.CENTER_LEFT);
+		HBox.setHgrow(txtBasePath, Priority.ALWAYS);
+		HBox.setHgrow(btnBaseBrowse, Priority.NEVER);
+		HBox.setHgrow(btnBaseClear, Priority.NEVER);
+		
+		btnBaseBrowse.setOnAction(e -> {
+			FileChooser chooser = new FileChooser();
+	    	chooser.setTitle(Translations.get("action.export.base"));
+	    	chooser.getExtensionFilters().add(new ExtensionFilter(Translations.get("action.export.filetype"), "*.zip"));
+	    	File file = chooser.showOpenDialog(context.getStage());
+	    	
+	    	if (file != null) {
+	    		this.basePath.set(file.toPath());
+	    	}
+		});
+		
+		btnBaseClear.setOnAction(e -> {
+			this.basePath.set(null);
+		});
+		
 		EditorField fldFormat = new EditorField(
 				Translations.get("action.export.format"), 
 				Translations.get("action.export.format.description"), 
@@ -91,9 +127,19 @@ final class LibraryExportPane extends BorderPane {
 				selectorRow, 
 				EditorField.LAYOUT_VERTICAL);
 		
+		EditorField fldBase = new EditorField(
+				Translations.get("action.export.base"), 
+				Translations.get("action.export.base.description"), 
+				baseRow, 
+				EditorField.LAYOUT_VERTICAL);
+		
+		// incremental exports are only supported by the Praisenter format
+		baseRow.disableProperty().bind(this.exportFormat.isNotEqualTo(ImportExportFormat.PRAISENTER3));
+		
 		VBox layout = new VBox(
 				fldFormat,
-				fldPath);
+				fldPath,
+				fldBase);
 		
 		this.setCenter(layout);
 		
@@ -120,6 +166,18 @@ final class LibraryExportPane extends BorderPane {
 				return e.getPath();
 			}
 		});
+		
+		BindingHelper.bindBidirectional(this.basePath, this.value, new ObjectConverter<Path, ExportRequest>() {
+			@Override
+			public ExportRequest convertFrom(Path t) {
+				return LibraryExportPane.this.getCurrentValue();
+			}
+			@Override
+			public Path convertTo(ExportRequest e) {
+				if (e == null) return null;
+				return e.getBase();
+			}
+		});
 	}
 	
 	private ExportRequest getCurrentValue() {
@@ -131,7 +189,10 @@ final class LibraryExportPane extends BorderPane {
 		if (path == null)
 			return null;
 		
-		return new ExportRequest(format, path);
+		// the base is only used by the Praisenter format
+		Path base = format == ImportExportFormat.PRAISENTER3 ? this.basePath.get() : null;
+		
+		return new ExportRequest(format, path, base);
 	}
 
 	public ExportRequest getValue() {
@@ -120,7 +120,8 @@ final class LibraryItemDetails extends VBox {
 		this.tagListener = (change) -> {
 			Persistable p = this.item.get();
 			if (p != null) {
-				Persistable pc = p.copy();
+				// make sure we're not saving a placeholder
+				Persistable pc = this.context.getWorkspaceManager().hydrate(p).copy();
 				if (change.wasAdded()) {
 					pc.getTags().add(change.getElementAdded());
 				} else if (change.wasRemoved()) {
@@ -300,7 +301,7 @@ final class LibraryItemDetails extends VBox {
 				Media media = (Media)item;
 				MediaType type = media.getMediaType();
 				if (type == MediaType.IMAGE) {
-					return this.context.getImageCache().getOrLoadImage(media.getId(), media.getMediaImagePath());
+					return this.context.getImageCache().getOrLoadImage(media);
 				} else if (type == MediaType.AUDIO) {
 					return this.context.getImageCache().getOrLoadClasspathImage("/org/praisenter/images/audio-default-thumbnail.png");
 				}
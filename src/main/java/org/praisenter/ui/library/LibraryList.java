@@ -439,7 +439,7 @@ public final class LibraryList extends BorderPane implements ActionPane {
 		btnOk.setOnAction(e -> {
 			ExportRequest request = lep.getValue();
 			this.exportRequest.set(request);
-			lep.setValue(new ExportRequest(request.getFormat(), null));
+			lep.setValue(new ExportRequest(request.getFormat(), null, request.getBase()));
 			this.dlgExport.hide();
 		});
 		
@@ -586,7 +586,7 @@ public final class LibraryList extends BorderPane implements ActionPane {
 				continue;
 			}
 			
-			Persistable copy = item.copy();
+			Persistable copy = this.context.getWorkspaceManager().hydrate(item).copy();
 			copy.setId(UUID.randomUUID());
 			copy.setName(Translations.get("action.copy.name", item.getName()));
 			copy.setCreatedDate(Instant.now());
@@ -689,6 +689,13 @@ public final class LibraryList extends BorderPane implements ActionPane {
 	}
 	
 	private CompletableFuture<Void> confirmDelete(List<Persistable> items) {
+		// the dependencies of placeholders aren't known until they're loaded
+		return this.context.getWorkspaceManager().whenHydrated().thenCompose(AsyncHelper.onJavaFXThreadAndWait((v) -> {
+			return this.confirmDeleteLoaded(items);
+		})).thenCompose((f) -> f);
+	}
+	
+	private CompletableFuture<Void> confirmDeleteLoaded(List<Persistable> items) {
 		int n = items.size();
 		if (n > 0) {
 			// collect all dependencies
@@ -811,7 +818,7 @@ public final class LibraryList extends BorderPane implements ActionPane {
 					image = this.context.getImageCache().getOrLoadThumbnail(slide.getId(), slide.getThumbnailPath());
 				} else if (item instanceof Media) {
 					Media media = (Media)item;
-					image = this.context.getImageCache().getOrLoadImage(media.getId(), media.getMediaImagePath());
+					image = this.context.getImageCache().getOrLoadImage(media);
 				}
 			}
 			
@@ -911,11 +918,12 @@ public final class LibraryList extends BorderPane implements ActionPane {
 		    if (value != null && value.getPath() != null) {
 		    	Path path = value.getPath();
 		    	ImportExportFormat format = value.getFormat();
-		    	LOGGER.debug("User selected format '{}' and path '{}' for export of {} items", format, path, n);
+		    	Path base = value.getBase();
+		    	LOGGER.debug("User selected format '{}', path '{}' and base '{}' for export of {} items", format, path, base, n);
 		    	LOGGER.trace("Validating path '{}' (exists and is a regular file)", path);
 		    	if (Files.isRegularFile(path) || !Files.exists(path)) {
 		    		LOGGER.trace("Path '{}' is valid, attempting export", path);
-			    	return this.context.export(items, path, format).exceptionally(t -> {
+			    	return this.context.export(items, path, format, base).exceptionally(t -> {
 		    			// get the root exception
 		    			if (t instanceof CompletionException) {
 		    				t = t.getCause();
@@ -40,6 +40,7 @@ final class BackgroundTaskDetailPane extends VBox {
 	
 	private final BooleanProperty error;
 	private final BooleanProperty complete;
+	private final BooleanProperty cancellable;
 	
 	private final StringProperty name;
 	private final StringProperty operation;
@@ -58,6 +59,7 @@ final class BackgroundTaskDetailPane extends VBox {
 		
 		this.error = new SimpleBooleanProperty();
 		this.complete = new SimpleBooleanProperty();
+		this.cancellable = new SimpleBooleanProperty();
 		
 		this.name = new SimpleStringProperty();
 		this.operation = new SimpleStringProperty();
@@ -72,6 +74,7 @@ final class BackgroundTaskDetailPane extends VBox {
 			
 			this.error.unbind();
 			this.complete.unbind();
+			this.cancellable.unbind();
 			
 			this.name.unbind();
 			this.operation.unbind();
@@ -106,6 +109,7 @@ final class BackgroundTaskDetailPane extends VBox {
 				}, nv.exceptionProperty()));
 				
 				this.complete.bind(nv.completeProperty());
+				this.cancellable.bind(nv.cancellableProperty());
 				
 				this.name.bind(nv.nameProperty());
 				this.operation.bind(nv.operationProperty());
@@ -194,6 +198,21 @@ final class BackgroundTaskDetailPane extends VBox {
 		btnCopy.visibleProperty().bind(this.error);
 		btnCopy.managedProperty().bind(btnCopy.visibleProperty());
 		
+		Button btnCancel = new Button(Translations.get("cancel"));
+		btnCancel.getStyleClass().addAll(Styles.SMALL, Styles.BUTTON_OUTLINED, Styles.ROUNDED);
+		btnCancel.setOnAction(e -> {
+			ReadOnlyBackgroundTask task = this.task.get();
+			if (task != null) {
+				task.cancel();
+				btnCancel.setDisable(true);
+			}
+		});
+		btnCancel.visibleProperty().bind(this.cancellable.and(this.complete.not()));
+		btnCancel.managedProperty().bind(btnCancel.visibleProperty());
+		this.task.addListener((obs, ov, nv) -> {
+			btnCancel.setDisable(nv != null && nv.isCancelRequested());
+		});
+		
 		Label lblErrorMessage = new Label();
 		lblErrorMessage.setWrapText(true);
 		lblErrorMessage.textProperty().bind(this.errorMessage);
@@ -242,7 +261,7 @@ final class BackgroundTaskDetailPane extends VBox {
 		Button btnOperation = new Button();
 		btnOperation.textProperty().bind(this.operation);
 		btnOperation.getStyleClass().addAll(Styles.SMALL, Styles.BUTTON_OUTLINED, Styles.ROUNDED);
-		HBox tags = new HBox(2, btnOperation, btnCopy);
+		HBox tags = new HBox(2, btnOperation, btnCopy, btnCancel);
 		tags.setAlignment(Pos.CENTER_LEFT);
 		
 		HBox footer = new HBox(15, layoutDuration, layoutStatus);
@@ -19,7 +19,7 @@ public final class LibraryPage extends BorderPane implements Page {
 	private final ObservableList<Persistable> items;
 	
 	public LibraryPage(GlobalContext context) {
-		this.items = new FilteredList<>(context.getWorkspaceManager().getItemsUnmodifiable(), (i) -> {
+		this.items = new FilteredList<>(context.getWorkspaceManager().getCatalogUnmodifiable(), (i) -> {
 			return true;
 		});
 		
@@ -278,6 +278,13 @@ public final class SettingsPage extends BorderPane implements Page {
 			configuration.setReorderBibleWarningEnabled(nv);
 		});
 		
+		// bible lazy loading
+		ToggleSwitch tglBibleLazyLoading = new ToggleSwitch();
+		tglBibleLazyLoading.setSelected(configuration.isLazyBibleLoadingEnabled());
+		tglBibleLazyLoading.selectedProperty().addListener((obs, ov, nv) -> {
+			configuration.setLazyBibleLoadingEnabled(nv);
+		});
+		
 		// debug mode
 		ToggleSwitch tglDebugMode = new ToggleSwitch();
 		tglDebugMode.setSelected(configuration.isDebugModeEnabled());
@@ -344,7 +351,10 @@ public final class SettingsPage extends BorderPane implements Page {
 		Tile tleBibleReorderWarning = new Tile(Translations.get("settings.bible.reorderWarning"), Translations.get("settings.bible.reorderWarning.description"));
 		tleBibleReorderWarning.setAction(tglBibleReorderWarning);
 		tleBibleReorderWarning.setActionHandler(tglBibleReorderWarning::fire);
-		VBox boxBible = new VBox(lblBible, new Separator(Orientation.HORIZONTAL), tleBibleRenumberWarning, tleBibleReorderWarning);
+		Tile tleBibleLazyLoading = new Tile(Translations.get("settings.bible.lazyLoading"), Translations.get("settings.bible.lazyLoading.description"));
+		tleBibleLazyLoading.setAction(tglBibleLazyLoading);
+		tleBibleLazyLoading.setActionHandler(tglBibleLazyLoading::fire);
+		VBox boxBible = new VBox(lblBible, new Separator(Orientation.HORIZONTAL), tleBibleRenumberWarning, tleBibleReorderWarning, tleBibleLazyLoading);
 
 		Label lblMedia = new Label(Translations.get("settings.media"));
 		lblMedia.getStyleClass().add(Styles.TITLE_3);
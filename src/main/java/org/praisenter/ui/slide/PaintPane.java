@@ -383,7 +383,7 @@ final class PaintPane extends StackPane implements Playable {
 	}
 	
 	private final Background createBackground(Media media, ScaleType scale, boolean repeat) {
-		Image image = this.context.getImageCache().getOrLoadImage(media.getId(), media.getMediaImagePath());
+		Image image = this.context.getImageCache().getOrLoadImage(media);
 		if (image != null) {
 			if (repeat && media.getMediaType() == MediaType.IMAGE) {
 				return new Background(new BackgroundImage(
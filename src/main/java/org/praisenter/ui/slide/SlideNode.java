@@ -1,5 +1,9 @@
 package org.praisenter.ui.slide;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import org.praisenter.data.slide.Slide;
 import org.praisenter.data.slide.SlideComponent;
 import org.praisenter.data.slide.media.MediaComponent;
@@ -8,7 +12,10 @@ import org.praisenter.ui.GlobalContext;
 import org.praisenter.ui.Playable;
 import org.praisenter.ui.bind.MappedList;
 
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
+import javafx.beans.value.ObservableBooleanValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.layout.Pane;
@@ -94,6 +101,57 @@ final class SlideNode extends SlideRegionNode<Slide> implements Playable {
 		return true;
 	}
 	
+	/**
+	 * Returns a future that completes when all the media for this slide is ready.
+	 * <p>
+	 * This method must be called on the Java FX thread. The future is completed
+	 * from the Java FX thread by the media players' status changes, so no thread
+	 * is needed to wait on it. Completing the future externally (for example, by
+	 * a timeout) releases the listeners.
+	 * @return CompletableFuture&lt;Void&gt;
+	 */
+	public CompletableFuture<Void> whenReady() {
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		if (this.isReady()) {
+			future.complete(null);
+			return future;
+		}
+		
+		List<ObservableBooleanValue> observables = new ArrayList<>();
+		observables.add(this.background.mediaReadyProperty());
+		for (SlideComponentNode<?> sc : this.mappingUnmodifiable) {
+			observables.add(sc.background.mediaReadyProperty());
+			if (sc instanceof MediaComponentNode) {
+				observables.add(((MediaComponentNode)sc).media.mediaReadyProperty());
+			}
+		}
+		
+		InvalidationListener listener = (obs) -> {
+			// isReady re-validates each property so we keep getting notified
+			if (this.isReady()) {
+				future.complete(null);
+			}
+		};
+		for (ObservableBooleanValue observable : observables) {
+			observable.addListener(listener);
+		}
+		
+		future.whenComplete((v, t) -> {
+			Runnable remove = () -> {
+				for (ObservableBooleanValue observable : observables) {
+					observable.removeListener(listener);
+				}
+			};
+			if (Platform.isFxApplicationThread()) {
+				remove.run();
+			} else {
+				Platform.runLater(remove);
+			}
+		});
+		
+		return future;
+	}
+	
 	public ObservableList<SlideComponentNode<?>> getSlideComponentNodesUnmodifiable() {
 		return this.mappingUnmodifiable;
 	}
@@ -1,22 +1,27 @@
 package org.praisenter.ui.slide;
 
-import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.praisenter.async.AsyncHelper;
+import org.praisenter.data.TextItem;
 import org.praisenter.data.TextStore;
+import org.praisenter.data.TextType;
+import org.praisenter.data.TextVariant;
 import org.praisenter.data.media.Media;
 import org.praisenter.data.media.MediaType;
 import org.praisenter.data.slide.Slide;
@@ -86,6 +91,13 @@ public class SlideView extends Region implements Playable {
 	
 	private Transition currentTransition;
 	
+	// the slide that's expected next (see prerender)
+	
+	private Slide prerenderedSlide;
+	private TextStore prerenderedData;
+	private SlideMode prerenderedMode;
+	private CompletableFuture<PreparedSlide> prerendered;
+	
 	public SlideView(GlobalContext context) {
 		this.context = context;
 		
@@ -283,6 +295,7 @@ public class SlideView extends Region implements Playable {
 		
 		this.slide.set(null);
 		this.requests.clear();
+		this.discardPrerendered();
 	}
 	
 	/**
@@ -331,8 +344,14 @@ public class SlideView extends Region implements Playable {
 	 * @return
 	 */
 	private CompletableFuture<Void> prepareThenRender(Slide slide, TextStore data, boolean transition) {
+		// use the pre-rendered slide if it's the one being rendered
+		CompletableFuture<PreparedSlide> future = this.takePrerendered(slide, data);
+		if (future == null) {
+			future = this.prepare(slide, data);
+		}
+		
 		// handle new display
-		return this.prepare(slide, data).thenAccept((prepared) -> {
+		return future.thenAccept((prepared) -> {
 			LOGGER.trace("Slide '{}' is prepared", slide);
 			// at this point we need to know whether this one is old
 			// before attempting to present it
@@ -861,10 +880,120 @@ public class SlideView extends Region implements Playable {
 	
 	// slide preparation (preloading)
 	
+	/**
+	 * Prepares the given slide in the background so that, if it's the next slide
+	 * passed to {@link #render(Slide, TextStore, boolean)}, rendering it is only a
+	 * node swap or transition.
+	 * <p>
+	 * Only the most recently pre-rendered slide is kept.  Like render, the given
+	 * slide and data will be used as-is.
+	 * @param slide the slide expected next
+	 * @param data the data expected next
+	 */
+	public void prerender(Slide slide, TextStore data) {
+		if (slide == null) {
+			return;
+		}
+		
+		if (this.isPrerendered(slide, data)) {
+			LOGGER.trace("Slide '{}' is already pre-rendered", slide);
+			return;
+		}
+		
+		this.discardPrerendered();
+		
+		LOGGER.debug("Pre-rendering slide '{}'", slide);
+		this.prerenderedSlide = slide;
+		this.prerenderedData = data;
+		this.prerenderedMode = this.mode.get();
+		this.prerendered = this.prepare(slide, data);
+	}
+	
+	/**
+	 * Returns the pre-rendered slide (stamped with the current time) if it matches
+	 * the given slide and data, otherwise null.
+	 */
+	private CompletableFuture<PreparedSlide> takePrerendered(Slide slide, TextStore data) {
+		if (!this.isPrerendered(slide, data)) {
+			this.discardPrerendered();
+			return null;
+		}
+		
+		LOGGER.debug("Using pre-rendered slide '{}'", slide);
+		final Instant time = Instant.now();
+		CompletableFuture<PreparedSlide> future = this.prerendered.thenApply((ps) -> {
+			if (ps == null) return null;
+			return new PreparedSlide(ps.getSlide(), ps.getData(), ps.getNode(), time);
+		});
+		
+		this.prerenderedSlide = null;
+		this.prerenderedData = null;
+		this.prerenderedMode = null;
+		this.prerendered = null;
+		
+		return future;
+	}
+	
+	private void discardPrerendered() {
+		CompletableFuture<PreparedSlide> future = this.prerendered;
+		if (future != null) {
+			future.thenAccept((ps) -> {
+				if (ps != null) {
+					Platform.runLater(() -> ps.getNode().dispose());
+				}
+			});
+		}
+		
+		this.prerenderedSlide = null;
+		this.prerenderedData = null;
+		this.prerenderedMode = null;
+		this.prerendered = null;
+	}
+	
+	private boolean isPrerendered(Slide slide, TextStore data) {
+		Slide other = this.prerenderedSlide;
+		if (this.prerendered == null || other == null || slide == null) {
+			return false;
+		}
+		
+		return this.prerenderedMode == this.mode.get() &&
+			   other.getId().equals(slide.getId()) &&
+			   Objects.equals(other.getModifiedDate(), slide.getModifiedDate()) &&
+			   other.getWidth() == slide.getWidth() &&
+			   other.getHeight() == slide.getHeight() &&
+			   isSameText(this.prerenderedData, data);
+	}
+	
+	private static boolean isSameText(TextStore a, TextStore b) {
+		if (a == b) return true;
+		if (a == null || b == null) return false;
+		for (TextVariant variant : TextVariant.values()) {
+			Map<TextType, TextItem> at = a.get(variant);
+			Map<TextType, TextItem> bt = b.get(variant);
+			if (at == null || bt == null) {
+				if (at != bt) return false;
+				continue;
+			}
+			if (at.size() != bt.size()) return false;
+			for (Entry<TextType, TextItem> entry : at.entrySet()) {
+				TextItem ai = entry.getValue();
+				TextItem bi = bt.get(entry.getKey());
+				if (ai == null || bi == null) {
+					if (ai != bi) return false;
+					continue;
+				}
+				if (!Objects.equals(ai.getText(), bi.getText()) || ai.getFontSize() != bi.getFontSize()) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
 	private CompletableFuture<PreparedSlide> prepare(Slide slide, TextStore data) {
 		Instant time = Instant.now();
 		LOGGER.trace("Preparing slide '{}' for view", slide);
-		Map<UUID, Path> mediaToLoad = this.getImagesToPreLoad(slide);
+		List<Media> mediaToLoad = this.getImagesToPreLoad(slide);
 		LOGGER.trace("Found {} images to preload", mediaToLoad.size());
 		
 		CompletableFuture<PreparedSlide> future;
@@ -884,11 +1013,8 @@ public class SlideView extends Region implements Playable {
 				LOGGER.trace("Slide '{}' is ready for view", slide);
 				future = CompletableFuture.completedFuture(new PreparedSlide(slide, data, slideNode, time));
 			} else {
-				// otherwise, we have to go into another thread to wait for media to spool
-				future = CompletableFuture.completedFuture(slideNode).thenRunAsync(() -> {
-					// then on a thread-pool thread, wait for the media to be ready
-					this.waitForMediaReady(slideNode);
-				}).thenComposeAsync(AsyncHelper.onJavaFXThreadAndWait((v) -> {
+				// otherwise, wait for the media players to signal they are ready
+				future = this.waitForMediaReady(slideNode).thenComposeAsync(AsyncHelper.onJavaFXThreadAndWait((v) -> {
 					// then on the JavaFX thread, add to the prepared SlideNode to the
 					// prepared queue and signal it's ready
 					LOGGER.trace("Slide '{}' is ready for view", slide);
@@ -919,10 +1045,8 @@ public class SlideView extends Region implements Playable {
 						LOGGER.trace("Slide '{}' is ready for view", slide);
 						ps.complete(new PreparedSlide(slide, data, slideNode, time));
 					} else {
-						CompletableFuture.completedFuture(slideNode).thenRunAsync(() -> {
-							// then on a thread-pool thread, wait for the media to be ready
-							this.waitForMediaReady(slideNode);
-						}).thenComposeAsync(AsyncHelper.onJavaFXThreadAndWait(() -> {
+						// wait for the media players to signal they are ready
+						this.waitForMediaReady(slideNode).thenComposeAsync(AsyncHelper.onJavaFXThreadAndWait(() -> {
 							// then on the JavaFX thread, add to the prepared SlideNode to the
 							// prepared queue and signal it's ready
 							LOGGER.trace("Slide '{}' is ready for view", slide);
@@ -943,23 +1067,23 @@ public class SlideView extends Region implements Playable {
 	}
 	
 	
-	private Map<UUID, Path> getImagesToPreLoad(Slide slide) {
+	private List<Media> getImagesToPreLoad(Slide slide) {
 		final Set<UUID> mediaIds = slide.getReferencedMedia();
-		final Map<UUID, Path> mediaToLoad = new HashMap<>();
+		final List<Media> mediaToLoad = new ArrayList<>();
 		
 		LOGGER.trace("Checking for media that hasn't been loaded");
 		for (UUID mediaId : mediaIds) {
 			Media media = this.context.getWorkspaceManager().getItem(Media.class, mediaId);
 			if (media != null) {
 				if (media.getMediaType() == MediaType.IMAGE) {
-					if (!this.context.getImageCache().isImageCached(mediaId)) {
+					if (!this.context.getImageCache().isImageCached(media)) {
 						LOGGER.trace("Image media '{}' has not been loaded yet", media.getName());
-						mediaToLoad.put(media.getId(), media.getMediaPath());
+						mediaToLoad.add(media);
 					}
 				} else if (media.getMediaType() == MediaType.VIDEO && this.mode.get() != SlideMode.PRESENT) {
-					if (!this.context.getImageCache().isImageCached(mediaId)) {
+					if (!this.context.getImageCache().isImageCached(media)) {
 						LOGGER.trace("Video media image '{}' has not been loaded yet", media.getName());
-						mediaToLoad.put(media.getId(), media.getMediaImagePath());
+						mediaToLoad.add(media);
 					}
 				}
 			}
@@ -969,12 +1093,12 @@ public class SlideView extends Region implements Playable {
 	}
 	
 	
-	private void preLoadImages(Map<UUID, Path> mediaToLoad) {
+	private void preLoadImages(List<Media> mediaToLoad) {
 		if (mediaToLoad.size() > 0) {
 			LOGGER.trace("Loading {} images", mediaToLoad.size());
-			for (var entry : mediaToLoad.entrySet()) {
-				LOGGER.trace("Loading media '{}'", entry.getValue());
-				this.context.getImageCache().getOrLoadImage(entry.getKey(), entry.getValue());
+			for (Media media : mediaToLoad) {
+				LOGGER.trace("Loading media '{}'", media.getMediaImagePath());
+				this.context.getImageCache().getOrLoadImage(media);
 			}
 		} else {
 			LOGGER.trace("No media to load, returning");
@@ -995,28 +1119,19 @@ public class SlideView extends Region implements Playable {
 	}
 	
 	
-	private void waitForMediaReady(SlideNode node) {
-		int waitTimeInMS = 0;
-		final int waitTimeIncrementInMS = 100;
-		final int maxWaitTimeInMS = 5 * 1000;
+	private CompletableFuture<Void> waitForMediaReady(SlideNode node) {
+		final int timeout = Math.max(0, this.context.getWorkspaceConfiguration().getMediaReadyTimeout());
+		final long start = System.nanoTime();
 		
 		LOGGER.trace("Staring wait for media players");
-		while (!node.isReady()) {
-			try {
-				Thread.sleep(waitTimeIncrementInMS);
-				waitTimeInMS += waitTimeIncrementInMS;
-			} catch (InterruptedException e) {
-				LOGGER.error("The thread waiting for media players to get ready was interrupted", e);
-				break;
-			}
-			
-			if (waitTimeInMS >= maxWaitTimeInMS) {
-				LOGGER.warn("Waiting for media to get ready took too long {} ms", waitTimeInMS);
-				break;
+		return node.whenReady().orTimeout(timeout, TimeUnit.MILLISECONDS).handle((v, t) -> {
+			if (t != null) {
+				LOGGER.warn("Waiting for media to get ready took too long {} ms", timeout);
+			} else {
+				LOGGER.trace("Media players are ready in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
 			}
-		}
-			
-		LOGGER.trace("Media players are ready!");
+			return null;
+		});
 	}
 	
 	// properties
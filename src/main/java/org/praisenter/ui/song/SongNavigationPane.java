@@ -19,8 +19,10 @@ import org.praisenter.ui.translations.Translations;
 
 import atlantafx.base.controls.CustomTextField;
 import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
@@ -57,6 +59,7 @@ public final class SongNavigationPane extends VBox {
 	// value
 
 	private final ObjectProperty<SongReferenceTextStore> value;
+	private final ObjectProperty<SongReferenceTextStore> next;
 	
 	private final ObservableList<Node> sectionsToNodesMapping;
 	
@@ -72,6 +75,7 @@ public final class SongNavigationPane extends VBox {
 		this.lyrics = FXCollections.observableArrayList();
 		this.sections = FXCollections.observableArrayList();
 		this.value = new SimpleObjectProperty<SongReferenceTextStore>(new SongReferenceTextStore());
+		this.next = new SimpleObjectProperty<SongReferenceTextStore>();
 
 		this.lyricsWithEmptyOption = new EmptyItemList<ReadOnlyLyrics>(this.lyrics, EMPTY_LYRICS);
 		
@@ -122,33 +126,19 @@ public final class SongNavigationPane extends VBox {
 			btnSection.setTooltip(tooltip);
 			btnSection.setOnAction((e) -> {
 				this.mutating = true;
-				SongReferenceTextStore text = new SongReferenceTextStore();
-				text.setVariant(TextVariant.PRIMARY, new SongReferenceVerse(
-						this.song.get().getId(), 
-						cmbPrimaryLyrics.getValue().getId(),
-						section.getId(),
-						cmbPrimaryLyrics.getValue().getTitle(),
-						section.getName(),
-						section.getText()));
-				ReadOnlyLyrics secondary = cmbSecondaryLyrics.getValue();
-				if (secondary != null) {
-					// try to find the secondary section based on the first
-					ReadOnlySection secondarySection = secondary.getSectionByName(section.getName());
-					if (secondarySection != null) {
-						text.setVariant(TextVariant.SECONDARY, new SongReferenceVerse(
-								this.song.get().getId(), 
-								secondary.getId(), 
-								secondarySection.getId(),
-								secondary.getTitle(),
-								secondarySection.getName(),
-								secondarySection.getText()));
-					}
-				}
-				this.value.set(text);
+				this.value.set(this.createValue(cmbPrimaryLyrics.getValue(), cmbSecondaryLyrics.getValue(), section));
 				this.mutating = false;
 			});
 			return btnSection;
 		});
+		
+		// keep the next section up to date so it can be prepared ahead of time
+		InvalidationListener nextListener = (obs) -> {
+			this.next.set(this.getNextValue(cmbPrimaryLyrics.getValue(), cmbSecondaryLyrics.getValue()));
+		};
+		this.value.addListener(nextListener);
+		this.sections.addListener(nextListener);
+		cmbSecondaryLyrics.valueProperty().addListener(nextListener);
 
 		TextArea txtDescription = new TextArea();
 		txtDescription.setEditable(false);
@@ -335,4 +325,60 @@ public final class SongNavigationPane extends VBox {
 	public ObjectProperty<SongReferenceTextStore> valueProperty() {
 		return this.value;
 	}
+	
+	public SongReferenceTextStore getNext() {
+		return this.next.get();
+	}
+	
+	public ReadOnlyObjectProperty<SongReferenceTextStore> nextProperty() {
+		return this.next;
+	}
+	
+	private SongReferenceTextStore createValue(ReadOnlyLyrics primary, ReadOnlyLyrics secondary, ReadOnlySection section) {
+		SongReferenceTextStore text = new SongReferenceTextStore();
+		text.setVariant(TextVariant.PRIMARY, new SongReferenceVerse(
+				this.song.get().getId(), 
+				primary.getId(),
+				section.getId(),
+				primary.getTitle(),
+				section.getName(),
+				section.getText()));
+		if (secondary != null) {
+			// try to find the secondary section based on the first
+			ReadOnlySection secondarySection = secondary.getSectionByName(section.getName());
+			if (secondarySection != null) {
+				text.setVariant(TextVariant.SECONDARY, new SongReferenceVerse(
+						this.song.get().getId(), 
+						secondary.getId(), 
+						secondarySection.getId(),
+						secondary.getTitle(),
+						secondarySection.getName(),
+						secondarySection.getText()));
+			}
+		}
+		return text;
+	}
+	
+	/**
+	 * Returns the value for the section after the current one or null if
+	 * there isn't one.
+	 */
+	private SongReferenceTextStore getNextValue(ReadOnlyLyrics primary, ReadOnlyLyrics secondary) {
+		SongReferenceTextStore current = this.value.get();
+		if (current == null || primary == null || this.song.get() == null) {
+			return null;
+		}
+		
+		SongReferenceVerse verse = current.getVariant(TextVariant.PRIMARY);
+		if (verse == null || !primary.getId().equals(verse.getLyricsId())) {
+			return null;
+		}
+		
+		for (int i = 0; i < this.sections.size() - 1; i++) {
+			if (this.sections.get(i).getId().equals(verse.getSectionId())) {
+				return this.createValue(primary, secondary, this.sections.get(i + 1));
+			}
+		}
+		return null;
+	}
 }
@@ -0,0 +1,81 @@
+package org.praisenter.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+public final class Archives {
+	private static final Logger LOGGER = LogManager.getLogger();
+	
+	private Archives() {}
+	
+	/**
+	 * Handles a single zip entry.
+	 */
+	@FunctionalInterface
+	public static interface EntryHandler {
+		public void handle(ZipFile zipFile, ZipArchiveEntry entry) throws IOException;
+	}
+	
+	/**
+	 * Calls the given handler for each readable file entry in the given zip.
+	 * <p>
+	 * Each entry's contents can be streamed (as many times as needed) using
+	 * {@link ZipFile#getInputStream(ZipArchiveEntry)}.
+	 * @param zip the zip file
+	 * @param handler the entry handler
+	 * @throws IOException if an IO error occurs
+	 */
+	public static final void forEachEntry(Path zip, EntryHandler handler) throws IOException {
+		// JAVABUG (L) 11/01/23 [workaround] Native java.util.zip package can't support zips 4GB or bigger or elements 2GB or bigger
+        try (ZipFile zipFile = ZipFile.builder().setPath(zip).get()) {
+        	Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
+        	while (entries.hasMoreElements()) {
+        		ZipArchiveEntry entry = entries.nextElement();
+        		
+        		if (entry.isDirectory()) 
+        			continue;
+        		
+        		if (!zipFile.canReadEntryData(entry)) {
+        			LOGGER.warn("Unable to read entry '{}'. This is usually caused by encryption or an unsupported compression algorithm.", entry.getName());
+        			continue;
+        		}
+        		
+        		handler.handle(zipFile, entry);
+        	}
+        }
+	}
+	
+	/**
+	 * Writes the given stream to the given file, replacing it if it exists.
+	 * <p>
+	 * The stream is handed to the file's channel rather than copied through
+	 * a byte array.  The stream is closed when this method returns.
+	 * @param stream the stream
+	 * @param target the file
+	 * @return long the number of bytes written
+	 * @throws IOException if an IO error occurs
+	 */
+	public static final long transfer(InputStream stream, Path target) throws IOException {
+		try (ReadableByteChannel source = Channels.newChannel(stream);
+			 FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long position = 0;
+			long transferred;
+			// transferFrom only returns zero once the stream is exhausted
+			while ((transferred = channel.transferFrom(source, position, Long.MAX_VALUE - position)) > 0) {
+				position += transferred;
+			}
+			return position;
+		}
+	}
+}
@@ -2,12 +2,18 @@ package org.praisenter.utility;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.praisenter.Constants;
+import org.praisenter.ThrowableConsumer;
 
 public final class CommandLine {
 	private static final Logger LOGGER = LogManager.getLogger();
@@ -23,6 +29,24 @@ public final class CommandLine {
 	 * @throws CommandLineExecutionException if the tool returned an exit code of something other than zero
 	 */
 	public static final String execute(List<String> command) throws IOException, InterruptedException, CommandLineExecutionException {
+		return execute(command, null, null);
+	}
+	
+	/**
+	 * Executes the given command, waits for it to complete, and returns the console output.
+	 * <p>
+	 * The started callback is given the process as soon as it's started so that it can be
+	 * destroyed by another thread. The output callback is called for each line of console 
+	 * output as it's read.
+	 * @param command the command
+	 * @param started called when the process is started; can be null
+	 * @param output called for each line of output; can be null
+	 * @return String
+	 * @throws IOException if an IO error occurs
+	 * @throws InterruptedException if the waiting is interrupted
+	 * @throws CommandLineExecutionException if the tool returned an exit code of something other than zero
+	 */
+	public static final String execute(List<String> command, Consumer<Process> started, Consumer<String> output) throws IOException, InterruptedException, CommandLineExecutionException {
 		// remove empty list elements because of 
 		// https://bugs.java.com/bugdatabase/view_bug.do?bug_id=JDK-8268939
 		command.removeIf(s -> s == null || s.isBlank() || s.isEmpty());
@@ -35,6 +59,9 @@ public final class CommandLine {
 		try {
 			LOGGER.info("Starting process with command: " + String.join(" ", command));
 			process = pb.start();
+			if (started != null) {
+				started.accept(process);
+			}
 			LOGGER.info("Waiting for process to complete...");
 			
 			// we must read the input streams otherwise they fill up
@@ -46,6 +73,9 @@ public final class CommandLine {
 	        // executable completes or encounters an error
 	        while((line = input.readLine()) != null) {
 	            s.append(line).append(Constants.NEW_LINE);
+	            if (output != null) {
+	            	output.accept(line);
+	            }
 	        }
 	        
         	// just in case i guess
@@ -74,4 +104,93 @@ public final class CommandLine {
 			}
 		}
 	}
+	
+	/**
+	 * Executes the given command, passes the standard output stream to the given consumer, waits 
+	 * for it to complete, and returns the error output.
+	 * <p>
+	 * Use this method when the standard output is binary data (for example, raw video frames). The 
+	 * error output is read on a dedicated daemon thread so that neither stream fills up (and so that 
+	 * a long running process doesn't hold a thread of a shared pool).
+	 * @param command the command
+	 * @param started called when the process is started; can be null
+	 * @param error called for each line of error output; can be null
+	 * @param output called with the standard output stream
+	 * @return String
+	 * @throws IOException if an IO error occurs
+	 * @throws InterruptedException if the waiting is interrupted
+	 * @throws CommandLineExecutionException if the tool returned an exit code of something other than zero
+	 */
+	public static final String execute(List<String> command, Consumer<Process> started, Consumer<String> error, ThrowableConsumer<InputStream> output) throws IOException, InterruptedException, CommandLineExecutionException {
+		// remove empty list elements because of 
+		// https://bugs.java.com/bugdatabase/view_bug.do?bug_id=JDK-8268939
+		command.removeIf(s -> s == null || s.isBlank() || s.isEmpty());
+		
+		// run the command
+		ProcessBuilder pb = new ProcessBuilder(command);
+		Process process = null;
+		
+		try {
+			LOGGER.info("Starting process with command: " + String.join(" ", command));
+			process = pb.start();
+			if (started != null) {
+				started.accept(process);
+			}
+			LOGGER.info("Waiting for process to complete...");
+			
+			// read the error stream on its own thread
+			final InputStream es = process.getErrorStream();
+			final FutureTask<String> errorOutput = new FutureTask<>(() -> {
+				StringBuilder s = new StringBuilder();
+				try (BufferedReader input = new BufferedReader(new InputStreamReader(es))) {
+					String line = null;
+					while((line = input.readLine()) != null) {
+						s.append(line).append(Constants.NEW_LINE);
+						if (error != null) {
+							error.accept(line);
+						}
+					}
+				} catch (IOException e) {
+					LOGGER.warn("Failed to read process error stream: " + e.getMessage());
+				}
+				return s.toString();
+			});
+			Thread reader = new Thread(errorOutput, "process-error-reader");
+			reader.setDaemon(true);
+			reader.start();
+			
+			try (InputStream is = process.getInputStream()) {
+				output.accept(is);
+				// drain anything the consumer didn't read so the process can exit
+				is.transferTo(OutputStream.nullOutputStream());
+			} catch (IOException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IOException(e);
+			}
+			
+			int exitCode = process.waitFor();
+			LOGGER.info("Process completed with exitcode = " + exitCode);
+			
+			String message = null;
+			try {
+				message = errorOutput.get();
+			} catch (ExecutionException e) {
+				throw new IOException(e.getCause());
+			}
+			
+			// check the exit code
+			if (exitCode != 0) {
+				LOGGER.error(message);
+				throw new CommandLineExecutionException(exitCode, message);
+			}
+			
+			return message;
+		} finally {
+			// always try to clean up the process
+			if (process != null) {
+				process.destroy();
+			}
+		}
+	}
 }
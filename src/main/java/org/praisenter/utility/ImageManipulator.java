@@ -6,6 +6,7 @@ import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
+import java.awt.image.DataBufferByte;
 
 import com.twelvemonkeys.image.ResampleOp;
 
@@ -21,8 +22,25 @@ public final class ImageManipulator {
 	 * @see <a href="http://stackoverflow.com/questions/21205871/java-bufferedimage-get-single-pixel-brightness">Log Average Luminance</a>
 	 */
 	public static double getLogAverageLuminance(BufferedImage image) {
-		long pixels = image.getWidth() * image.getHeight();
+		long pixels = (long)image.getWidth() * image.getHeight();
 		float total = 0;
+		
+		// read the bytes directly for the raw video frame layout rather than converting each pixel
+		if (image.getType() == BufferedImage.TYPE_3BYTE_BGR && image.getRaster().getParent() == null && image.getRaster().getDataBuffer() instanceof DataBufferByte) {
+			byte[] data = ((DataBufferByte)image.getRaster().getDataBuffer()).getData();
+			for (int i = 0; i + 2 < data.length; i += 3) {
+				int blue  = data[i] & 0xFF;
+				int green = data[i + 1] & 0xFF;
+				int red   = data[i + 2] & 0xFF;
+				
+				// calc luminance in range 0.0 to 1.0; using SRGB luminance constants
+				float luminance = (red * 0.2126f + green * 0.7152f + blue * 0.0722f) / 255;
+				
+				total += luminance;
+			}
+			return total / pixels;
+		}
+		
 		//http://stackoverflow.com/questions/21205871/java-bufferedimage-get-single-pixel-brightness
 		for (int i = 0; i < image.getHeight(); i++) {
 			for (int j = 0; j < image.getWidth(); j++) {
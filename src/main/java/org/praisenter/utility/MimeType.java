@@ -26,6 +26,10 @@ public enum MimeType {
 	private static final Logger LOGGER = LogManager.getLogger();
 	private static final Tika TIKA = new Tika();
 	
+	/** The maximum number of file mime types to remember */
+	private static final int CACHE_SIZE = 4096;
+	private static final MimeTypeCache CACHE = new MimeTypeCache(CACHE_SIZE);
+	
 	/**
 	 * Attempts to reconcile the mime types detected by Tika and mime.types.
 	 * <p>
@@ -60,6 +64,27 @@ public enum MimeType {
 	 * @return String
 	 */
 	public static final String get(Path path) {
+		// the result is cached until the file's size or modified time changes
+		return CACHE.get(path, MimeType::detect);
+	}
+	
+	/**
+	 * Returns the number of times {@link #get(Path)} was answered from the cache.
+	 * @return long
+	 */
+	public static final long getCacheHitCount() {
+		return CACHE.getHitCount();
+	}
+	
+	/**
+	 * Returns the number of times {@link #get(Path)} had to detect the mime type.
+	 * @return long
+	 */
+	public static final long getCacheMissCount() {
+		return CACHE.getMissCount();
+	}
+	
+	private static final String detect(Path path) {
 		// get the mime type based on the mime.types mapping
 		FileTypeMap map = MimetypesFileTypeMap.getDefaultFileTypeMap();
 		String mime = map.getContentType(path.toString());
@@ -0,0 +1,111 @@
+package org.praisenter.utility;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded, thread safe cache of detected mime types.
+ * <p>
+ * Entries are keyed by the file path and are only used while the file's size and
+ * last modified time match what they were when the type was detected.  When the cache
+ * is full an arbitrary portion of the entries is dropped.
+ */
+final class MimeTypeCache {
+	private final int maximumSize;
+	private final ConcurrentMap<Path, Entry> entries;
+	private final LongAdder hits;
+	private final LongAdder misses;
+	
+	private static final class Entry {
+		private final long size;
+		private final long modified;
+		private final String mimeType;
+		
+		public Entry(long size, long modified, String mimeType) {
+			this.size = size;
+			this.modified = modified;
+			this.mimeType = mimeType;
+		}
+	}
+	
+	public MimeTypeCache(int maximumSize) {
+		this.maximumSize = maximumSize;
+		this.entries = new ConcurrentHashMap<>();
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+	}
+	
+	/**
+	 * Returns the cached mime type for the given file or detects it using the
+	 * given function and caches the result.
+	 * @param path the file
+	 * @param detector the mime type detector
+	 * @return String
+	 */
+	public String get(Path path, Function<Path, String> detector) {
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (IOException ex) {
+			// doesn't exist or can't be read, so just detect it
+			this.misses.increment();
+			return detector.apply(path);
+		}
+		
+		Path key = path.toAbsolutePath().normalize();
+		long size = attributes.size();
+		long modified = attributes.lastModifiedTime().toMillis();
+		
+		Entry entry = this.entries.get(key);
+		if (entry != null && entry.size == size && entry.modified == modified) {
+			this.hits.increment();
+			return entry.mimeType;
+		}
+		
+		this.misses.increment();
+		String mimeType = detector.apply(path);
+		if (mimeType != null) {
+			this.makeRoom();
+			this.entries.put(key, new Entry(size, modified, mimeType));
+		}
+		return mimeType;
+	}
+	
+	private void makeRoom() {
+		if (this.entries.size() < this.maximumSize) {
+			return;
+		}
+		
+		// drop about a quarter of the entries
+		int remove = Math.max(1, this.maximumSize / 4);
+		Iterator<Path> it = this.entries.keySet().iterator();
+		while (remove > 0 && it.hasNext()) {
+			it.next();
+			it.remove();
+			remove--;
+		}
+	}
+	
+	public void clear() {
+		this.entries.clear();
+	}
+	
+	public int size() {
+		return this.entries.size();
+	}
+	
+	public long getHitCount() {
+		return this.hits.sum();
+	}
+	
+	public long getMissCount() {
+		return this.misses.sum();
+	}
+}
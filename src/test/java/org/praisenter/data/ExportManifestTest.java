@@ -0,0 +1,142 @@
+package org.praisenter.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.praisenter.data.json.JsonIO;
+
+/**
+ * Tests the incremental export manifest, in particular that an incremental
+ * export of a selection doesn't remove the items that weren't selected.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ */
+public class ExportManifestTest {
+	@TempDir
+	Path temp;
+
+	/** A stand in for the workspace: item id to hash */
+	private final Map<UUID, String> workspace = new HashMap<>();
+
+	private UUID createItem(String hash) {
+		UUID id = UUID.randomUUID();
+		this.workspace.put(id, hash);
+		return id;
+	}
+
+	/**
+	 * Writes an export of the given items with its manifest (only the manifest
+	 * is needed to restore the removed items).
+	 */
+	private Path export(String name, List<UUID> selection, Path base) throws Exception {
+		ExportManifest baseManifest = base != null ? ExportManifest.read(base) : null;
+		ExportManifest manifest = new ExportManifest(baseManifest);
+		for (UUID id : selection) {
+			manifest.add(baseManifest, id, Instant.now(), this.workspace.get(id));
+		}
+		manifest.computeRemoved(baseManifest, this.workspace.keySet());
+
+		// make sure the created dates are ordered
+		Thread.sleep(2);
+
+		Path path = this.temp.resolve(name);
+		try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			 ZipExport export = new ZipExport(zos, (p) -> {})) {
+			export.addEntry(Paths.get(ExportManifest.FILE_NAME), (stream) -> JsonIO.write(stream, manifest));
+			export.finish();
+		}
+		return path;
+	}
+
+	/**
+	 * Applies the removals of the given exports, in order, to a copy of the
+	 * workspace the same way a restore does.
+	 */
+	private Set<UUID> restore(Path... exports) throws IOException {
+		Set<UUID> restored = new LinkedHashSet<>();
+		for (Path path : exports) {
+			ExportManifest manifest = ExportManifest.read(path);
+			assertNotNull(manifest);
+			restored.addAll(manifest.getChanged());
+			restored.removeAll(manifest.getRemoved());
+		}
+		return restored;
+	}
+
+	@Test
+	public void subsetIncrementalExportDoesNotRemoveOtherItems() throws Exception {
+		UUID a = this.createItem("a1");
+		UUID b = this.createItem("b1");
+		UUID c = this.createItem("c1");
+
+		Path full = this.export("full.zip", List.of(a, b, c), null);
+
+		// change one item and export only it
+		this.workspace.put(a, "a2");
+		Path incremental = this.export("incremental.zip", List.of(a), full);
+
+		ExportManifest manifest = ExportManifest.read(incremental);
+		assertFalse(manifest.isFull());
+		assertEquals(Set.of(a), manifest.getChanged());
+		assertTrue(manifest.getRemoved().isEmpty());
+
+		// the unselected items are carried forward for the next export
+		assertEquals(3, manifest.getItems().size());
+
+		assertEquals(Set.of(a, b, c), this.restore(full, incremental));
+	}
+
+	@Test
+	public void deletedItemIsRemoved() throws Exception {
+		UUID a = this.createItem("a1");
+		UUID b = this.createItem("b1");
+		UUID c = this.createItem("c1");
+
+		Path full = this.export("full.zip", List.of(a, b, c), null);
+
+		// delete an item and export a selection that doesn't include it
+		this.workspace.remove(c);
+		Path incremental = this.export("incremental.zip", List.of(a), full);
+
+		ExportManifest manifest = ExportManifest.read(incremental);
+		assertTrue(manifest.getChanged().isEmpty());
+		assertEquals(Set.of(c), manifest.getRemoved());
+
+		assertEquals(Set.of(a, b), this.restore(full, incremental));
+	}
+
+	@Test
+	public void chainedSubsetExportsKeepUnselectedItems() throws Exception {
+		UUID a = this.createItem("a1");
+		UUID b = this.createItem("b1");
+
+		Path full = this.export("full.zip", List.of(a, b), null);
+		Path first = this.export("first.zip", List.of(a), full);
+
+		// b wasn't in the first incremental export but it's still unchanged
+		Path second = this.export("second.zip", List.of(b), first);
+		ExportManifest manifest = ExportManifest.read(second);
+		assertTrue(manifest.getChanged().isEmpty());
+		assertTrue(manifest.getRemoved().isEmpty());
+
+		assertEquals(Set.of(a, b), this.restore(full, first, second));
+	}
+}
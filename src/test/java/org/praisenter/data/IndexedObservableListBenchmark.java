@@ -0,0 +1,176 @@
+package org.praisenter.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.praisenter.data.song.Song;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+/**
+ * Compares the id lookup, replacement and removal (single and batch) of the 
+ * {@link IndexedObservableList} with the linear scans of a plain observable list over 
+ * store sizes from 1k to 100k.
+ * <p>
+ * Run with the main method or with the JMH runner on the test classpath.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexedObservableListBenchmark {
+	/** The number of items removed by the batch removals */
+	private static final int BATCH_SIZE = 100;
+	
+	/** The number of items in the store */
+	@Param({ "1000", "10000", "100000" })
+	public int size;
+	
+	private IndexedObservableList<Song> indexed;
+	private ObservableList<Song> list;
+	private UUID[] ids;
+	private Random random;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		List<Song> songs = new ArrayList<>(this.size);
+		this.ids = new UUID[this.size];
+		for (int i = 0; i < this.size; i++) {
+			Song song = new Song();
+			song.setName("Song " + i);
+			songs.add(song);
+			this.ids[i] = song.getId();
+		}
+		
+		this.indexed = new IndexedObservableList<>();
+		this.indexed.addAll(songs);
+		this.list = FXCollections.observableArrayList(songs);
+		this.random = new Random(42);
+	}
+	
+	private UUID nextId() {
+		return this.ids[this.random.nextInt(this.ids.length)];
+	}
+	
+	private Song find(UUID id) {
+		for (Song song : this.list) {
+			if (song.getId().equals(id)) {
+				return song;
+			}
+		}
+		return null;
+	}
+	
+	@Benchmark
+	public Song getIndexed() {
+		return this.indexed.get(this.nextId());
+	}
+	
+	@Benchmark
+	public Song getLinear() {
+		return this.find(this.nextId());
+	}
+	
+	@Benchmark
+	public boolean replaceIndexed() {
+		Song song = this.indexed.get(this.nextId());
+		return this.indexed.replace(song);
+	}
+	
+	@Benchmark
+	public boolean replaceLinear() {
+		UUID id = this.nextId();
+		for (int i = 0; i < this.list.size(); i++) {
+			Song song = this.list.get(i);
+			if (song.getId().equals(id)) {
+				this.list.set(i, song);
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Removes and re-adds an item so the size stays the same.
+	 */
+	@Benchmark
+	public Song removeIndexed() {
+		Song song = this.indexed.remove(this.nextId());
+		this.indexed.add(song);
+		return song;
+	}
+	
+	/**
+	 * Removes (using removeIf) and re-adds an item so the size stays the same.
+	 */
+	@Benchmark
+	public Song removeLinear() {
+		UUID id = this.nextId();
+		Song song = this.find(id);
+		this.list.removeIf((s) -> s.getId().equals(id));
+		this.list.add(song);
+		return song;
+	}
+	
+	/**
+	 * Removes and re-adds a batch of items (like a bulk delete) so the size stays the same.
+	 */
+	@Benchmark
+	public int removeBatchIndexed() {
+		int start = this.random.nextInt(this.ids.length - BATCH_SIZE);
+		List<Song> removed = new ArrayList<>(BATCH_SIZE);
+		for (int i = start; i < start + BATCH_SIZE; i++) {
+			removed.add(this.indexed.remove(this.ids[i]));
+		}
+		this.indexed.addAll(removed);
+		return removed.size();
+	}
+	
+	/**
+	 * Removes (using removeIf) and re-adds a batch of items so the size stays the same.
+	 */
+	@Benchmark
+	public int removeBatchLinear() {
+		int start = this.random.nextInt(this.ids.length - BATCH_SIZE);
+		List<Song> removed = new ArrayList<>(BATCH_SIZE);
+		for (int i = start; i < start + BATCH_SIZE; i++) {
+			UUID id = this.ids[i];
+			removed.add(this.find(id));
+			this.list.removeIf((s) -> s.getId().equals(id));
+		}
+		this.list.addAll(removed);
+		return removed.size();
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(IndexedObservableListBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
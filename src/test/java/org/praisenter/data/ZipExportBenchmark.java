@@ -0,0 +1,141 @@
+package org.praisenter.data;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.file.PathUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares a {@link ZipExport} of a workspace-like set of files (many small JSON files and
+ * a few large, already compressed media files) with writing every entry deflated through
+ * one {@link ZipArchiveOutputStream} on one thread.
+ * <p>
+ * Run with the main method or with the JMH runner on the test classpath.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ZipExportBenchmark {
+	/** The number of JSON files */
+	@Param({ "2000" })
+	public int jsonCount;
+	
+	/** The number of media files */
+	@Param({ "10" })
+	public int mediaCount;
+	
+	/** The size of each media file in MB */
+	@Param({ "20" })
+	public int mediaSize;
+	
+	private Path folder;
+	private Path target;
+	private List<Path> files;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		this.folder = Files.createTempDirectory("zip-export-benchmark");
+		this.target = this.folder.resolve("export.zip");
+		this.files = new ArrayList<>();
+		
+		Path data = Files.createDirectories(this.folder.resolve("data"));
+		Random random = new Random(42);
+		for (int i = 0; i < this.jsonCount; i++) {
+			StringBuilder sb = new StringBuilder("{\"name\":\"Song " + i + "\",\"lyrics\":[");
+			for (int j = 0; j < 50; j++) {
+				sb.append("{\"text\":\"Amazing grace how sweet the sound that saved a wretch like me ").append(random.nextInt()).append("\"},");
+			}
+			sb.append("{}]}");
+			Path file = data.resolve("song-" + i + ".json");
+			Files.writeString(file, sb.toString(), StandardCharsets.UTF_8);
+			this.files.add(file);
+		}
+		
+		// random bytes don't compress, like video
+		byte[] bytes = new byte[this.mediaSize * 1024 * 1024];
+		for (int i = 0; i < this.mediaCount; i++) {
+			random.nextBytes(bytes);
+			Path file = data.resolve("video-" + i + ".mp4");
+			Files.write(file, bytes);
+			this.files.add(file);
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		PathUtils.deleteDirectory(this.folder);
+	}
+	
+	private ZipArchiveOutputStream open() throws IOException {
+		return new ZipArchiveOutputStream(this.target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+	}
+	
+	@Benchmark
+	public void export() throws IOException, InterruptedException {
+		try (ZipArchiveOutputStream zos = this.open();
+			 ZipExport export = new ZipExport(zos, (p) -> {})) {
+			for (Path file : this.files) {
+				export.addFile(Paths.get("data", file.getFileName().toString()), file);
+			}
+			export.finish();
+		}
+	}
+	
+	/**
+	 * The export before {@link ZipExport}.
+	 */
+	@Benchmark
+	public void exportSingleThreaded() throws IOException {
+		try (ZipArchiveOutputStream zos = this.open()) {
+			for (Path file : this.files) {
+				ZipArchiveEntry entry = new ZipArchiveEntry("data/" + file.getFileName().toString());
+				entry.setMethod(ZipEntry.DEFLATED);
+				zos.putArchiveEntry(entry);
+				Files.copy(file, zos);
+				zos.closeArchiveEntry();
+			}
+			zos.finish();
+		}
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(ZipExportBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,227 @@
+package org.praisenter.data.bible;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.file.PathUtils;
+import org.apache.lucene.document.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.praisenter.data.DataImportResult;
+import org.praisenter.data.PersistAdapter;
+
+/**
+ * Measures the import throughput of full size (31,102 verse) Unbound Bible and Zefania XML
+ * files and the generation of the bible's search documents.
+ * <p>
+ * The sample files are written from {@link BibleNavigationBenchmark#createBible()} at setup.
+ * The imported bibles are given to an adapter that does nothing so that only the parsing
+ * is measured.
+ * <p>
+ * Run with the main method or with the JMH runner on the test classpath.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BibleImportBenchmark {
+	private Path folder;
+	private Path unbound;
+	private Path zefania;
+	private Bible bible;
+	private PersistAdapter<Bible> adapter;
+	
+	@Setup(Level.Trial)
+	@SuppressWarnings("unchecked")
+	public void setup() throws IOException, XMLStreamException {
+		this.folder = Files.createTempDirectory("bible-import-benchmark");
+		this.bible = BibleNavigationBenchmark.createBible();
+		
+		this.unbound = this.folder.resolve("benchmark.zip");
+		writeUnbound(this.unbound, this.bible);
+		
+		this.zefania = this.folder.resolve("benchmark.xml");
+		writeZefania(this.zefania, this.bible);
+		
+		// only upsert is used by the providers
+		this.adapter = (PersistAdapter<Bible>)Proxy.newProxyInstance(
+				PersistAdapter.class.getClassLoader(), 
+				new Class<?>[] { PersistAdapter.class }, 
+				(proxy, method, args) -> {
+					if (method.getName().equals("upsert")) {
+						return false;
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+		
+		if (this.verses(this.importUnbound()) != BibleNavigationBenchmark.VERSES ||
+			this.verses(this.importZefania()) != BibleNavigationBenchmark.VERSES) {
+			throw new IllegalStateException("The imported bibles don't have " + BibleNavigationBenchmark.VERSES + " verses");
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		PathUtils.deleteDirectory(this.folder);
+	}
+	
+	private static void writeUnbound(Path path, Bible bible) throws IOException {
+		try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(path))) {
+			zos.putNextEntry(new ZipEntry("book_names.txt"));
+			StringBuilder sb = new StringBuilder();
+			for (Book book : bible.getBooks()) {
+				sb.append(String.format("%02dO", book.getNumber())).append('\t').append(book.getName()).append('\n');
+			}
+			zos.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+			zos.closeEntry();
+			
+			zos.putNextEntry(new ZipEntry("benchmark_utf8.txt"));
+			Writer writer = new OutputStreamWriter(zos, StandardCharsets.UTF_8);
+			writer.write("#name\tBenchmark\n");
+			writer.write("#language\teng\n");
+			writer.write("#columns\torig_book_index\torig_chapter\torig_verse\torig_subverse\torder_by\ttext\n");
+			int order = 0;
+			for (Book book : bible.getBooks()) {
+				String code = String.format("%02dO", book.getNumber());
+				for (Chapter chapter : book.getChapters()) {
+					for (Verse verse : chapter.getVerses()) {
+						order += 10;
+						writer.write(code + "\t" + chapter.getNumber() + "\t" + verse.getNumber() + "\t\t" + order + "\t" + verse.getText() + "\n");
+					}
+				}
+			}
+			writer.flush();
+			zos.closeEntry();
+		}
+	}
+	
+	private static void writeZefania(Path path, Bible bible) throws IOException, XMLStreamException {
+		try (OutputStream stream = Files.newOutputStream(path)) {
+			XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(stream, "UTF-8");
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeStartElement("XMLBIBLE");
+			writer.writeAttribute("biblename", "Benchmark");
+			for (Book book : bible.getBooks()) {
+				writer.writeStartElement("BIBLEBOOK");
+				writer.writeAttribute("bnumber", String.valueOf(book.getNumber()));
+				writer.writeAttribute("bname", book.getName());
+				for (Chapter chapter : book.getChapters()) {
+					writer.writeStartElement("CHAPTER");
+					writer.writeAttribute("cnumber", String.valueOf(chapter.getNumber()));
+					for (Verse verse : chapter.getVerses()) {
+						writer.writeStartElement("VERS");
+						writer.writeAttribute("vnumber", String.valueOf(verse.getNumber()));
+						writer.writeCharacters(verse.getText());
+						writer.writeEndElement();
+					}
+					writer.writeEndElement();
+				}
+				writer.writeEndElement();
+			}
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.close();
+		}
+	}
+	
+	private int verses(Bible bible) {
+		int n = 0;
+		for (Book book : bible.getBooks()) {
+			for (Chapter chapter : book.getChapters()) {
+				n += chapter.getVerses().size();
+			}
+		}
+		return n;
+	}
+	
+	@Benchmark
+	public Bible importUnbound() throws IOException {
+		DataImportResult<Bible> result = new UnboundBibleFormatProvider().imp(this.adapter, this.unbound);
+		return result.getCreated().get(0);
+	}
+	
+	@Benchmark
+	public Bible importZefania() throws IOException {
+		DataImportResult<Bible> result = new ZefaniaBibleFormatProvider().imp(this.adapter, this.zefania);
+		return result.getCreated().get(0);
+	}
+	
+	/**
+	 * Splits every line of the Unbound verse file with {@link String#split(String)} the way
+	 * the importer did before the tab tokenizer.  Only the tokenizing is measured.
+	 */
+	@Benchmark
+	public int tokenizeUnboundWithSplit() throws IOException {
+		int n = 0;
+		try (ZipFile zipFile = ZipFile.builder().setPath(this.unbound).get();
+			 BufferedReader reader = new BufferedReader(new InputStreamReader(zipFile.getInputStream(zipFile.getEntry("benchmark_utf8.txt")), StandardCharsets.UTF_8))) {
+			String line = null;
+			while ((line = reader.readLine()) != null) {
+				if (!line.startsWith("#")) {
+					n += line.split("\\t").length;
+				}
+			}
+		}
+		return n;
+	}
+	
+	@Benchmark
+	public int documents() {
+		int n = 0;
+		for (Document document : this.bible.documents()) {
+			n += document.getFields().size();
+		}
+		return n;
+	}
+	
+	/**
+	 * Generates all the search documents up front the way indexing did before
+	 * {@link Bible#documents()}.
+	 */
+	@Benchmark
+	public int documentsAsList() {
+		return this.bible.index().size();
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(BibleImportBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
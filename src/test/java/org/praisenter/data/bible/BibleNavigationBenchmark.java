@@ -0,0 +1,139 @@
+package org.praisenter.data.bible;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Walks a full size (31,102 verse) bible verse by verse the way the bible navigation does,
+ * using {@link Bible#getNextVerse(int, int, int)} and {@link Bible#getNextTriplet(int, int, int)}.
+ * <p>
+ * Run with the main method or with the JMH runner on the test classpath.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BibleNavigationBenchmark {
+	/** The number of books in the bible */
+	private static final int BOOKS = 66;
+	
+	/** The number of chapters in the bible */
+	private static final int CHAPTERS = 1189;
+	
+	/** The number of verses in the bible */
+	static final int VERSES = 31102;
+	
+	private Bible bible;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		this.bible = createBible();
+		if (this.walk() != VERSES) {
+			throw new IllegalStateException("The bible doesn't have " + VERSES + " verses");
+		}
+	}
+	
+	/**
+	 * Returns a bible with the same number of books, chapters and verses as most bibles.
+	 * @return {@link Bible}
+	 */
+	static Bible createBible() {
+		BibleImportBuilder builder = new BibleImportBuilder(new Bible());
+		int chapter = 0;
+		for (int b = 0; b < BOOKS; b++) {
+			builder.startBook(b + 1, "Book " + (b + 1));
+			int chapters = CHAPTERS / BOOKS + (b < CHAPTERS % BOOKS ? 1 : 0);
+			for (int c = 0; c < chapters; c++, chapter++) {
+				builder.startChapter(c + 1);
+				int verses = VERSES / CHAPTERS + (chapter < VERSES % CHAPTERS ? 1 : 0);
+				for (int v = 0; v < verses; v++) {
+					builder.addVerse(v + 1, "In the beginning God created the heaven and the earth " + chapter + ":" + v);
+				}
+			}
+		}
+		return builder.build();
+	}
+	
+	/**
+	 * Walks the whole bible with getNextVerse.
+	 * @return int the number of verses visited
+	 */
+	@Benchmark
+	public int walk() {
+		int count = 0;
+		LocatedVerse verse = this.bible.getVerse(1, 1, 1);
+		while (verse != null) {
+			count++;
+			verse = this.bible.getNextVerse(
+					verse.getBook().getNumber(), 
+					verse.getChapter().getNumber(), 
+					verse.getVerse().getNumber());
+		}
+		return count;
+	}
+	
+	/**
+	 * Walks the whole bible with getNextTriplet.
+	 * @return int the number of verses visited
+	 */
+	@Benchmark
+	public int walkTriplets() {
+		int count = 0;
+		LocatedVerseTriplet triplet = this.bible.getTriplet(1, 1, 1);
+		while (triplet != null) {
+			count++;
+			LocatedVerse verse = triplet.getCurrent();
+			triplet = this.bible.getNextTriplet(
+					verse.getBook().getNumber(), 
+					verse.getChapter().getNumber(), 
+					verse.getVerse().getNumber());
+		}
+		return count;
+	}
+	
+	/**
+	 * Replaces a verse (invalidating the index) and looks up the last verse, including the index rebuild.
+	 * @return {@link LocatedVerse}
+	 */
+	@Benchmark
+	public LocatedVerse lookupAfterEdit() {
+		this.bible.getBooks().get(0).getChapters().get(0).getVerses().set(0, new Verse(1, "In the beginning"));
+		return this.bible.getVerse(BOOKS, CHAPTERS / BOOKS, VERSES / CHAPTERS);
+	}
+	
+	/**
+	 * Looks up a verse that doesn't exist (like a mistyped reference), which shouldn't rebuild the index.
+	 * @return {@link LocatedVerse}
+	 */
+	@Benchmark
+	public LocatedVerse lookupMissing() {
+		return this.bible.getVerse(BOOKS, CHAPTERS / BOOKS, 999);
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(BibleNavigationBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,167 @@
+package org.praisenter.data.search;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.file.PathUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.praisenter.data.song.Lyrics;
+import org.praisenter.data.song.Section;
+import org.praisenter.data.song.Song;
+
+/**
+ * Measures the per-operation latency of the {@link SearchIndex}.
+ * <p>
+ * The shared writer is compared against committing after every change (the cost each change
+ * paid when a writer was opened and committed per operation) and the near-real-time searcher
+ * is compared against opening a new reader for every search (as search-as-you-type did).
+ * <p>
+ * Run with the main method or with the JMH runner on the test classpath.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchIndexBenchmark {
+	private static final String[] WORDS = { 
+		"amazing", "grace", "how", "sweet", "the", "sound", "that", "saved", "a", "wretch", 
+		"like", "me", "i", "once", "was", "lost", "but", "now", "am", "found", "blind", "see" 
+	};
+	
+	/** The number of songs in the index */
+	@Param({ "1000", "10000" })
+	public int size;
+	
+	private Path path;
+	private FSDirectory directory;
+	private Analyzer analyzer;
+	private SearchIndex index;
+	private List<Song> songs;
+	private SearchCriteria criteria;
+	private int next;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		this.path = Files.createTempDirectory("search-index-benchmark");
+		this.directory = FSDirectory.open(this.path);
+		this.analyzer = new StandardAnalyzer(new CharArraySet(1, false));
+		this.index = new SearchIndex(this.directory, this.analyzer);
+		
+		this.songs = new ArrayList<>(this.size);
+		for (int i = 0; i < this.size; i++) {
+			this.songs.add(createSong(i));
+		}
+		this.index.reindex(this.songs);
+		
+		this.criteria = new SearchCriteria(Indexable.FIELD_TEXT, "grace sound", SearchType.ALL_WORDS, false, 25);
+		this.next = 0;
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		this.index.close();
+		this.directory.close();
+		PathUtils.deleteDirectory(this.path);
+	}
+	
+	private static Song createSong(int n) {
+		Section section = new Section();
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 40; i++) {
+			sb.append(WORDS[(n * 7 + i * 3) % WORDS.length]).append(i % 8 == 7 ? "\n" : " ");
+		}
+		section.setText(sb.toString());
+		
+		Lyrics lyrics = new Lyrics();
+		lyrics.setTitle("Song " + n);
+		lyrics.getSections().add(section);
+		
+		Song song = new Song();
+		song.setName("Song " + n);
+		song.getLyrics().add(lyrics);
+		return song;
+	}
+	
+	private Song nextSong() {
+		Song song = this.songs.get(this.next);
+		this.next = (this.next + 1) % this.songs.size();
+		return song;
+	}
+	
+	/**
+	 * An update with the shared writer (visible to the next search, committed later).
+	 */
+	@Benchmark
+	public void update() throws IOException {
+		this.index.update(this.nextSong());
+	}
+	
+	/**
+	 * An update followed by a commit, the cost of each update before the writer was shared.
+	 */
+	@Benchmark
+	public void updateAndCommit() throws IOException {
+		this.index.update(this.nextSong());
+		this.index.commit();
+	}
+	
+	/**
+	 * A search against the near-real-time searcher.
+	 */
+	@Benchmark
+	public SearchResults search() throws IOException {
+		return this.index.search(this.criteria);
+	}
+	
+	/**
+	 * A search that opens a new reader, the cost of each search before the searcher was shared.
+	 */
+	@Benchmark
+	public TopDocs searchWithNewReader() throws IOException {
+		Query query = this.criteria.createQuery(this.analyzer);
+		try (DirectoryReader reader = DirectoryReader.open(this.directory)) {
+			IndexSearcher searcher = new IndexSearcher(reader);
+			return searcher.search(query, this.criteria.getMaxResults() + 1);
+		}
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(SearchIndexBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,133 @@
+package org.praisenter.ui;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.file.PathUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.praisenter.data.media.MediaImageSize;
+
+import javafx.application.Platform;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+
+/**
+ * Compares the decode time of {@link ImageDecoder} with reading the image with ImageIO and
+ * converting it with SwingFXUtils for a few image sizes and formats.  PNG and JPEG are decoded
+ * by Java FX itself and TIFF goes through ImageIO.
+ * <p>
+ * The main method adds the GC profiler; its gc.alloc.rate.norm is the number of bytes
+ * allocated per decode, which is where the copy of the SwingFXUtils path shows up.
+ * <p>
+ * Run with the main method or with the JMH runner on the test classpath.
+ * @author William Bittle
+ * @version 3.1.5
+ * @since 3.1.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageDecoderBenchmark {
+	/** The width of the image (the height is 9/16 of the width) */
+	@Param({ "640", "1920", "3840" })
+	public int width;
+	
+	/** The ImageIO format name */
+	@Param({ "png", "jpg", "tiff" })
+	public String format;
+	
+	private Path folder;
+	private Path path;
+	
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		startPlatform();
+		
+		int height = this.width * 9 / 16;
+		BufferedImage image = new BufferedImage(this.width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setPaint(new GradientPaint(0, 0, Color.ORANGE, this.width, height, Color.BLUE));
+			g.fillRect(0, 0, this.width, height);
+			g.setColor(Color.WHITE);
+			for (int i = 0; i < this.width; i += 40) {
+				g.drawLine(i, 0, this.width - i, height);
+			}
+		} finally {
+			g.dispose();
+		}
+		
+		this.folder = Files.createTempDirectory("image-decoder-benchmark");
+		this.path = this.folder.resolve("image." + this.format);
+		if (!ImageIO.write(image, this.format, this.path.toFile())) {
+			throw new IllegalStateException("No ImageIO writer for " + this.format);
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		PathUtils.deleteDirectory(this.folder);
+	}
+	
+	private static void startPlatform() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		try {
+			Platform.startup(latch::countDown);
+		} catch (IllegalStateException ex) {
+			// already started
+			latch.countDown();
+		}
+		latch.await();
+	}
+	
+	@Benchmark
+	public Image decode() throws IOException {
+		return ImageDecoder.decode(this.path, MediaImageSize.FULL);
+	}
+	
+	/**
+	 * The decode before {@link ImageDecoder}.
+	 */
+	@Benchmark
+	public Image decodeWithSwingFXUtils() throws IOException {
+		BufferedImage image = ImageIO.read(this.path.toFile());
+		return SwingFXUtils.toFXImage(image, null);
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(ImageDecoderBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}